@@ -39,6 +39,8 @@ dependencies {
     testImplementation("org.hamcrest:hamcrest-all:1.3")
     // https://mvnrepository.com/artifact/org.openjdk.jmh/jmh-generator-annprocess
     testImplementation("org.openjdk.jmh:jmh-generator-annprocess:1.33")
+    // generate TweeCache classes for test model classes at compile time
+    testAnnotationProcessor(project(":tweecache-processor"))
 }
 
 tasks.getByName<Test>("test") {
@@ -0,0 +1,373 @@
+package com.github.darrmirr.tweecache.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * Annotation processor generates TweeCache classes at compile time for classes annotated by
+ * {@code com.github.darrmirr.tweecache.annotation.TweeTable}:
+ *     - row accessor that reads public fields without reflection
+ *     - row mapper that maps SQL-query result set row to table class instance
+ *     - schema class for each schema name declared at annotation. Schema class is placed at package of table class
+ *       which table name goes first at schema.
+ *
+ * TweeCache picks generated classes up at runtime if they are present at classpath.
+ * Therefore, generated class names must be the same as ones TweeCache looks for.
+ */
+@SupportedAnnotationTypes(TweeTableProcessor.TWEE_TABLE_ANNOTATION)
+public class TweeTableProcessor extends AbstractProcessor {
+    static final String TWEE_TABLE_ANNOTATION = "com.github.darrmirr.tweecache.annotation.TweeTable";
+    private static final String SCHEMA_CLASS_SUFFIX = "Schema";
+    private static final String ACCESSOR_CLASS_SUFFIX = "TweeAccessor";
+    private static final String ROW_MAPPER_CLASS_SUFFIX = "TweeRowMapper";
+    private final Map<String, Map<String, TypeElement>> schemaTables = new TreeMap<>();
+    private final Set<String> writtenSchemas = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Set<String> roundSchemas = new TreeSet<>();
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.CLASS) {
+                    messager().printMessage(Diagnostic.Kind.ERROR, "@TweeTable is applicable to classes only", element);
+                    continue;
+                }
+                TypeElement tableClass = (TypeElement) element;
+                AnnotationMirror tweeTable = annotationMirror(tableClass, annotation);
+                List<VariableElement> fields = publicFields(tableClass);
+                writeRowAccessor(tableClass, fields);
+                writeRowMapper(tableClass, fields);
+
+                String tableName = annotationValue(tweeTable, "name")
+                        .map(value -> (String) value.getValue())
+                        .filter(name -> !name.isEmpty())
+                        .orElseGet(() -> tableClass.getSimpleName().toString().toLowerCase());
+                for (String schemaName : schemaNames(tweeTable)) {
+                    schemaTables
+                            .computeIfAbsent(schemaName, key -> new TreeMap<>())
+                            .put(tableName, tableClass);
+                    roundSchemas.add(schemaName);
+                }
+            }
+        }
+        for (String schemaName : roundSchemas) {
+            if (!writtenSchemas.add(schemaName)) {
+                messager().printMessage(Diagnostic.Kind.ERROR, "tables of schema '" + schemaName + "' must be declared at the same compilation round");
+                continue;
+            }
+            writeSchema(schemaName, schemaTables.get(schemaName));
+        }
+        return true;
+    }
+
+    /**
+     * Write row accessor that implements com.github.darrmirr.tweecache.accessor.RowAccessor interface
+     *
+     * @param tableClass table row class
+     * @param fields public non-static fields in the same order as {@link Class#getFields()} returns
+     */
+    private void writeRowAccessor(TypeElement tableClass, List<VariableElement> fields) {
+        String tableClassName = tableClass.getQualifiedName().toString();
+        StringBuilder fieldNames = new StringBuilder();
+        StringBuilder get = new StringBuilder();
+        StringBuilder getInt = new StringBuilder();
+        StringBuilder getLong = new StringBuilder();
+        StringBuilder getDouble = new StringBuilder();
+        StringBuilder copy = new StringBuilder();
+        for (int i = 0; i < fields.size(); i++) {
+            String fieldName = fields.get(i).getSimpleName().toString();
+            TypeKind kind = fields.get(i).asType().getKind();
+            String readField = "            case " + i + ": return r." + fieldName + ";\n";
+            fieldNames.append(i == 0 ? "" : ", ").append('"').append(fieldName).append('"');
+            get.append(readField);
+            if (kind == TypeKind.INT || kind == TypeKind.SHORT || kind == TypeKind.BYTE || kind == TypeKind.CHAR) {
+                getInt.append(readField);
+            }
+            if (kind.isPrimitive() && kind != TypeKind.BOOLEAN && kind != TypeKind.FLOAT && kind != TypeKind.DOUBLE) {
+                getLong.append(readField);
+            }
+            if (kind.isPrimitive() && kind != TypeKind.BOOLEAN) {
+                getDouble.append(readField);
+            }
+            copy.append("        values[").append(i).append("] = r.").append(fieldName).append(";\n");
+        }
+        String accessorClassName = generatedClassName(tableClass, ACCESSOR_CLASS_SUFFIX);
+        String source = packageDeclaration(tableClass) +
+                "public final class " + simpleName(accessorClassName) + " implements com.github.darrmirr.tweecache.accessor.RowAccessor {\n" +
+                "    private static final String[] FIELD_NAMES = { " + fieldNames + " };\n\n" +
+                "    @Override\n" +
+                "    public Class<?> getTableClass() {\n" +
+                "        return " + tableClassName + ".class;\n" +
+                "    }\n\n" +
+                "    @Override\n" +
+                "    public String[] getFieldNames() {\n" +
+                "        return FIELD_NAMES.clone();\n" +
+                "    }\n\n" +
+                switchMethod("Object", "get", tableClassName, get) +
+                switchMethod("int", "getInt", tableClassName, getInt) +
+                switchMethod("long", "getLong", tableClassName, getLong) +
+                switchMethod("double", "getDouble", tableClassName, getDouble) +
+                "    @Override\n" +
+                "    public void copy(Object row, Object[] values) {\n" +
+                "        " + tableClassName + " r = (" + tableClassName + ") row;\n" +
+                copy +
+                "    }\n" +
+                "}\n";
+        writeSource(accessorClassName, source, tableClass);
+    }
+
+    private String switchMethod(String returnType, String methodName, String tableClassName, StringBuilder cases) {
+        return "    @Override\n" +
+                "    public " + returnType + " " + methodName + "(Object row, int field) {\n" +
+                "        " + tableClassName + " r = (" + tableClassName + ") row;\n" +
+                "        switch (field) {\n" +
+                cases +
+                "            default: throw new IllegalArgumentException(\"field \" + field + \" cannot be read by " + methodName + "\");\n" +
+                "        }\n" +
+                "    }\n\n";
+    }
+
+    /**
+     * Write row mapper that implements {@code Function<ResultSet, T>} interface.
+     *
+     * Row mapper is not generated if table class has no accessible no-argument constructor.
+     * Fields of unsupported types are skipped.
+     *
+     * @param tableClass table row class
+     * @param fields public non-static fields
+     */
+    private void writeRowMapper(TypeElement tableClass, List<VariableElement> fields) {
+        if (!hasNoArgConstructor(tableClass)) {
+            messager().printMessage(Diagnostic.Kind.NOTE, "row mapper is not generated due to class has no accessible no-argument constructor", tableClass);
+            return;
+        }
+        String tableClassName = tableClass.getQualifiedName().toString();
+        StringBuilder mapping = new StringBuilder();
+        for (VariableElement field : fields) {
+            String fieldName = field.getSimpleName().toString();
+            String column = '"' + fieldName + '"';
+            TypeMirror type = field.asType();
+            String primitiveGetter = primitiveGetter(type);
+            String boxedGetter = primitiveGetter(boxedToPrimitive(type));
+            if (primitiveGetter != null) {
+                mapping.append("            row.").append(fieldName).append(" = resultSet.").append(primitiveGetter).append("(").append(column).append(");\n");
+            } else if (boxedGetter != null) {
+                mapping.append("            row.").append(fieldName).append(" = ").append(type).append(".valueOf(resultSet.").append(boxedGetter).append("(").append(column).append("));\n")
+                        .append("            if (resultSet.wasNull()) {\n")
+                        .append("                row.").append(fieldName).append(" = null;\n")
+                        .append("            }\n");
+            } else if (isType(type, "java.lang.String")) {
+                mapping.append("            row.").append(fieldName).append(" = resultSet.getString(").append(column).append(");\n");
+            } else if (isType(type, "java.math.BigDecimal")) {
+                mapping.append("            row.").append(fieldName).append(" = resultSet.getBigDecimal(").append(column).append(");\n");
+            } else if (isType(type, "java.util.Date")) {
+                String timestamp = fieldName + "Timestamp";
+                mapping.append("            java.sql.Timestamp ").append(timestamp).append(" = resultSet.getTimestamp(").append(column).append(", java.util.Calendar.getInstance(UTC));\n")
+                        .append("            row.").append(fieldName).append(" = ").append(timestamp).append(" == null ? null : new java.util.Date(").append(timestamp).append(".getTime());\n");
+            } else {
+                messager().printMessage(Diagnostic.Kind.NOTE, "field is skipped by generated row mapper due to its type is not supported", field);
+            }
+        }
+        String rowMapperClassName = generatedClassName(tableClass, ROW_MAPPER_CLASS_SUFFIX);
+        String source = packageDeclaration(tableClass) +
+                "public final class " + simpleName(rowMapperClassName) + " implements java.util.function.Function<java.sql.ResultSet, " + tableClassName + "> {\n" +
+                "    private static final java.util.TimeZone UTC = java.util.TimeZone.getTimeZone(\"UTC\");\n\n" +
+                "    @Override\n" +
+                "    public " + tableClassName + " apply(java.sql.ResultSet resultSet) {\n" +
+                "        try {\n" +
+                "            " + tableClassName + " row = new " + tableClassName + "();\n" +
+                mapping +
+                "            return row;\n" +
+                "        } catch (java.sql.SQLException e) {\n" +
+                "            throw new IllegalStateException(\"error to map result set row to " + tableClassName + "\", e);\n" +
+                "        }\n" +
+                "    }\n" +
+                "}\n";
+        writeSource(rowMapperClassName, source, tableClass);
+    }
+
+    /**
+     * Write schema class with the same structure as com.github.darrmirr.tweecache.builder.SchemaBuilder compiles at runtime.
+     * Schema class is placed at package of table class which table name goes first, SchemaBuilder looks for it
+     * at packages of schema table classes.
+     *
+     * @param schemaName schema name
+     * @param tables table classes by table names
+     */
+    private void writeSchema(String schemaName, Map<String, TypeElement> tables) {
+        StringBuilder fields = new StringBuilder();
+        for (Map.Entry<String, TypeElement> table : tables.entrySet()) {
+            if (!table.getValue().getModifiers().contains(Modifier.PUBLIC)) {
+                messager().printMessage(Diagnostic.Kind.ERROR, "table class of schema '" + schemaName + "' must be public", table.getValue());
+                return;
+            }
+            String tableClassName = table.getValue().getQualifiedName().toString();
+            fields.append("    @org.apache.calcite.adapter.java.Array(component = ").append(tableClassName).append(".class)\n")
+                    .append("    public java.util.Collection<").append(tableClassName).append("> ").append(table.getKey()).append(";\n");
+        }
+        TypeElement firstTable = tables.values().iterator().next();
+        String packageName = packageName(firstTable);
+        String simpleName = schemaName.substring(0, 1).toUpperCase() + schemaName.substring(1) + SCHEMA_CLASS_SUFFIX;
+        String schemaClassName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        String source = packageDeclaration(firstTable) +
+                "public class " + simpleName(schemaClassName) + " {\n" +
+                fields +
+                "}\n";
+        writeSource(schemaClassName, source, tables.values().toArray(new Element[0]));
+    }
+
+    /**
+     * Collect public non-static fields in the same order as {@link Class#getFields()} returns:
+     * declared fields go first and superclass fields follow them.
+     *
+     * @param tableClass table row class
+     * @return public non-static fields
+     */
+    private List<VariableElement> publicFields(TypeElement tableClass) {
+        List<VariableElement> fields = new ArrayList<>();
+        TypeElement currentClass = tableClass;
+        while (currentClass != null && !currentClass.getQualifiedName().contentEquals(Object.class.getName())) {
+            for (VariableElement field : ElementFilter.fieldsIn(currentClass.getEnclosedElements())) {
+                if (field.getModifiers().contains(Modifier.PUBLIC) && !field.getModifiers().contains(Modifier.STATIC)) {
+                    fields.add(field);
+                }
+            }
+            TypeMirror superclass = currentClass.getSuperclass();
+            currentClass = superclass.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+        }
+        return fields;
+    }
+
+    private boolean hasNoArgConstructor(TypeElement tableClass) {
+        if (tableClass.getModifiers().contains(Modifier.ABSTRACT)
+                || (tableClass.getNestingKind() == NestingKind.MEMBER && !tableClass.getModifiers().contains(Modifier.STATIC))) {
+            return false;
+        }
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(tableClass.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String primitiveGetter(TypeMirror type) {
+        if (type == null) {
+            return null;
+        }
+        switch (type.getKind()) {
+            case BOOLEAN: return "getBoolean";
+            case BYTE: return "getByte";
+            case SHORT: return "getShort";
+            case INT: return "getInt";
+            case LONG: return "getLong";
+            case FLOAT: return "getFloat";
+            case DOUBLE: return "getDouble";
+            default: return null;
+        }
+    }
+
+    private TypeMirror boxedToPrimitive(TypeMirror type) {
+        try {
+            return processingEnv.getTypeUtils().unboxedType(type);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private boolean isType(TypeMirror type, String className) {
+        return type.getKind() == TypeKind.DECLARED
+                && ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().contentEquals(className);
+    }
+
+    private AnnotationMirror annotationMirror(TypeElement tableClass, TypeElement annotation) {
+        for (AnnotationMirror mirror : tableClass.getAnnotationMirrors()) {
+            if (mirror.getAnnotationType().asElement().equals(annotation)) {
+                return mirror;
+            }
+        }
+        throw new IllegalStateException("annotation " + annotation + " is not found at " + tableClass);
+    }
+
+    private Optional<AnnotationValue> annotationValue(AnnotationMirror mirror, String name) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : mirror.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                return Optional.of(entry.getValue());
+            }
+        }
+        return Optional.empty();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> schemaNames(AnnotationMirror tweeTable) {
+        List<String> schemaNames = new ArrayList<>();
+        annotationValue(tweeTable, "schemas")
+                .ifPresent(value -> {
+                    for (AnnotationValue schemaName : (List<? extends AnnotationValue>) value.getValue()) {
+                        schemaNames.add((String) schemaName.getValue());
+                    }
+                });
+        return schemaNames;
+    }
+
+    /**
+     * Build generated class name: table class binary name without package where '$' is replaced by '_' plus suffix.
+     * Generated class is placed at table class package.
+     *
+     * @param tableClass table row class
+     * @param suffix generated class name suffix
+     * @return generated class qualified name
+     */
+    private String generatedClassName(TypeElement tableClass, String suffix) {
+        String packageName = packageName(tableClass);
+        String binaryName = processingEnv.getElementUtils().getBinaryName(tableClass).toString();
+        String simpleName = binaryName.substring(packageName.isEmpty() ? 0 : packageName.length() + 1).replace('$', '_') + suffix;
+        return packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+    }
+
+    private String packageName(TypeElement tableClass) {
+        return processingEnv.getElementUtils().getPackageOf(tableClass).getQualifiedName().toString();
+    }
+
+    private String packageDeclaration(TypeElement tableClass) {
+        String packageName = packageName(tableClass);
+        return packageName.isEmpty() ? "" : "package " + packageName + ";\n\n";
+    }
+
+    private String simpleName(String className) {
+        return className.substring(className.lastIndexOf('.') + 1);
+    }
+
+    private void writeSource(String className, String source, Element... originatingElements) {
+        try {
+            JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(className, originatingElements);
+            try (Writer writer = sourceFile.openWriter()) {
+                writer.write(source);
+            }
+        } catch (IOException e) {
+            messager().printMessage(Diagnostic.Kind.ERROR, "error to write generated class '" + className + "' due to '" + e.getMessage() + "'");
+        }
+    }
+
+    private Messager messager() {
+        return processingEnv.getMessager();
+    }
+}
@@ -1,2 +1,5 @@
 rootProject.name = "tweecache"
 
+// annotation processor to generate TweeCache classes at compile time
+include("tweecache-processor")
+project(":tweecache-processor").projectDir = file("processor")
@@ -0,0 +1,175 @@
+package com.github.darrmirr.tweecache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.darrmirr.tweecache.test.model.Employee;
+import org.jdbi.v3.core.statement.ColonPrefixSqlParser;
+import org.jdbi.v3.core.statement.ParsedSql;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Benchmark measures cost of binding named parameters of SQL-query.
+ *
+ * Binding benchmarks do not execute SQL-query: named parameters are parsed at each call (as Jdbi does without cache)
+ * or taken from prepared query, then values are bound from map by name or by typed binder by index.
+ * Query benchmarks execute the same SQL-query with map parameters and with typed binder.
+ * GC profiler (gc.alloc.rate.norm) shows allocation of parsing and boxing.
+ */
+public class ParameterBindingBenchmark {
+    private static final String SQL_QUERY = "select emp.* from cacheParameterBinding.employee emp " +
+            "where emp.departmentId = :department_id and emp.id >= :min_id and emp.id < :max_id and emp.lastName <> :last_name";
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(ParameterBindingBenchmark.class.getSimpleName() + ".*")
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(opt).run();
+    }
+
+    @State(Scope.Benchmark)
+    public static class CacheState {
+        public TweeCache tweeCache;
+        public PreparedQuery preparedQuery;
+        public Function<ResultSet, Integer> mapper;
+
+        @Setup
+        public void setUp() {
+            tweeCache = TweeCache
+                    .builder("cacheParameterBinding")
+                    .withSchema(builder -> builder
+                            .addTable(Employee.class)
+                            .withStorage(Caffeine::build))
+                    // both query benchmarks are executed by Apache Calcite
+                    .withSqlFastPath(false)
+                    .build()
+                    .orElseThrow(IllegalStateException::new);
+            for (int i = 0; i < 1000; i++) {
+                Employee employee = new Employee();
+                employee.id = i;
+                employee.lastName = "employee " + i;
+                employee.departmentId = i % 10;
+                tweeCache.put(employee.id, employee);
+            }
+            preparedQuery = tweeCache.prepare(SQL_QUERY);
+            mapper = rs -> {
+                try {
+                    return rs.getInt("id");
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            };
+        }
+
+        @TearDown
+        public void tearDown() {
+            tweeCache.destroy();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class BindingState {
+        public ColonPrefixSqlParser jdbiParser;
+        public Map<String, Object> parameters;
+        public ParameterBinder binder;
+        public Object[] values;
+        public int departmentId;
+        public int minId;
+        public int maxId;
+        public int lastName;
+        private long next;
+
+        @Setup
+        public void setUp(CacheState cacheState) {
+            jdbiParser = new ColonPrefixSqlParser();
+            parameters = new HashMap<>();
+            parameters.put("department_id", 3L);
+            parameters.put("min_id", 100L);
+            parameters.put("max_id", 200L);
+            parameters.put("last_name", "absent");
+            binder = cacheState.preparedQuery.newBinder();
+            values = new Object[cacheState.preparedQuery.getPositionCount()];
+            departmentId = cacheState.preparedQuery.indexOf("department_id");
+            minId = cacheState.preparedQuery.indexOf("min_id");
+            maxId = cacheState.preparedQuery.indexOf("max_id");
+            lastName = cacheState.preparedQuery.indexOf("last_name");
+        }
+
+        public long next() {
+            next = (next + 1) & 0xFF;
+            return next;
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public ParsedSql jdbiParse(BindingState state) {
+        return state.jdbiParser.parse(SQL_QUERY, null);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object[] parseAndBindMap(BindingState state) {
+        PreparedQuery preparedQuery = PreparedQuery.parse(SQL_QUERY);
+        return bindMap(preparedQuery, state);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object[] preparedBindMap(CacheState cacheState, BindingState state) {
+        return bindMap(cacheState.preparedQuery, state);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public ParameterBinder preparedBindByIndex(BindingState state) {
+        long id = state.next();
+        return state.binder
+                .bind(state.departmentId, id % 10)
+                .bind(state.minId, id)
+                .bind(state.maxId, id + 100)
+                .bind(state.lastName, "absent");
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Integer> queryMapParameters(CacheState cacheState, BindingState state) {
+        return cacheState.tweeCache.query(SQL_QUERY, state.parameters, cacheState.mapper);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Integer> queryBinder(CacheState cacheState, BindingState state) {
+        return cacheState.tweeCache.query(state.binder
+                .bind(state.departmentId, 3L)
+                .bind(state.minId, 100L)
+                .bind(state.maxId, 200L)
+                .bind(state.lastName, "absent"), cacheState.mapper);
+    }
+
+    private static Object[] bindMap(PreparedQuery preparedQuery, BindingState state) {
+        Object[] values = state.values;
+        for (int position = 0; position < preparedQuery.getPositionCount(); position++) {
+            values[position] = state.parameters.get(preparedQuery.getParameterNames().get(preparedQuery.getParameterIndex(position)));
+        }
+        return values;
+    }
+}
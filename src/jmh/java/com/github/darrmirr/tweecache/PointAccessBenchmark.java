@@ -0,0 +1,107 @@
+package com.github.darrmirr.tweecache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.darrmirr.tweecache.builder.SchemaMode;
+import com.github.darrmirr.tweecache.test.model.Employee;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark measures time and allocation rate of point reads and writes by key.
+ * Table is resolved by row class at each call or taken from typed table handle.
+ * Keys are boxed in advance, so that allocation reported by GC profiler (gc.alloc.rate.norm) belongs to cache itself.
+ */
+public class PointAccessBenchmark {
+    private static final int ROW_COUNT = 1024;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(PointAccessBenchmark.class.getSimpleName() + ".*")
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(opt).run();
+    }
+
+    @State(Scope.Benchmark)
+    public static class CacheState {
+        public TweeCache tweeCache;
+        public TableHandle<Integer, Employee> employees;
+        public Integer[] keys;
+        public Employee[] rows;
+
+        @Setup
+        public void setUp() {
+            tweeCache = TweeCache
+                    .builder("cachePointAccess")
+                    .withSchema(builder -> builder
+                            .withMode(SchemaMode.DYNAMIC)
+                            .addTable(Employee.class)
+                            .withStorage(Caffeine::build))
+                    .build()
+                    .orElseThrow(IllegalStateException::new);
+            employees = tweeCache.table(Employee.class);
+            keys = new Integer[ROW_COUNT];
+            rows = new Employee[ROW_COUNT];
+            for (int i = 0; i < ROW_COUNT; i++) {
+                Employee employee = new Employee();
+                employee.id = i;
+                employee.lastName = "employee " + i;
+                keys[i] = employee.id;
+                rows[i] = employee;
+                employees.put(keys[i], employee);
+            }
+        }
+
+        @TearDown
+        public void tearDown() {
+            tweeCache.destroy();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class KeyState {
+        private int next;
+
+        public int next() {
+            next = (next + 1) & (ROW_COUNT - 1);
+            return next;
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Optional<Employee> getById(CacheState state, KeyState keyState) {
+        return state.tweeCache.getById(state.keys[keyState.next()], Employee.class);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Employee tableGet(CacheState state, KeyState keyState) {
+        return state.employees.get(state.keys[keyState.next()]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public TweeCache put(CacheState state, KeyState keyState) {
+        int i = keyState.next();
+        return state.tweeCache.put(state.keys[i], state.rows[i]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public TableHandle<Integer, Employee> tablePut(CacheState state, KeyState keyState) {
+        int i = keyState.next();
+        return state.employees.put(state.keys[i], state.rows[i]);
+    }
+}
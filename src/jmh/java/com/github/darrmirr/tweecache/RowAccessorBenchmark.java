@@ -0,0 +1,119 @@
+package com.github.darrmirr.tweecache;
+
+import com.github.darrmirr.tweecache.accessor.ReflectiveRowAccessor;
+import com.github.darrmirr.tweecache.accessor.RowAccessor;
+import com.github.darrmirr.tweecache.accessor.RowAccessors;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark compares full scan over wide table rows using by reflective and generated row accessors.
+ */
+public class RowAccessorBenchmark {
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(RowAccessorBenchmark.class.getSimpleName() + ".*")
+                .build();
+        new Runner(opt).run();
+    }
+
+    public static class WideRow {
+        public int id;
+        public long timestamp;
+        public int memory;
+        public double price;
+        public long counter1;
+        public long counter2;
+        public long counter3;
+        public int status;
+        public int category;
+        public double weight;
+        public double height;
+        public boolean active;
+        public String name;
+        public String description;
+        public Integer departmentId;
+        public long version;
+    }
+
+    @State(Scope.Benchmark)
+    public static class ScanState {
+        @Param({ "100000" })
+        public int rowCount;
+        public WideRow[] rows;
+        public RowAccessor reflectiveAccessor;
+        public RowAccessor generatedAccessor;
+        public Object[] values;
+
+        @Setup
+        public void setUp() {
+            rows = new WideRow[rowCount];
+            for (int i = 0; i < rowCount; i++) {
+                WideRow row = new WideRow();
+                row.id = i;
+                row.timestamp = System.currentTimeMillis() + i;
+                row.memory = i % 64;
+                row.price = i * 0.5;
+                row.name = "row" + i;
+                row.departmentId = i % 10;
+                rows[i] = row;
+            }
+            reflectiveAccessor = new ReflectiveRowAccessor(WideRow.class);
+            generatedAccessor = RowAccessors.compiled(WideRow.class);
+            values = new Object[generatedAccessor.getFieldNames().length];
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void copyReflective(ScanState state, Blackhole blackhole) {
+        copy(state, state.reflectiveAccessor, blackhole);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void copyGenerated(ScanState state, Blackhole blackhole) {
+        copy(state, state.generatedAccessor, blackhole);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long sumReflective(ScanState state) {
+        return sum(state, state.reflectiveAccessor);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long sumGenerated(ScanState state) {
+        return sum(state, state.generatedAccessor);
+    }
+
+    private void copy(ScanState state, RowAccessor accessor, Blackhole blackhole) {
+        for (WideRow row : state.rows) {
+            accessor.copy(row, state.values);
+            blackhole.consume(state.values);
+        }
+    }
+
+    /**
+     * Sum of primitive columns "timestamp" and "memory" that are read without boxing
+     */
+    private long sum(ScanState state, RowAccessor accessor) {
+        long sum = 0;
+        for (WideRow row : state.rows) {
+            sum += accessor.getLong(row, 1) + accessor.getInt(row, 2);
+        }
+        return sum;
+    }
+}
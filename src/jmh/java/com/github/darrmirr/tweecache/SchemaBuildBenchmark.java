@@ -0,0 +1,95 @@
+package com.github.darrmirr.tweecache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.darrmirr.tweecache.builder.SchemaBuilder;
+import com.github.darrmirr.tweecache.builder.SchemaMode;
+import com.github.darrmirr.tweecache.test.model.Department;
+import com.github.darrmirr.tweecache.test.model.Employee;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmark measures time to build one schema and N schemas sequentially and concurrently
+ * for each {@link SchemaMode}.
+ */
+public class SchemaBuildBenchmark {
+    private static final AtomicLong SCHEMA_COUNTER = new AtomicLong();
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(SchemaBuildBenchmark.class.getSimpleName() + ".*")
+                .build();
+        new Runner(opt).run();
+    }
+
+    @State(Scope.Benchmark)
+    public static class SchemaBuildState {
+        @Param({ "200" })
+        public int schemaCount;
+        @Param({ "COMPILED", "DYNAMIC" })
+        public SchemaMode mode;
+        public ExecutorService executor;
+
+        @Setup
+        public void setUp() {
+            executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        }
+
+        @TearDown
+        public void tearDown() {
+            executor.shutdownNow();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public TweeSchema build(SchemaBuildState state) {
+        return buildSchema(state.mode);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<TweeSchema> buildSequential(SchemaBuildState state) {
+        List<TweeSchema> schemas = new ArrayList<>(state.schemaCount);
+        for (int i = 0; i < state.schemaCount; i++) {
+            schemas.add(buildSchema(state.mode));
+        }
+        return schemas;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<TweeSchema> buildParallel(SchemaBuildState state) throws InterruptedException, ExecutionException {
+        List<Future<TweeSchema>> futures = new ArrayList<>(state.schemaCount);
+        for (int i = 0; i < state.schemaCount; i++) {
+            futures.add(state.executor.submit(() -> buildSchema(state.mode)));
+        }
+        List<TweeSchema> schemas = new ArrayList<>(state.schemaCount);
+        for (Future<TweeSchema> future : futures) {
+            schemas.add(future.get());
+        }
+        return schemas;
+    }
+
+    private static TweeSchema buildSchema(SchemaMode mode) {
+        return new SchemaBuilder("cacheBuild" + SCHEMA_COUNTER.incrementAndGet())
+                .withMode(mode)
+                .addTable(Employee.class)
+                .withStorage(Caffeine::build)
+                .addTable(Department.class)
+                .withStorage(Caffeine::build)
+                .build()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,94 @@
+package com.github.darrmirr.tweecache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.darrmirr.tweecache.builder.SchemaMode;
+import com.github.darrmirr.tweecache.test.model.Event;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Date;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark measures put throughput to size-bounded table from 1, 4 and all available threads.
+ * Table storage is single cache or cache split into shards.
+ */
+public class ShardedPutBenchmark {
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(ShardedPutBenchmark.class.getSimpleName() + ".*")
+                .build();
+        new Runner(opt).run();
+    }
+
+    @State(Scope.Benchmark)
+    public static class PutState {
+        @Param({ "100000" })
+        public int maximumSize;
+        @Param({ "1", "16" })
+        public int shardCount;
+        public TweeCache tweeCache;
+
+        @Setup
+        public void setUp() {
+            tweeCache = TweeCache
+                    .builder("cacheShardedPut")
+                    .withSchema(builder -> builder
+                            .withMode(SchemaMode.DYNAMIC)
+                            .addTable(Event.class)
+                            .withShards(shardCount)
+                            .withStorage(caffeine -> caffeine.maximumSize(maximumSize / shardCount).build()))
+                    .build()
+                    .orElseThrow(IllegalStateException::new);
+        }
+
+        @TearDown
+        public void tearDown() {
+            tweeCache.destroy();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class EventState {
+        public final Event event = new Event();
+
+        @Setup
+        public void setUp() {
+            event.dateTime = new Date();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Threads(1)
+    public TweeCache put1Thread(PutState state, EventState eventState) {
+        return put(state, eventState);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Threads(4)
+    public TweeCache put4Threads(PutState state, EventState eventState) {
+        return put(state, eventState);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Threads(Threads.MAX)
+    public TweeCache putMaxThreads(PutState state, EventState eventState) {
+        return put(state, eventState);
+    }
+
+    private static TweeCache put(PutState state, EventState eventState) {
+        int id = ThreadLocalRandom.current().nextInt(state.maximumSize * 4);
+        return state.tweeCache.put(id, eventState.event);
+    }
+}
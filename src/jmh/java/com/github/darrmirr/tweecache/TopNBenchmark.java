@@ -0,0 +1,78 @@
+package com.github.darrmirr.tweecache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.darrmirr.tweecache.builder.SchemaMode;
+import com.github.darrmirr.tweecache.test.model.Event;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark measures ORDER BY ... LIMIT query over event table.
+ * Top-N is evaluated by bounded sort at {@link SchemaMode#DYNAMIC} mode and by full sort at {@link SchemaMode#COMPILED} mode.
+ */
+public class TopNBenchmark {
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(TopNBenchmark.class.getSimpleName() + ".*")
+                .build();
+        new Runner(opt).run();
+    }
+
+    @State(Scope.Benchmark)
+    public static class TopNState {
+        @Param({ "1000000" })
+        public int rowCount;
+        @Param({ "COMPILED", "DYNAMIC" })
+        public SchemaMode mode;
+        public TweeCache tweeCache;
+
+        @Setup
+        public void setUp() {
+            tweeCache = TweeCache
+                    .builder("cacheTopN")
+                    .withSchema(builder -> builder
+                            .withMode(mode)
+                            .addTable(Event.class)
+                            .withStorage(Caffeine::build))
+                    .build()
+                    .orElseThrow(IllegalStateException::new);
+            long now = System.currentTimeMillis();
+            for (int i = 0; i < rowCount; i++) {
+                Event event = new Event();
+                event.id = i;
+                event.dateTime = new Date(now - (i * 7919L) % rowCount);
+                tweeCache.put(event.id, event);
+            }
+        }
+
+        @TearDown
+        public void tearDown() {
+            tweeCache.destroy();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Integer> topN(TopNState state) {
+        return state.tweeCache.query("select ev.id from cacheTopN.event ev order by ev.dateTime desc limit 20", TopNBenchmark::id);
+    }
+
+    private static Integer id(ResultSet rs) {
+        try {
+            return rs.getInt(1);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.github.darrmirr.tweecache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.darrmirr.tweecache.util.ShardedCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Memory budget shared by all tables of schema.
+ *
+ * Table storage is bounded by weight, that is estimated size of its entries in bytes. Sum of table weight bounds is equal to budget.
+ * Budget is rebalanced between tables periodically. While tables demand no more than budget (demand is used size with headroom),
+ * each table is granted its demand and unused budget is spread over all tables by their access frequency, so that any table could grow.
+ * Once demand exceeds budget, each table is granted small even share of budget and the rest of budget is split by table access frequency.
+ * Share that table does not use is passed to other tables, therefore frequently accessed tables keep more rows
+ * and rarely accessed tables are evicted first.
+ *
+ * Rebalance is suspended while tables are bulk loaded (e.g. restored from snapshot), see {@link #suspend()}.
+ */
+public class MemoryBudget {
+    private static final Logger log = LoggerFactory.getLogger(MemoryBudget.class);
+    public static final Duration DEFAULT_REBALANCE_INTERVAL = Duration.ofSeconds(1);
+    /**
+     * Part of budget split evenly between tables regardless of their access frequency
+     */
+    static final double EVEN_SHARE = 0.2;
+    /**
+     * Table which uses less than half of its share gives the rest of its share to other tables
+     */
+    static final int USAGE_HEADROOM = 2;
+    private final long maxBytes;
+    private final Map<String, TableStorage> tableStorageMap;
+    private final Map<String, Double> frequencies = new HashMap<>();
+    private final Map<String, Long> shares = new HashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private boolean isSuspended;
+
+    public MemoryBudget(String schemaName, long maxBytes, Map<String, TableStorage> tableStorageMap) {
+        this(schemaName, maxBytes, tableStorageMap, DEFAULT_REBALANCE_INTERVAL);
+    }
+
+    /**
+     * Create memory budget and start periodic rebalance
+     *
+     * @param schemaName schema name
+     * @param maxBytes max estimated size of all tables in bytes
+     * @param tableStorageMap storages of schema tables. Storages must be bounded by weight.
+     * @param rebalanceInterval interval between rebalances or null to rebalance only by {@link #rebalance()} invocation
+     */
+    public MemoryBudget(String schemaName, long maxBytes, Map<String, TableStorage> tableStorageMap, Duration rebalanceInterval) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("memory budget must be greater than zero");
+        }
+        this.maxBytes = maxBytes;
+        this.tableStorageMap = tableStorageMap;
+        tableStorageMap.keySet().forEach(tableName -> shares.put(tableName, initialShare(maxBytes, tableStorageMap.size())));
+        if (rebalanceInterval != null) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, schemaName + "MemoryBudget");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long intervalMillis = Math.max(1, rebalanceInterval.toMillis());
+            scheduler.scheduleWithFixedDelay(this::rebalanceSafely, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.scheduler = null;
+        }
+    }
+
+    /**
+     * Get weight bound of table storage before first rebalance
+     *
+     * @param maxBytes memory budget in bytes
+     * @param tableCount number of tables in schema
+     * @return weight bound of table storage
+     */
+    public static long initialShare(long maxBytes, int tableCount) {
+        return maxBytes / Math.max(1, tableCount);
+    }
+
+    /**
+     * Get memory budget
+     *
+     * @return max estimated size of all tables in bytes
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Get current share of budget granted to table
+     *
+     * @param tableName table name
+     * @return weight bound of table storage in bytes
+     */
+    public synchronized Optional<Long> share(String tableName) {
+        return Optional
+                .ofNullable(tableName)
+                .map(shares::get);
+    }
+
+    /**
+     * Get decayed access frequency of table evaluated by last rebalance
+     *
+     * @param tableName table name
+     * @return table access frequency
+     */
+    public synchronized double frequency(String tableName) {
+        return frequencies.getOrDefault(tableName, 0.0);
+    }
+
+    private void rebalanceSafely() {
+        try {
+            rebalance();
+        } catch (RuntimeException e) {
+            log.warn("error to rebalance memory budget due to '{}'", e.getMessage());
+            log.debug("error to rebalance memory budget", e);
+        }
+    }
+
+    /**
+     * Suspend rebalance and let each table grow up to the whole budget until {@link #resume()} is invoked.
+     * Tables are not bounded by their shares while they are bulk loaded, since shares are not known before tables are loaded.
+     */
+    public synchronized void suspend() {
+        isSuspended = true;
+        tableStorageMap.forEach((tableName, tableStorage) -> {
+            shares.put(tableName, maxBytes);
+            setMaxBytes(tableStorage, maxBytes);
+        });
+    }
+
+    /**
+     * Resume rebalance suspended by {@link #suspend()} and rebalance budget at once
+     */
+    public synchronized void resume() {
+        isSuspended = false;
+        rebalance();
+    }
+
+    /**
+     * Split memory budget between tables by their demand and access frequency and apply shares to table storages.
+     * Access frequency is number of table accesses since previous rebalance plus half of previous frequency.
+     */
+    public synchronized void rebalance() {
+        int tableCount = tableStorageMap.size();
+        if (tableCount == 0 || isSuspended) {
+            return;
+        }
+        double totalFrequency = 0;
+        for (Map.Entry<String, TableStorage> entry : tableStorageMap.entrySet()) {
+            double frequency = frequencies.getOrDefault(entry.getKey(), 0.0) / 2 + entry.getValue().takeAccessCount();
+            frequencies.put(entry.getKey(), frequency);
+            totalFrequency += frequency;
+        }
+        long evenShare = (long) (maxBytes * EVEN_SHARE / tableCount);
+        long frequencyBytes = maxBytes - evenShare * tableCount;
+        Map<String, Long> frequencyTargets = new HashMap<>();
+        Map<String, Long> demands = new HashMap<>();
+        long totalDemand = 0;
+        for (String tableName : tableStorageMap.keySet()) {
+            double part = totalFrequency > 0 ? frequencies.get(tableName) / totalFrequency : 1.0 / tableCount;
+            long demand = usedBytes(tableStorageMap.get(tableName)) * USAGE_HEADROOM;
+            frequencyTargets.put(tableName, evenShare + (long) (frequencyBytes * part));
+            demands.put(tableName, demand);
+            totalDemand += demand;
+        }
+        Map<String, Long> targets = totalDemand <= maxBytes
+                ? spread(frequencyTargets, demands, maxBytes - totalDemand)
+                : cap(frequencyTargets, demands, evenShare);
+        long assigned = targets
+                .values()
+                .stream()
+                .mapToLong(Long::longValue)
+                .sum();
+        String largestTable = Collections.max(targets.entrySet(), Map.Entry.comparingByValue()).getKey();
+        targets.merge(largestTable, maxBytes - assigned, Long::sum);
+        targets.forEach((tableName, target) -> {
+            shares.put(tableName, target);
+            setMaxBytes(tableStorageMap.get(tableName), target);
+        });
+    }
+
+    /**
+     * Grant each table its demand and spread unused budget over all tables by their access frequency
+     *
+     * @param frequencyTargets shares of budget by table access frequency
+     * @param demands table demands
+     * @param unusedBytes budget that is not demanded by tables
+     * @return table shares
+     */
+    private Map<String, Long> spread(Map<String, Long> frequencyTargets, Map<String, Long> demands, long unusedBytes) {
+        Map<String, Long> targets = new HashMap<>();
+        demands.forEach((tableName, demand) ->
+                targets.put(tableName, demand + (long) ((double) unusedBytes * frequencyTargets.get(tableName) / maxBytes)));
+        return targets;
+    }
+
+    /**
+     * Cap shares of tables that demand less than their frequency share and pass the rest to growing tables
+     *
+     * @param frequencyTargets shares of budget by table access frequency
+     * @param demands table demands
+     * @param evenShare share granted to each table regardless of its demand
+     * @return table shares
+     */
+    private static Map<String, Long> cap(Map<String, Long> frequencyTargets, Map<String, Long> demands, long evenShare) {
+        Map<String, Long> targets = new HashMap<>();
+        Set<String> growingTables = new HashSet<>();
+        long surplus = 0;
+        long growingShares = 0;
+        for (String tableName : frequencyTargets.keySet()) {
+            long target = frequencyTargets.get(tableName);
+            long needed = Math.max(evenShare, demands.get(tableName));
+            if (needed < target) {
+                surplus += target - needed;
+                target = needed;
+            } else {
+                growingTables.add(tableName);
+                growingShares += target;
+            }
+            targets.put(tableName, target);
+        }
+        for (Map.Entry<String, Long> entry : targets.entrySet()) {
+            if (growingTables.contains(entry.getKey()) && growingShares > 0) {
+                entry.setValue(entry.getValue() + (long) ((double) surplus * entry.getValue() / growingShares));
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Get estimated size of table storage entries
+     *
+     * @param tableStorage table storage
+     * @return estimated size in bytes or 0 if table storage is not bounded by weight
+     */
+    static long usedBytes(TableStorage tableStorage) {
+        long size = 0;
+        for (Cache<Object, Object> shard : shards(tableStorage.getCache())) {
+            size += shard
+                    .policy()
+                    .eviction()
+                    .map(eviction -> eviction.weightedSize().orElse(0L))
+                    .orElse(0L);
+        }
+        return size;
+    }
+
+    private static void setMaxBytes(TableStorage tableStorage, long maxBytes) {
+        List<Cache<Object, Object>> shards = shards(tableStorage.getCache());
+        long shardMaxBytes = Math.max(1, maxBytes / shards.size());
+        shards.forEach(shard -> shard
+                .policy()
+                .eviction()
+                .filter(Policy.Eviction::isWeighted)
+                .ifPresent(eviction -> eviction.setMaximum(shardMaxBytes)));
+    }
+
+    private static List<Cache<Object, Object>> shards(Cache<Object, Object> cache) {
+        return cache instanceof ShardedCache ? ((ShardedCache) cache).getShards() : Collections.singletonList(cache);
+    }
+
+    /**
+     * Stop periodic rebalance
+     */
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.github.darrmirr.tweecache;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * Binder of parameter values of {@link PreparedQuery} by parameter index.
+ *
+ * Primitive values are kept at primitive arrays and they are set to JDBC statement by typed setters without boxing.
+ * Bound values are kept between executions, so that binder could be reused and only changed parameters rebound.
+ *
+ * Binder is not thread-safe, it is supposed to be used by the thread that created it.
+ */
+public final class ParameterBinder {
+    private static final byte UNBOUND = 0;
+    private static final byte LONG = 1;
+    private static final byte INT = 2;
+    private static final byte DOUBLE = 3;
+    private static final byte BOOLEAN = 4;
+    private static final byte OBJECT = 5;
+    private final PreparedQuery preparedQuery;
+    private final byte[] types;
+    private final long[] longValues;
+    private final double[] doubleValues;
+    private final Object[] objectValues;
+
+    ParameterBinder(PreparedQuery preparedQuery) {
+        int parameterCount = preparedQuery.getParameterNames().size();
+        this.preparedQuery = preparedQuery;
+        this.types = new byte[parameterCount];
+        this.longValues = new long[parameterCount];
+        this.doubleValues = new double[parameterCount];
+        this.objectValues = new Object[parameterCount];
+    }
+
+    public PreparedQuery getPreparedQuery() {
+        return preparedQuery;
+    }
+
+    /**
+     * Bind long value
+     *
+     * @param index parameter index, see {@link PreparedQuery#indexOf(String)}
+     * @param value parameter value
+     * @return this {@link ParameterBinder} instance
+     */
+    public ParameterBinder bind(int index, long value) {
+        longValues[index] = value;
+        return bound(index, LONG);
+    }
+
+    /**
+     * Bind int value
+     *
+     * @param index parameter index, see {@link PreparedQuery#indexOf(String)}
+     * @param value parameter value
+     * @return this {@link ParameterBinder} instance
+     */
+    public ParameterBinder bind(int index, int value) {
+        longValues[index] = value;
+        return bound(index, INT);
+    }
+
+    /**
+     * Bind double value
+     *
+     * @param index parameter index, see {@link PreparedQuery#indexOf(String)}
+     * @param value parameter value
+     * @return this {@link ParameterBinder} instance
+     */
+    public ParameterBinder bind(int index, double value) {
+        doubleValues[index] = value;
+        return bound(index, DOUBLE);
+    }
+
+    /**
+     * Bind boolean value
+     *
+     * @param index parameter index, see {@link PreparedQuery#indexOf(String)}
+     * @param value parameter value
+     * @return this {@link ParameterBinder} instance
+     */
+    public ParameterBinder bind(int index, boolean value) {
+        longValues[index] = value ? 1 : 0;
+        return bound(index, BOOLEAN);
+    }
+
+    /**
+     * Bind object value. Value is set to JDBC statement by {@link PreparedStatement#setObject(int, Object)}.
+     *
+     * @param index parameter index, see {@link PreparedQuery#indexOf(String)}
+     * @param value parameter value or null
+     * @return this {@link ParameterBinder} instance
+     */
+    public ParameterBinder bind(int index, Object value) {
+        objectValues[index] = value;
+        return bound(index, OBJECT);
+    }
+
+    /**
+     * Bind object value by parameter name. Parameter index is looked up at each invocation,
+     * use {@link #bind(int, Object)} with index obtained in advance at hot path.
+     *
+     * @param parameterName parameter name without colon
+     * @param value parameter value or null
+     * @return this {@link ParameterBinder} instance
+     */
+    public ParameterBinder bind(String parameterName, Object value) {
+        return bind(preparedQuery.indexOf(parameterName), value);
+    }
+
+    /**
+     * Unbind all parameter values
+     *
+     * @return this {@link ParameterBinder} instance
+     */
+    public ParameterBinder clear() {
+        Arrays.fill(types, UNBOUND);
+        Arrays.fill(objectValues, null);
+        return this;
+    }
+
+    private ParameterBinder bound(int index, byte type) {
+        if (type != OBJECT) {
+            objectValues[index] = null;
+        }
+        types[index] = type;
+        return this;
+    }
+
+    /**
+     * Set bound values to positional placeholders of JDBC statement
+     *
+     * @param statement JDBC statement prepared for {@link PreparedQuery#getSql()}
+     * @throws SQLException if value could not be set
+     * @throws IllegalStateException if some parameter is not bound
+     */
+    void applyTo(PreparedStatement statement) throws SQLException {
+        for (int position = 0; position < preparedQuery.getPositionCount(); position++) {
+            int index = preparedQuery.getParameterIndex(position);
+            int parameter = position + 1;
+            switch (types[index]) {
+                case LONG:
+                    statement.setLong(parameter, longValues[index]);
+                    break;
+                case INT:
+                    statement.setInt(parameter, (int) longValues[index]);
+                    break;
+                case DOUBLE:
+                    statement.setDouble(parameter, doubleValues[index]);
+                    break;
+                case BOOLEAN:
+                    statement.setBoolean(parameter, longValues[index] != 0);
+                    break;
+                case OBJECT:
+                    statement.setObject(parameter, objectValues[index]);
+                    break;
+                default:
+                    throw new IllegalStateException("parameter '" + preparedQuery.getParameterNames().get(index)
+                            + "' is not bound at SQL-query '" + preparedQuery.getSqlQuery() + "'");
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ParameterBinder {sql=" + preparedQuery.getSql() + ", types=" + Arrays.toString(types) + "}";
+    }
+}
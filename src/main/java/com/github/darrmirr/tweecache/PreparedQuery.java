@@ -0,0 +1,188 @@
+package com.github.darrmirr.tweecache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SELECT SQL-query which named parameters ({@code :name}) are parsed once and replaced by positional placeholders.
+ *
+ * Parameter index is position of parameter name at {@link #getParameterNames()}, that is order of the first occurrence
+ * of parameter name at SQL-query. Parameter used several times at SQL-query is bound once.
+ * Named parameters are recognized by the same rules as Jdbi does: text at single and double quotes and comments is skipped.
+ *
+ * Instance is immutable and it is shared by all threads, values are bound by thread-confined {@link ParameterBinder}.
+ */
+public final class PreparedQuery {
+    private final String sqlQuery;
+    private final String sql;
+    private final List<String> parameterNames;
+    private final int[] positions;
+
+    private PreparedQuery(String sqlQuery, String sql, List<String> parameterNames, int[] positions) {
+        this.sqlQuery = sqlQuery;
+        this.sql = sql;
+        this.parameterNames = Collections.unmodifiableList(parameterNames);
+        this.positions = positions;
+    }
+
+    /**
+     * Get original SQL-query string
+     *
+     * @return SQL-query with named parameters
+     */
+    public String getSqlQuery() {
+        return sqlQuery;
+    }
+
+    /**
+     * Get SQL-query string passed to JDBC driver
+     *
+     * @return SQL-query with positional placeholders
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Get distinct parameter names in parameter index order
+     *
+     * @return parameter names
+     */
+    public List<String> getParameterNames() {
+        return parameterNames;
+    }
+
+    /**
+     * Get parameter index by name
+     *
+     * @param parameterName parameter name without colon
+     * @return parameter index
+     * @throws IllegalArgumentException if SQL-query has no such parameter
+     */
+    public int indexOf(String parameterName) {
+        int index = parameterNames.indexOf(parameterName);
+        if (index < 0) {
+            throw new IllegalArgumentException("there is no parameter '" + parameterName + "' at SQL-query '" + sqlQuery + "'");
+        }
+        return index;
+    }
+
+    /**
+     * Create binder of parameter values. Binder could be reused by the thread that created it.
+     *
+     * @return new parameter binder
+     */
+    public ParameterBinder newBinder() {
+        return new ParameterBinder(this);
+    }
+
+    /**
+     * Get number of positional placeholders at {@link #getSql()}
+     *
+     * @return number of placeholders
+     */
+    int getPositionCount() {
+        return positions.length;
+    }
+
+    /**
+     * Get parameter index bound to positional placeholder
+     *
+     * @param position placeholder position starting from 0
+     * @return parameter index
+     */
+    int getParameterIndex(int position) {
+        return positions[position];
+    }
+
+    /**
+     * Check if all parameters are present at map
+     *
+     * @param sqlParameters named query parameters
+     * @return true if map contains all parameters
+     */
+    boolean isBoundBy(Map<String, Object> sqlParameters) {
+        if (parameterNames.isEmpty()) {
+            return true;
+        }
+        if (sqlParameters == null) {
+            return false;
+        }
+        for (String parameterName : parameterNames) {
+            if (!sqlParameters.containsKey(parameterName)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parse named parameters of SQL-query
+     *
+     * @param sqlQuery SQL-query string
+     * @return prepared query or null if SQL-query contains positional placeholders, escaped characters
+     * or double colons that are left to Jdbi
+     */
+    static PreparedQuery parse(String sqlQuery) {
+        StringBuilder sql = new StringBuilder(sqlQuery.length());
+        List<String> parameterNames = new ArrayList<>();
+        int[] positions = new int[8];
+        int positionCount = 0;
+        int length = sqlQuery.length();
+        int i = 0;
+        while (i < length) {
+            char c = sqlQuery.charAt(i);
+            int end;
+            if (c == '/' && i + 1 < length && sqlQuery.charAt(i + 1) == '*') {
+                end = sqlQuery.indexOf("*/", i + 2);
+                end = end < 0 ? length : end + 2;
+            } else if (c == '\'') {
+                end = i + 1;
+                while (end < length && sqlQuery.charAt(end) != '\'') {
+                    end += sqlQuery.charAt(end) == '\\' ? 2 : 1;
+                }
+                end = Math.min(end + 1, length);
+            } else if (c == '"') {
+                end = sqlQuery.indexOf('"', i + 1);
+                end = end < 0 ? length : end + 1;
+            } else if (c == '?' || c == '\\' || (c == ':' && i + 1 < length && sqlQuery.charAt(i + 1) == ':')) {
+                return null;
+            } else if (c == ':' && i + 1 < length && isNamePart(sqlQuery.charAt(i + 1))) {
+                end = i + 1;
+                while (end < length && isNamePart(sqlQuery.charAt(end))) {
+                    end++;
+                }
+                String parameterName = sqlQuery.substring(i + 1, end);
+                int parameterIndex = parameterNames.indexOf(parameterName);
+                if (parameterIndex < 0) {
+                    parameterIndex = parameterNames.size();
+                    parameterNames.add(parameterName);
+                }
+                if (positionCount == positions.length) {
+                    positions = Arrays.copyOf(positions, positionCount * 2);
+                }
+                positions[positionCount++] = parameterIndex;
+                sql.append('?');
+                i = end;
+                continue;
+            } else {
+                end = i + 1;
+            }
+            sql.append(sqlQuery, i, end);
+            i = end;
+        }
+        return new PreparedQuery(sqlQuery, sql.toString(), parameterNames, Arrays.copyOf(positions, positionCount));
+    }
+
+    private static boolean isNamePart(char c) {
+        return Character.isJavaIdentifierPart(c) || c == '.';
+    }
+
+    @Override
+    public String toString() {
+        return "PreparedQuery {sql=" + sql + ", parameters=" + parameterNames + "}";
+    }
+}
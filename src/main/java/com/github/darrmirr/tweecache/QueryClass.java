@@ -0,0 +1,121 @@
+package com.github.darrmirr.tweecache;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Query class is a group of SQL-queries with the same workload profile (e.g. point lookups or analytic reports).
+ *
+ * Each query class has its own concurrency limit and queue, therefore SQL-queries of one class
+ * never take all execution slots from SQL-queries of another one. SQL-query is rejected immediately when query class queue is full.
+ * Query class weight is its priority at dispatch of execution slots shared by all query classes, see {@link QueryDispatcher}.
+ */
+class QueryClass {
+    static final String DEFAULT = "default";
+    private final String name;
+    private final int maxConcurrentQueries;
+    private final int maxQueuedQueries;
+    private final int weight;
+    private final AtomicInteger pendingQueries = new AtomicInteger();
+    private final LongAdder admittedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    QueryClass(String name, int maxConcurrentQueries, int maxQueuedQueries) {
+        this(name, maxConcurrentQueries, maxQueuedQueries, 1);
+    }
+
+    /**
+     * Create query class
+     *
+     * @param name query class name
+     * @param maxConcurrentQueries max number of concurrently executed SQL-queries of this class
+     * @param maxQueuedQueries max number of SQL-queries of this class waiting for execution
+     * @param weight share of execution slots granted to this class while other classes have waiting SQL-queries as well
+     */
+    QueryClass(String name, int maxConcurrentQueries, int maxQueuedQueries, int weight) {
+        if (maxConcurrentQueries < 1) {
+            throw new IllegalArgumentException("max concurrent queries of query class '" + name + "' must be greater than zero");
+        }
+        if (maxQueuedQueries < 0) {
+            throw new IllegalArgumentException("max queued queries of query class '" + name + "' must not be negative");
+        }
+        if (weight < 1) {
+            throw new IllegalArgumentException("weight of query class '" + name + "' must be greater than zero");
+        }
+        this.name = name;
+        this.maxConcurrentQueries = maxConcurrentQueries;
+        this.maxQueuedQueries = maxQueuedQueries;
+        this.weight = weight;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    int getMaxConcurrentQueries() {
+        return maxConcurrentQueries;
+    }
+
+    int getWeight() {
+        return weight;
+    }
+
+    /**
+     * Register SQL-query at query class. Every admitted SQL-query must {@link #leave()} query class at the end.
+     *
+     * @return admission time in nanoseconds
+     * @throws RejectedExecutionException if query class is saturated
+     */
+    long admit() {
+        if (pendingQueries.incrementAndGet() > (long) maxConcurrentQueries + maxQueuedQueries) {
+            pendingQueries.decrementAndGet();
+            rejectedCount.increment();
+            throw new RejectedExecutionException("query class '" + name + "' is saturated");
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Unregister SQL-query from query class
+     */
+    void leave() {
+        pendingQueries.decrementAndGet();
+    }
+
+    /**
+     * Record queue wait time of SQL-query that got execution slot
+     *
+     * @param admittedAt admission time in nanoseconds
+     */
+    void recordWait(long admittedAt) {
+        long waitNanos = System.nanoTime() - admittedAt;
+        admittedCount.increment();
+        totalWaitNanos.add(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    /**
+     * Get query class statistics snapshot
+     *
+     * @param runningQueries number of SQL-queries that hold execution slot
+     * @return query class statistics
+     */
+    QueryClassStats stats(int runningQueries) {
+        int pending = pendingQueries.get();
+        int running = Math.min(runningQueries, pending);
+        return new QueryClassStats(
+                name,
+                maxConcurrentQueries,
+                maxQueuedQueries,
+                running,
+                Math.max(pending - running, 0),
+                admittedCount.sum(),
+                rejectedCount.sum(),
+                totalWaitNanos.sum(),
+                maxWaitNanos.get());
+    }
+}
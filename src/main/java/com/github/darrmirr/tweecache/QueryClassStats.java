@@ -0,0 +1,139 @@
+package com.github.darrmirr.tweecache;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Statistics of SQL-queries execution by query class.
+ *
+ * Statistics is a snapshot taken at the moment of {@link TweeCache#queryClassStats()} invocation.
+ */
+public class QueryClassStats {
+    private final String name;
+    private final int maxConcurrentQueries;
+    private final int maxQueuedQueries;
+    private final int runningQueries;
+    private final int queuedQueries;
+    private final long admittedCount;
+    private final long rejectedCount;
+    private final long totalWaitNanos;
+    private final long maxWaitNanos;
+
+    QueryClassStats(String name, int maxConcurrentQueries, int maxQueuedQueries, int runningQueries, int queuedQueries,
+                    long admittedCount, long rejectedCount, long totalWaitNanos, long maxWaitNanos) {
+        this.name = name;
+        this.maxConcurrentQueries = maxConcurrentQueries;
+        this.maxQueuedQueries = maxQueuedQueries;
+        this.runningQueries = runningQueries;
+        this.queuedQueries = queuedQueries;
+        this.admittedCount = admittedCount;
+        this.rejectedCount = rejectedCount;
+        this.totalWaitNanos = totalWaitNanos;
+        this.maxWaitNanos = maxWaitNanos;
+    }
+
+    /**
+     * Get query class name
+     *
+     * @return query class name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get max number of concurrently executed SQL-queries of this class
+     *
+     * @return max number of concurrently executed SQL-queries
+     */
+    public int getMaxConcurrentQueries() {
+        return maxConcurrentQueries;
+    }
+
+    /**
+     * Get max number of SQL-queries of this class waiting for execution
+     *
+     * @return max number of waiting SQL-queries
+     */
+    public int getMaxQueuedQueries() {
+        return maxQueuedQueries;
+    }
+
+    /**
+     * Get number of SQL-queries that are being executed now
+     *
+     * @return number of running SQL-queries
+     */
+    public int getRunningQueries() {
+        return runningQueries;
+    }
+
+    /**
+     * Get number of SQL-queries that are waiting for execution now
+     *
+     * @return number of waiting SQL-queries
+     */
+    public int getQueuedQueries() {
+        return queuedQueries;
+    }
+
+    /**
+     * Get number of SQL-queries that got execution permit
+     *
+     * @return number of admitted SQL-queries
+     */
+    public long getAdmittedCount() {
+        return admittedCount;
+    }
+
+    /**
+     * Get number of SQL-queries rejected due to query class queue is full
+     *
+     * @return number of rejected SQL-queries
+     */
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    /**
+     * Get total time SQL-queries spent at queue waiting for execution permit
+     *
+     * @param unit time unit of result
+     * @return total queue wait time
+     */
+    public long getTotalWaitTime(TimeUnit unit) {
+        return unit.convert(totalWaitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Get average time SQL-query spent at queue waiting for execution permit
+     *
+     * @param unit time unit of result
+     * @return average queue wait time
+     */
+    public long getAverageWaitTime(TimeUnit unit) {
+        return admittedCount == 0 ? 0 : unit.convert(totalWaitNanos / admittedCount, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Get max time SQL-query spent at queue waiting for execution permit
+     *
+     * @param unit time unit of result
+     * @return max queue wait time
+     */
+    public long getMaxWaitTime(TimeUnit unit) {
+        return unit.convert(maxWaitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return "QueryClassStats{" +
+                "name='" + name + '\'' +
+                ", runningQueries=" + runningQueries +
+                ", queuedQueries=" + queuedQueries +
+                ", admittedCount=" + admittedCount +
+                ", rejectedCount=" + rejectedCount +
+                ", averageWaitMicros=" + getAverageWaitTime(TimeUnit.MICROSECONDS) +
+                ", maxWaitMicros=" + getMaxWaitTime(TimeUnit.MICROSECONDS) +
+                '}';
+    }
+}
@@ -0,0 +1,228 @@
+package com.github.darrmirr.tweecache;
+
+import com.github.darrmirr.tweecache.util.QueryCancellation;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Query dispatcher grants execution slots to SQL-queries of query classes.
+ *
+ * SQL-query is executed when its query class runs less SQL-queries than its concurrency limit and there is free slot
+ * of pool shared by all query classes. Free slot is granted to waiting SQL-query of query class that has the least
+ * number of granted slots divided by its weight. Therefore, query class with weight 4 gets four times as many slots
+ * as query class with weight 1 while both have waiting SQL-queries, and neither of them starves.
+ * Query class that was idle joins dispatch at current virtual time, so that it does not save up slots while idle.
+ * Waiting SQL-query leaves queue as soon as it is cancelled or dispatcher is shut down.
+ */
+class QueryDispatcher {
+    private final int maxSlots;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<QueryClass, ClassQueue> queues = new LinkedHashMap<>();
+    private int usedSlots;
+    private double virtualTime;
+    private boolean isShutdown;
+
+    /**
+     * Create dispatcher
+     *
+     * @param queryClasses query classes
+     * @param maxSlots max number of concurrently executed SQL-queries of all query classes
+     */
+    QueryDispatcher(Collection<QueryClass> queryClasses, int maxSlots) {
+        if (maxSlots < 1) {
+            throw new IllegalArgumentException("max number of concurrently executed queries must be greater than zero");
+        }
+        this.maxSlots = maxSlots;
+        queryClasses.forEach(queryClass -> queues.put(queryClass, new ClassQueue(queryClass)));
+    }
+
+    /**
+     * Wait for execution slot of query class and record queue wait time
+     *
+     * @param queryClass query class of SQL-query
+     * @param admittedAt admission time in nanoseconds
+     * @param cancellation SQL-query cancellation token
+     */
+    void acquire(QueryClass queryClass, long admittedAt, QueryCancellation cancellation) {
+        if (cancellation.isCancelled()) {
+            throw new CancellationException("query is cancelled");
+        }
+        ClassQueue queue = queues.get(queryClass);
+        Waiter waiter = new Waiter(lock.newCondition());
+        cancellation.onCancel(() -> cancel(queue, waiter));
+        lock.lock();
+        try {
+            if (isShutdown) {
+                throw new CancellationException("query dispatcher is shut down");
+            }
+            if (queue.waiters.isEmpty() && queue.runningQueries == 0) {
+                queue.pass = Math.max(queue.pass, virtualTime);
+            }
+            queue.waiters.addLast(waiter);
+            dispatch();
+            long remainingNanos = cancellation.remaining(TimeUnit.NANOSECONDS);
+            while (!waiter.isGranted) {
+                if (cancellation.isCancelled() || isShutdown) {
+                    queue.waiters.remove(waiter);
+                    throw new CancellationException("query is cancelled while waiting for execution permit");
+                }
+                if (remainingNanos <= 0) {
+                    queue.waiters.remove(waiter);
+                    throw new CancellationException("query is timed out while waiting for execution permit");
+                }
+                try {
+                    remainingNanos = waiter.condition.awaitNanos(remainingNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    if (waiter.isGranted) {
+                        releaseSlot(queue);
+                    } else {
+                        queue.waiters.remove(waiter);
+                    }
+                    throw new CancellationException("query is interrupted while waiting for execution permit");
+                }
+            }
+        } finally {
+            lock.unlock();
+            cancellation.onCancel(null);
+        }
+        queryClass.recordWait(admittedAt);
+    }
+
+    /**
+     * Release execution slot of query class and grant free slots to waiting SQL-queries
+     *
+     * @param queryClass query class of SQL-query
+     */
+    void release(QueryClass queryClass) {
+        lock.lock();
+        try {
+            releaseSlot(queues.get(queryClass));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get number of executed SQL-queries of query class
+     *
+     * @param queryClass query class
+     * @return number of SQL-queries that hold execution slot
+     */
+    int runningQueries(QueryClass queryClass) {
+        lock.lock();
+        try {
+            return queues.get(queryClass).runningQueries;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get number of SQL-queries of query class waiting for execution slot
+     *
+     * @param queryClass query class
+     * @return number of waiting SQL-queries
+     */
+    int waitingQueries(QueryClass queryClass) {
+        lock.lock();
+        try {
+            return queues.get(queryClass).waiters.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wake up and remove all waiting SQL-queries. SQL-queries are not granted execution slot after shutdown.
+     */
+    void shutdown() {
+        lock.lock();
+        try {
+            isShutdown = true;
+            for (ClassQueue queue : queues.values()) {
+                queue.waiters.forEach(waiter -> waiter.condition.signal());
+                queue.waiters.clear();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove cancelled SQL-query from queue and wake it up unless it is granted execution slot already
+     *
+     * @param queue queue of query class
+     * @param waiter waiting SQL-query
+     */
+    private void cancel(ClassQueue queue, Waiter waiter) {
+        lock.lock();
+        try {
+            if (!waiter.isGranted && queue.waiters.remove(waiter)) {
+                waiter.condition.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void releaseSlot(ClassQueue queue) {
+        usedSlots--;
+        queue.runningQueries--;
+        dispatch();
+    }
+
+    /**
+     * Grant free slots to waiting SQL-queries of query classes with the least pass. It is invoked under lock.
+     */
+    private void dispatch() {
+        while (usedSlots < maxSlots) {
+            ClassQueue next = null;
+            for (ClassQueue queue : queues.values()) {
+                if (!queue.waiters.isEmpty()
+                        && queue.runningQueries < queue.queryClass.getMaxConcurrentQueries()
+                        && (next == null || queue.pass < next.pass)) {
+                    next = queue;
+                }
+            }
+            if (next == null) {
+                return;
+            }
+            Waiter waiter = next.waiters.pollFirst();
+            waiter.isGranted = true;
+            waiter.condition.signal();
+            usedSlots++;
+            next.runningQueries++;
+            virtualTime = next.pass;
+            next.pass += 1.0 / next.queryClass.getWeight();
+        }
+    }
+
+    private static class ClassQueue {
+        private final QueryClass queryClass;
+        private final Deque<Waiter> waiters = new ArrayDeque<>();
+        private int runningQueries;
+        private double pass;
+
+        private ClassQueue(QueryClass queryClass) {
+            this.queryClass = queryClass;
+        }
+    }
+
+    private static class Waiter {
+        private final Condition condition;
+        private boolean isGranted;
+
+        private Waiter(Condition condition) {
+            this.condition = condition;
+        }
+    }
+}
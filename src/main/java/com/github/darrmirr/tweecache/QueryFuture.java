@@ -0,0 +1,33 @@
+package com.github.darrmirr.tweecache;
+
+import com.github.darrmirr.tweecache.util.QueryCancellation;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Future result of asynchronous SQL-query.
+ *
+ * Future is a cancellation handle as well: {@link #cancel(boolean)} stops running SQL-query
+ * and releases its thread and data source connection.
+ *
+ * @param <T> SQL-query result type
+ */
+public class QueryFuture<T> extends CompletableFuture<T> {
+    private final QueryCancellation cancellation;
+
+    QueryFuture(QueryCancellation cancellation) {
+        this.cancellation = cancellation;
+    }
+
+    /**
+     * Cancel SQL-query. SQL-query is stopped at next table row read.
+     *
+     * @param mayInterruptIfRunning this value has no effect, SQL-query is cancelled cooperatively
+     * @return true if future is cancelled
+     */
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        cancellation.cancel();
+        return super.cancel(mayInterruptIfRunning);
+    }
+}
@@ -0,0 +1,237 @@
+package com.github.darrmirr.tweecache;
+
+import com.github.darrmirr.tweecache.util.QueryCancellation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Query scheduler performs admission control of SQL-queries and runs asynchronous SQL-queries on executor.
+ *
+ * SQL-query is assigned to {@link QueryClass} by explicit hint or by classifier function.
+ * Concurrency is limited by query class limit and by number of execution slots shared by all query classes.
+ * Therefore, SQL-query waits for slot granted by {@link QueryDispatcher} according to priority of its class
+ * instead of waiting for free data source connection shared by all SQL-queries.
+ * Scheduler keeps cancellation tokens of submitted and running SQL-queries in order to cancel them on shutdown.
+ */
+class QueryScheduler {
+    private static final Logger log = LoggerFactory.getLogger(QueryScheduler.class);
+    private static final Pattern QUERY_CLASS_HINT = Pattern.compile("/\\*\\s*query_class\\s*[:=]\\s*([\\w-]+)\\s*\\*/", Pattern.CASE_INSENSITIVE);
+    private final Map<String, QueryClass> queryClasses;
+    private final QueryClass defaultQueryClass;
+    private final Function<String, String> classifier;
+    private final QueryDispatcher dispatcher;
+    private final Map<String, Executor> executors = new HashMap<>();
+    private final List<ExecutorService> ownedExecutors = new ArrayList<>();
+    private final Set<QueryCancellation> queries = ConcurrentHashMap.newKeySet();
+    private volatile boolean isShutdown;
+
+    /**
+     * Create scheduler
+     *
+     * @param executor executor to run asynchronous queries. Default executor is created if it is null.
+     * @param queryClasses query classes. Query class with name {@link QueryClass#DEFAULT} is mandatory.
+     * @param classifier function returns query class name by SQL-query. It could be null.
+     * @param maxSlots max number of concurrently executed SQL-queries of all query classes
+     * @param schemaName schema name is used as thread name prefix for default executor
+     */
+    QueryScheduler(Executor executor, Collection<QueryClass> queryClasses, Function<String, String> classifier, int maxSlots, String schemaName) {
+        this.queryClasses = new HashMap<>();
+        queryClasses.forEach(queryClass -> this.queryClasses.put(queryClass.getName(), queryClass));
+        this.defaultQueryClass = Objects.requireNonNull(this.queryClasses.get(QueryClass.DEFAULT), "default query class");
+        this.classifier = classifier;
+        this.dispatcher = new QueryDispatcher(queryClasses, maxSlots);
+        ExecutorService virtualThreadExecutor = executor == null ? virtualThreadExecutor(schemaName) : null;
+        for (QueryClass queryClass : queryClasses) {
+            if (executor != null) {
+                executors.put(queryClass.getName(), executor);
+            } else if (virtualThreadExecutor != null) {
+                executors.put(queryClass.getName(), virtualThreadExecutor);
+            } else {
+                ExecutorService fixedThreadPool = fixedThreadPool(queryClass, schemaName);
+                executors.put(queryClass.getName(), fixedThreadPool);
+                ownedExecutors.add(fixedThreadPool);
+            }
+        }
+        if (virtualThreadExecutor != null) {
+            ownedExecutors.add(virtualThreadExecutor);
+        }
+    }
+
+    /**
+     * Execute query at caller thread
+     *
+     * @param sqlQuery SQL-query string used to choose query class
+     * @param cancellation query cancellation token
+     * @param query query to execute
+     * @param <T> query result type
+     * @return query result
+     * @throws RejectedExecutionException if query class is saturated
+     */
+    <T> T call(String sqlQuery, QueryCancellation cancellation, Supplier<T> query) {
+        QueryClass queryClass = classify(sqlQuery);
+        long admittedAt = queryClass.admit();
+        return call(queryClass, admittedAt, cancellation, query);
+    }
+
+    private <T> T call(QueryClass queryClass, long admittedAt, QueryCancellation cancellation, Supplier<T> query) {
+        queries.add(cancellation);
+        try {
+            if (isShutdown) {
+                cancellation.cancel();
+            }
+            dispatcher.acquire(queryClass, admittedAt, cancellation);
+            try {
+                return cancellation.run(query);
+            } finally {
+                dispatcher.release(queryClass);
+            }
+        } finally {
+            queries.remove(cancellation);
+            queryClass.leave();
+        }
+    }
+
+    /**
+     * Execute query at executor
+     *
+     * Future is completed with {@link RejectedExecutionException} if query class is saturated.
+     *
+     * @param sqlQuery SQL-query string used to choose query class
+     * @param cancellation query cancellation token
+     * @param query query to execute
+     * @param <T> query result type
+     * @return future query result
+     */
+    <T> QueryFuture<T> submit(String sqlQuery, QueryCancellation cancellation, Supplier<T> query) {
+        QueryFuture<T> future = new QueryFuture<>(cancellation);
+        QueryClass queryClass = classify(sqlQuery);
+        long admittedAt;
+        try {
+            admittedAt = queryClass.admit();
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+        queries.add(cancellation);
+        try {
+            executors.get(queryClass.getName()).execute(() -> {
+                if (future.isDone()) {
+                    queries.remove(cancellation);
+                    queryClass.leave();
+                    return;
+                }
+                try {
+                    future.complete(call(queryClass, admittedAt, cancellation, query));
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            queries.remove(cancellation);
+            queryClass.leave();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Choose query class of SQL-query.
+     *
+     * Explicit hint as SQL comment (e.g. {@code /* query_class: analytic *}{@code /}) has precedence over classifier.
+     * Default query class is used if neither hint nor classifier points to known query class.
+     *
+     * @param sqlQuery SQL-query string
+     * @return query class
+     */
+    QueryClass classify(String sqlQuery) {
+        String queryClassName = null;
+        if (sqlQuery != null && sqlQuery.contains("/*")) {
+            Matcher matcher = QUERY_CLASS_HINT.matcher(sqlQuery);
+            if (matcher.find()) {
+                queryClassName = matcher.group(1);
+            }
+        }
+        if (queryClassName == null && classifier != null) {
+            queryClassName = classifier.apply(sqlQuery);
+        }
+        if (queryClassName == null) {
+            return defaultQueryClass;
+        }
+        QueryClass queryClass = queryClasses.get(queryClassName);
+        if (queryClass == null) {
+            log.debug("unknown query class '{}', default query class is used", queryClassName);
+            return defaultQueryClass;
+        }
+        return queryClass;
+    }
+
+    /**
+     * Get statistics of each query class
+     *
+     * @return query class statistics map where key is query class name
+     */
+    Map<String, QueryClassStats> stats() {
+        Map<String, QueryClassStats> stats = new TreeMap<>();
+        queryClasses.forEach((name, queryClass) -> stats.put(name, queryClass.stats(dispatcher.runningQueries(queryClass))));
+        return stats;
+    }
+
+    /**
+     * Cancel submitted and running queries and shutdown executors created by scheduler.
+     * Queries that are not started yet are completed with {@link CancellationException}.
+     */
+    void shutdown() {
+        isShutdown = true;
+        queries.forEach(QueryCancellation::cancel);
+        dispatcher.shutdown();
+        for (ExecutorService executorService : ownedExecutors) {
+            executorService
+                    .shutdownNow()
+                    .forEach(Runnable::run);
+        }
+    }
+
+    /**
+     * Create virtual thread per task executor if it is supported by JVM (JDK 21+).
+     *
+     * @param schemaName schema name is used at log message
+     * @return virtual thread per task executor or null if virtual threads are not supported
+     */
+    private static ExecutorService virtualThreadExecutor(String schemaName) {
+        try {
+            ExecutorService executorService = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+            log.debug("virtual threads are used to execute asynchronous queries at schema '{}'", schemaName);
+            return executorService;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.debug("fixed thread pools are used to execute asynchronous queries at schema '{}'", schemaName);
+            return null;
+        }
+    }
+
+    /**
+     * Create fixed thread pool with number of threads equal to max concurrent queries of query class.
+     * Separate thread pool per query class keeps threads of one class free from queries of another one.
+     *
+     * @param queryClass query class
+     * @param schemaName schema name is used as thread name prefix
+     * @return executor service
+     */
+    private static ExecutorService fixedThreadPool(QueryClass queryClass, String schemaName) {
+        AtomicInteger threadCounter = new AtomicInteger();
+        return Executors.newFixedThreadPool(queryClass.getMaxConcurrentQueries(), runnable -> {
+            Thread thread = new Thread(runnable, schemaName + "-" + queryClass.getName() + "-query-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,160 @@
+package com.github.darrmirr.tweecache;
+
+import com.github.darrmirr.tweecache.query.TableQuery;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Typed handle of particular table at cache.
+ *
+ * Handle refers to table storage directly, so that point reads and writes through handle do not look up table by name
+ * and do not allocate objects besides ones allocated by table storage itself.
+ * Handle is obtained by {@link TweeCache#table(Class)} and could be kept and shared between threads.
+ *
+ * @param <K> key data type
+ * @param <V> table row data type
+ */
+public final class TableHandle<K, V> {
+    private final TweeCache tweeCache;
+    private final String tableName;
+    private final TableStorage tableStorage;
+    private final Class<V> valueClass;
+
+    TableHandle(TweeCache tweeCache, String tableName, TableStorage tableStorage, Class<V> valueClass) {
+        this.tweeCache = tweeCache;
+        this.tableName = tableName;
+        this.tableStorage = tableStorage;
+        this.valueClass = valueClass;
+    }
+
+    /**
+     * Get table name
+     *
+     * @return table name
+     */
+    public String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * Get table storage
+     *
+     * @return table storage
+     */
+    public TableStorage getTableStorage() {
+        return tableStorage;
+    }
+
+    Class<V> getValueClass() {
+        return valueClass;
+    }
+
+    /**
+     * Put row to table with specified key.
+     *
+     * @param key row's key at table
+     * @param value row to store
+     * @return this {@link TableHandle} instance
+     */
+    public TableHandle<K, V> put(K key, V value) {
+        if (key != null && value != null) {
+            tweeCache.put(tableStorage, tableName, key, value);
+        }
+        return this;
+    }
+
+    /**
+     * Put all rows to table.
+     *
+     * @param values rows by key
+     * @return this {@link TableHandle} instance
+     */
+    public TableHandle<K, V> putAll(Map<K, V> values) {
+        if (values != null && !values.isEmpty()) {
+            tweeCache.putAll(tableStorage, tableName, values);
+        }
+        return this;
+    }
+
+    /**
+     * Get row by key.
+     * Row missing at read-through table is loaded by table loader.
+     *
+     * @param key row's key at table
+     * @return row or null if it is absent
+     */
+    public V get(K key) {
+        if (key == null) {
+            return null;
+        }
+        Object row = tableStorage.get(key);
+        return valueClass.isInstance(row) ? valueClass.cast(row) : null;
+    }
+
+    /**
+     * Get rows by several keys in one call.
+     * Rows missing at read-through table are loaded by single bulk load.
+     *
+     * @param keys rows' keys at table, null keys are skipped
+     * @return rows by key in order of keys, keys which rows are absent are not present at map
+     */
+    public Map<K, V> getAll(Collection<K> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<Object, Object> rows = tableStorage.getAll(withoutNulls(keys));
+        if (rows.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<K, V> values = new LinkedHashMap<>((int) (rows.size() / 0.75f) + 1);
+        for (K key : keys) {
+            Object row = key == null ? null : rows.get(key);
+            if (valueClass.isInstance(row)) {
+                values.put(key, valueClass.cast(row));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Remove row with specified key from table.
+     *
+     * @param key row's key at table
+     * @return this {@link TableHandle} instance
+     */
+    public TableHandle<K, V> invalidate(K key) {
+        if (key != null) {
+            tweeCache.invalidate(tableStorage, tableName, key);
+        }
+        return this;
+    }
+
+    /**
+     * Create query over table rows that is executed straight against table storage without SQL.
+     *
+     * @return table query
+     */
+    public TableQuery<V> query() {
+        return new TableQuery<>(tableStorage, valueClass);
+    }
+
+    private static <K> Collection<K> withoutNulls(Collection<K> keys) {
+        for (K key : keys) {
+            if (key == null) {
+                List<K> nonNullKeys = new ArrayList<>(keys.size());
+                for (K nonNullKey : keys) {
+                    if (nonNullKey != null) {
+                        nonNullKeys.add(nonNullKey);
+                    }
+                }
+                return nonNullKeys;
+            }
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,117 @@
+package com.github.darrmirr.tweecache;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.darrmirr.tweecache.index.IndexWriter;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Loader of table rows missing at table storage.
+ *
+ * Loader delegates to user loader and adds loaded and refreshed rows to table indexes, since Caffeine
+ * does not notify cache writer about values that are loaded rather than put.
+ * Bulk load is delegated to {@link CacheLoader#loadAll(Iterable)} of user loader, therefore misses of several keys
+ * are loaded by single call if user loader implements bulk load. Otherwise keys are loaded one by one.
+ */
+public class TableLoader implements CacheLoader<Object, Object> {
+    private final CacheLoader<Object, Object> loader;
+    private final IndexWriter indexWriter;
+    private final boolean hasBulkLoad;
+
+    /**
+     * Create loader
+     *
+     * @param loader user loader
+     * @param indexWriter index writer of table or null if table has no indexes
+     */
+    public TableLoader(CacheLoader<Object, Object> loader, IndexWriter indexWriter) {
+        this.loader = Objects.requireNonNull(loader, "loader is null");
+        this.indexWriter = indexWriter;
+        this.hasBulkLoad = hasBulkLoad(loader);
+    }
+
+    private static boolean hasBulkLoad(CacheLoader<Object, Object> loader) {
+        try {
+            return loader.getClass().getMethod("loadAll", Iterable.class).getDeclaringClass() != CacheLoader.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public Object load(Object key) throws Exception {
+        return index(key, loader.load(key));
+    }
+
+    @Override
+    public Map<Object, Object> loadAll(Iterable<? extends Object> keys) throws Exception {
+        if (!hasBulkLoad) {
+            Map<Object, Object> rows = new HashMap<>();
+            for (Object key : keys) {
+                Object row = load(key);
+                if (row != null) {
+                    rows.put(key, row);
+                }
+            }
+            return rows;
+        }
+        Map<Object, Object> rows = loader.loadAll(keys);
+        if (indexWriter != null) {
+            rows.forEach(indexWriter::write);
+        }
+        return rows;
+    }
+
+    @Override
+    public Object reload(Object key, Object oldValue) throws Exception {
+        return index(key, loader.reload(key, oldValue));
+    }
+
+    private Object index(Object key, Object row) {
+        if (row != null && indexWriter != null) {
+            indexWriter.write(key, row);
+        }
+        return row;
+    }
+
+    /**
+     * Load row by key. Checked exception of user loader is wrapped by {@link CompletionException} as Caffeine does.
+     *
+     * @param key table storage key
+     * @return table row or null if row is absent at source
+     */
+    Object loadUnchecked(Object key) {
+        try {
+            return load(key);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Load rows by keys in bulk. Checked exception of user loader is wrapped by {@link CompletionException} as Caffeine does.
+     *
+     * @param keys table storage keys
+     * @return loaded rows by key
+     */
+    Map<Object, Object> loadAllUnchecked(Iterable<? extends Object> keys) {
+        try {
+            return loadAll(keys);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.github.darrmirr.tweecache;
+
+/**
+ * Memory usage of table storage.
+ *
+ * Statistics is a snapshot taken at the moment of {@link TweeCache#memoryStats()} invocation.
+ * Sizes are estimated by {@link com.github.darrmirr.tweecache.accessor.RowSizeEstimator}.
+ */
+public class TableMemoryStats {
+    private final String tableName;
+    private final long rowCount;
+    private final long estimatedBytes;
+    private final long maxBytes;
+    private final double accessFrequency;
+
+    TableMemoryStats(String tableName, long rowCount, long estimatedBytes, long maxBytes, double accessFrequency) {
+        this.tableName = tableName;
+        this.rowCount = rowCount;
+        this.estimatedBytes = estimatedBytes;
+        this.maxBytes = maxBytes;
+        this.accessFrequency = accessFrequency;
+    }
+
+    /**
+     * Get table name
+     *
+     * @return table name
+     */
+    public String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * Get approximate number of table rows
+     *
+     * @return number of table rows
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Get estimated size of table storage entries.
+     * Size is tracked by table storage if schema has memory budget, otherwise it is extrapolated from sample of table rows.
+     *
+     * @return estimated size in bytes
+     */
+    public long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+
+    /**
+     * Get share of schema memory budget granted to table
+     *
+     * @return max estimated size of table storage entries in bytes or -1 if schema has no memory budget
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Get table access frequency that is used to split schema memory budget between tables
+     *
+     * @return decayed number of table accesses per budget rebalance or 0 if schema has no memory budget
+     */
+    public double getAccessFrequency() {
+        return accessFrequency;
+    }
+
+    @Override
+    public String toString() {
+        return "TableMemoryStats{" +
+                "tableName='" + tableName + '\'' +
+                ", rowCount=" + rowCount +
+                ", estimatedBytes=" + estimatedBytes +
+                ", maxBytes=" + maxBytes +
+                ", accessFrequency=" + accessFrequency +
+                '}';
+    }
+}
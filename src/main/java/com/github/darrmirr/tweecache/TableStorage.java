@@ -1,20 +1,347 @@
 package com.github.darrmirr.tweecache;
 
 import com.github.benmanes.caffeine.cache.Cache;
+import com.github.darrmirr.tweecache.accessor.RowAccessor;
+import com.github.darrmirr.tweecache.accessor.RowAccessors;
+import com.github.darrmirr.tweecache.index.IndexWriter;
+import com.github.darrmirr.tweecache.index.TableIndex;
+import com.github.darrmirr.tweecache.index.TimePartitions;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
 
 /**
  * Table storage contains data storage for particular table at schema
  */
 public class TableStorage {
-    private Class<?> tableClass;
-    private Cache<Object, Object> cache;
+    private final Class<?> tableClass;
+    private final Cache<Object, Object> cache;
+    private final RowAccessor rowAccessor;
+    private final String keyField;
+    private final int parallelScanThreshold;
+    private final List<TableIndex> indexes;
+    private final TimePartitions partitions;
+    private final IndexWriter indexWriter;
+    private final TableLoader loader;
+    private final Function<Object, Object> loadFunction;
+    private final Function<Iterable<? extends Object>, Map<Object, Object>> loadAllFunction;
+    private final LongAdder accessCount = new LongAdder();
 
     public TableStorage(Class<?> tableClass, Cache<Object, Object> cache) {
-        this.tableClass = tableClass;
-        this.cache = cache;
+        this(builder(tableClass, cache));
+    }
+
+    /**
+     * @deprecated use {@link #builder(Class, Cache)} instead
+     */
+    @Deprecated
+    public TableStorage(Class<?> tableClass, Cache<Object, Object> cache, RowAccessor rowAccessor) {
+        this(builder(tableClass, cache).withRowAccessor(rowAccessor));
+    }
+
+    /**
+     * @deprecated use {@link #builder(Class, Cache)} instead
+     */
+    @Deprecated
+    public TableStorage(Class<?> tableClass, Cache<Object, Object> cache, RowAccessor rowAccessor, String keyField, int parallelScanThreshold) {
+        this(tableClass, cache, rowAccessor, keyField, parallelScanThreshold, Collections.emptyList());
+    }
+
+    /**
+     * @deprecated use {@link #builder(Class, Cache)} instead
+     */
+    @Deprecated
+    public TableStorage(Class<?> tableClass, Cache<Object, Object> cache, RowAccessor rowAccessor, String keyField, int parallelScanThreshold,
+                        List<TableIndex> indexes) {
+        this(tableClass, cache, rowAccessor, keyField, parallelScanThreshold, indexes, null);
+    }
+
+    /**
+     * @deprecated use {@link #builder(Class, Cache)} instead
+     */
+    @Deprecated
+    public TableStorage(Class<?> tableClass, Cache<Object, Object> cache, RowAccessor rowAccessor, String keyField, int parallelScanThreshold,
+                        List<TableIndex> indexes, IndexWriter indexWriter) {
+        this(tableClass, cache, rowAccessor, keyField, parallelScanThreshold, indexes, indexWriter, null);
+    }
+
+    /**
+     * @deprecated use {@link #builder(Class, Cache)} instead
+     */
+    @Deprecated
+    public TableStorage(Class<?> tableClass, Cache<Object, Object> cache, RowAccessor rowAccessor, String keyField, int parallelScanThreshold,
+                        List<TableIndex> indexes, IndexWriter indexWriter, TableLoader loader) {
+        this(builder(tableClass, cache)
+                .withRowAccessor(rowAccessor)
+                .withKeyField(keyField)
+                .withParallelScanThreshold(parallelScanThreshold)
+                .withIndexes(indexes, indexWriter)
+                .withLoader(loader));
+    }
+
+    private TableStorage(TableStorageBuilder builder) {
+        this.tableClass = builder.tableClass;
+        this.cache = builder.cache;
+        this.rowAccessor = builder.rowAccessor != null ? builder.rowAccessor : RowAccessors.of(builder.tableClass);
+        this.keyField = builder.keyField;
+        this.parallelScanThreshold = builder.parallelScanThreshold;
+        this.indexes = builder.indexes;
+        this.indexWriter = builder.indexWriter;
+        this.loader = builder.loader;
+        this.loadFunction = loader != null ? loader::loadUnchecked : null;
+        this.loadAllFunction = loader != null ? loader::loadAllUnchecked : null;
+        this.partitions = indexes
+                .stream()
+                .filter(TimePartitions.class::isInstance)
+                .map(TimePartitions.class::cast)
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Create builder of table storage with optional key field, indexes, loader and scan settings.
+     * Table storages of schema are built by {@link com.github.darrmirr.tweecache.builder.SchemaBuilder.TableBuilder}.
+     *
+     * @param tableClass table row class
+     * @param cache data storage of table
+     * @return {@link TableStorageBuilder} instance
+     */
+    public static TableStorageBuilder builder(Class<?> tableClass, Cache<Object, Object> cache) {
+        return new TableStorageBuilder(tableClass, cache);
+    }
+
+    public Class<?> getTableClass() {
+        return tableClass;
     }
 
     public Cache<Object, Object> getCache() {
         return cache;
     }
+
+    /**
+     * Get accessor to read table row fields
+     *
+     * @return row accessor
+     */
+    public RowAccessor getRowAccessor() {
+        return rowAccessor;
+    }
+
+    /**
+     * Get name of table row field which value is used as key of table storage
+     *
+     * @return key field name or null if key field is not declared
+     */
+    public String getKeyField() {
+        return keyField;
+    }
+
+    /**
+     * Get min number of table rows to scan table in parallel
+     *
+     * @return min number of table rows to scan table in parallel or 0 if parallel scan is disabled
+     */
+    public int getParallelScanThreshold() {
+        return parallelScanThreshold;
+    }
+
+    /**
+     * Get secondary indexes of table
+     *
+     * @return table indexes
+     */
+    public List<TableIndex> getIndexes() {
+        return indexes;
+    }
+
+    /**
+     * Get time partitions of table
+     *
+     * @return time partitions or null if table is not partitioned
+     */
+    public TimePartitions getPartitions() {
+        return partitions;
+    }
+
+    /**
+     * Get all table rows to scan. Rows of partitioned table are read from live time partitions.
+     *
+     * @return table rows
+     */
+    public Collection<Object> rows() {
+        recordAccess();
+        return partitions != null ? partitions.rows() : cache.asMap().values();
+    }
+
+    /**
+     * Get table row by table storage key.
+     * Row missing at read-through table is loaded by table loader, concurrent loads of the same key are coalesced into single load.
+     * Row of dropped time partition is treated as absent.
+     *
+     * @param key table storage key
+     * @return table row or null if it is absent
+     */
+    public Object get(Object key) {
+        recordAccess();
+        Object row = loader != null ? cache.get(key, loadFunction) : cache.asMap().get(key);
+        return row != null && partitions != null && !partitions.isLive(key) ? null : row;
+    }
+
+    /**
+     * Get table row present at table storage without loading it. Row of dropped time partition is treated as absent,
+     * since it is removed from table storage in background.
+     *
+     * @param key table storage key
+     * @return table row or null if it is absent
+     */
+    public Object getIfPresent(Object key) {
+        Object row = cache.asMap().get(key);
+        return row != null && partitions != null && !partitions.isLive(key) ? null : row;
+    }
+
+    /**
+     * Get table rows by table storage keys.
+     * Rows missing at read-through table are loaded by single bulk load of table loader.
+     * Rows of dropped time partitions are treated as absent.
+     *
+     * @param keys table storage keys
+     * @return table rows by key, keys which rows are absent are not present at map
+     */
+    public Map<Object, Object> getAll(Iterable<?> keys) {
+        recordAccess();
+        Map<Object, Object> rows = loader != null ? cache.getAll(keys, loadAllFunction) : cache.getAllPresent(keys);
+        if (partitions == null || rows.keySet().stream().allMatch(partitions::isLive)) {
+            return rows;
+        }
+        Map<Object, Object> liveRows = new LinkedHashMap<>();
+        rows.forEach((key, row) -> {
+            if (partitions.isLive(key)) {
+                liveRows.put(key, row);
+            }
+        });
+        return liveRows;
+    }
+
+    /**
+     * Check if table is read-through table which rows missing at table storage are loaded by table loader
+     *
+     * @return true if table has loader
+     */
+    public boolean isReadThrough() {
+        return loader != null;
+    }
+
+    /**
+     * Put rows to table storage. Table indexes are updated in bulk rather than row by row.
+     *
+     * @param rows rows by table storage key
+     */
+    public void putAll(Map<Object, Object> rows) {
+        if (indexWriter != null) {
+            indexWriter.writeAll(cache, rows);
+        } else {
+            cache.putAll(rows);
+        }
+    }
+
+    /**
+     * Record table access. Access frequency is used to split memory budget between tables, see {@link MemoryBudget}.
+     */
+    public void recordAccess() {
+        accessCount.increment();
+    }
+
+    /**
+     * Get number of table accesses since previous invocation of this method
+     *
+     * @return number of table accesses
+     */
+    long takeAccessCount() {
+        return accessCount.sumThenReset();
+    }
+
+    /**
+     * Builder of {@link TableStorage}
+     */
+    public static class TableStorageBuilder {
+        private final Class<?> tableClass;
+        private final Cache<Object, Object> cache;
+        private RowAccessor rowAccessor;
+        private String keyField;
+        private int parallelScanThreshold;
+        private List<TableIndex> indexes = Collections.emptyList();
+        private IndexWriter indexWriter;
+        private TableLoader loader;
+
+        private TableStorageBuilder(Class<?> tableClass, Cache<Object, Object> cache) {
+            this.tableClass = tableClass;
+            this.cache = cache;
+        }
+
+        /**
+         * Set accessor to read table row fields. Accessor of {@link RowAccessors#of(Class)} is used by default.
+         *
+         * @param rowAccessor row accessor
+         * @return this {@link TableStorageBuilder} instance
+         */
+        public TableStorageBuilder withRowAccessor(RowAccessor rowAccessor) {
+            this.rowAccessor = rowAccessor;
+            return this;
+        }
+
+        /**
+         * Set name of table row field which value is used as key of table storage
+         *
+         * @param keyField key field name
+         * @return this {@link TableStorageBuilder} instance
+         */
+        public TableStorageBuilder withKeyField(String keyField) {
+            this.keyField = keyField;
+            return this;
+        }
+
+        /**
+         * Set min number of table rows to scan table in parallel
+         *
+         * @param parallelScanThreshold min number of table rows or 0 to disable parallel scan
+         * @return this {@link TableStorageBuilder} instance
+         */
+        public TableStorageBuilder withParallelScanThreshold(int parallelScanThreshold) {
+            this.parallelScanThreshold = parallelScanThreshold;
+            return this;
+        }
+
+        /**
+         * Set secondary indexes of table and cache writer that maintains them
+         *
+         * @param indexes table indexes
+         * @param indexWriter cache writer of table storage
+         * @return this {@link TableStorageBuilder} instance
+         */
+        public TableStorageBuilder withIndexes(List<TableIndex> indexes, IndexWriter indexWriter) {
+            this.indexes = indexes;
+            this.indexWriter = indexWriter;
+            return this;
+        }
+
+        /**
+         * Set loader of rows missing at table storage
+         *
+         * @param loader table loader
+         * @return this {@link TableStorageBuilder} instance
+         */
+        public TableStorageBuilder withLoader(TableLoader loader) {
+            this.loader = loader;
+            return this;
+        }
+
+        public TableStorage build() {
+            return new TableStorage(this);
+        }
+    }
 }
@@ -1,29 +1,47 @@
 package com.github.darrmirr.tweecache;
 
 import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import com.github.darrmirr.tweecache.builder.SchemaBuilder;
+import com.github.darrmirr.tweecache.importer.FileFormat;
+import com.github.darrmirr.tweecache.importer.FileImport;
+import com.github.darrmirr.tweecache.query.SqlFastPath;
+import com.github.darrmirr.tweecache.query.TableQuery;
+import com.github.darrmirr.tweecache.snapshot.ChangeLog;
+import com.github.darrmirr.tweecache.snapshot.SnapshotFile;
+import com.github.darrmirr.tweecache.util.QueryCancellation;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
-import org.apache.calcite.adapter.java.ReflectiveSchema;
 import org.apache.calcite.config.Lex;
 import org.apache.calcite.jdbc.CalciteConnection;
 import org.apache.calcite.jdbc.Driver;
 import org.apache.calcite.schema.SchemaPlus;
 import org.jdbi.v3.core.Handle;
 import org.jdbi.v3.core.Jdbi;
+import org.jdbi.v3.core.statement.Query;
 import org.jdbi.v3.core.statement.StatementContext;
+import org.jdbi.v3.core.statement.StatementCustomizer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
-import static com.github.darrmirr.tweecache.util.TweeFunctions.toTableCache;
 import static com.github.darrmirr.tweecache.util.TweeFunctions.toTableName;
 
 /**
@@ -31,11 +49,24 @@ import static com.github.darrmirr.tweecache.util.TweeFunctions.toTableName;
  */
 public class TweeCache {
     private static final Logger log = LoggerFactory.getLogger(TweeCache.class);
+    /**
+     * SQL-queries built by string concatenation could produce unbounded number of distinct strings
+     */
+    private static final int MAX_PREPARED_QUERIES = 10_000;
     private final TweeSchema tweeSchema;
     private final HikariDataSource dataSource;
     private final Jdbi jdbi;
-    private final Function<String, Cache<Object, Object>> toTableCache;
     private final Function<Class<?>, String> toTableName;
+    private final ConcurrentMap<Class<?>, TableHandle<?, ?>> tableHandles = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, TableHandle<?, ?>> namedTableHandles = new ConcurrentHashMap<>();
+    private final QueryScheduler queryScheduler;
+    private final Duration queryTimeout;
+    private final SqlFastPath sqlFastPath;
+    private final Cache<String, Optional<PreparedQuery>> preparedQueries = Caffeine
+            .newBuilder()
+            .maximumSize(MAX_PREPARED_QUERIES)
+            .build();
+    private ChangeLog changeLog;
 
     // manually load calcite jdbc Driver if multiply drivers are present in classpath.
     static {
@@ -52,32 +83,29 @@ public class TweeCache {
      *
      * @param tweeSchema cache schema
      * @param dataSource sql data source
+     * @param queryScheduler scheduler to execute SQL-queries
+     * @param queryTimeout default SQL-query timeout
+     * @param isSqlFastPath true to execute simple SQL-queries without Apache Calcite
      */
-    private TweeCache(TweeSchema tweeSchema, HikariDataSource dataSource) {
+    private TweeCache(TweeSchema tweeSchema, HikariDataSource dataSource, QueryScheduler queryScheduler, Duration queryTimeout, boolean isSqlFastPath) {
         this.tweeSchema = tweeSchema;
         this.dataSource = dataSource;
-        this.jdbi = Jdbi.create(dataSource);
-        this.toTableCache = toTableCache(tweeSchema::getTableStorage);
+        this.queryScheduler = queryScheduler;
+        this.queryTimeout = queryTimeout;
+        this.sqlFastPath = isSqlFastPath ? new SqlFastPath(tweeSchema) : null;
+        this.jdbi = Jdbi.create(this::connection);
         this.toTableName = toTableName();
     }
 
     /**
-     * Attach TweeCache schema to RootSchema at Apache Calcite Connection.
+     * Warm up data source pool up to its minimum idle connections with TweeCache schema attached to them.
+     * Connections opened by pool later get schema attached as soon as they are borrowed, see {@link #connection()}.
      */
     private void init() {
         try {
             List<Connection> connections = new LinkedList<>();
-            ReflectiveSchema schema = new ReflectiveSchema(tweeSchema.getSchemaObject());
-            for (int i = 0; i < dataSource.getMaximumPoolSize(); i++) {
-                Connection connection = dataSource.getConnection();
-                SchemaPlus rootSchema = connection
-                        .unwrap(CalciteConnection.class)
-                        .getRootSchema();
-                rootSchema.add(tweeSchema.getSchemaName().toLowerCase(), schema);
-                tweeSchema
-                        .getScalarFunctions()
-                        .forEach(rootSchema::add);
-                connections.add(connection);
+            for (int i = 0; i < dataSource.getMinimumIdle(); i++) {
+                connections.add(connection());
             }
             for (Connection connection : connections) {
                 connection.close();
@@ -88,6 +116,33 @@ public class TweeCache {
         }
     }
 
+    /**
+     * Borrow connection from data source pool and attach TweeCache schema to RootSchema at Apache Calcite Connection
+     * unless it is attached already.
+     *
+     * @return connection
+     * @throws SQLException if connection is not available
+     */
+    private Connection connection() throws SQLException {
+        Connection connection = dataSource.getConnection();
+        try {
+            SchemaPlus rootSchema = connection
+                    .unwrap(CalciteConnection.class)
+                    .getRootSchema();
+            String schemaName = tweeSchema.getSchemaName().toLowerCase();
+            if (rootSchema.getSubSchema(schemaName) == null) {
+                rootSchema.add(schemaName, tweeSchema.getCalciteSchema());
+                tweeSchema
+                        .getScalarFunctions()
+                        .forEach(rootSchema::add);
+            }
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
     /**
      * Put value to table cache with specified key.
      * Cache table storage will be found by value class.
@@ -99,7 +154,13 @@ public class TweeCache {
      * @return this {@link TweeCache} instance
      */
     public <K, V> TweeCache put(K key, V value) {
-        return put(toTableName, key, value);
+        if (key != null && value != null) {
+            TableHandle<?, ?> tableHandle = route(value.getClass());
+            if (tableHandle != null) {
+                put(tableHandle.getTableStorage(), tableHandle.getTableName(), key, value);
+            }
+        }
+        return this;
     }
 
     /**
@@ -113,19 +174,20 @@ public class TweeCache {
      * @return this {@link TweeCache} instance
      */
     public <K, V> TweeCache put(String tableName, K key, V value) {
-        return put(tableClass -> tableName, key, value);
+        if (key != null && value != null) {
+            tweeSchema
+                    .getTableStorage(tableName)
+                    .ifPresent(tableStorage -> put(tableStorage, tableName, key, value));
+        }
+        return this;
     }
 
-    private  <K, V> TweeCache put(Function<Class<?>, String> toTableName, K key, V value) {
-        if (key != null) {
-            Optional.ofNullable(value)
-                    .map(Object::getClass)
-                    .map(toTableName.andThen(toTableCache))
-                    .ifPresent(tableCache ->
-                            tableCache.put(key, value)
-                    );
+    void put(TableStorage tableStorage, String tableName, Object key, Object value) {
+        if (changeLog != null) {
+            changeLog.put(tableStorage, tableName, key, value);
+        } else {
+            tableStorage.getCache().put(key, value);
         }
-        return this;
     }
 
     /**
@@ -138,7 +200,14 @@ public class TweeCache {
      * @return this {@link TweeCache} instance
      */
     public <K, V> TweeCache putAll(Map<K, V> values) {
-        return putAll(toTableName, values);
+        if (values != null && !values.isEmpty()) {
+            V value = values.values().iterator().next();
+            TableHandle<?, ?> tableHandle = value == null ? null : route(value.getClass());
+            if (tableHandle != null) {
+                putAll(tableHandle.getTableStorage(), tableHandle.getTableName(), values);
+            }
+        }
+        return this;
     }
 
     /**
@@ -151,20 +220,163 @@ public class TweeCache {
      * @return this {@link TweeCache} instance
      */
     public <K, V> TweeCache putAll(String tableName, Map<K, V> values) {
-        return putAll(tableClass -> tableName, values);
+        if (values != null && !values.isEmpty()) {
+            tweeSchema
+                    .getTableStorage(tableName)
+                    .ifPresent(tableStorage -> putAll(tableStorage, tableName, values));
+        }
+        return this;
     }
 
-    private <K, V> TweeCache putAll(Function<Class<?>, String> toTableName, Map<K, V> values) {
-        Optional.ofNullable(values)
-                .map(Map::values)
-                .flatMap(mapValues ->
-                        mapValues.stream().findFirst())
-                .map(Object::getClass)
-                .map(toTableName.andThen(toTableCache))
-                .ifPresent(cache -> cache.putAll(values));
+    <K, V> void putAll(TableStorage tableStorage, String tableName, Map<K, V> values) {
+        if (changeLog != null) {
+            changeLog.putAll(tableStorage, tableName, values);
+        } else {
+            tableStorage.getCache().putAll(values);
+        }
+    }
+
+    /**
+     * Remove value with specified key from table cache.
+     *
+     * @param tableClass table row class
+     * @param key value's key at cache
+     * @param <K> key data type
+     * @return this {@link TweeCache} instance
+     */
+    public <K> TweeCache invalidate(Class<?> tableClass, K key) {
+        TableHandle<?, ?> tableHandle = tableClass == null ? null : route(tableClass);
+        if (tableHandle != null && key != null) {
+            invalidate(tableHandle.getTableStorage(), tableHandle.getTableName(), key);
+        }
+        return this;
+    }
+
+    /**
+     * Remove value with specified key from particular table cache.
+     *
+     * @param tableName table name where value is stored
+     * @param key value's key at cache
+     * @param <K> key data type
+     * @return this {@link TweeCache} instance
+     */
+    public <K> TweeCache invalidate(String tableName, K key) {
+        if (key != null) {
+            tweeSchema
+                    .getTableStorage(tableName)
+                    .ifPresent(tableStorage -> invalidate(tableStorage, tableName, key));
+        }
         return this;
     }
 
+    void invalidate(TableStorage tableStorage, String tableName, Object key) {
+        if (changeLog != null) {
+            changeLog.invalidate(tableStorage, tableName, key);
+        } else {
+            tableStorage.getCache().invalidate(key);
+        }
+    }
+
+    /**
+     * Get typed handle of table which rows are instances of table class.
+     * Handle refers to table storage directly, it is preferable way to put and get rows at hot path.
+     *
+     * @param tableClass table row class
+     * @param <K> key data type
+     * @param <V> table row data type
+     * @return table handle
+     * @throws IllegalArgumentException if table is absent at schema
+     */
+    public <K, V> TableHandle<K, V> table(Class<V> tableClass) {
+        TableHandle<K, V> tableHandle = tableClass == null ? null : (TableHandle<K, V>) route(tableClass);
+        if (tableHandle == null) {
+            throw new IllegalArgumentException("table is not found for class '" + (tableClass == null ? null : tableClass.getName()) + "'");
+        }
+        return tableHandle;
+    }
+
+    /**
+     * Get typed handle of particular table.
+     *
+     * @param tableName table name
+     * @param valueClass table row class
+     * @param <K> key data type
+     * @param <V> table row data type
+     * @return table handle
+     * @throws IllegalArgumentException if table is absent at schema
+     */
+    public <K, V> TableHandle<K, V> table(String tableName, Class<V> valueClass) {
+        TableHandle<K, V> tableHandle = namedTable(tableName, Objects.requireNonNull(valueClass, "value class is null"));
+        if (tableHandle == null) {
+            throw new IllegalArgumentException("table '" + tableName + "' is not found");
+        }
+        return tableHandle;
+    }
+
+    /**
+     * Create query over rows of table which rows are instances of table class, e.g.
+     * {@code from(Employee.class).where("departmentId", eq(5)).limit(10).list()}.
+     * Query is executed straight against table storage and table indexes without SQL.
+     *
+     * @param tableClass table row class
+     * @param <V> table row data type
+     * @return table query
+     * @throws IllegalArgumentException if table is absent at schema
+     */
+    public <V> TableQuery<V> from(Class<V> tableClass) {
+        return this.<Object, V>table(tableClass).query();
+    }
+
+    /**
+     * Create query over rows of particular table.
+     *
+     * @param tableName table name
+     * @param valueClass table row class
+     * @param <V> table row data type
+     * @return table query
+     * @throws IllegalArgumentException if table is absent at schema
+     */
+    public <V> TableQuery<V> from(String tableName, Class<V> valueClass) {
+        return this.<Object, V>table(tableName, valueClass).query();
+    }
+
+    /**
+     * Resolve table of row class once and keep direct reference to table storage, so that next lookups of the same class
+     * cost single map lookup without table name computation.
+     * Only classes of schema tables are kept, so that lookups of arbitrary classes do not grow handle map.
+     */
+    private TableHandle<?, ?> route(Class<?> valueClass) {
+        TableHandle<?, ?> tableHandle = tableHandles.get(valueClass);
+        if (tableHandle != null) {
+            return tableHandle;
+        }
+        String tableName = toTableName.apply(valueClass);
+        return tweeSchema
+                .getTableStorage(tableName)
+                .map(tableStorage -> tableHandles.computeIfAbsent(valueClass, type -> new TableHandle<>(this, tableName, tableStorage, type)))
+                .orElse(null);
+    }
+
+    /**
+     * Get handle of schema table by table name. Handle is reused by lookups of the same table with the same value class.
+     *
+     * @return table handle or null if table is absent at schema
+     */
+    private <K, V> TableHandle<K, V> namedTable(String tableName, Class<V> valueClass) {
+        TableHandle<?, ?> tableHandle = namedTableHandles.get(tableName);
+        if (tableHandle != null && tableHandle.getValueClass() == valueClass) {
+            return (TableHandle<K, V>) tableHandle;
+        }
+        return tweeSchema
+                .getTableStorage(tableName)
+                .map(tableStorage -> {
+                    TableHandle<K, V> newTableHandle = new TableHandle<>(this, tableName, tableStorage, valueClass);
+                    namedTableHandles.put(tableName, newTableHandle);
+                    return newTableHandle;
+                })
+                .orElse(null);
+    }
+
     /**
      * Execute SELECT SQL-query against data at in-memory cache without query parameters.
      *
@@ -187,15 +399,250 @@ public class TweeCache {
      * @return row item list
      */
     public <T> List<T> query(String sqlQuery, Map<String, Object> sqlParameters, Function<ResultSet, T> mapper) {
+        return query(sqlQuery, sqlParameters, mapper, queryTimeout);
+    }
+
+    /**
+     * Execute SELECT SQL-query against data at in-memory cache with query parameters and timeout.
+     * SQL-query is stopped with {@link java.util.concurrent.CancellationException} when timeout is elapsed.
+     *
+     * @param sqlQuery SQL-query string
+     * @param sqlParameters named query parameters
+     * @param mapper row mapper function
+     * @param timeout SQL-query timeout. SQL-query has no timeout if it is null or zero.
+     * @param <T> row item data type
+     * @return row item list
+     */
+    public <T> List<T> query(String sqlQuery, Map<String, Object> sqlParameters, Function<ResultSet, T> mapper, Duration timeout) {
+        QueryCancellation cancellation = new QueryCancellation(timeout);
+        return queryScheduler.call(sqlQuery, cancellation, () -> executeQuery(cancellation, sqlQuery, sqlParameters, mapper));
+    }
+
+    /**
+     * Execute SELECT SQL-query asynchronously without query parameters.
+     *
+     * @param sqlQuery SQL-query string
+     * @param mapper row mapper function
+     * @param <T> row item data type
+     * @return future row item list
+     */
+    public <T> QueryFuture<List<T>> queryAsync(String sqlQuery, Function<ResultSet, T> mapper) {
+        return queryAsync(sqlQuery, null, mapper);
+    }
+
+    /**
+     * Execute SELECT SQL-query asynchronously with query parameters.
+     * SQL-query is executed at executor configured by {@link TweeCacheBuilder#withQueryExecutor(Executor)}.
+     *
+     * @param sqlQuery SQL-query string
+     * @param sqlParameters named query parameters
+     * @param mapper row mapper function
+     * @param <T> row item data type
+     * @return future row item list
+     */
+    public <T> QueryFuture<List<T>> queryAsync(String sqlQuery, Map<String, Object> sqlParameters, Function<ResultSet, T> mapper) {
+        return queryAsync(sqlQuery, sqlParameters, mapper, queryTimeout);
+    }
+
+    /**
+     * Execute SELECT SQL-query asynchronously with query parameters and timeout.
+     * SQL-query could be cancelled by {@link QueryFuture#cancel(boolean)}.
+     *
+     * @param sqlQuery SQL-query string
+     * @param sqlParameters named query parameters
+     * @param mapper row mapper function
+     * @param timeout SQL-query timeout. SQL-query has no timeout if it is null or zero.
+     * @param <T> row item data type
+     * @return future row item list
+     */
+    public <T> QueryFuture<List<T>> queryAsync(String sqlQuery, Map<String, Object> sqlParameters, Function<ResultSet, T> mapper, Duration timeout) {
+        QueryCancellation cancellation = new QueryCancellation(timeout);
+        return queryScheduler.submit(sqlQuery, cancellation, () -> executeQuery(cancellation, sqlQuery, sqlParameters, mapper));
+    }
+
+    /**
+     * Execute SELECT SQL-query asynchronously and pass each row item to consumer as soon as it is mapped.
+     * Row items are not collected to list.
+     *
+     * @param sqlQuery SQL-query string
+     * @param sqlParameters named query parameters
+     * @param mapper row mapper function
+     * @param consumer row item consumer. It is invoked at executor thread.
+     * @param <T> row item data type
+     * @return future number of consumed row items
+     */
+    public <T> QueryFuture<Long> queryAsync(String sqlQuery, Map<String, Object> sqlParameters, Function<ResultSet, T> mapper, Consumer<? super T> consumer) {
+        return queryAsync(sqlQuery, sqlParameters, mapper, consumer, queryTimeout);
+    }
+
+    /**
+     * Execute SELECT SQL-query asynchronously with timeout and pass each row item to consumer as soon as it is mapped.
+     * SQL-query could be cancelled by {@link QueryFuture#cancel(boolean)}, consumer is not invoked after that.
+     *
+     * @param sqlQuery SQL-query string
+     * @param sqlParameters named query parameters
+     * @param mapper row mapper function
+     * @param consumer row item consumer. It is invoked at executor thread.
+     * @param timeout SQL-query timeout. SQL-query has no timeout if it is null or zero.
+     * @param <T> row item data type
+     * @return future number of consumed row items
+     */
+    public <T> QueryFuture<Long> queryAsync(String sqlQuery, Map<String, Object> sqlParameters, Function<ResultSet, T> mapper, Consumer<? super T> consumer, Duration timeout) {
+        QueryCancellation cancellation = new QueryCancellation(timeout);
+        return queryScheduler.submit(sqlQuery, cancellation, () -> {
+            OptionalLong fastPathRowCount = executeFastPath(cancellation, sqlQuery, sqlParameters, mapper, consumer);
+            if (fastPathRowCount.isPresent()) {
+                return fastPathRowCount.getAsLong();
+            }
+            try(Handle handle = jdbi.open()) {
+                long[] rowCount = { 0 };
+                createQuery(handle, cancellation, sqlQuery, sqlParameters)
+                        .map((ResultSet rs, StatementContext ctx) -> mapper.apply(rs))
+                        .forEach(row -> {
+                            cancellation.check();
+                            consumer.accept(row);
+                            rowCount[0]++;
+                        });
+                return rowCount[0];
+            }
+        });
+    }
+
+    /**
+     * Parse named parameters of SQL-query once. Prepared query is cached by SQL-query string.
+     *
+     * @param sqlQuery SQL-query string with named parameters like {@code :name}
+     * @return prepared query
+     * @throws IllegalArgumentException if SQL-query contains positional placeholders, escaped characters or double colons
+     */
+    public PreparedQuery prepare(String sqlQuery) {
+        Objects.requireNonNull(sqlQuery, "SQL-query is null");
+        return preparedQueries
+                .get(sqlQuery, this::parse)
+                .orElseThrow(() -> new IllegalArgumentException("SQL-query could not be prepared: '" + sqlQuery + "'"));
+    }
+
+    /**
+     * Execute prepared SELECT SQL-query with parameter values of binder.
+     *
+     * Parameter values are set to JDBC statement by precomputed positions, primitive values are not boxed.
+     * SQL-query is executed at caller thread, so that thread-confined binder could be reused after method returns.
+     *
+     * @param binder parameter binder of prepared query, see {@link PreparedQuery#newBinder()}
+     * @param mapper row mapper function
+     * @param <T> row item data type
+     * @return row item list
+     * @throws IllegalStateException if some parameter is not bound or SQL-query fails
+     */
+    public <T> List<T> query(ParameterBinder binder, Function<ResultSet, T> mapper) {
+        return query(binder, mapper, queryTimeout);
+    }
+
+    /**
+     * Execute prepared SELECT SQL-query with parameter values of binder and timeout.
+     * SQL-query is stopped with {@link java.util.concurrent.CancellationException} when timeout is elapsed.
+     *
+     * @param binder parameter binder of prepared query, see {@link PreparedQuery#newBinder()}
+     * @param mapper row mapper function
+     * @param timeout SQL-query timeout. SQL-query has no timeout if it is null or zero.
+     * @param <T> row item data type
+     * @return row item list
+     * @throws IllegalStateException if some parameter is not bound or SQL-query fails
+     */
+    public <T> List<T> query(ParameterBinder binder, Function<ResultSet, T> mapper, Duration timeout) {
+        QueryCancellation cancellation = new QueryCancellation(timeout);
+        String sqlQuery = binder.getPreparedQuery().getSqlQuery();
+        return queryScheduler.call(sqlQuery, cancellation, () -> executeQuery(cancellation, binder, mapper));
+    }
+
+    private <T> List<T> executeQuery(QueryCancellation cancellation, ParameterBinder binder, Function<ResultSet, T> mapper) {
+        PreparedQuery preparedQuery = binder.getPreparedQuery();
+        try (Connection connection = connection();
+             PreparedStatement statement = connection.prepareStatement(preparedQuery.getSql())) {
+            cancellation.bindStatement(statement);
+            cancellation.checkpoint();
+            binder.applyTo(statement);
+            List<T> rows = new ArrayList<>();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                cancellation.checkpoint();
+                while (resultSet.next()) {
+                    cancellation.check();
+                    rows.add(mapper.apply(resultSet));
+                }
+            }
+            return rows;
+        } catch (SQLException e) {
+            throw new IllegalStateException("error to execute SQL-query '" + preparedQuery.getSqlQuery() + "'", e);
+        }
+    }
+
+    private Optional<PreparedQuery> parse(String sqlQuery) {
+        return Optional.ofNullable(PreparedQuery.parse(sqlQuery));
+    }
+
+    private <T> List<T> executeQuery(QueryCancellation cancellation, String sqlQuery, Map<String, Object> sqlParameters, Function<ResultSet, T> mapper) {
+        List<T> rows = new ArrayList<>();
+        if (executeFastPath(cancellation, sqlQuery, sqlParameters, mapper, rows::add).isPresent()) {
+            return rows;
+        }
         try(Handle handle = jdbi.open()) {
-           return handle
-                   .createQuery(sqlQuery)
-                   .bindMap(sqlParameters)
-                   .map((ResultSet rs, StatementContext ctx) -> mapper.apply(rs))
+           return createQuery(handle, cancellation, sqlQuery, sqlParameters)
+                   .map((ResultSet rs, StatementContext ctx) -> {
+                       cancellation.check();
+                       return mapper.apply(rs);
+                   })
                    .list();
         }
     }
 
+    /**
+     * Execute simple SQL-query straight against table storage, see {@link SqlFastPath}
+     *
+     * @return number of consumed row items or empty optional if SQL-query must be executed by Apache Calcite
+     */
+    private <T> OptionalLong executeFastPath(QueryCancellation cancellation, String sqlQuery, Map<String, Object> sqlParameters,
+                                             Function<ResultSet, T> mapper, Consumer<? super T> consumer) {
+        return sqlFastPath != null
+                ? sqlFastPath.execute(sqlQuery, sqlParameters, mapper, consumer, cancellation)
+                : OptionalLong.empty();
+    }
+
+    /**
+     * Create Jdbi query. Named parameters of SQL-query are parsed once per SQL-query string and parameter values
+     * are bound by position. SQL-query is left to Jdbi if it could not be prepared or some parameter is missing,
+     * so that Jdbi reports error as usual.
+     * Apache Calcite plans SQL-query when statement is prepared, therefore cancellation is checked once SQL-query
+     * is planned and once it is executed, before result rows are read.
+     */
+    private Query createQuery(Handle handle, QueryCancellation cancellation, String sqlQuery, Map<String, Object> sqlParameters) {
+        PreparedQuery preparedQuery = preparedQueries.get(sqlQuery, this::parse).orElse(null);
+        Query query;
+        if (preparedQuery != null && preparedQuery.isBoundBy(sqlParameters)) {
+            query = handle.createQuery(preparedQuery.getSql());
+            for (int position = 0; position < preparedQuery.getPositionCount(); position++) {
+                String parameterName = preparedQuery.getParameterNames().get(preparedQuery.getParameterIndex(position));
+                query.bind(position, sqlParameters.get(parameterName));
+            }
+        } else {
+            query = handle
+                    .createQuery(sqlQuery)
+                    .bindMap(sqlParameters);
+        }
+        return query
+                .addCustomizer(new StatementCustomizer() {
+                    @Override
+                    public void beforeExecution(PreparedStatement statement, StatementContext ctx) {
+                        cancellation.bindStatement(statement);
+                        cancellation.checkpoint();
+                    }
+
+                    @Override
+                    public void afterExecution(PreparedStatement statement, StatementContext ctx) {
+                        cancellation.checkpoint();
+                    }
+                });
+    }
+
     /**
      * Get all rows from table cache.
      *
@@ -237,7 +684,11 @@ public class TweeCache {
      * @return value
      */
     public <K, V> Optional<V> getById(K id, Class<V> valueClass) {
-        return getById(toTableName, id, valueClass);
+        if (id == null || valueClass == null) {
+            return Optional.empty();
+        }
+        TableHandle<K, V> tableHandle = (TableHandle<K, V>) route(valueClass);
+        return tableHandle == null ? Optional.empty() : Optional.ofNullable(tableHandle.get(id));
     }
 
     /**
@@ -252,23 +703,52 @@ public class TweeCache {
      * @return value
      */
     public <K, V> Optional<V> getById(String tableName, K id, Class<V> valueClass) {
-        return getById(tableClass -> tableName, id, valueClass);
-    }
-
-    private <K, V> Optional<V> getById(Function<Class<?>, String> toTableName, K id, Class<V> valueClass) {
         if (id == null || valueClass == null) {
             return Optional.empty();
         }
-        return Optional
-                .of(valueClass)
-                .map(toTableName.andThen(toTableCache))
-                .map(Cache::asMap)
-                .map(cacheMap ->
-                        cacheMap.get(id))
+        return tweeSchema
+                .getTableStorage(tableName)
+                .map(tableStorage ->
+                        tableStorage.get(id))
                 .filter(valueClass::isInstance)
                 .map(valueClass::cast);
     }
 
+    /**
+     * Get rows from table cache by several ids in one call.
+     * Cache table storage will be found by value class once for all ids.
+     * Rows missing at read-through table are loaded by single bulk load.
+     *
+     * @param ids values' ids at cache, null ids are skipped
+     * @param valueClass object's class
+     * @param <K> key data type
+     * @param <V> value data type
+     * @return values by id in order of ids, ids which values are absent are not present at map
+     */
+    public <K, V> Map<K, V> getByIds(Collection<K> ids, Class<V> valueClass) {
+        TableHandle<K, V> tableHandle = valueClass == null ? null : (TableHandle<K, V>) route(valueClass);
+        return tableHandle == null ? Collections.emptyMap() : tableHandle.getAll(ids);
+    }
+
+    /**
+     * Get rows from table cache by several ids in one call.
+     * Rows missing at read-through table are loaded by single bulk load.
+     *
+     * @param tableName table name
+     * @param ids values' ids at cache, null ids are skipped
+     * @param valueClass object's class
+     * @param <K> key data type
+     * @param <V> value data type
+     * @return values by id in order of ids, ids which values are absent are not present at map
+     */
+    public <K, V> Map<K, V> getByIds(String tableName, Collection<K> ids, Class<V> valueClass) {
+        if (tableName == null || ids == null || ids.isEmpty() || valueClass == null) {
+            return Collections.emptyMap();
+        }
+        TableHandle<K, V> tableHandle = namedTable(tableName, valueClass);
+        return tableHandle == null ? Collections.emptyMap() : tableHandle.getAll(ids);
+    }
+
     /**
      * Get cache statistics from underlined cache implementation.
      *
@@ -295,11 +775,220 @@ public class TweeCache {
     }
 
     /**
-     * Destroy all allocated in-memory cache resources
+     * Get estimated memory usage of table storage and its share of schema memory budget.
+     *
+     * @param tableClass table class
+     * @return table memory usage
+     */
+    public Optional<TableMemoryStats> memoryStats(Class<?> tableClass) {
+        return Optional
+                .ofNullable(tableClass)
+                .map(toTableName)
+                .flatMap(tweeSchema::memoryStats);
+    }
+
+    /**
+     * Get estimated memory usage of table storage and its share of schema memory budget.
+     *
+     * @param tableName table name
+     * @return table memory usage
+     */
+    public Optional<TableMemoryStats> memoryStats(String tableName) {
+        return Optional
+                .ofNullable(tableName)
+                .flatMap(tweeSchema::memoryStats);
+    }
+
+    /**
+     * Get estimated memory usage of all table storages.
+     *
+     * @return table memory usage map where key is table name
+     */
+    public Map<String, TableMemoryStats> memoryStats() {
+        return tweeSchema.memoryStats();
+    }
+
+    /**
+     * Drop time partitions of table which time range ends before instant.
+     * Rows of dropped partitions disappear from SQL-queries at once, they are removed from table storage in background.
+     *
+     * @param tableClass table class
+     * @param instant instant
+     * @return number of dropped partitions
+     */
+    public int dropPartitions(Class<?> tableClass, Instant instant) {
+        return dropPartitions(toTableName.apply(tableClass), instant);
+    }
+
+    /**
+     * Drop time partitions of table which time range ends before instant.
+     * Rows of dropped partitions disappear from SQL-queries at once, they are removed from table storage in background.
+     *
+     * @param tableName table name
+     * @param instant instant
+     * @return number of dropped partitions or 0 if table is not partitioned
+     */
+    public int dropPartitions(String tableName, Instant instant) {
+        return tweeSchema
+                .getTableStorage(tableName)
+                .map(TableStorage::getPartitions)
+                .map(partitions -> partitions.dropBefore(instant))
+                .orElse(0);
+    }
+
+    /**
+     * Write all table storages to snapshot file in compact binary format.
+     * Snapshot file is replaced atomically, therefore previous snapshot stays intact if snapshot fails.
+     *
+     * Tables are written in parallel while they are available for reads and writes.
+     * Rows modified during snapshot may or may not be present at snapshot.
+     *
+     * If change log is configured, log segments which records are contained by snapshot are deleted after snapshot is written.
+     *
+     * @param path snapshot file path
+     * @return number of written rows
+     * @throws UncheckedIOException if snapshot could not be written
+     */
+    public long snapshot(Path path) {
+        try {
+            long startNanos = System.nanoTime();
+            long rolledSegment = changeLog != null ? changeLog.roll() : 0;
+            long rowCount = SnapshotFile.write(path, tweeSchema.getTableStorages());
+            if (changeLog != null) {
+                changeLog.deleteBefore(rolledSegment);
+            }
+            log.info("snapshot of cache '{}' is written to '{}': {} rows for {} ms",
+                    tweeSchema.getSchemaName(), path, rowCount, (System.nanoTime() - startNanos) / 1_000_000);
+            return rowCount;
+        } catch (IOException e) {
+            throw new UncheckedIOException("error to write snapshot of cache '" + tweeSchema.getSchemaName() + "' to '" + path + "'", e);
+        }
+    }
+
+    /**
+     * Import CSV or JSON lines file to table storage. File is streamed and parsed in parallel chunks directly into table rows,
+     * rows are put to table storage in batches. Column values are parsed according to types of table row class fields.
+     *
+     * Table must declare key field (see {@link SchemaBuilder.TableBuilder#withKey(String)}).
+     * Lines that could not be parsed are skipped. Imported rows are appended to change log if it is enabled, therefore
+     * they are restored after restart the same way as rows put by {@link #putAll(String, Map)}.
+     *
+     * @param path file path
+     * @param tableClass table row class
+     * @param format file format
+     * @return number of imported rows
+     * @throws UncheckedIOException if file could not be read
+     * @throws IllegalArgumentException if table is absent or it has no key field
+     */
+    public long importFile(Path path, Class<?> tableClass, FileFormat format) {
+        return importFile(path, toTableName.apply(tableClass), format);
+    }
+
+    /**
+     * Import CSV or JSON lines file to particular table storage.
+     *
+     * @param path file path
+     * @param tableName table name
+     * @param format file format
+     * @return number of imported rows
+     * @throws UncheckedIOException if file could not be read
+     * @throws IllegalArgumentException if table is absent or it has no key field
+     * @see #importFile(Path, Class, FileFormat)
+     */
+    public long importFile(Path path, String tableName, FileFormat format) {
+        TableStorage tableStorage = tweeSchema
+                .getTableStorage(tableName)
+                .orElseThrow(() -> new IllegalArgumentException("table '" + tableName + "' is not found at cache '" + tweeSchema.getSchemaName() + "'"));
+        try {
+            long startNanos = System.nanoTime();
+            ChangeLog changeLog = this.changeLog;
+            long rowCount = changeLog != null
+                    ? FileImport.read(path, format, tableStorage, rows -> changeLog.putAll(tableStorage, tableName, rows))
+                    : FileImport.read(path, format, tableStorage);
+            log.info("file '{}' is imported to table '{}': {} rows for {} ms", path, tableName, rowCount, (System.nanoTime() - startNanos) / 1_000_000);
+            return rowCount;
+        } catch (IOException e) {
+            throw new UncheckedIOException("error to import file '" + path + "' to table '" + tableName + "'", e);
+        }
+    }
+
+    /**
+     * Restore table storages from snapshot file. Cache stays empty if snapshot file is absent or it could not be read.
+     *
+     * @param path snapshot file path
+     */
+    private void restore(Path path) {
+        if (!Files.exists(path)) {
+            log.info("snapshot '{}' is not found, cache '{}' starts empty", path, tweeSchema.getSchemaName());
+            return;
+        }
+        try {
+            long startNanos = System.nanoTime();
+            long rowCount = SnapshotFile.read(path, tweeSchema.getTableStorages());
+            log.info("cache '{}' is restored from snapshot '{}': {} rows for {} ms",
+                    tweeSchema.getSchemaName(), path, rowCount, (System.nanoTime() - startNanos) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            log.error("error to restore cache '{}' from snapshot '{}' due to '{}', cache starts empty. See debug log for more details",
+                    tweeSchema.getSchemaName(), path, e.getMessage());
+            log.debug("error to restore cache '" + tweeSchema.getSchemaName() + "' from snapshot '" + path + "'", e);
+            tweeSchema.invalidateAll();
+        }
+    }
+
+    /**
+     * Replay change log records written after snapshot and start to append writes to change log.
+     * Records replayed successfully stay at table storages if change log could not be replayed completely.
+     *
+     * @param directory change log directory
+     * @param fsyncPolicy policy to sync change log to disk
+     * @throws UncheckedIOException if change log could not be opened
+     */
+    private void openChangeLog(Path directory, ChangeLog.FsyncPolicy fsyncPolicy) {
+        try {
+            this.changeLog = new ChangeLog(directory, fsyncPolicy, ChangeLog.DEFAULT_SEGMENT_BYTES, ChangeLog.DEFAULT_COMPACTION_BYTES);
+        } catch (IOException e) {
+            throw new UncheckedIOException("error to open change log of cache '" + tweeSchema.getSchemaName() + "' at '" + directory + "'", e);
+        }
+        try {
+            long startNanos = System.nanoTime();
+            long recordCount = changeLog.replay(tweeSchema.getTableStorages());
+            log.info("change log '{}' is replayed to cache '{}': {} records for {} ms",
+                    directory, tweeSchema.getSchemaName(), recordCount, (System.nanoTime() - startNanos) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            log.error("error to replay change log '{}' to cache '{}' due to '{}'. See debug log for more details",
+                    directory, tweeSchema.getSchemaName(), e.getMessage());
+            log.debug("error to replay change log '" + directory + "' to cache '" + tweeSchema.getSchemaName() + "'", e);
+        }
+    }
+
+    /**
+     * Get SQL-queries execution statistics by query class: number of running, queued, admitted and rejected SQL-queries
+     * and time SQL-queries spent at queue waiting for execution.
+     *
+     * @return query class statistics map where key is query class name
+     */
+    public Map<String, QueryClassStats> queryClassStats() {
+        return queryScheduler.stats();
+    }
+
+    /**
+     * Destroy all allocated in-memory cache resources.
+     * Running SQL-queries are cancelled.
+     *
+     * Change log is synced to disk and closed.
      *
      * It is recommended to invoke this method before shutdown application
      */
     public void destroy() {
+        queryScheduler.shutdown();
+        if (changeLog != null) {
+            try {
+                changeLog.close();
+            } catch (IOException e) {
+                log.error("error to close change log of cache '{}' due to '{}'", tweeSchema.getSchemaName(), e.getMessage());
+            }
+        }
+        tweeSchema.getMemoryBudget().ifPresent(MemoryBudget::shutdown);
         dataSource.close();
         tweeSchema.invalidateAll();
     }
@@ -312,10 +1001,21 @@ public class TweeCache {
      * In-memory cache builder
      */
     public static class TweeCacheBuilder {
+        private static final int DEFAULT_MAX_CONCURRENT_QUERIES = 10;
         private final String schemaName;
         private final SchemaBuilder schemaBuilder;
         private final HikariConfig dataSourceConfig = new HikariConfig();
         private final Properties dataSourceProperties = new Properties();
+        private Executor queryExecutor;
+        private int maxConcurrentQueries;
+        private int maxTotalConcurrentQueries;
+        private Duration queryTimeout;
+        private final Map<String, QueryClass> queryClasses = new LinkedHashMap<>();
+        private Function<String, String> queryClassifier;
+        private Path snapshotPath;
+        private Path changeLogDirectory;
+        private ChangeLog.FsyncPolicy fsyncPolicy;
+        private boolean isSqlFastPath = true;
 
         public TweeCacheBuilder(String schemaName) {
             this.schemaBuilder = new SchemaBuilder(schemaName);
@@ -348,6 +1048,187 @@ public class TweeCache {
             return this;
         }
 
+        /**
+         * Set executor to run asynchronous SQL-queries.
+         *
+         * By default, virtual threads are used on JDK 21+ and fixed thread pool is used on previous JDK versions.
+         * Executor is not shutdown by {@link TweeCache#destroy()} if it is set by this method.
+         *
+         * @param queryExecutor executor to run asynchronous SQL-queries
+         * @return this {@link TweeCacheBuilder} instance
+         */
+        public TweeCacheBuilder withQueryExecutor(Executor queryExecutor) {
+            this.queryExecutor = queryExecutor;
+            return this;
+        }
+
+        /**
+         * Set max number of concurrently executed SQL-queries of default query class. Other SQL-queries wait for their turn.
+         *
+         * By default, it is equal to data source max pool size.
+         * Data source max pool size set by {@link #withDataSourceConfig(Consumer)} is never exceeded, number of concurrently
+         * executed SQL-queries of all query classes is capped by it.
+         *
+         * @param maxConcurrentQueries max number of concurrently executed SQL-queries
+         * @return this {@link TweeCacheBuilder} instance
+         */
+        public TweeCacheBuilder withMaxConcurrentQueries(int maxConcurrentQueries) {
+            if (maxConcurrentQueries < 1) {
+                throw new IllegalArgumentException("max concurrent queries must be greater than zero");
+            }
+            this.maxConcurrentQueries = maxConcurrentQueries;
+            return this;
+        }
+
+        /**
+         * Add query class with its own concurrency limit and queue.
+         *
+         * SQL-query is assigned to query class by hint (SQL comment like {@code /* query_class: analytic *}{@code /})
+         * or by classifier set by {@link #withQueryClassifier(Function)}. Other SQL-queries belong to default query class.
+         * SQL-query is rejected with {@link java.util.concurrent.RejectedExecutionException} if its query class queue is full.
+         * Data source max pool size is set to serve all query classes at the same time unless it is set explicitly
+         * or total number of concurrently executed SQL-queries is limited by {@link #withMaxTotalConcurrentQueries(int)}.
+         *
+         * @param name query class name
+         * @param maxConcurrentQueries max number of concurrently executed SQL-queries of this class
+         * @param maxQueuedQueries max number of SQL-queries of this class waiting for execution
+         * @return this {@link TweeCacheBuilder} instance
+         */
+        public TweeCacheBuilder withQueryClass(String name, int maxConcurrentQueries, int maxQueuedQueries) {
+            return withQueryClass(name, maxConcurrentQueries, maxQueuedQueries, 1);
+        }
+
+        /**
+         * Add query class with its own concurrency limit, queue and priority.
+         *
+         * Weight takes effect when query classes compete for execution slots limited by {@link #withMaxTotalConcurrentQueries(int)}.
+         * Free slot is granted to waiting SQL-query of query class that has the least number of granted slots divided by its weight,
+         * e.g. query class with weight 10 gets ten slots per one slot of query class with weight 1.
+         *
+         * @param name query class name
+         * @param maxConcurrentQueries max number of concurrently executed SQL-queries of this class
+         * @param maxQueuedQueries max number of SQL-queries of this class waiting for execution
+         * @param weight query class priority
+         * @return this {@link TweeCacheBuilder} instance
+         * @see #withQueryClass(String, int, int)
+         */
+        public TweeCacheBuilder withQueryClass(String name, int maxConcurrentQueries, int maxQueuedQueries, int weight) {
+            queryClasses.put(name, new QueryClass(name, maxConcurrentQueries, maxQueuedQueries, weight));
+            return this;
+        }
+
+        /**
+         * Set max number of concurrently executed SQL-queries of all query classes.
+         * Execution slots are shared by query classes and dispatched by query class weight.
+         *
+         * By default, it is equal to sum of query class limits, so that query classes do not compete for execution slots.
+         * It is capped by data source max pool size if max pool size is set by {@link #withDataSourceConfig(Consumer)}.
+         *
+         * @param maxTotalConcurrentQueries max number of concurrently executed SQL-queries of all query classes
+         * @return this {@link TweeCacheBuilder} instance
+         */
+        public TweeCacheBuilder withMaxTotalConcurrentQueries(int maxTotalConcurrentQueries) {
+            if (maxTotalConcurrentQueries < 1) {
+                throw new IllegalArgumentException("max total concurrent queries must be greater than zero");
+            }
+            this.maxTotalConcurrentQueries = maxTotalConcurrentQueries;
+            return this;
+        }
+
+        /**
+         * Set function that returns query class name by SQL-query string.
+         * Default query class is used if function returns null or unknown query class name.
+         *
+         * @param queryClassifier query classifier function
+         * @return this {@link TweeCacheBuilder} instance
+         */
+        public TweeCacheBuilder withQueryClassifier(Function<String, String> queryClassifier) {
+            this.queryClassifier = queryClassifier;
+            return this;
+        }
+
+        /**
+         * Set default SQL-query timeout. SQL-query is stopped with {@link java.util.concurrent.CancellationException}
+         * when timeout is elapsed. SQL-queries have no timeout by default.
+         *
+         * @param queryTimeout default SQL-query timeout
+         * @return this {@link TweeCacheBuilder} instance
+         */
+        public TweeCacheBuilder withQueryTimeout(Duration queryTimeout) {
+            this.queryTimeout = queryTimeout;
+            return this;
+        }
+
+        /**
+         * Set memory budget shared by all tables of schema. Table storages are bounded by estimated size of their rows
+         * and budget is rebalanced between tables by their access frequency, see {@link MemoryBudget}.
+         * Storage builder function must not set its own size or weight bound if memory budget is set.
+         *
+         * @param maxBytes max estimated size of all tables in bytes
+         * @return this {@link TweeCacheBuilder} instance
+         */
+        public TweeCacheBuilder withMemoryBudget(long maxBytes) {
+            schemaBuilder.withMemoryBudget(maxBytes);
+            return this;
+        }
+
+        /**
+         * Restore table storages from snapshot file written by {@link TweeCache#snapshot(Path)} on {@link #build()} invocation.
+         *
+         * Snapshot rows are put to table storages in bulk, table indexes are built in bulk as well.
+         * Rows of tables that are absent at schema or which row class is changed are skipped.
+         * Cache starts empty if snapshot file is absent or it could not be read.
+         *
+         * @param snapshotPath snapshot file path
+         * @return this {@link TweeCacheBuilder} instance
+         */
+        public TweeCacheBuilder restoreFrom(Path snapshotPath) {
+            this.snapshotPath = snapshotPath;
+            return this;
+        }
+
+        /**
+         * Append writes to change log at directory. Change log is synced to disk once per second.
+         *
+         * @param directory change log directory
+         * @return this {@link TweeCacheBuilder} instance
+         * @see #withChangeLog(Path, ChangeLog.FsyncPolicy)
+         */
+        public TweeCacheBuilder withChangeLog(Path directory) {
+            return withChangeLog(directory, ChangeLog.FsyncPolicy.PERIODIC);
+        }
+
+        /**
+         * Append puts and invalidations to change log at directory.
+         *
+         * Change log is replayed on {@link #build()} invocation after snapshot is restored (see {@link #restoreFrom(Path)}).
+         * Log segments contained by snapshot are deleted by {@link TweeCache#snapshot(Path)}.
+         *
+         * @param directory change log directory
+         * @param fsyncPolicy policy to sync change log to disk
+         * @return this {@link TweeCacheBuilder} instance
+         */
+        public TweeCacheBuilder withChangeLog(Path directory, ChangeLog.FsyncPolicy fsyncPolicy) {
+            this.changeLogDirectory = directory;
+            this.fsyncPolicy = fsyncPolicy;
+            return this;
+        }
+
+        /**
+         * Enable or disable fast path of simple SQL-queries. Fast path is enabled by default.
+         *
+         * SQL-query like {@code SELECT * FROM schema.table WHERE column = :value AND ... LIMIT n} is executed straight
+         * against table storage without Apache Calcite parsing, planning and code generation, see {@link SqlFastPath}.
+         * Other SQL-queries are executed by Apache Calcite.
+         *
+         * @param isSqlFastPath true to execute simple SQL-queries without Apache Calcite
+         * @return this {@link TweeCacheBuilder} instance
+         */
+        public TweeCacheBuilder withSqlFastPath(boolean isSqlFastPath) {
+            this.isSqlFastPath = isSqlFastPath;
+            return this;
+        }
+
         /**
          * There are predefined data source configuration that cannot be overwritten.
          * Overwriting this configuration makes Apache Calcite works incorrectly for SQL-query TweeCache capability
@@ -375,12 +1256,52 @@ public class TweeCache {
             return schemaBuilder
                     .build()
                     .map(schema -> {
-                        TweeCache tweeCache = new TweeCache(schema, new HikariDataSource( dataSourceConfig ));
+                        QueryScheduler queryScheduler = createQueryScheduler();
+                        TweeCache tweeCache = new TweeCache(schema, new HikariDataSource( dataSourceConfig ), queryScheduler, queryTimeout, isSqlFastPath);
                         tweeCache.init();
+                        // tables are not bounded by budget shares until they are loaded
+                        schema.getMemoryBudget().ifPresent(MemoryBudget::suspend);
+                        try {
+                            if (snapshotPath != null) {
+                                tweeCache.restore(snapshotPath);
+                            }
+                            if (changeLogDirectory != null) {
+                                tweeCache.openChangeLog(changeLogDirectory, fsyncPolicy);
+                            }
+                        } finally {
+                            schema.getMemoryBudget().ifPresent(MemoryBudget::resume);
+                        }
                         return tweeCache;
                     })
                     .onError(throwable -> log.error("error to create " + TweeCache.class.getSimpleName(), throwable))
                     .get();
         }
+
+        /**
+         * Create query scheduler and align data source pool size with max number of concurrently executed SQL-queries.
+         * Max pool size set explicitly caps number of concurrently executed SQL-queries, otherwise pool size is set to it.
+         *
+         * @return query scheduler
+         */
+        private QueryScheduler createQueryScheduler() {
+            int poolSize = dataSourceConfig.getMaximumPoolSize();
+            if (!queryClasses.containsKey(QueryClass.DEFAULT)) {
+                int maxQueries = maxConcurrentQueries > 0 ? maxConcurrentQueries : poolSize > 0 ? poolSize : DEFAULT_MAX_CONCURRENT_QUERIES;
+                queryClasses.put(QueryClass.DEFAULT, new QueryClass(QueryClass.DEFAULT, maxQueries, Integer.MAX_VALUE));
+            }
+            int maxQueries = maxTotalConcurrentQueries > 0 ? maxTotalConcurrentQueries : queryClasses
+                    .values()
+                    .stream()
+                    .mapToInt(QueryClass::getMaxConcurrentQueries)
+                    .sum();
+            if (poolSize <= 0) {
+                dataSourceConfig.setMaximumPoolSize(maxQueries);
+            } else if (poolSize < maxQueries) {
+                log.warn("max number of concurrently executed SQL-queries {} of schema '{}' is capped by data source max pool size {}",
+                        maxQueries, schemaName, poolSize);
+                maxQueries = poolSize;
+            }
+            return new QueryScheduler(queryExecutor, queryClasses.values(), queryClassifier, maxQueries, schemaName);
+        }
     }
 }
@@ -2,7 +2,10 @@ package com.github.darrmirr.tweecache;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.darrmirr.tweecache.accessor.RowSizeEstimator;
+import org.apache.calcite.adapter.java.ReflectiveSchema;
 import org.apache.calcite.schema.ScalarFunction;
+import org.apache.calcite.schema.Schema;
 
 import java.util.*;
 
@@ -10,16 +13,30 @@ import java.util.*;
  * Schema describes data structure, function to operate over data and contains data storage.
  */
 public class TweeSchema {
+    private static final int MEMORY_SAMPLE_SIZE = 1000;
     private final String schemaName;
     private final Object schemaObject;
     private final Map<String, ScalarFunction> scalarFunctions;
     private final Map<String, TableStorage> tableStorageMap;
+    private final Schema calciteSchema;
+    private final MemoryBudget memoryBudget;
 
     public TweeSchema(String schemaName, Object schemaObject, Map<String, ScalarFunction> scalarFunctions, Map<String, TableStorage> tableStorageMap) {
+        this(schemaName, schemaObject, scalarFunctions, tableStorageMap, new ReflectiveSchema(schemaObject));
+    }
+
+    public TweeSchema(String schemaName, Object schemaObject, Map<String, ScalarFunction> scalarFunctions, Map<String, TableStorage> tableStorageMap, Schema calciteSchema) {
+        this(schemaName, schemaObject, scalarFunctions, tableStorageMap, calciteSchema, null);
+    }
+
+    public TweeSchema(String schemaName, Object schemaObject, Map<String, ScalarFunction> scalarFunctions, Map<String, TableStorage> tableStorageMap, Schema calciteSchema,
+                      MemoryBudget memoryBudget) {
         this.schemaName = schemaName;
         this.schemaObject = schemaObject;
         this.scalarFunctions = scalarFunctions;
         this.tableStorageMap = tableStorageMap;
+        this.calciteSchema = calciteSchema;
+        this.memoryBudget = memoryBudget;
     }
 
     /**
@@ -34,12 +51,23 @@ public class TweeSchema {
     /**
      * Get schema object
      *
+     * Schema object is absent if schema is built at {@link com.github.darrmirr.tweecache.builder.SchemaMode#DYNAMIC} mode
+     *
      * @return shema object
      */
     public Object getSchemaObject() {
         return schemaObject;
     }
 
+    /**
+     * Get Apache Calcite schema that exposes tables to SQL-queries
+     *
+     * @return Apache Calcite schema
+     */
+    protected Schema getCalciteSchema() {
+        return calciteSchema;
+    }
+
     /**
      * Get user defined scalar functions map
      *
@@ -76,6 +104,78 @@ public class TweeSchema {
                 .map(Cache::stats);
     }
 
+    /**
+     * Get all table storages
+     *
+     * @return table storages map where key is table name
+     */
+    public Map<String, TableStorage> getTableStorages() {
+        return Collections.unmodifiableMap(tableStorageMap);
+    }
+
+    /**
+     * Get memory budget shared by schema tables
+     *
+     * @return memory budget or empty optional if schema tables are sized independently
+     */
+    public Optional<MemoryBudget> getMemoryBudget() {
+        return Optional.ofNullable(memoryBudget);
+    }
+
+    /**
+     * Get memory usage of table storage
+     *
+     * @param name table name
+     * @return table memory usage
+     */
+    public Optional<TableMemoryStats> memoryStats(String name) {
+        return Optional
+                .ofNullable(name)
+                .flatMap(this::getTableStorage)
+                .map(tableStorage -> memoryStats(name, tableStorage));
+    }
+
+    /**
+     * Get memory usage of all table storages
+     *
+     * @return table memory usage map where key is table name
+     */
+    public Map<String, TableMemoryStats> memoryStats() {
+        Map<String, TableMemoryStats> memoryStats = new TreeMap<>();
+        tableStorageMap.forEach((name, tableStorage) -> memoryStats.put(name, memoryStats(name, tableStorage)));
+        return memoryStats;
+    }
+
+    private TableMemoryStats memoryStats(String name, TableStorage tableStorage) {
+        long rowCount = tableStorage.getCache().estimatedSize();
+        if (memoryBudget != null) {
+            return new TableMemoryStats(name, rowCount, MemoryBudget.usedBytes(tableStorage),
+                    memoryBudget.share(name).orElse(0L), memoryBudget.frequency(name));
+        }
+        return new TableMemoryStats(name, rowCount, sampleBytes(tableStorage, rowCount), -1, 0);
+    }
+
+    /**
+     * Estimate size of table storage entries by sample of entries
+     *
+     * @param tableStorage table storage
+     * @param rowCount approximate number of table rows
+     * @return estimated size in bytes
+     */
+    private static long sampleBytes(TableStorage tableStorage, long rowCount) {
+        RowSizeEstimator sizeEstimator = RowSizeEstimator.of(tableStorage.getTableClass());
+        long sampleBytes = 0;
+        int sampleSize = 0;
+        for (Map.Entry<Object, Object> entry : tableStorage.getCache().asMap().entrySet()) {
+            if (sampleSize == MEMORY_SAMPLE_SIZE) {
+                break;
+            }
+            sampleBytes += sizeEstimator.weigh(entry.getKey(), entry.getValue());
+            sampleSize++;
+        }
+        return sampleSize == 0 ? 0 : (long) ((double) sampleBytes / sampleSize * Math.max(rowCount, sampleSize));
+    }
+
     /**
      * Invalidate all table storages
      */
@@ -97,9 +197,7 @@ public class TweeSchema {
         return Optional
                 .ofNullable(name)
                 .flatMap(this::getTableStorage)
-                .map(TableStorage::getCache)
-                .map(Cache::asMap)
-                .map(Map::values)
+                .map(TableStorage::rows)
                 .map(LinkedList::new);
     }
 }
@@ -0,0 +1,51 @@
+package com.github.darrmirr.tweecache.accessor;
+
+import com.github.darrmirr.tweecache.util.ClassUtils;
+import com.github.darrmirr.tweecache.util.Result;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Optional;
+
+/**
+ * Lookup for classes generated at compile time by tweecache-processor.
+ *
+ * Generated class is placed at the same package as table row class. Its name is built from table row class name
+ * where nested class delimiter '$' is replaced by '_' and suffix is appended.
+ */
+final class GeneratedClasses {
+    private static final Logger log = LoggerFactory.getLogger(GeneratedClasses.class);
+
+    private GeneratedClasses() { }
+
+    /**
+     * Create instance of generated class
+     *
+     * @param tableClass table row class
+     * @param suffix generated class name suffix
+     * @param <T> generated class type
+     * @return generated class instance or empty if generated class is absent
+     */
+    @SuppressWarnings("unchecked")
+    static <T> Optional<T> newInstance(Class<?> tableClass, String suffix) {
+        String className = className(tableClass, suffix);
+        try {
+            Class<?> generatedClass = Class.forName(className, true, tableClass.getClassLoader());
+            Result<T> instance = ClassUtils.newInstance((Class<? extends T>) generatedClass);
+            instance
+                    .error()
+                    .ifPresent(throwable -> log.warn("error to create instance of generated class '{}' due to '{}'", className, throwable.getMessage()));
+            return instance.get();
+        } catch (ClassNotFoundException | LinkageError e) {
+            log.debug("generated class '{}' is not found", className);
+            return Optional.empty();
+        }
+    }
+
+    static String className(Class<?> tableClass, String suffix) {
+        String packageName = tableClass.getPackage() != null ? tableClass.getPackage().getName() : "";
+        String binaryName = tableClass.getName().substring(packageName.isEmpty() ? 0 : packageName.length() + 1);
+        String simpleName = binaryName.replace('$', '_') + suffix;
+        return packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+    }
+}
@@ -0,0 +1,77 @@
+package com.github.darrmirr.tweecache.accessor;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+
+/**
+ * Row accessor that reads fields using by reflection.
+ */
+public class ReflectiveRowAccessor implements RowAccessor {
+    private final Class<?> tableClass;
+    private final Field[] fields;
+
+    public ReflectiveRowAccessor(Class<?> tableClass) {
+        this.tableClass = tableClass;
+        this.fields = RowAccessors.publicFields(tableClass);
+    }
+
+    @Override
+    public Class<?> getTableClass() {
+        return tableClass;
+    }
+
+    @Override
+    public String[] getFieldNames() {
+        return Arrays
+                .stream(fields)
+                .map(Field::getName)
+                .toArray(String[]::new);
+    }
+
+    @Override
+    public Object get(Object row, int field) {
+        try {
+            return fields[field].get(row);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public int getInt(Object row, int field) {
+        try {
+            return fields[field].getInt(row);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public long getLong(Object row, int field) {
+        try {
+            return fields[field].getLong(row);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public double getDouble(Object row, int field) {
+        try {
+            return fields[field].getDouble(row);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void copy(Object row, Object[] values) {
+        try {
+            for (int i = 0; i < fields.length; i++) {
+                values[i] = fields[i].get(row);
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
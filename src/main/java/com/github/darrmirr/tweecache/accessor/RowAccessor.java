@@ -0,0 +1,71 @@
+package com.github.darrmirr.tweecache.accessor;
+
+/**
+ * Row accessor reads public non-static fields of table row object.
+ *
+ * Field index corresponds to field position at Apache Calcite table row type,
+ * that is public non-static fields in {@link Class#getFields()} order.
+ *
+ * Typed methods allow to read primitive fields without boxing.
+ * They throw {@link IllegalArgumentException} if field cannot be read as requested type.
+ */
+public interface RowAccessor {
+
+    /**
+     * Get table row class
+     *
+     * @return table row class
+     */
+    Class<?> getTableClass();
+
+    /**
+     * Get field names in field index order
+     *
+     * @return field names
+     */
+    String[] getFieldNames();
+
+    /**
+     * Read field value
+     *
+     * @param row table row object
+     * @param field field index
+     * @return field value
+     */
+    Object get(Object row, int field);
+
+    /**
+     * Read int, short, byte or char field value
+     *
+     * @param row table row object
+     * @param field field index
+     * @return field value
+     */
+    int getInt(Object row, int field);
+
+    /**
+     * Read integral primitive field value
+     *
+     * @param row table row object
+     * @param field field index
+     * @return field value
+     */
+    long getLong(Object row, int field);
+
+    /**
+     * Read numeric primitive field value
+     *
+     * @param row table row object
+     * @param field field index
+     * @return field value
+     */
+    double getDouble(Object row, int field);
+
+    /**
+     * Copy all field values to array
+     *
+     * @param row table row object
+     * @param values array to copy field values to. Array length must be equal or greater than field count.
+     */
+    void copy(Object row, Object[] values);
+}
@@ -0,0 +1,122 @@
+package com.github.darrmirr.tweecache.accessor;
+
+import com.github.darrmirr.tweecache.util.ClassDeclaration;
+import com.github.darrmirr.tweecache.util.ClassFactory;
+import com.github.darrmirr.tweecache.util.ClassUtils;
+import com.github.darrmirr.tweecache.util.Result;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * Generates {@link RowAccessor} implementation for table row class at runtime.
+ *
+ * Generated accessor reads fields directly, therefore JIT compiler could inline field reads into scan loop.
+ * Typed methods read primitive fields without boxing.
+ *
+ * Generated source does not use generics and autoboxing in order to be compatible with Janino compiler.
+ */
+class RowAccessorGenerator {
+    private static final String CLASS_NAME_SUFFIX = "RuntimeAccessor";
+    private final ClassFactory classFactory = ClassFactory.INSTANCE;
+
+    /**
+     * Generate and compile row accessor for table row class
+     *
+     * @param tableClass table row class. Class and its enclosing classes must be public.
+     * @return row accessor instance
+     */
+    Result<RowAccessor> generate(Class<?> tableClass) {
+        if (!isAccessible(tableClass)) {
+            return Result.error(new IllegalArgumentException("error to generate row accessor due to class '" + tableClass.getName() + "' is not public"));
+        }
+        return classFactory
+                .compile(classDeclaration(tableClass))
+                .flatMap(ClassUtils::newInstance)
+                .map(RowAccessor.class::cast);
+    }
+
+    private ClassDeclaration classDeclaration(Class<?> tableClass) {
+        String tableClassName = tableClass.getCanonicalName();
+        String className = tableClass.getName().replace('.', '_').replace('$', '_') + CLASS_NAME_SUFFIX;
+        Field[] fields = RowAccessors.publicFields(tableClass);
+
+        StringBuilder fieldNames = new StringBuilder();
+        StringBuilder get = new StringBuilder();
+        StringBuilder getInt = new StringBuilder();
+        StringBuilder getLong = new StringBuilder();
+        StringBuilder getDouble = new StringBuilder();
+        StringBuilder copy = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            Class<?> type = fields[i].getType();
+            String fieldRead = "r." + fields[i].getName();
+            String caseRead = "case " + i + ": return " + fieldRead + "; ";
+            fieldNames.append(i == 0 ? "" : ", ").append('"').append(fields[i].getName()).append('"');
+            get.append("case ").append(i).append(": return ").append(box(type, fieldRead)).append("; ");
+            copy.append("values[").append(i).append("] = ").append(box(type, fieldRead)).append("; ");
+            if (type == int.class || type == short.class || type == byte.class || type == char.class) {
+                getInt.append(caseRead);
+            }
+            if (type.isPrimitive() && type != boolean.class && type != float.class && type != double.class) {
+                getLong.append(caseRead);
+            }
+            if (type.isPrimitive() && type != boolean.class) {
+                getDouble.append(caseRead);
+            }
+        }
+
+        ClassDeclaration classDeclaration = new ClassDeclaration(RowAccessor.class.getPackage().getName(), className, "public final");
+        classDeclaration.addInterface(RowAccessor.class);
+        classDeclaration.addMethod("public Class getTableClass() { return " + tableClassName + ".class; }");
+        classDeclaration.addMethod("public String[] getFieldNames() { return new String[] { " + fieldNames + " }; }");
+        classDeclaration.addMethod(switchMethod("Object", "get", tableClassName, get));
+        classDeclaration.addMethod(switchMethod("int", "getInt", tableClassName, getInt));
+        classDeclaration.addMethod(switchMethod("long", "getLong", tableClassName, getLong));
+        classDeclaration.addMethod(switchMethod("double", "getDouble", tableClassName, getDouble));
+        classDeclaration.addMethod("public void copy(Object row, Object[] values) { " +
+                tableClassName + " r = (" + tableClassName + ") row; " +
+                copy +
+                "}");
+        return classDeclaration;
+    }
+
+    private String switchMethod(String returnType, String methodName, String tableClassName, StringBuilder cases) {
+        return "public " + returnType + " " + methodName + "(Object row, int field) { " +
+                tableClassName + " r = (" + tableClassName + ") row; " +
+                (cases.length() == 0 ? "" : "switch (field) { " + cases + "} ") +
+                "throw new IllegalArgumentException(\"field \" + field + \" cannot be read by " + methodName + "\"); " +
+                "}";
+    }
+
+    /**
+     * Wrap primitive field read to explicit boxing
+     *
+     * @param type field type
+     * @param fieldRead field read expression
+     * @return boxed field read expression
+     */
+    private String box(Class<?> type, String fieldRead) {
+        if (!type.isPrimitive()) {
+            return fieldRead;
+        }
+        String wrapperName;
+        if (type == int.class) {
+            wrapperName = "Integer";
+        } else if (type == char.class) {
+            wrapperName = "Character";
+        } else {
+            String primitiveName = type.getName();
+            wrapperName = primitiveName.substring(0, 1).toUpperCase() + primitiveName.substring(1);
+        }
+        return wrapperName + ".valueOf(" + fieldRead + ")";
+    }
+
+    private boolean isAccessible(Class<?> tableClass) {
+        for (Class<?> currentClass = tableClass; currentClass != null; currentClass = currentClass.getEnclosingClass()) {
+            if (!Modifier.isPublic(currentClass.getModifiers()) || currentClass.getCanonicalName() == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,112 @@
+package com.github.darrmirr.tweecache.accessor;
+
+import com.github.darrmirr.tweecache.util.Result;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Factory to obtain {@link RowAccessor} for table row class.
+ *
+ * Accessor is looked up in the following order:
+ *     - accessor generated at compile time by tweecache-processor if it is present at classpath
+ *     - accessor generated and compiled at runtime, only if it is requested by {@link #compiled(Class)}
+ *     - reflective accessor otherwise (e.g. class is not public)
+ *
+ * Code is never compiled at runtime by {@link #of(Class)}, so that schema built at
+ * {@link com.github.darrmirr.tweecache.builder.SchemaMode#DYNAMIC} mode runs without runtime compilation.
+ * Accessor is created once per table row class.
+ */
+public final class RowAccessors {
+    private static final Logger log = LoggerFactory.getLogger(RowAccessors.class);
+    static final String ACCESSOR_CLASS_SUFFIX = "TweeAccessor";
+    private static final RowAccessorGenerator generator = new RowAccessorGenerator();
+    private static final ClassValue<RowAccessor> accessors = new ClassValue<RowAccessor>() {
+        @Override
+        protected RowAccessor computeValue(Class<?> tableClass) {
+            return findGenerated(tableClass)
+                    .orElseGet(() -> new ReflectiveRowAccessor(tableClass));
+        }
+    };
+    private static final ClassValue<RowAccessor> compiledAccessors = new ClassValue<RowAccessor>() {
+        @Override
+        protected RowAccessor computeValue(Class<?> tableClass) {
+            RowAccessor accessor = accessors.get(tableClass);
+            if (!(accessor instanceof ReflectiveRowAccessor)) {
+                return accessor;
+            }
+            Result<RowAccessor> generated = generator.generate(tableClass);
+            generated
+                    .error()
+                    .ifPresent(throwable -> log.debug("use reflective row accessor for class '{}' due to '{}'", tableClass.getName(), throwable.getMessage()));
+            return generated
+                    .get()
+                    .orElse(accessor);
+        }
+    };
+
+    private RowAccessors() { }
+
+    /**
+     * Get row accessor for table row class: accessor generated at compile time or reflective accessor
+     *
+     * @param tableClass table row class
+     * @return row accessor
+     */
+    public static RowAccessor of(Class<?> tableClass) {
+        return accessors.get(tableClass);
+    }
+
+    /**
+     * Get row accessor for table row class. Accessor is generated and compiled at runtime if it is not generated at compile time.
+     *
+     * @param tableClass table row class
+     * @return row accessor
+     */
+    public static RowAccessor compiled(Class<?> tableClass) {
+        return compiledAccessors.get(tableClass);
+    }
+
+    /**
+     * Find row accessor generated at compile time
+     *
+     * Generated accessor is ignored if its field order differs from field order of table row class at runtime.
+     *
+     * @param tableClass table row class
+     * @return row accessor generated at compile time
+     */
+    public static Optional<RowAccessor> findGenerated(Class<?> tableClass) {
+        return GeneratedClasses
+                .<RowAccessor>newInstance(tableClass, ACCESSOR_CLASS_SUFFIX)
+                .filter(accessor -> {
+                    String[] expectedFieldNames = Arrays
+                            .stream(publicFields(tableClass))
+                            .map(Field::getName)
+                            .toArray(String[]::new);
+                    boolean isValid = Arrays.equals(expectedFieldNames, accessor.getFieldNames());
+                    if (!isValid) {
+                        log.warn("generated row accessor '{}' is ignored due to field order is differ from class '{}'",
+                                accessor.getClass().getName(), tableClass.getName());
+                    }
+                    return isValid;
+                });
+    }
+
+    /**
+     * Get public non-static fields in {@link Class#getFields()} order.
+     * This order is used by Apache Calcite to build table row type.
+     *
+     * @param tableClass table row class
+     * @return public non-static fields
+     */
+    static Field[] publicFields(Class<?> tableClass) {
+        return Arrays
+                .stream(tableClass.getFields())
+                .filter(field -> !Modifier.isStatic(field.getModifiers()))
+                .toArray(Field[]::new);
+    }
+}
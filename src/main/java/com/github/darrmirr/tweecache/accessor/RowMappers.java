@@ -0,0 +1,28 @@
+package com.github.darrmirr.tweecache.accessor;
+
+import java.sql.ResultSet;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Lookup for row mappers generated at compile time by tweecache-processor.
+ *
+ * Generated row mapper maps result set columns to public fields of primitive, boxed primitive, {@link String},
+ * {@link java.math.BigDecimal} and {@link java.util.Date} types. Column label is equal to field name.
+ */
+public final class RowMappers {
+    static final String ROW_MAPPER_CLASS_SUFFIX = "TweeRowMapper";
+
+    private RowMappers() { }
+
+    /**
+     * Find row mapper generated for table row class
+     *
+     * @param tableClass table row class
+     * @param <T> table row data type
+     * @return row mapper or empty if it was not generated
+     */
+    public static <T> Optional<Function<ResultSet, T>> find(Class<T> tableClass) {
+        return GeneratedClasses.newInstance(tableClass, ROW_MAPPER_CLASS_SUFFIX);
+    }
+}
@@ -0,0 +1,204 @@
+package com.github.darrmirr.tweecache.accessor;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.stream.IntStream;
+
+/**
+ * Estimator of memory occupied by table row and its cache entry.
+ *
+ * Shallow size of table row class is evaluated once from its field types. Deep size is evaluated on each estimation
+ * by reading reference fields through {@link RowAccessor}: strings, boxed values, arrays, collections and maps
+ * are sized by their content, other objects are sized by their shallow size.
+ * Sizes are evaluated for 64-bit JVM with compressed object pointers, they are estimation rather than exact values.
+ *
+ * Estimator is created once per table row class.
+ */
+public final class RowSizeEstimator {
+    static final int OBJECT_HEADER = 12;
+    static final int ARRAY_HEADER = 16;
+    static final int REFERENCE = 4;
+    /**
+     * Cache entry node, hash table node and table slot
+     */
+    static final int ENTRY_OVERHEAD = 80;
+    /**
+     * Node of linked collection or map entry
+     */
+    private static final int NODE = 32;
+    private static final int MAX_DEPTH = 3;
+    private static final ClassValue<Long> shallowSizes = new ClassValue<Long>() {
+        @Override
+        protected Long computeValue(Class<?> type) {
+            return evaluateShallowSize(type);
+        }
+    };
+    private static final ClassValue<RowSizeEstimator> estimators = new ClassValue<RowSizeEstimator>() {
+        @Override
+        protected RowSizeEstimator computeValue(Class<?> tableClass) {
+            return new RowSizeEstimator(RowAccessors.of(tableClass));
+        }
+    };
+    private final RowAccessor rowAccessor;
+    private final long shallowSize;
+    private final int[] referenceFields;
+
+    RowSizeEstimator(RowAccessor rowAccessor) {
+        Field[] fields = RowAccessors.publicFields(rowAccessor.getTableClass());
+        this.rowAccessor = rowAccessor;
+        this.shallowSize = shallowSize(rowAccessor.getTableClass());
+        this.referenceFields = IntStream
+                .range(0, fields.length)
+                .filter(field -> !fields[field].getType().isPrimitive())
+                .toArray();
+    }
+
+    /**
+     * Get size estimator for table row class
+     *
+     * @param tableClass table row class
+     * @return size estimator
+     */
+    public static RowSizeEstimator of(Class<?> tableClass) {
+        return estimators.get(tableClass);
+    }
+
+    /**
+     * Estimate memory occupied by cache entry: entry overhead, key and table row
+     *
+     * @param key cache key
+     * @param row table row object
+     * @return estimated size in bytes
+     */
+    public int weigh(Object key, Object row) {
+        return (int) Math.min(Integer.MAX_VALUE, ENTRY_OVERHEAD + sizeOf(key, 0) + sizeOf(row));
+    }
+
+    /**
+     * Estimate memory occupied by table row including objects referenced by its public fields
+     *
+     * @param row table row object
+     * @return estimated size in bytes
+     */
+    public long sizeOf(Object row) {
+        if (row == null) {
+            return 0;
+        }
+        if (!rowAccessor.getTableClass().isInstance(row)) {
+            return sizeOf(row, 0);
+        }
+        long size = row.getClass() == rowAccessor.getTableClass() ? shallowSize : shallowSize(row.getClass());
+        for (int field : referenceFields) {
+            size += sizeOf(rowAccessor.get(row, field), 1);
+        }
+        return size;
+    }
+
+    /**
+     * Get shallow size of class instance: object header and instance fields of class and its super classes
+     *
+     * @param type class
+     * @return shallow size in bytes
+     */
+    public static long shallowSize(Class<?> type) {
+        return shallowSizes.get(type);
+    }
+
+    private static long evaluateShallowSize(Class<?> type) {
+        long size = OBJECT_HEADER;
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    size += fieldSize(field.getType());
+                }
+            }
+        }
+        return align(size);
+    }
+
+    private static int fieldSize(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        }
+        if (type == int.class || type == float.class) {
+            return 4;
+        }
+        if (type == short.class || type == char.class) {
+            return 2;
+        }
+        if (type == byte.class || type == boolean.class) {
+            return 1;
+        }
+        return REFERENCE;
+    }
+
+    private static long sizeOf(Object value, int depth) {
+        if (value == null || value instanceof Enum || value instanceof Boolean) {
+            return 0;
+        }
+        if (value instanceof String) {
+            return shallowSize(String.class) + align(ARRAY_HEADER + 2L * ((String) value).length());
+        }
+        if (value instanceof BigDecimal) {
+            BigInteger unscaledValue = ((BigDecimal) value).unscaledValue();
+            return shallowSize(BigDecimal.class) + (unscaledValue.bitLength() < 64 ? 0 : sizeOf(unscaledValue, depth));
+        }
+        if (value instanceof BigInteger) {
+            return shallowSize(BigInteger.class) + align(ARRAY_HEADER + 4L * (((BigInteger) value).bitLength() / 32 + 1));
+        }
+        Class<?> type = value.getClass();
+        if (type.isArray()) {
+            return arraySize(value, type.getComponentType(), depth);
+        }
+        if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            long size = shallowSize(type) + containerSize(collection.size(), collection instanceof RandomAccess);
+            return depth < MAX_DEPTH ? size + elementsSize(collection, depth) : size;
+        }
+        if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            long size = shallowSize(type) + containerSize(map.size(), false);
+            return depth < MAX_DEPTH ? size + elementsSize(map.keySet(), depth) + elementsSize(map.values(), depth) : size;
+        }
+        return shallowSize(type);
+    }
+
+    private static long arraySize(Object array, Class<?> componentType, int depth) {
+        int length = Array.getLength(array);
+        long size = align(ARRAY_HEADER + (long) length * fieldSize(componentType));
+        if (componentType.isPrimitive() || depth >= MAX_DEPTH) {
+            return size;
+        }
+        for (int i = 0; i < length; i++) {
+            size += sizeOf(Array.get(array, i), depth + 1);
+        }
+        return size;
+    }
+
+    private static long containerSize(int elementCount, boolean isArrayBased) {
+        long tableSize = align(ARRAY_HEADER + (long) elementCount * REFERENCE);
+        return isArrayBased ? tableSize : tableSize + (long) elementCount * NODE;
+    }
+
+    private static long elementsSize(Collection<?> elements, int depth) {
+        long size = 0;
+        try {
+            for (Object element : elements) {
+                size += sizeOf(element, depth + 1);
+            }
+        } catch (RuntimeException e) {
+            // collection is modified concurrently, size of elements read so far is used
+        }
+        return size;
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+}
@@ -0,0 +1,34 @@
+package com.github.darrmirr.tweecache.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * Marks class as TweeCache table row class.
+ *
+ * Annotation is handled at compile time by tweecache-processor artifact. Processor generates for annotated class:
+ *     - row accessor (class name suffix is "TweeAccessor") that reads public fields without reflection
+ *     - row mapper (class name suffix is "TweeRowMapper") that maps SQL-query result set row to class instance
+ *     - schema class for each schema name listed at {@link #schemas()}. Schema class is placed at package of table class
+ *       which table name goes first at schema.
+ *
+ * {@link com.github.darrmirr.tweecache.builder.SchemaBuilder} picks generated classes up automatically if they are present at classpath.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface TweeTable {
+
+    /**
+     * Table name at schema. Default table name is class simple name in lower case.
+     *
+     * @return table name
+     */
+    String name() default "";
+
+    /**
+     * Schema names which contain table. Schema class is generated for each schema name.
+     *
+     * @return schema names
+     */
+    String[] schemas() default {};
+}
@@ -1,9 +1,13 @@
 package com.github.darrmirr.tweecache.builder;
 
 import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheWriter;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.darrmirr.tweecache.util.ShardedCache;
 import com.google.common.cache.CacheBuilder;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Function;
 
 public class CacheBuilderFactory {
@@ -12,6 +16,30 @@ public class CacheBuilderFactory {
         return builder.apply(Caffeine.newBuilder());
     }
 
+    public static Cache<Object, Object> buildCaffeine(Function<Caffeine<Object, Object>, Cache<Object, Object>> builder, CacheWriter<Object, Object> writer) {
+        return writer != null ? builder.apply(Caffeine.newBuilder().writer(writer)) : buildCaffeine(builder);
+    }
+
+    /**
+     * Build cache that consists of independent shards. Each shard is built by builder function.
+     *
+     * @param builder storage builder function
+     * @param writer cache writer shared by shards or null
+     * @param shardCount number of shards
+     * @return sharded cache or single cache if shard count is 1
+     */
+    public static Cache<Object, Object> buildShardedCaffeine(Function<Caffeine<Object, Object>, Cache<Object, Object>> builder, CacheWriter<Object, Object> writer,
+                                                             int shardCount) {
+        if (shardCount <= 1) {
+            return buildCaffeine(builder, writer);
+        }
+        List<Cache<Object, Object>> shards = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(buildCaffeine(builder, writer));
+        }
+        return new ShardedCache(shards);
+    }
+
     public static com.google.common.cache.Cache<Object, Object> buildGuava(Function<CacheBuilder<Object, Object>, com.google.common.cache.Cache<Object, Object>> builder) {
         return builder.apply(CacheBuilder.newBuilder());
     }
@@ -1,19 +1,37 @@
 package com.github.darrmirr.tweecache.builder;
 
 import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.darrmirr.tweecache.MemoryBudget;
+import com.github.darrmirr.tweecache.TableLoader;
 import com.github.darrmirr.tweecache.TableStorage;
 import com.github.darrmirr.tweecache.TweeSchema;
+import com.github.darrmirr.tweecache.accessor.RowAccessor;
+import com.github.darrmirr.tweecache.accessor.RowAccessors;
+import com.github.darrmirr.tweecache.accessor.RowSizeEstimator;
+import com.github.darrmirr.tweecache.calcite.TweeCalciteSchema;
+import com.github.darrmirr.tweecache.index.BitmapIndex;
+import com.github.darrmirr.tweecache.index.IndexWriter;
+import com.github.darrmirr.tweecache.index.InvertedIndex;
+import com.github.darrmirr.tweecache.index.PrefixIndex;
+import com.github.darrmirr.tweecache.index.RowOrdinals;
+import com.github.darrmirr.tweecache.index.TableIndex;
+import com.github.darrmirr.tweecache.index.TimePartitions;
 import com.github.darrmirr.tweecache.util.ClassDeclaration;
 import com.github.darrmirr.tweecache.util.ClassFactory;
 import com.github.darrmirr.tweecache.util.ClassUtils;
+import com.github.darrmirr.tweecache.util.QueryCancellation;
 import com.github.darrmirr.tweecache.util.Result;
+import com.github.darrmirr.tweecache.util.TweeFunctions;
 import org.apache.calcite.adapter.java.Array;
+import org.apache.calcite.adapter.java.ReflectiveSchema;
 import org.apache.calcite.schema.ScalarFunction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.Field;
+import java.time.Duration;
 import java.util.*;
 import java.util.function.Function;
 
@@ -22,27 +40,88 @@ import static java.util.stream.Collectors.toMap;
 /**
  * Class to build in-memory cache schema
  *
- * Schema name must be unique due to compilation restriction.
+ * Schema name must be unique due to compilation restriction if schema is built at {@link SchemaMode#COMPILED} mode.
  * In other words there is no two classes with the same name at one package.
  */
 public class SchemaBuilder {
     private static final Logger log = LoggerFactory.getLogger(SchemaBuilder.class);
     private static final String CLASS_NAME_SUFFIX = "Schema";
+    /**
+     * Schema class compiled at runtime is named apart from schema class generated by tweecache-processor,
+     * otherwise class loader could return rejected precompiled class instead of compiled one
+     */
+    private static final String RUNTIME_CLASS_NAME_SUFFIX = "RuntimeSchema";
     private static final String FIELD_DECLARATION_PATTERN = "@Array(component = %TABLE_CLASS%.class) " +
             "public Collection<%TABLE_CLASS%> %TABLE_NAME%; ";
     private final ClassFactory classFactory = ClassFactory.INSTANCE;
     private final String schemaName;
     private final ClassDeclaration classDeclaration;
     private final Map<String, TableBuilder> tableBuilderMap = new HashMap<>();
+    /**
+     * Functions available at each schema unless function of the same name is added by {@link #addFunction(String, Class, String)}
+     */
+    private static final List<ScalarFunctionBuilder> BUILT_IN_FUNCTIONS = Arrays.asList(
+            new ScalarFunctionBuilder(TweeFunctions.ARRAY_CONTAINS, TweeFunctions.class, "arrayContains"),
+            new ScalarFunctionBuilder(TweeFunctions.STARTS_WITH, TweeFunctions.class, "startsWith"));
     private final List<ScalarFunctionBuilder> scalarFunctionBuilders = new LinkedList<>();
+    private SchemaMode mode = SchemaMode.COMPILED;
+    private long memoryBudget;
+    private boolean isRuntimeAccessors;
 
     public SchemaBuilder(String schemaName) {
         this.schemaName = schemaName;
-        this.classDeclaration = new ClassDeclaration(TweeSchema.class.getPackage().getName(), schemaName + CLASS_NAME_SUFFIX);
+        this.classDeclaration = new ClassDeclaration(TweeSchema.class.getPackage().getName(), schemaName + RUNTIME_CLASS_NAME_SUFFIX);
         this.classDeclaration.addImport(Array.class);
         this.classDeclaration.addImport(Collection.class);
     }
 
+    /**
+     * Set the way how schema is exposed to Apache Calcite.
+     *
+     * Default mode is {@link SchemaMode#COMPILED}
+     *
+     * @param mode schema mode
+     * @return this {@link SchemaBuilder} instance
+     */
+    public SchemaBuilder withMode(SchemaMode mode) {
+        this.mode = Objects.requireNonNull(mode, "schema mode is null");
+        return this;
+    }
+
+    /**
+     * Generate and compile row accessors of table classes at runtime unless they are generated at compile time by tweecache-processor.
+     * Indexes, snapshots and file import read table row fields by accessor, compiled accessor reads fields without reflection.
+     *
+     * By default, reflective accessor is used, so that schema built at {@link SchemaMode#DYNAMIC} mode does not compile code at runtime.
+     * It must be set before tables are added.
+     *
+     * @return this {@link SchemaBuilder} instance
+     */
+    public SchemaBuilder withRuntimeAccessors() {
+        if (!tableBuilderMap.isEmpty()) {
+            throw new IllegalStateException("runtime accessors must be enabled before tables are added to schema '" + schemaName + "'");
+        }
+        this.isRuntimeAccessors = true;
+        return this;
+    }
+
+    /**
+     * Set memory budget shared by all tables of schema, see {@link MemoryBudget}.
+     *
+     * Table storages are bounded by estimated size of their rows instead of number of rows,
+     * therefore storage builder function must not set its own size or weight bound.
+     *
+     * @param maxBytes max estimated size of all tables in bytes
+     * @return this {@link SchemaBuilder} instance
+     */
+    public SchemaBuilder withMemoryBudget(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("memory budget must be greater than zero");
+        }
+        this.memoryBudget = maxBytes;
+        return this;
+    }
+
     /**
      * Add new table to in-memory cache schema
      *
@@ -77,7 +156,18 @@ public class SchemaBuilder {
         private final Class<?> tableClass;
         private final String tableName;
         private final SchemaBuilder parentBuilder;
+        private Function<Caffeine<Object, Object>, Cache<Object, Object>> storageBuilder;
+        private CacheLoader<Object, Object> loader;
+        private Function<Caffeine<Object, Object>, Caffeine<Object, Object>> loadingStorageBuilder;
         private Cache<Object, Object> cache;
+        private IndexWriter indexWriter;
+        private TableLoader tableLoader;
+        private String keyField;
+        private int parallelScanThreshold;
+        private int shardCount = 1;
+        private final List<TableIndex> indexes = new ArrayList<>();
+        private RowOrdinals rowOrdinals;
+        private TimePartitions partitions;
 
         public TableBuilder(Class<?> tableClass, String tableName, SchemaBuilder parentBuilder) {
             this.tableClass = tableClass;
@@ -85,17 +175,258 @@ public class SchemaBuilder {
             this.parentBuilder = parentBuilder;
         }
 
+        /**
+         * Declare table row field which value is used as key at table storage.
+         * Values must be put to table with key equal to value of this field.
+         *
+         * Join by key field probes table storage directly instead of building hash table over joined table.
+         * It is supported by schema built at {@link SchemaMode#DYNAMIC} mode.
+         *
+         * @param fieldName name of public field of table class
+         * @return this {@link TableBuilder} instance
+         */
+        public TableBuilder withKey(String fieldName) {
+            if (!Arrays.asList(rowAccessor().getFieldNames()).contains(fieldName)) {
+                throw new IllegalArgumentException("there is no public field '" + fieldName + "' at class " + tableClass.getName());
+            }
+            this.keyField = fieldName;
+            return this;
+        }
+
+        /**
+         * Enable parallel scan of table. Table rows are split into partitions that are filtered, projected and
+         * partially aggregated at {@link java.util.concurrent.ForkJoinPool#commonPool()}.
+         *
+         * Parallel scan is supported by schema built at {@link SchemaMode#DYNAMIC} mode only, otherwise schema is not built.
+         *
+         * @param minRowCount min number of table rows to scan table in parallel. Smaller table is scanned by single thread.
+         * @return this {@link TableBuilder} instance
+         */
+        public TableBuilder withParallelScan(int minRowCount) {
+            if (minRowCount < 1) {
+                throw new IllegalArgumentException("min row count of parallel scan must be greater than zero");
+            }
+            this.parallelScanThreshold = minRowCount;
+            return this;
+        }
+
+        /**
+         * Split table storage into independent shards selected by key hash. Concurrent writes to different shards
+         * do not contend for the same write buffer and eviction maintenance of single cache.
+         *
+         * Each shard is built by storage builder function, therefore size bound (e.g. {@code maximumSize})
+         * applies to each shard separately. Table scan reads shards one by one or in parallel if parallel scan is enabled,
+         * cache statistics are aggregated over shards.
+         *
+         * @param shardCount number of shards
+         * @return this {@link TableBuilder} instance
+         */
+        public TableBuilder withShards(int shardCount) {
+            if (shardCount < 1) {
+                throw new IllegalArgumentException("shard count must be greater than zero");
+            }
+            this.shardCount = shardCount;
+            return this;
+        }
+
+        /**
+         * Add inverted index over collection or array field. Index maps each element of field value to table rows
+         * which field value contains the element.
+         *
+         * Predicate {@code array_contains(field, value)} is answered by index at schema built at {@link SchemaMode#DYNAMIC} mode.
+         * At {@link SchemaMode#COMPILED} mode index is used by table queries only.
+         * Index is maintained by cache writer, therefore storage builder function must not set its own cache writer.
+         *
+         * @param fieldName name of public collection or array field of table class
+         * @return this {@link TableBuilder} instance
+         */
+        public TableBuilder withInvertedIndex(String fieldName) {
+            Class<?> fieldType = fieldType(fieldName);
+            if (!Collection.class.isAssignableFrom(fieldType) && !Object[].class.isAssignableFrom(fieldType)) {
+                throw new IllegalArgumentException("field '" + fieldName + "' of class " + tableClass.getName() + " is neither collection nor array of objects");
+            }
+            indexes.add(new InvertedIndex(fieldName, rowAccessor()));
+            return this;
+        }
+
+        /**
+         * Add bitmap index over low-cardinality field (e.g. status, category, boolean or enum field).
+         * Index keeps compressed bitmap of table rows per distinct field value.
+         *
+         * Filter that consists of equality, inequality and IS [NOT] NULL predicates over fields with bitmap index
+         * combined by AND and OR is evaluated by bitmap operations before any table row is read.
+         * COUNT(*) with such filter is taken from bitmap cardinality.
+         * It is supported by schema built at {@link SchemaMode#DYNAMIC} mode. At {@link SchemaMode#COMPILED} mode
+         * index is used by table queries and SQL fast path only.
+         * Index is maintained by cache writer, therefore storage builder function must not set its own cache writer.
+         *
+         * @param fieldName name of public field of table class
+         * @return this {@link TableBuilder} instance
+         */
+        public TableBuilder withBitmapIndex(String fieldName) {
+            fieldType(fieldName);
+            if (rowOrdinals == null) {
+                rowOrdinals = new RowOrdinals();
+            }
+            indexes.add(new BitmapIndex(fieldName, rowAccessor(), rowOrdinals));
+            return this;
+        }
+
+        /**
+         * Add prefix index over string field (e.g. name, email). Index keeps distinct field values sorted,
+         * therefore values with common prefix are found by range lookup.
+         *
+         * Predicates {@code field LIKE 'abc%'}, {@code field LIKE ? || '%'}, {@code starts_with(field, value)} and
+         * their case-insensitive form over {@code lower(field)} are answered by index. They are combined with
+         * bitmap index predicates by AND and OR.
+         * It is supported by schema built at {@link SchemaMode#DYNAMIC} mode. At {@link SchemaMode#COMPILED} mode
+         * index is used by table queries only.
+         * Index is maintained by cache writer, therefore storage builder function must not set its own cache writer.
+         *
+         * @param fieldName name of public string field of table class
+         * @return this {@link TableBuilder} instance
+         */
+        public TableBuilder withPrefixIndex(String fieldName) {
+            if (fieldType(fieldName) != String.class) {
+                throw new IllegalArgumentException("field '" + fieldName + "' of class " + tableClass.getName() + " is not string");
+            }
+            if (rowOrdinals == null) {
+                rowOrdinals = new RowOrdinals();
+            }
+            indexes.add(new PrefixIndex(fieldName, rowAccessor(), rowOrdinals));
+            return this;
+        }
+
+        /**
+         * Split table rows into time buckets by value of date or epoch millis field (e.g. event time).
+         *
+         * Range predicates over partition field prune buckets out of range, so that query over recent events reads
+         * rows of recent buckets only. Bucket that is dropped disappears from SQL-queries at once, its rows are removed
+         * from table storage in background, see {@link com.github.darrmirr.tweecache.TweeCache#dropPartitions(Class, java.time.Instant)}.
+         * It is supported by schema built at {@link SchemaMode#DYNAMIC} mode only, otherwise schema is not built.
+         * Partitions are maintained by cache writer, therefore storage builder function must not set its own cache writer.
+         *
+         * @param fieldName name of public date or epoch millis field of table class
+         * @param bucketSize time bucket size
+         * @return this {@link TableBuilder} instance
+         */
+        public TableBuilder withTimePartitions(String fieldName, Duration bucketSize) {
+            return withTimePartitions(fieldName, bucketSize, null);
+        }
+
+        /**
+         * Split table rows into time buckets by value of date or epoch millis field and keep recent buckets only.
+         * Bucket is dropped as soon as row of bucket that is later than bucket by retention is put to table.
+         *
+         * @param fieldName name of public date or epoch millis field of table class
+         * @param bucketSize time bucket size
+         * @param retention time span of buckets to keep counted back from the latest bucket
+         * @return this {@link TableBuilder} instance
+         * @see #withTimePartitions(String, Duration)
+         */
+        public TableBuilder withTimePartitions(String fieldName, Duration bucketSize, Duration retention) {
+            Class<?> fieldType = fieldType(fieldName);
+            if (!Date.class.isAssignableFrom(fieldType) && fieldType != long.class && fieldType != Long.class) {
+                throw new IllegalArgumentException("field '" + fieldName + "' of class " + tableClass.getName() + " is neither date nor epoch millis");
+            }
+            if (partitions != null) {
+                throw new IllegalStateException("table " + tableName + " is already partitioned by field '" + partitions.getFieldName() + "'");
+            }
+            partitions = new TimePartitions(fieldName, rowAccessor(), bucketSize, retention);
+            indexes.add(partitions);
+            return this;
+        }
+
+        private RowAccessor rowAccessor() {
+            return parentBuilder.isRuntimeAccessors ? RowAccessors.compiled(tableClass) : RowAccessors.of(tableClass);
+        }
+
+        private Class<?> fieldType(String fieldName) {
+            try {
+                return tableClass.getField(fieldName).getType();
+            } catch (NoSuchFieldException e) {
+                throw new IllegalArgumentException("there is no public field '" + fieldName + "' at class " + tableClass.getName(), e);
+            }
+        }
+
         /**
          * Build storage for particular table.
          *
+         * Storage is built by {@link SchemaBuilder#build()} invocation when schema memory budget is known.
+         *
          * @param builder storage builder function
          * @return {@link SchemaBuilder} instance
          */
         public SchemaBuilder withStorage(Function<Caffeine<Object, Object>, Cache<Object, Object>> builder) {
-            this.cache = CacheBuilderFactory.buildCaffeine(builder);
+            this.storageBuilder = Objects.requireNonNull(builder, "storage builder is null");
+            this.loader = null;
             return parentBuilder;
         }
 
+        /**
+         * Build read-through storage for particular table with default storage settings.
+         *
+         * @param loader loader of table rows missing at storage
+         * @return {@link SchemaBuilder} instance
+         * @see #withLoadingStorage(CacheLoader, Function)
+         */
+        public SchemaBuilder withLoadingStorage(CacheLoader<Object, Object> loader) {
+            return withLoadingStorage(loader, Function.identity());
+        }
+
+        /**
+         * Build read-through storage for particular table. Storage is Caffeine {@link com.github.benmanes.caffeine.cache.LoadingCache}.
+         *
+         * Row missing at storage is loaded on {@code getById} by loader, concurrent loads of the same key are coalesced into single load.
+         * Rows missing at storage on multi-key read are loaded by single {@link CacheLoader#loadAll(Iterable)} invocation
+         * if loader implements bulk load. Loaded rows are added to table indexes. SQL-queries read rows present at storage only.
+         *
+         * Storage configured with {@code refreshAfterWrite} reloads row asynchronously on first read after refresh interval,
+         * so that frequently read rows are refreshed ahead of {@code expireAfterWrite} expiry instead of being loaded by readers after expiry.
+         *
+         * @param loader loader of table rows missing at storage
+         * @param builder function to configure storage builder (e.g. size bound, expiration and refresh)
+         * @return {@link SchemaBuilder} instance
+         */
+        public SchemaBuilder withLoadingStorage(CacheLoader<Object, Object> loader, Function<Caffeine<Object, Object>, Caffeine<Object, Object>> builder) {
+            this.loader = Objects.requireNonNull(loader, "loader is null");
+            this.loadingStorageBuilder = Objects.requireNonNull(builder, "storage builder is null");
+            this.storageBuilder = caffeine -> loadingStorageBuilder
+                    .apply(caffeine)
+                    .build(tableLoader);
+            return parentBuilder;
+        }
+
+        /**
+         * Get table storage, build it on first invocation.
+         * Storage is bounded by weight if schema has memory budget, budget is split evenly between tables until first rebalance.
+         *
+         * @return table storage
+         */
+        private Cache<Object, Object> cache() {
+            if (cache == null) {
+                if (storageBuilder == null) {
+                    throw new IllegalStateException("storage is not set for table '" + tableName + "'");
+                }
+                Function<Caffeine<Object, Object>, Cache<Object, Object>> builder = storageBuilder;
+                long memoryBudget = parentBuilder.memoryBudget;
+                if (memoryBudget > 0) {
+                    RowSizeEstimator sizeEstimator = RowSizeEstimator.of(tableClass);
+                    long shardMaxBytes = Math.max(1, MemoryBudget.initialShare(memoryBudget, parentBuilder.tableBuilderMap.size()) / shardCount);
+                    builder = caffeine -> storageBuilder.apply(caffeine
+                            .weigher(sizeEstimator::weigh)
+                            .maximumWeight(shardMaxBytes));
+                }
+                this.indexWriter = indexes.isEmpty() ? null : new IndexWriter(indexes, rowOrdinals);
+                this.tableLoader = loader != null ? new TableLoader(loader, indexWriter) : null;
+                this.cache = CacheBuilderFactory.buildShardedCaffeine(builder, indexWriter, shardCount);
+                if (partitions != null) {
+                    partitions.bind(cache.asMap());
+                }
+            }
+            return cache;
+        }
+
         private String getTableName() {
             return tableName;
         }
@@ -107,10 +438,12 @@ public class SchemaBuilder {
         /**
          * Get items collection from underlined cache
          *
+         * Collection stops iteration when SQL-query is cancelled, see {@link QueryCancellation}.
+         *
          * @return items collection from underlined cache
          */
         private Collection<Object> getCollection() {
-            return cache.asMap().values();
+            return QueryCancellation.cancellable(cache().asMap().values());
         }
 
         /**
@@ -119,7 +452,14 @@ public class SchemaBuilder {
          * @return {@link TableStorage} instance
          */
         private TableStorage toTableCache() {
-            return new TableStorage(tableClass, cache);
+            return TableStorage
+                    .builder(tableClass, cache())
+                    .withRowAccessor(rowAccessor())
+                    .withKeyField(keyField)
+                    .withParallelScanThreshold(parallelScanThreshold)
+                    .withIndexes(Collections.unmodifiableList(indexes), indexWriter)
+                    .withLoader(tableLoader)
+                    .build();
         }
     }
 
@@ -167,18 +507,115 @@ public class SchemaBuilder {
      * @return {@link TweeSchema} instance
      */
     public Result<TweeSchema> build() {
-        return classFactory
-                .compile(classDeclaration)
+        return mode == SchemaMode.DYNAMIC ? buildDynamic() : buildCompiled();
+    }
+
+    /**
+     * Build schema with compiled schema class
+     *
+     * @return {@link TweeSchema} instance
+     */
+    private Result<TweeSchema> buildCompiled() {
+        for (TableBuilder tableBuilder : tableBuilderMap.values()) {
+            if (tableBuilder.partitions != null || tableBuilder.parallelScanThreshold > 0) {
+                return Result.error(new IllegalStateException("error to build schema '" + schemaName + "' due to table "
+                        + tableBuilder.getTableName() + " has time partitions or parallel scan that are supported at SchemaMode.DYNAMIC mode only"));
+            }
+            if (!tableBuilder.indexes.isEmpty()) {
+                log.warn("indexes of table {} at schema '{}' are used by table queries and SQL fast path only, SQL-queries planned by Apache Calcite "
+                        + "scan whole table at SchemaMode.COMPILED mode", tableBuilder.getTableName(), schemaName);
+            }
+        }
+        return findPrecompiledSchemaClass()
+                .map(Result::<Class<?>>ok)
+                .orElseGet(() -> classFactory.compile(classDeclaration))
                 .flatMap(ClassUtils::newInstance)
                 .flatMap(this::linkDataStorages)
                 .map(schema -> {
-                    Map<String, ScalarFunction> scalarFunctions = scalarFunctionBuilders
-                            .stream()
-                            .collect(toMap(ScalarFunctionBuilder::getFunctionName, ScalarFunctionBuilder::build));
-                    return new TweeSchema(schemaName, schema, scalarFunctions, createTableStorageMap());
+                    Map<String, TableStorage> tableStorageMap = createTableStorageMap();
+                    return new TweeSchema(schemaName, schema, createScalarFunctions(), tableStorageMap, new ReflectiveSchema(schema),
+                            createMemoryBudget(tableStorageMap));
                 });
     }
 
+    /**
+     * Find schema class generated at compile time by tweecache-processor.
+     *
+     * Generated schema class is placed at package of one of its table classes, so that it is looked for at packages
+     * of tables added to this builder. Generated schema class is used only if its tables are the same as tables added to this builder.
+     *
+     * @return schema class generated at compile time
+     */
+    private Optional<Class<?>> findPrecompiledSchemaClass() {
+        String simpleName = schemaName.substring(0, 1).toUpperCase() + schemaName.substring(1) + CLASS_NAME_SUFFIX;
+        return tableBuilderMap
+                .values()
+                .stream()
+                .map(tableBuilder -> packagePrefix(tableBuilder.getTableClass()) + simpleName)
+                .distinct()
+                .map(this::loadPrecompiledSchemaClass)
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .findFirst();
+    }
+
+    private static String packagePrefix(String className) {
+        return className.substring(0, className.lastIndexOf('.') + 1);
+    }
+
+    private Optional<Class<?>> loadPrecompiledSchemaClass(String className) {
+        try {
+            Class<?> schemaClass = Class.forName(className, true, Thread.currentThread().getContextClassLoader());
+            Field[] fields = schemaClass.getFields();
+            boolean isMatched = fields.length == tableBuilderMap.size() && Arrays
+                    .stream(fields)
+                    .allMatch(field -> {
+                        TableBuilder tableBuilder = tableBuilderMap.get(field.getName());
+                        Array array = field.getAnnotation(Array.class);
+                        return tableBuilder != null && array != null && array.component().getName().equals(tableBuilder.getTableClass());
+                    });
+            if (!isMatched) {
+                log.warn("precompiled schema class '{}' is ignored due to its tables differ from schema '{}' tables", schemaClass.getName(), schemaName);
+                return Optional.empty();
+            }
+            log.debug("use precompiled schema class '{}'", schemaClass.getName());
+            return Optional.of(schemaClass);
+        } catch (ClassNotFoundException | LinkageError e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Build schema that exposes table storages to Apache Calcite without runtime compilation
+     *
+     * @return {@link TweeSchema} instance
+     */
+    private Result<TweeSchema> buildDynamic() {
+        return Result
+                .ok(createTableStorageMap())
+                .map(tableStorageMap ->
+                        new TweeSchema(schemaName, null, createScalarFunctions(), tableStorageMap, new TweeCalciteSchema(tableStorageMap),
+                                createMemoryBudget(tableStorageMap)));
+    }
+
+    /**
+     * Create memory budget shared by schema tables
+     *
+     * @param tableStorageMap table storages
+     * @return memory budget or null if it is not set
+     */
+    private MemoryBudget createMemoryBudget(Map<String, TableStorage> tableStorageMap) {
+        return memoryBudget > 0 ? new MemoryBudget(schemaName, memoryBudget, tableStorageMap) : null;
+    }
+
+    private Map<String, ScalarFunction> createScalarFunctions() {
+        Map<String, ScalarFunction> scalarFunctions = scalarFunctionBuilders
+                .stream()
+                .collect(toMap(ScalarFunctionBuilder::getFunctionName, ScalarFunctionBuilder::build));
+        BUILT_IN_FUNCTIONS.forEach(builtIn -> scalarFunctions.computeIfAbsent(builtIn.getFunctionName(), functionName -> builtIn.build()));
+        return scalarFunctions;
+    }
+
     /**
      * Link table store to table at in-memory cache schema
      *
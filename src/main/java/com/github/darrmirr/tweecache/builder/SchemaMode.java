@@ -0,0 +1,18 @@
+package com.github.darrmirr.tweecache.builder;
+
+/**
+ * Defines the way how in-memory cache schema is exposed to Apache Calcite
+ */
+public enum SchemaMode {
+    /**
+     * Schema class with one field per table is generated and compiled at runtime.
+     * Apache Calcite reads tables from schema object fields.
+     *
+     * Schema name must be unique due to compilation restriction.
+     */
+    COMPILED,
+    /**
+     * Tables are exposed to Apache Calcite straight from table storages without runtime compilation.
+     */
+    DYNAMIC
+}
@@ -0,0 +1,94 @@
+package com.github.darrmirr.tweecache.calcite;
+
+import com.github.darrmirr.tweecache.TableStorage;
+import org.apache.calcite.adapter.enumerable.EnumerableConvention;
+import org.apache.calcite.adapter.enumerable.EnumerableRel;
+import org.apache.calcite.adapter.enumerable.EnumerableRelImplementor;
+import org.apache.calcite.linq4j.function.Function0;
+import org.apache.calcite.linq4j.tree.BlockBuilder;
+import org.apache.calcite.linq4j.tree.Expression;
+import org.apache.calcite.linq4j.tree.Expressions;
+import org.apache.calcite.linq4j.tree.Types;
+import org.apache.calcite.plan.RelOptCluster;
+import org.apache.calcite.plan.RelOptCost;
+import org.apache.calcite.plan.RelOptPlanner;
+import org.apache.calcite.plan.RelTraitSet;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.RelWriter;
+import org.apache.calcite.rel.SingleRel;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * Relational expression that executes its input for each partition of table rows in parallel
+ * and concatenates partition results.
+ *
+ * Input reads table by {@link StoragePartitionScan}. See {@link ParallelScan} for runtime details.
+ */
+public class ParallelGather extends SingleRel implements EnumerableRel {
+    private static final Method GATHER_METHOD = Types.lookupMethod(ParallelScan.class, "gather", TableStorage.class, Function0.class);
+    private final TableStorage tableStorage;
+
+    public ParallelGather(RelOptCluster cluster, RelTraitSet traitSet, RelNode input, TableStorage tableStorage) {
+        super(cluster, traitSet, input);
+        this.tableStorage = tableStorage;
+    }
+
+    /**
+     * Create parallel gather over partition query
+     *
+     * @param input partition query
+     * @param tableStorage table storage to scan in parallel
+     * @return parallel gather
+     */
+    static ParallelGather create(RelNode input, TableStorage tableStorage) {
+        RelTraitSet traitSet = input.getCluster().traitSetOf(EnumerableConvention.INSTANCE);
+        return new ParallelGather(input.getCluster(), traitSet, input, tableStorage);
+    }
+
+    @Override
+    public RelNode copy(RelTraitSet traitSet, List<RelNode> inputs) {
+        return new ParallelGather(getCluster(), traitSet, sole(inputs), tableStorage);
+    }
+
+    /**
+     * Gather returns results of all partitions
+     *
+     * @param mq metadata query
+     * @return row count
+     */
+    @Override
+    public double estimateRowCount(RelMetadataQuery mq) {
+        return mq.getRowCount(getInput()) * ParallelScan.PARALLELISM;
+    }
+
+    @Override
+    public RelOptCost computeSelfCost(RelOptPlanner planner, RelMetadataQuery mq) {
+        double rowCount = mq.getRowCount(this);
+        return planner.getCostFactory().makeCost(rowCount, rowCount * 0.1, 0);
+    }
+
+    @Override
+    public RelWriter explainTerms(RelWriter pw) {
+        return super
+                .explainTerms(pw)
+                .item("table", tableStorage.getTableClass().getSimpleName())
+                .item("threshold", tableStorage.getParallelScanThreshold());
+    }
+
+    @Override
+    public Result implement(EnumerableRelImplementor implementor, Prefer pref) {
+        Result result = implementor.visitChild(this, 0, (EnumerableRel) getInput(), pref);
+        Expression partitionQuery = Expressions.lambda(Function0.class, result.block);
+        BlockBuilder builder = new BlockBuilder();
+        builder.add(
+                Expressions.return_(null,
+                        Expressions.call(
+                                GATHER_METHOD,
+                                implementor.stash(tableStorage, TableStorage.class),
+                                partitionQuery)));
+        return implementor.result(result.physType, builder.toBlock());
+    }
+}
@@ -0,0 +1,123 @@
+package com.github.darrmirr.tweecache.calcite;
+
+import com.github.darrmirr.tweecache.TableStorage;
+import com.github.darrmirr.tweecache.util.QueryCancellation;
+import org.apache.calcite.linq4j.Enumerable;
+import org.apache.calcite.linq4j.Linq4j;
+import org.apache.calcite.linq4j.function.Function0;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * Runtime of parallel table scan.
+ *
+ * Table rows are split into partitions by spliterator of table storage. Partition query generated by Apache Calcite
+ * is executed for each partition at {@link ForkJoinPool#commonPool()}. Partition scan reads rows of partition
+ * bound to current thread instead of all table rows. Partition results are concatenated.
+ */
+public final class ParallelScan {
+    static final int PARALLELISM = ForkJoinPool.getCommonPoolParallelism();
+    private static final int MIN_PARTITION_SIZE = 1024;
+    private static final ThreadLocal<Partition> PARTITION = new ThreadLocal<>();
+
+    private ParallelScan() {
+    }
+
+    /**
+     * Execute partition query in parallel for each partition of table rows.
+     * Partition query is executed once over all table rows if table is smaller than parallel scan threshold.
+     *
+     * Method is invoked by code generated for {@link ParallelGather}.
+     *
+     * @param tableStorage table storage to scan
+     * @param partitionQuery query over table partition
+     * @return query result
+     */
+    public static Enumerable<Object> gather(TableStorage tableStorage, Function0<Enumerable<Object>> partitionQuery) {
+        Collection<Object> rows = tableStorage.rows();
+        int rowCount = rows.size();
+        if (rowCount < tableStorage.getParallelScanThreshold() || PARALLELISM < 2) {
+            return partitionQuery.apply();
+        }
+        long partitionSize = Math.max(MIN_PARTITION_SIZE, rowCount / (PARALLELISM * 4L));
+        PartitionTask task = new PartitionTask(tableStorage, rows.spliterator(), partitionSize, partitionQuery, QueryCancellation.current());
+        return Linq4j.asEnumerable(ForkJoinPool.commonPool().invoke(task));
+    }
+
+    /**
+     * Get rows of table partition bound to current thread
+     *
+     * @param tableStorage table storage
+     * @return partition rows or null if no partition of table is bound to current thread
+     */
+    static Collection<Object> partition(TableStorage tableStorage) {
+        Partition partition = PARTITION.get();
+        return partition != null && partition.tableStorage == tableStorage ? partition.rows : null;
+    }
+
+    private static class Partition {
+        private final TableStorage tableStorage;
+        private final List<Object> rows;
+
+        private Partition(TableStorage tableStorage, List<Object> rows) {
+            this.tableStorage = tableStorage;
+            this.rows = rows;
+        }
+    }
+
+    private static class PartitionTask extends RecursiveTask<List<Object>> {
+        private final TableStorage tableStorage;
+        private final Spliterator<Object> spliterator;
+        private final long partitionSize;
+        private final Function0<Enumerable<Object>> partitionQuery;
+        private final QueryCancellation cancellation;
+
+        private PartitionTask(TableStorage tableStorage, Spliterator<Object> spliterator, long partitionSize,
+                              Function0<Enumerable<Object>> partitionQuery, QueryCancellation cancellation) {
+            this.tableStorage = tableStorage;
+            this.spliterator = spliterator;
+            this.partitionSize = partitionSize;
+            this.partitionQuery = partitionQuery;
+            this.cancellation = cancellation;
+        }
+
+        @Override
+        protected List<Object> compute() {
+            List<PartitionTask> forkedTasks = new ArrayList<>();
+            Spliterator<Object> prefix;
+            while (spliterator.estimateSize() > partitionSize && (prefix = spliterator.trySplit()) != null) {
+                PartitionTask forkedTask = new PartitionTask(tableStorage, prefix, partitionSize, partitionQuery, cancellation);
+                forkedTask.fork();
+                forkedTasks.add(forkedTask);
+            }
+            Supplier<List<Object>> partitionScan = this::scanPartition;
+            List<Object> result = cancellation != null ? cancellation.propagate(partitionScan) : partitionScan.get();
+            for (PartitionTask forkedTask : forkedTasks) {
+                result.addAll(forkedTask.join());
+            }
+            return result;
+        }
+
+        private List<Object> scanPartition() {
+            List<Object> rows = new ArrayList<>((int) Math.min(spliterator.estimateSize(), Integer.MAX_VALUE));
+            spliterator.forEachRemaining(rows::add);
+            Partition previous = PARTITION.get();
+            PARTITION.set(new Partition(tableStorage, rows));
+            try {
+                return new ArrayList<>(partitionQuery.apply().toList());
+            } finally {
+                if (previous != null) {
+                    PARTITION.set(previous);
+                } else {
+                    PARTITION.remove();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.github.darrmirr.tweecache.calcite;
+
+import org.apache.calcite.adapter.enumerable.EnumerableAggregate;
+import org.apache.calcite.adapter.enumerable.EnumerableCalc;
+import org.apache.calcite.plan.RelOptRule;
+import org.apache.calcite.plan.RelOptRuleCall;
+import org.apache.calcite.plan.RelRule;
+import org.apache.calcite.rel.RelCollations;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.Aggregate;
+import org.apache.calcite.rel.core.AggregateCall;
+import org.apache.calcite.sql.SqlAggFunction;
+import org.apache.calcite.sql.fun.SqlStdOperatorTable;
+import org.apache.calcite.util.ImmutableBitSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Planner rules of parallel table scan.
+ *
+ * <ul>
+ *     <li>filter and project over table scan are executed for each table partition in parallel</li>
+ *     <li>COUNT, SUM, MIN and MAX aggregations over table scan are split into partial aggregation that is executed
+ *     for each table partition in parallel and final aggregation that merges partial results</li>
+ * </ul>
+ */
+public final class ParallelScanRules {
+    public static final RelOptRule PARALLEL_CALC = ParallelCalcRule.Config.DEFAULT.toRule();
+    public static final RelOptRule PARALLEL_AGGREGATE = ParallelAggregateRule.Config.DEFAULT.toRule();
+    public static final RelOptRule PARALLEL_AGGREGATE_SCAN = ParallelAggregateRule.Config.SCAN.toRule();
+    static final List<RelOptRule> RULES = Arrays.asList(PARALLEL_CALC, PARALLEL_AGGREGATE, PARALLEL_AGGREGATE_SCAN);
+
+    private ParallelScanRules() {
+    }
+
+    private static boolean isParallel(StorageTableScan scan) {
+        return scan.getStorageTable().getTableStorage().getParallelScanThreshold() > 0;
+    }
+
+    /**
+     * Rule executes calc (filter and project) over table scan for each table partition in parallel
+     */
+    public static class ParallelCalcRule extends RelRule<ParallelCalcRule.Config> {
+
+        protected ParallelCalcRule(Config config) {
+            super(config);
+        }
+
+        @Override
+        public void onMatch(RelOptRuleCall call) {
+            EnumerableCalc calc = call.rel(0);
+            StorageTableScan scan = call.rel(1);
+            RelNode partitionCalc = calc.copy(calc.getTraitSet(), StoragePartitionScan.create(scan), calc.getProgram());
+            call.transformTo(ParallelGather.create(partitionCalc, scan.getStorageTable().getTableStorage()));
+        }
+
+        public interface Config extends RelRule.Config {
+            Config DEFAULT = EMPTY
+                    .withOperandSupplier(b0 -> b0
+                            .operand(EnumerableCalc.class)
+                            .oneInput(b1 -> b1
+                                    .operand(StorageTableScan.class)
+                                    .predicate(ParallelScanRules::isParallel)
+                                    .noInputs()))
+                    .as(Config.class);
+
+            @Override
+            default ParallelCalcRule toRule() {
+                return new ParallelCalcRule(this);
+            }
+        }
+    }
+
+    /**
+     * Rule splits aggregation over table scan (optionally with calc) into partial aggregation
+     * executed for each table partition in parallel and final aggregation over partial results.
+     */
+    public static class ParallelAggregateRule extends RelRule<ParallelAggregateRule.Config> {
+
+        protected ParallelAggregateRule(Config config) {
+            super(config);
+        }
+
+        @Override
+        public void onMatch(RelOptRuleCall call) {
+            EnumerableAggregate aggregate = call.rel(0);
+            StorageTableScan scan = call.rel(call.rels.length - 1);
+            RelNode partitionInput = StoragePartitionScan.create(scan);
+            if (call.rels.length == 3) {
+                EnumerableCalc calc = call.rel(1);
+                partitionInput = calc.copy(calc.getTraitSet(), partitionInput, calc.getProgram());
+            }
+            int groupCount = aggregate.getGroupCount();
+            List<AggregateCall> finalCalls = new ArrayList<>();
+            for (int i = 0; i < aggregate.getAggCallList().size(); i++) {
+                AggregateCall partialCall = aggregate.getAggCallList().get(i);
+                finalCalls.add(AggregateCall.create(
+                        finalFunction(partialCall),
+                        false,
+                        false,
+                        false,
+                        Collections.singletonList(groupCount + i),
+                        -1,
+                        RelCollations.EMPTY,
+                        partialCall.getType(),
+                        partialCall.getName()));
+            }
+            RelNode partialAggregate = aggregate.copy(aggregate.getTraitSet(), partitionInput, aggregate.getGroupSet(), null, aggregate.getAggCallList());
+            RelNode gather = ParallelGather.create(partialAggregate, scan.getStorageTable().getTableStorage());
+            call.transformTo(aggregate.copy(aggregate.getTraitSet(), gather, ImmutableBitSet.range(groupCount), null, finalCalls));
+        }
+
+        /**
+         * Aggregation could be split if its functions could merge partial results
+         *
+         * @param aggregate aggregation
+         * @return true if aggregation could be split
+         */
+        private static boolean isSplittable(Aggregate aggregate) {
+            return aggregate.getGroupType() == Aggregate.Group.SIMPLE && aggregate
+                    .getAggCallList()
+                    .stream()
+                    .allMatch(aggCall -> !aggCall.isDistinct()
+                            && !aggCall.hasFilter()
+                            && aggCall.getCollation().getFieldCollations().isEmpty()
+                            && finalFunction(aggCall) != null);
+        }
+
+        /**
+         * Get function to merge partial results of aggregation function
+         *
+         * @param aggCall aggregation function call
+         * @return merge function or null if partial results could not be merged
+         */
+        private static SqlAggFunction finalFunction(AggregateCall aggCall) {
+            switch (aggCall.getAggregation().getKind()) {
+                case COUNT:
+                case SUM0:
+                    return SqlStdOperatorTable.SUM0;
+                case SUM:
+                case MIN:
+                case MAX:
+                    return aggCall.getAggregation();
+                default:
+                    return null;
+            }
+        }
+
+        public interface Config extends RelRule.Config {
+            Config DEFAULT = EMPTY
+                    .withOperandSupplier(b0 -> b0
+                            .operand(EnumerableAggregate.class)
+                            .predicate(ParallelAggregateRule::isSplittable)
+                            .oneInput(b1 -> b1
+                                    .operand(EnumerableCalc.class)
+                                    .oneInput(b2 -> b2
+                                            .operand(StorageTableScan.class)
+                                            .predicate(ParallelScanRules::isParallel)
+                                            .noInputs())))
+                    .as(Config.class);
+
+            Config SCAN = EMPTY
+                    .withOperandSupplier(b0 -> b0
+                            .operand(EnumerableAggregate.class)
+                            .predicate(ParallelAggregateRule::isSplittable)
+                            .oneInput(b1 -> b1
+                                    .operand(StorageTableScan.class)
+                                    .predicate(ParallelScanRules::isParallel)
+                                    .noInputs()))
+                    .as(Config.class);
+
+            @Override
+            default ParallelAggregateRule toRule() {
+                return new ParallelAggregateRule(this);
+            }
+        }
+    }
+}
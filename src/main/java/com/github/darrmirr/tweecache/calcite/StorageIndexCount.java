@@ -0,0 +1,113 @@
+package com.github.darrmirr.tweecache.calcite;
+
+import com.github.darrmirr.tweecache.index.IndexLookup;
+import org.apache.calcite.adapter.enumerable.EnumerableConvention;
+import org.apache.calcite.adapter.enumerable.EnumerableRel;
+import org.apache.calcite.adapter.enumerable.EnumerableRelImplementor;
+import org.apache.calcite.adapter.enumerable.JavaRowFormat;
+import org.apache.calcite.adapter.enumerable.PhysType;
+import org.apache.calcite.adapter.enumerable.PhysTypeImpl;
+import org.apache.calcite.linq4j.Enumerable;
+import org.apache.calcite.linq4j.Linq4j;
+import org.apache.calcite.linq4j.tree.BlockBuilder;
+import org.apache.calcite.linq4j.tree.Expressions;
+import org.apache.calcite.linq4j.tree.Types;
+import org.apache.calcite.plan.RelOptCost;
+import org.apache.calcite.plan.RelOptPlanner;
+import org.apache.calcite.plan.RelTraitSet;
+import org.apache.calcite.rel.AbstractRelNode;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.RelWriter;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+import org.apache.calcite.rel.type.RelDataType;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Relational expression returns COUNT(*) of table rows found by index lookup without reading the rows.
+ *
+ * It replaces aggregation of COUNT(*) calls over {@link StorageIndexScan}. Result is single row,
+ * each column holds the same count.
+ */
+public class StorageIndexCount extends AbstractRelNode implements EnumerableRel {
+    private static final Method INDEX_COUNT_METHOD = Types.lookupMethod(StorageIndexCount.class, "indexCount",
+            IndexLookup.class, Object[].class, int.class);
+    private final StorageIndexScan scan;
+    private final RelDataType rowType;
+
+    public StorageIndexCount(RelTraitSet traitSet, StorageIndexScan scan, RelDataType rowType) {
+        super(scan.getCluster(), traitSet);
+        this.scan = scan;
+        this.rowType = rowType;
+    }
+
+    /**
+     * Create index count
+     *
+     * @param scan index scan which rows are counted
+     * @param rowType row type of aggregation
+     * @return index count
+     */
+    static StorageIndexCount create(StorageIndexScan scan, RelDataType rowType) {
+        return new StorageIndexCount(scan.getCluster().traitSetOf(EnumerableConvention.INSTANCE), scan, rowType);
+    }
+
+    @Override
+    protected RelDataType deriveRowType() {
+        return rowType;
+    }
+
+    @Override
+    public RelNode copy(RelTraitSet traitSet, List<RelNode> inputs) {
+        return new StorageIndexCount(traitSet, scan, rowType);
+    }
+
+    @Override
+    public double estimateRowCount(RelMetadataQuery mq) {
+        return 1;
+    }
+
+    @Override
+    public RelOptCost computeSelfCost(RelOptPlanner planner, RelMetadataQuery mq) {
+        return planner.getCostFactory().makeCost(1, 1, 0);
+    }
+
+    @Override
+    public RelWriter explainTerms(RelWriter pw) {
+        return super
+                .explainTerms(pw)
+                .item("table", scan.getTable().getQualifiedName())
+                .item("index", scan.getLookup())
+                .item("operands", scan.getOperands());
+    }
+
+    @Override
+    public Result implement(EnumerableRelImplementor implementor, Prefer pref) {
+        PhysType physType = PhysTypeImpl.of(implementor.getTypeFactory(), getRowType(), JavaRowFormat.ARRAY, false);
+        BlockBuilder builder = new BlockBuilder();
+        builder.add(Expressions.call(
+                INDEX_COUNT_METHOD,
+                implementor.stash(scan.getLookup(), IndexLookup.class),
+                scan.translateOperands(implementor, builder),
+                Expressions.constant(getRowType().getFieldCount())));
+        return implementor.result(physType, builder.toBlock());
+    }
+
+    /**
+     * Count table rows found by index lookup.
+     *
+     * Method is invoked by code generated for {@link StorageIndexCount}.
+     *
+     * @param lookup index lookup
+     * @param operands index lookup operand values
+     * @param columnCount number of COUNT(*) columns
+     * @return single row with count at each column
+     */
+    public static Enumerable<Object[]> indexCount(IndexLookup lookup, Object[] operands, int columnCount) {
+        Object[] row = new Object[columnCount];
+        Arrays.fill(row, lookup.count(operands));
+        return Linq4j.singletonEnumerable(row);
+    }
+}
@@ -0,0 +1,86 @@
+package com.github.darrmirr.tweecache.calcite;
+
+import org.apache.calcite.plan.RelOptRuleCall;
+import org.apache.calcite.plan.RelRule;
+import org.apache.calcite.rel.core.Aggregate;
+import org.apache.calcite.rel.core.AggregateCall;
+import org.apache.calcite.rel.logical.LogicalAggregate;
+import org.apache.calcite.rel.logical.LogicalProject;
+import org.apache.calcite.sql.SqlKind;
+
+/**
+ * Rule replaces COUNT(*) over {@link StorageIndexScan} with {@link StorageIndexCount}, so that count is taken
+ * from index without reading table rows.
+ *
+ * Rule matches aggregation without GROUP BY which calls are COUNT(*) only. Aggregation input is index scan
+ * (optionally with project), therefore whole filter is answered by index.
+ */
+public class StorageIndexCountRule extends RelRule<StorageIndexCountRule.Config> {
+    public static final StorageIndexCountRule INSTANCE = Config.DEFAULT.toRule();
+    public static final StorageIndexCountRule PROJECT = Config.PROJECT.toRule();
+
+    protected StorageIndexCountRule(Config config) {
+        super(config);
+    }
+
+    @Override
+    public void onMatch(RelOptRuleCall call) {
+        LogicalAggregate aggregate = call.rel(0);
+        StorageIndexScan scan = call.rel(call.getRelList().size() - 1);
+        call.transformTo(StorageIndexCount.create(scan, aggregate.getRowType()));
+    }
+
+    private static boolean isCountAll(Aggregate aggregate) {
+        if (aggregate.getGroupCount() != 0 || aggregate.getGroupType() != Aggregate.Group.SIMPLE || aggregate.getAggCallList().isEmpty()) {
+            return false;
+        }
+        for (AggregateCall aggregateCall : aggregate.getAggCallList()) {
+            if (aggregateCall.getAggregation().getKind() != SqlKind.COUNT
+                    || !aggregateCall.getArgList().isEmpty()
+                    || aggregateCall.isDistinct()
+                    || aggregateCall.filterArg >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Index of partitioned table could count keys of dropped time partition until its rows are removed in background
+     *
+     * @param scan index scan
+     * @return true if count could be taken from index
+     */
+    private static boolean isCountedByIndex(StorageIndexScan scan) {
+        return scan.getTableStorage().getPartitions() == null;
+    }
+
+    public interface Config extends RelRule.Config {
+        Config DEFAULT = EMPTY
+                .withOperandSupplier(b0 -> b0
+                        .operand(LogicalAggregate.class)
+                        .predicate(StorageIndexCountRule::isCountAll)
+                        .oneInput(b1 -> b1
+                                .operand(StorageIndexScan.class)
+                                .predicate(StorageIndexCountRule::isCountedByIndex)
+                                .noInputs()))
+                .as(Config.class);
+
+        Config PROJECT = EMPTY
+                .withOperandSupplier(b0 -> b0
+                        .operand(LogicalAggregate.class)
+                        .predicate(StorageIndexCountRule::isCountAll)
+                        .oneInput(b1 -> b1
+                                .operand(LogicalProject.class)
+                                .oneInput(b2 -> b2
+                                        .operand(StorageIndexScan.class)
+                                        .predicate(StorageIndexCountRule::isCountedByIndex)
+                                        .noInputs())))
+                .as(Config.class);
+
+        @Override
+        default StorageIndexCountRule toRule() {
+            return new StorageIndexCountRule(this);
+        }
+    }
+}
@@ -0,0 +1,421 @@
+package com.github.darrmirr.tweecache.calcite;
+
+import com.github.darrmirr.tweecache.index.BitmapIndex;
+import com.github.darrmirr.tweecache.index.BitmapLookup;
+import com.github.darrmirr.tweecache.index.IndexLookup;
+import com.github.darrmirr.tweecache.index.InvertedIndex;
+import com.github.darrmirr.tweecache.index.PrefixIndex;
+import com.github.darrmirr.tweecache.index.TableIndex;
+import com.github.darrmirr.tweecache.index.TimePartitions;
+import com.github.darrmirr.tweecache.util.TweeFunctions;
+import org.apache.calcite.plan.RelOptRuleCall;
+import org.apache.calcite.plan.RelOptUtil;
+import org.apache.calcite.plan.RelRule;
+import org.apache.calcite.rel.logical.LogicalFilter;
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.rex.RexBuilder;
+import org.apache.calcite.rex.RexCall;
+import org.apache.calcite.rex.RexDynamicParam;
+import org.apache.calcite.rex.RexInputRef;
+import org.apache.calcite.rex.RexLiteral;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.rex.RexUtil;
+import org.apache.calcite.schema.Function;
+import org.apache.calcite.schema.impl.ScalarFunctionImpl;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.calcite.sql.fun.SqlLikeOperator;
+import org.apache.calcite.sql.fun.SqlStdOperatorTable;
+import org.apache.calcite.sql.type.SqlTypeFamily;
+import org.apache.calcite.sql.type.SqlTypeName;
+import org.apache.calcite.sql.type.SqlTypeUtil;
+import org.apache.calcite.sql.validate.SqlUserDefinedFunction;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Rule replaces filter over {@link StorageTableScan} with {@link StorageIndexScan} if filter conjuncts
+ * are answered by table indexes. Other conjuncts are evaluated by filter over index scan.
+ *
+ * Supported predicates:
+ * <ul>
+ *     <li>{@code array_contains(field, value)} over field with {@link InvertedIndex}</li>
+ *     <li>{@code field = value}, {@code field <> value}, {@code field IN (...)}, {@code field IS [NOT] NULL} and
+ *     boolean {@code field} over fields with {@link BitmapIndex} combined by AND and OR.
+ *     All such conjuncts are answered by single {@link BitmapLookup}.</li>
+ *     <li>{@code field LIKE pattern}, {@code field LIKE value || 'suffix'} and {@code starts_with(field, value)}
+ *     over field with {@link PrefixIndex}, {@code lower(field)} instead of field for case-insensitive match.
+ *     They are combined with bitmap index predicates into single {@link BitmapLookup}.</li>
+ *     <li>range predicates ({@code =}, {@code <}, {@code <=}, {@code >}, {@code >=}, {@code BETWEEN}) over partition field
+ *     of table with {@link TimePartitions} prune time buckets out of range. Predicates are evaluated by filter
+ *     over rows of remaining buckets.</li>
+ * </ul>
+ * Predicate value must be literal or SQL-query parameter. Time range bound could be constant expression as well.
+ * Each applicable index produces alternative plan, planner chooses the cheapest one.
+ */
+public class StorageIndexRule extends RelRule<StorageIndexRule.Config> {
+    public static final StorageIndexRule INSTANCE = Config.DEFAULT.toRule();
+    private static final Set<SqlKind> RANGE_KINDS = EnumSet.of(SqlKind.EQUALS, SqlKind.LESS_THAN, SqlKind.LESS_THAN_OR_EQUAL,
+            SqlKind.GREATER_THAN, SqlKind.GREATER_THAN_OR_EQUAL);
+
+    protected StorageIndexRule(Config config) {
+        super(config);
+    }
+
+    @Override
+    public void onMatch(RelOptRuleCall call) {
+        LogicalFilter filter = call.rel(0);
+        StorageTableScan scan = call.rel(1);
+        RexBuilder rexBuilder = filter.getCluster().getRexBuilder();
+        List<RexNode> conjuncts = RelOptUtil.conjunctions(RexUtil.expandSearch(rexBuilder, null, filter.getCondition()));
+        for (RexNode conjunct : conjuncts) {
+            List<RexNode> operands = new ArrayList<>();
+            IndexLookup lookup = toInvertedLookup(conjunct, scan, operands);
+            if (lookup != null) {
+                transformTo(call, scan, lookup, operands, conjuncts, Collections.singletonList(conjunct));
+                break;
+            }
+        }
+        List<RexNode> operands = new ArrayList<>();
+        List<BitmapLookup> bitmapLookups = new ArrayList<>();
+        List<RexNode> indexedConjuncts = new ArrayList<>();
+        for (RexNode conjunct : conjuncts) {
+            List<RexNode> conjunctOperands = new ArrayList<>(operands);
+            BitmapLookup lookup = toBitmapLookup(conjunct, scan, conjunctOperands, rexBuilder);
+            if (lookup != null) {
+                operands = conjunctOperands;
+                bitmapLookups.add(lookup);
+                indexedConjuncts.add(conjunct);
+            }
+        }
+        if (!bitmapLookups.isEmpty()) {
+            IndexLookup lookup = bitmapLookups.size() == 1 ? bitmapLookups.get(0) : BitmapLookup.and(bitmapLookups);
+            transformTo(call, scan, lookup, operands, conjuncts, indexedConjuncts);
+        }
+        TimePartitions partitions = scan.getStorageTable().getTableStorage().getPartitions();
+        if (partitions != null) {
+            List<RexNode> partitionOperands = new ArrayList<>();
+            IndexLookup lookup = toPartitionLookup(conjuncts, partitions, partitionOperands);
+            if (lookup != null) {
+                transformTo(call, scan, lookup, partitionOperands, conjuncts, Collections.emptyList());
+            }
+        }
+    }
+
+    private static void transformTo(RelOptRuleCall call, StorageTableScan scan, IndexLookup lookup, List<RexNode> operands,
+                                    List<RexNode> conjuncts, List<RexNode> indexedConjuncts) {
+        List<RexNode> residual = new ArrayList<>(conjuncts);
+        residual.removeAll(indexedConjuncts);
+        call.transformTo(call
+                .builder()
+                .push(StorageIndexScan.create(scan, lookup, operands))
+                .filter(residual)
+                .build());
+    }
+
+    /**
+     * Create inverted index lookup for predicate
+     *
+     * @param predicate filter conjunct
+     * @param scan table scan
+     * @param operands list to collect index lookup operands
+     * @return index lookup or null if predicate is not answered by inverted index
+     */
+    private static IndexLookup toInvertedLookup(RexNode predicate, StorageTableScan scan, List<RexNode> operands) {
+        if (predicate instanceof RexCall && isTweeFunction((RexCall) predicate, TweeFunctions.ARRAY_CONTAINS)) {
+            List<RexNode> callOperands = ((RexCall) predicate).getOperands();
+            InvertedIndex index = findIndex(scan, callOperands.get(0), InvertedIndex.class);
+            RexNode value = removeCast(callOperands.get(1));
+            if (index != null && isValue(value)) {
+                operands.add(value);
+                return index.contains(operands.size() - 1);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Create time partition lookup for range predicates over partition field. Predicates are still evaluated by filter
+     * since time buckets are wider than predicate range.
+     *
+     * @param conjuncts filter conjuncts
+     * @param partitions time partitions of table
+     * @param operands list to collect index lookup operands
+     * @return index lookup or null if there is no range predicate over partition field
+     */
+    private static IndexLookup toPartitionLookup(List<RexNode> conjuncts, TimePartitions partitions, List<RexNode> operands) {
+        int lower = -1;
+        int upper = -1;
+        for (RexNode conjunct : conjuncts) {
+            if (!conjunct.isA(RANGE_KINDS)) {
+                continue;
+            }
+            List<RexNode> callOperands = ((RexCall) conjunct).getOperands();
+            for (int i = 0; i < 2; i++) {
+                RexNode field = removeCast(callOperands.get(i));
+                RexNode value = removeCast(callOperands.get(1 - i));
+                if (!(field instanceof RexInputRef) || ((RexInputRef) field).getIndex() != partitions.getFieldIndex() || !isTimeValue(field, value)) {
+                    continue;
+                }
+                SqlKind kind = i == 0 ? conjunct.getKind() : conjunct.getKind().reverse();
+                boolean isLower = lower < 0 && kind != SqlKind.LESS_THAN && kind != SqlKind.LESS_THAN_OR_EQUAL;
+                boolean isUpper = upper < 0 && kind != SqlKind.GREATER_THAN && kind != SqlKind.GREATER_THAN_OR_EQUAL;
+                if (isLower || isUpper) {
+                    operands.add(value);
+                    lower = isLower ? operands.size() - 1 : lower;
+                    upper = isUpper ? operands.size() - 1 : upper;
+                }
+                break;
+            }
+        }
+        return lower >= 0 || upper >= 0 ? partitions.range(lower, upper) : null;
+    }
+
+    /**
+     * Create bitmap index lookup for predicate
+     *
+     * @param predicate filter conjunct or its part
+     * @param scan table scan
+     * @param operands list to collect index lookup operands
+     * @param rexBuilder rex builder
+     * @return index lookup or null if predicate is not answered by bitmap indexes
+     */
+    private static BitmapLookup toBitmapLookup(RexNode predicate, StorageTableScan scan, List<RexNode> operands, RexBuilder rexBuilder) {
+        switch (predicate.getKind()) {
+            case AND:
+            case OR:
+                List<BitmapLookup> lookups = new ArrayList<>();
+                for (RexNode operand : ((RexCall) predicate).getOperands()) {
+                    BitmapLookup lookup = toBitmapLookup(operand, scan, operands, rexBuilder);
+                    if (lookup == null) {
+                        return null;
+                    }
+                    lookups.add(lookup);
+                }
+                return predicate.getKind() == SqlKind.AND ? BitmapLookup.and(lookups) : BitmapLookup.or(lookups);
+            case EQUALS:
+            case NOT_EQUALS: {
+                List<RexNode> callOperands = ((RexCall) predicate).getOperands();
+                for (int i = 0; i < 2; i++) {
+                    BitmapIndex index = findIndex(scan, callOperands.get(i), BitmapIndex.class);
+                    RexNode value = removeCast(callOperands.get(1 - i));
+                    if (index != null && isValue(value) && !RexLiteral.isNullLiteral(value)) {
+                        operands.add(value);
+                        int operand = operands.size() - 1;
+                        return predicate.getKind() == SqlKind.EQUALS
+                                ? BitmapLookup.equalTo(index, operand)
+                                : BitmapLookup.notEqualTo(index, operand);
+                    }
+                }
+                return null;
+            }
+            case IS_NULL:
+            case IS_NOT_NULL: {
+                BitmapIndex index = findIndex(scan, ((RexCall) predicate).getOperands().get(0), BitmapIndex.class);
+                if (index == null) {
+                    return null;
+                }
+                return predicate.getKind() == SqlKind.IS_NULL ? BitmapLookup.isNull(index) : BitmapLookup.isNotNull(index);
+            }
+            case LIKE: {
+                RexCall like = (RexCall) predicate;
+                SqlLikeOperator operator = (SqlLikeOperator) like.getOperator();
+                if (like.getOperands().size() != 2 || operator.isNegated() || !operator.isCaseSensitive()) {
+                    return null;
+                }
+                return toPrefixLookup(like.getOperands().get(0), like.getOperands().get(1), false, scan, operands);
+            }
+            case OTHER_FUNCTION: {
+                RexCall call = (RexCall) predicate;
+                if (!isTweeFunction(call, TweeFunctions.STARTS_WITH)) {
+                    return null;
+                }
+                return toPrefixLookup(call.getOperands().get(0), call.getOperands().get(1), true, scan, operands);
+            }
+            case INPUT_REF:
+            case NOT: {
+                RexNode field = predicate.getKind() == SqlKind.NOT ? ((RexCall) predicate).getOperands().get(0) : predicate;
+                BitmapIndex index = field instanceof RexInputRef && field.getType().getSqlTypeName() == SqlTypeName.BOOLEAN
+                        ? findIndex(scan, field, BitmapIndex.class)
+                        : null;
+                if (index == null) {
+                    return null;
+                }
+                operands.add(rexBuilder.makeLiteral(predicate.getKind() == SqlKind.INPUT_REF));
+                return BitmapLookup.equalTo(index, operands.size() - 1);
+            }
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Create prefix index lookup for LIKE or starts_with predicate
+     *
+     * @param field field or lower case of field
+     * @param pattern LIKE pattern or prefix: literal, SQL-query parameter or their concatenation with literal
+     * @param isPrefix true if pattern is prefix without wildcards
+     * @param scan table scan
+     * @param operands list to collect index lookup operands
+     * @return index lookup or null if predicate is not answered by prefix index
+     */
+    private static BitmapLookup toPrefixLookup(RexNode field, RexNode pattern, boolean isPrefix, StorageTableScan scan, List<RexNode> operands) {
+        boolean isLowerCase = field instanceof RexCall && ((RexCall) field).getOperator() == SqlStdOperatorTable.LOWER;
+        PrefixIndex index = findIndex(scan, isLowerCase ? ((RexCall) field).getOperands().get(0) : field, PrefixIndex.class);
+        if (index == null) {
+            return null;
+        }
+        RexNode value = removeCast(pattern);
+        String suffix = "";
+        if (!isPrefix && value instanceof RexCall && ((RexCall) value).getOperator() == SqlStdOperatorTable.CONCAT) {
+            RexNode last = removeCast(((RexCall) value).getOperands().get(1));
+            if (!(last instanceof RexLiteral) || RexLiteral.isNullLiteral(last)) {
+                return null;
+            }
+            suffix = ((RexLiteral) last).getValueAs(String.class);
+            value = removeCast(((RexCall) value).getOperands().get(0));
+        }
+        if (!isValue(value) || RexLiteral.isNullLiteral(value) || !SqlTypeFamily.CHARACTER.contains(value.getType())) {
+            return null;
+        }
+        operands.add(value);
+        int operand = operands.size() - 1;
+        return isPrefix
+                ? BitmapLookup.startsWith(index, operand, isLowerCase)
+                : BitmapLookup.like(index, operand, suffix, isLowerCase);
+    }
+
+    private static boolean isTweeFunction(RexCall call, String name) {
+        if (!(call.getOperator() instanceof SqlUserDefinedFunction)) {
+            return false;
+        }
+        Function function = ((SqlUserDefinedFunction) call.getOperator()).getFunction();
+        return function instanceof ScalarFunctionImpl
+                && ((ScalarFunctionImpl) function).method.getDeclaringClass() == TweeFunctions.class
+                && call.getOperator().getName().equalsIgnoreCase(name);
+    }
+
+    /**
+     * Check if node is literal or SQL-query parameter which value is compared with indexed values as is.
+     * Date and time values have internal representation at Apache Calcite, they are not supported.
+     *
+     * @param node rex node
+     * @return true if node is index lookup operand
+     */
+    private static boolean isValue(RexNode node) {
+        if (!(node instanceof RexLiteral) && !(node instanceof RexDynamicParam)) {
+            return false;
+        }
+        SqlTypeName typeName = node.getType().getSqlTypeName();
+        return typeName == SqlTypeName.ANY
+                || typeName == SqlTypeName.NULL
+                || SqlTypeFamily.NUMERIC.contains(node.getType())
+                || SqlTypeFamily.CHARACTER.contains(node.getType())
+                || SqlTypeFamily.BOOLEAN.contains(node.getType());
+    }
+
+    /**
+     * Check if node is time range bound comparable with partition field: literal, SQL-query parameter or constant
+     * expression (e.g. {@code CURRENT_TIMESTAMP - INTERVAL '15' MINUTE}) of the same type as field
+     *
+     * @param field partition field
+     * @param node rex node
+     * @return true if node is time range bound
+     */
+    private static boolean isTimeValue(RexNode field, RexNode node) {
+        if (RexLiteral.isNullLiteral(node) || !(node instanceof RexDynamicParam) && !RexUtil.isConstant(node)) {
+            return false;
+        }
+        return SqlTypeUtil.isNumeric(field.getType())
+                ? SqlTypeUtil.isNumeric(node.getType())
+                : node.getType().getSqlTypeName() == field.getType().getSqlTypeName();
+    }
+
+    /**
+     * Remove cast that does not change value (e.g. widening numeric cast or nullability cast).
+     * Cast that could change value (e.g. {@code CAST(doubleField AS INTEGER)}) is kept, so that predicate is left to filter.
+     *
+     * @param node rex node
+     * @return rex node without lossless casts
+     */
+    private static RexNode removeCast(RexNode node) {
+        while (node.getKind() == SqlKind.CAST && isLossless(((RexCall) node).getOperands().get(0).getType(), node.getType())) {
+            node = ((RexCall) node).getOperands().get(0);
+        }
+        return node;
+    }
+
+    /**
+     * Check if every value of source type is cast to equal value of target type
+     *
+     * @param from source type
+     * @param to target type
+     * @return true if cast is lossless
+     */
+    private static boolean isLossless(RelDataType from, RelDataType to) {
+        if (to.getSqlTypeName() == SqlTypeName.ANY) {
+            // value is passed as is
+            return true;
+        }
+        if (SqlTypeUtil.isNumeric(from) && SqlTypeUtil.isNumeric(to)) {
+            int fromScale = Math.max(0, from.getScale());
+            int fromDigits = from.getPrecision() - fromScale;
+            if (SqlTypeUtil.isApproximateNumeric(to)) {
+                // integers up to 15 digits are exact at double, up to 6 digits at real
+                int exactDigits = to.getSqlTypeName() == SqlTypeName.REAL ? 6 : 15;
+                return SqlTypeUtil.isApproximateNumeric(from)
+                        ? from.getSqlTypeName() == SqlTypeName.REAL || to.getSqlTypeName() != SqlTypeName.REAL
+                        : fromScale == 0 && fromDigits <= exactDigits;
+            }
+            if (SqlTypeUtil.isApproximateNumeric(from) || SqlTypeUtil.isIntType(to) && !SqlTypeUtil.isIntType(from)) {
+                return false;
+            }
+            int toScale = Math.max(0, to.getScale());
+            return toScale >= fromScale && to.getPrecision() - toScale >= fromDigits;
+        }
+        if (SqlTypeUtil.inCharFamily(from) && SqlTypeUtil.inCharFamily(to)) {
+            // cast to CHAR pads or truncates value
+            return to.getSqlTypeName() == SqlTypeName.VARCHAR
+                    ? isWider(from.getPrecision(), to.getPrecision())
+                    : from.getSqlTypeName() == SqlTypeName.CHAR && from.getPrecision() == to.getPrecision();
+        }
+        return from.getSqlTypeName() == to.getSqlTypeName()
+                && isWider(from.getPrecision(), to.getPrecision())
+                && Math.max(0, to.getScale()) >= Math.max(0, from.getScale());
+    }
+
+    private static boolean isWider(int fromPrecision, int toPrecision) {
+        return toPrecision == RelDataType.PRECISION_NOT_SPECIFIED
+                || fromPrecision != RelDataType.PRECISION_NOT_SPECIFIED && fromPrecision <= toPrecision;
+    }
+
+    private static <T extends TableIndex> T findIndex(StorageTableScan scan, RexNode field, Class<T> indexClass) {
+        RexNode node = removeCast(field);
+        if (!(node instanceof RexInputRef)) {
+            return null;
+        }
+        int fieldIndex = ((RexInputRef) node).getIndex();
+        for (TableIndex index : scan.getStorageTable().getTableStorage().getIndexes()) {
+            if (index.getFieldIndex() == fieldIndex && indexClass.isInstance(index)) {
+                return indexClass.cast(index);
+            }
+        }
+        return null;
+    }
+
+    public interface Config extends RelRule.Config {
+        Config DEFAULT = EMPTY
+                .withOperandSupplier(b0 -> b0
+                        .operand(LogicalFilter.class)
+                        .oneInput(b1 -> b1.operand(StorageTableScan.class).noInputs()))
+                .as(Config.class);
+
+        @Override
+        default StorageIndexRule toRule() {
+            return new StorageIndexRule(this);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.github.darrmirr.tweecache.calcite;
+
+import com.github.darrmirr.tweecache.TableStorage;
+import com.github.darrmirr.tweecache.index.IndexLookup;
+import com.github.darrmirr.tweecache.util.QueryCancellation;
+import org.apache.calcite.DataContext;
+import org.apache.calcite.adapter.enumerable.EnumerableRelImplementor;
+import org.apache.calcite.adapter.enumerable.EnumerableTableScan;
+import org.apache.calcite.adapter.enumerable.PhysType;
+import org.apache.calcite.adapter.enumerable.PhysTypeImpl;
+import org.apache.calcite.adapter.enumerable.RexImpTable;
+import org.apache.calcite.adapter.enumerable.RexToLixTranslator;
+import org.apache.calcite.linq4j.Enumerable;
+import org.apache.calcite.linq4j.Linq4j;
+import org.apache.calcite.linq4j.tree.BlockBuilder;
+import org.apache.calcite.linq4j.tree.Expression;
+import org.apache.calcite.linq4j.tree.Expressions;
+import org.apache.calcite.linq4j.tree.Types;
+import org.apache.calcite.plan.RelOptCost;
+import org.apache.calcite.plan.RelOptPlanner;
+import org.apache.calcite.plan.RelTraitSet;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.RelWriter;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+import org.apache.calcite.rex.RexDynamicParam;
+import org.apache.calcite.rex.RexLiteral;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.util.BuiltInMethod;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Scan of {@link StorageTable} rows found by table index.
+ *
+ * Index lookup returns keys of table rows that match predicate. Rows are read from table storage by key,
+ * therefore rows that do not match predicate are never touched. Lookup that holds rows itself
+ * (e.g. {@link com.github.darrmirr.tweecache.index.TimePartitions}) returns rows directly.
+ */
+public class StorageIndexScan extends EnumerableTableScan {
+    private static final Method INDEX_SCAN_METHOD = Types.lookupMethod(StorageIndexScan.class, "indexScan",
+            TableStorage.class, IndexLookup.class, Object[].class);
+    private final StorageTableScan scan;
+    private final IndexLookup lookup;
+    private final List<RexNode> operands;
+
+    public StorageIndexScan(StorageTableScan scan, RelTraitSet traitSet, IndexLookup lookup, List<RexNode> operands) {
+        super(scan.getCluster(), traitSet, scan.getTable(), scan.getStorageTable().getTableStorage().getTableClass());
+        this.scan = scan;
+        this.lookup = lookup;
+        this.operands = operands;
+    }
+
+    /**
+     * Create index scan that reads the same table as table scan
+     *
+     * @param scan storage table scan
+     * @param lookup index lookup
+     * @param operands index lookup operands. Each operand is literal or dynamic parameter.
+     * @return index scan
+     */
+    static StorageIndexScan create(StorageTableScan scan, IndexLookup lookup, List<RexNode> operands) {
+        return new StorageIndexScan(scan, scan.getTraitSet(), lookup, operands);
+    }
+
+    @Override
+    public double estimateRowCount(RelMetadataQuery mq) {
+        return lookup.estimateRowCount(table.getRowCount());
+    }
+
+    /**
+     * Index scan cost is proportional to number of found rows instead of number of table rows
+     *
+     * @param planner planner
+     * @param mq metadata query
+     * @return index scan cost
+     */
+    @Override
+    public RelOptCost computeSelfCost(RelOptPlanner planner, RelMetadataQuery mq) {
+        double rowCount = estimateRowCount(mq);
+        return planner.getCostFactory().makeCost(rowCount, rowCount + 1, 0);
+    }
+
+    @Override
+    public RelWriter explainTerms(RelWriter pw) {
+        return super
+                .explainTerms(pw)
+                .item("index", lookup)
+                .item("operands", operands);
+    }
+
+    @Override
+    public RelNode copy(RelTraitSet traitSet, List<RelNode> inputs) {
+        return new StorageIndexScan(scan, traitSet, lookup, operands);
+    }
+
+    @Override
+    public Result implement(EnumerableRelImplementor implementor, Prefer pref) {
+        PhysType physType = PhysTypeImpl.of(implementor.getTypeFactory(), getRowType(), deduceFormat(table));
+        BlockBuilder builder = new BlockBuilder();
+        builder.add(Expressions.call(
+                INDEX_SCAN_METHOD,
+                implementor.stash(scan.getStorageTable().getTableStorage(), TableStorage.class),
+                implementor.stash(lookup, IndexLookup.class),
+                translateOperands(implementor, builder)));
+        return implementor.result(physType, builder.toBlock());
+    }
+
+    /**
+     * Get table storage read by index scan
+     *
+     * @return table storage
+     */
+    TableStorage getTableStorage() {
+        return scan.getStorageTable().getTableStorage();
+    }
+
+    /**
+     * Get index lookup
+     *
+     * @return index lookup
+     */
+    IndexLookup getLookup() {
+        return lookup;
+    }
+
+    /**
+     * Get index lookup operands
+     *
+     * @return literals and dynamic parameters
+     */
+    List<RexNode> getOperands() {
+        return operands;
+    }
+
+    /**
+     * Generate expression that creates array of index lookup operand values
+     *
+     * @param implementor implementor
+     * @param builder block to add statements required by operand expressions
+     * @return array expression
+     */
+    Expression translateOperands(EnumerableRelImplementor implementor, BlockBuilder builder) {
+        List<Expression> operandExpressions = new ArrayList<>(operands.size());
+        for (RexNode operand : operands) {
+            operandExpressions.add(Expressions.box(translateOperand(implementor, builder, operand)));
+        }
+        return Expressions.newArrayInit(Object.class, operandExpressions);
+    }
+
+    /**
+     * Translate operand. Dynamic parameter value is passed as is. Constant expression (e.g. CURRENT_TIMESTAMP - INTERVAL)
+     * is evaluated once per query.
+     *
+     * @param implementor implementor
+     * @param builder block to add statements required by operand expression
+     * @param operand literal, dynamic parameter or constant expression
+     * @return operand expression
+     */
+    private static Expression translateOperand(EnumerableRelImplementor implementor, BlockBuilder builder, RexNode operand) {
+        if (operand instanceof RexDynamicParam) {
+            return Expressions.call(
+                    DataContext.ROOT,
+                    BuiltInMethod.DATA_CONTEXT_GET.method,
+                    Expressions.constant("?" + ((RexDynamicParam) operand).getIndex()));
+        }
+        if (operand instanceof RexLiteral) {
+            return RexToLixTranslator.translateLiteral((RexLiteral) operand, operand.getType(), implementor.getTypeFactory(), RexImpTable.NullAs.NULL);
+        }
+        return RexToLixTranslator
+                .forAggregation(implementor.getTypeFactory(), builder, null, implementor.getConformance())
+                .translate(operand);
+    }
+
+    /**
+     * Read table rows found by index lookup.
+     *
+     * Method is invoked by code generated for {@link StorageIndexScan}.
+     *
+     * @param tableStorage table storage
+     * @param lookup index lookup
+     * @param operands index lookup operand values
+     * @return table rows
+     */
+    public static Enumerable<Object> indexScan(TableStorage tableStorage, IndexLookup lookup, Object[] operands) {
+        tableStorage.recordAccess();
+        Collection<Object> foundRows = lookup.rows(operands);
+        if (foundRows != null) {
+            return Linq4j.asEnumerable(QueryCancellation.cancellable(foundRows));
+        }
+        Collection<Object> keys = lookup.keys(operands);
+        return Linq4j
+                .asEnumerable(QueryCancellation.cancellable(keys))
+                .select(tableStorage::getIfPresent)
+                .where(Objects::nonNull);
+    }
+}
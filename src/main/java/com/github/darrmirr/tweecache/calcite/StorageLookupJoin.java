@@ -0,0 +1,173 @@
+package com.github.darrmirr.tweecache.calcite;
+
+import com.github.darrmirr.tweecache.TableStorage;
+import org.apache.calcite.adapter.enumerable.*;
+import org.apache.calcite.linq4j.AbstractEnumerable;
+import org.apache.calcite.linq4j.Enumerable;
+import org.apache.calcite.linq4j.Enumerator;
+import org.apache.calcite.linq4j.Ord;
+import org.apache.calcite.linq4j.function.Function1;
+import org.apache.calcite.linq4j.function.Function2;
+import org.apache.calcite.linq4j.tree.*;
+import org.apache.calcite.plan.*;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.RelWriter;
+import org.apache.calcite.rel.core.Join;
+import org.apache.calcite.rel.core.JoinRelType;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+import org.apache.calcite.rex.RexNode;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Join that probes table storage of right input by key of left input row.
+ *
+ * Right input is {@link StorageTableScan} joined by its key field, therefore table storage is used
+ * as ready-made hash table and right input is never scanned.
+ */
+public class StorageLookupJoin extends Join implements EnumerableRel {
+    private static final Method LOOKUP_JOIN_METHOD = Types.lookupMethod(StorageLookupJoin.class, "lookupJoin",
+            Enumerable.class, Function1.class, TableStorage.class, Function2.class, boolean.class);
+    private static final List<String> LEFT_RIGHT = Arrays.asList("left", "right");
+    private final TableStorage tableStorage;
+
+    public StorageLookupJoin(RelOptCluster cluster, RelTraitSet traitSet, RelNode left, RelNode right, RexNode condition,
+                             JoinRelType joinType, TableStorage tableStorage) {
+        super(cluster, traitSet, Collections.emptyList(), left, right, condition, Collections.emptySet(), joinType);
+        this.tableStorage = tableStorage;
+    }
+
+    @Override
+    public Join copy(RelTraitSet traitSet, RexNode conditionExpr, RelNode left, RelNode right, JoinRelType joinType, boolean semiJoinDone) {
+        return new StorageLookupJoin(getCluster(), traitSet, left, right, conditionExpr, joinType, tableStorage);
+    }
+
+    /**
+     * Join cost is cost of one key lookup per left row. There is no cost to build hash table over right input.
+     *
+     * @param planner planner
+     * @param mq metadata query
+     * @return join cost
+     */
+    @Override
+    public RelOptCost computeSelfCost(RelOptPlanner planner, RelMetadataQuery mq) {
+        double leftRowCount = mq.getRowCount(left);
+        return planner.getCostFactory().makeCost(leftRowCount, leftRowCount, 0);
+    }
+
+    @Override
+    public RelWriter explainTerms(RelWriter pw) {
+        return super
+                .explainTerms(pw)
+                .item("key", tableStorage.getKeyField());
+    }
+
+    @Override
+    public Result implement(EnumerableRelImplementor implementor, Prefer pref) {
+        BlockBuilder builder = new BlockBuilder();
+        Result leftResult = implementor.visitChild(this, 0, (EnumerableRel) left, pref);
+        Expression leftExpression = builder.append("left", leftResult.block);
+        Result rightResult = implementor.visitChild(this, 1, (EnumerableRel) right, pref);
+        PhysType physType = PhysTypeImpl.of(implementor.getTypeFactory(), getRowType(), pref.preferArray());
+        return implementor.result(
+                physType,
+                builder.append(
+                        Expressions.call(
+                                LOOKUP_JOIN_METHOD,
+                                leftExpression,
+                                leftResult.physType.generateAccessor(joinInfo.leftKeys),
+                                implementor.stash(tableStorage, TableStorage.class),
+                                joinSelector(physType, Arrays.asList(leftResult.physType, rightResult.physType)),
+                                Expressions.constant(joinType.generatesNullsOnRight())))
+                        .toBlock());
+    }
+
+    /**
+     * Generate function that creates join result row from left and right rows
+     *
+     * @param physType join physical type
+     * @param inputPhysTypes physical types of left and right inputs
+     * @return result selector expression
+     */
+    private Expression joinSelector(PhysType physType, List<PhysType> inputPhysTypes) {
+        List<ParameterExpression> parameters = new ArrayList<>();
+        List<Expression> expressions = new ArrayList<>();
+        for (Ord<PhysType> ord : Ord.zip(inputPhysTypes)) {
+            boolean isNullable = joinType.generatesNullsOn(ord.i);
+            PhysType inputPhysType = ord.e.makeNullable(isNullable);
+            ParameterExpression parameter = Expressions.parameter(Primitive.box(inputPhysType.getJavaRowType()), LEFT_RIGHT.get(ord.i));
+            parameters.add(parameter);
+            for (int i = 0; i < inputPhysType.getRowType().getFieldCount(); i++) {
+                Expression expression = inputPhysType.fieldReference(parameter, i, physType.getJavaFieldType(expressions.size()));
+                if (isNullable) {
+                    expression = Expressions.condition(
+                            Expressions.equal(parameter, Expressions.constant(null)),
+                            Expressions.constant(null),
+                            expression);
+                }
+                expressions.add(expression);
+            }
+        }
+        return Expressions.lambda(Function2.class, physType.record(expressions), parameters);
+    }
+
+    /**
+     * Join left rows with table storage rows found by left row key.
+     *
+     * Method is invoked by code generated for {@link StorageLookupJoin}.
+     *
+     * @param left left rows
+     * @param leftKeySelector function returns key of left row
+     * @param tableStorage table storage of right rows
+     * @param resultSelector function creates result row from left and right rows
+     * @param generateNullsOnRight true for left join
+     * @return join result
+     */
+    public static Enumerable<Object> lookupJoin(Enumerable<Object> left, Function1<Object, Object> leftKeySelector, TableStorage tableStorage,
+                                                Function2<Object, Object, Object> resultSelector, boolean generateNullsOnRight) {
+        return new AbstractEnumerable<Object>() {
+            @Override
+            public Enumerator<Object> enumerator() {
+                tableStorage.recordAccess();
+                Enumerator<Object> leftEnumerator = left.enumerator();
+                return new Enumerator<Object>() {
+                    private Object current;
+
+                    @Override
+                    public Object current() {
+                        return current;
+                    }
+
+                    @Override
+                    public boolean moveNext() {
+                        while (leftEnumerator.moveNext()) {
+                            Object leftRow = leftEnumerator.current();
+                            Object key = leftKeySelector.apply(leftRow);
+                            Object rightRow = key != null ? tableStorage.getIfPresent(key) : null;
+                            if (rightRow != null || generateNullsOnRight) {
+                                current = resultSelector.apply(leftRow, rightRow);
+                                return true;
+                            }
+                        }
+                        return false;
+                    }
+
+                    @Override
+                    public void reset() {
+                        leftEnumerator.reset();
+                        current = null;
+                    }
+
+                    @Override
+                    public void close() {
+                        leftEnumerator.close();
+                    }
+                };
+            }
+        };
+    }
+}
@@ -0,0 +1,78 @@
+package com.github.darrmirr.tweecache.calcite;
+
+import org.apache.calcite.adapter.enumerable.EnumerableConvention;
+import org.apache.calcite.plan.RelOptRuleCall;
+import org.apache.calcite.plan.RelRule;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.JoinInfo;
+import org.apache.calcite.rel.core.JoinRelType;
+import org.apache.calcite.rel.logical.LogicalJoin;
+import org.apache.calcite.rel.type.RelDataType;
+
+/**
+ * Rule replaces equi-join by key field of storage table with {@link StorageLookupJoin}.
+ *
+ * Rule matches inner and left joins which right input is {@link StorageTableScan} and join condition is
+ * equality of a left column and right table key field. Left column must be of the same SQL type as key field,
+ * otherwise left key value is not equal to table storage key (e.g. {@link Long} value is never found at storage
+ * with {@link Integer} keys) and join is left to Apache Calcite.
+ */
+public class StorageLookupJoinRule extends RelRule<StorageLookupJoinRule.Config> {
+    public static final StorageLookupJoinRule INSTANCE = Config.DEFAULT.toRule();
+
+    protected StorageLookupJoinRule(Config config) {
+        super(config);
+    }
+
+    @Override
+    public boolean matches(RelOptRuleCall call) {
+        LogicalJoin join = call.rel(0);
+        StorageTableScan scan = call.rel(2);
+        if (join.getJoinType() != JoinRelType.INNER && join.getJoinType() != JoinRelType.LEFT) {
+            return false;
+        }
+        String keyField = scan.getStorageTable().getTableStorage().getKeyField();
+        JoinInfo joinInfo = join.analyzeCondition();
+        return keyField != null
+                && joinInfo.isEqui()
+                && joinInfo.rightKeys.size() == 1
+                && scan.getRowType().getFieldNames().indexOf(keyField) == joinInfo.rightKeys.get(0)
+                && isSameType(join.getLeft().getRowType(), joinInfo.leftKeys.get(0), scan.getRowType(), joinInfo.rightKeys.get(0));
+    }
+
+    private static boolean isSameType(RelDataType leftRowType, int leftKey, RelDataType rightRowType, int rightKey) {
+        RelDataType leftKeyType = leftRowType.getFieldList().get(leftKey).getType();
+        RelDataType rightKeyType = rightRowType.getFieldList().get(rightKey).getType();
+        return leftKeyType.getSqlTypeName() == rightKeyType.getSqlTypeName();
+    }
+
+    @Override
+    public void onMatch(RelOptRuleCall call) {
+        LogicalJoin join = call.rel(0);
+        StorageTableScan scan = call.rel(2);
+        RelNode left = convert(join.getLeft(), join.getLeft().getTraitSet().replace(EnumerableConvention.INSTANCE));
+        call.transformTo(new StorageLookupJoin(
+                join.getCluster(),
+                join.getTraitSet().replace(EnumerableConvention.INSTANCE),
+                left,
+                scan,
+                join.getCondition(),
+                join.getJoinType(),
+                scan.getStorageTable().getTableStorage()));
+    }
+
+    public interface Config extends RelRule.Config {
+        Config DEFAULT = EMPTY
+                .withOperandSupplier(b0 -> b0
+                        .operand(LogicalJoin.class)
+                        .inputs(
+                                b1 -> b1.operand(RelNode.class).anyInputs(),
+                                b2 -> b2.operand(StorageTableScan.class).noInputs()))
+                .as(Config.class);
+
+        @Override
+        default StorageLookupJoinRule toRule() {
+            return new StorageLookupJoinRule(this);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.darrmirr.tweecache.calcite;
+
+import org.apache.calcite.adapter.enumerable.EnumerableTableScan;
+import org.apache.calcite.plan.RelOptCluster;
+import org.apache.calcite.plan.RelOptTable;
+import org.apache.calcite.plan.RelTraitSet;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+
+import java.util.List;
+
+/**
+ * Scan of one partition of {@link StorageTable} at parallel table scan.
+ *
+ * Partition scan reads table rows of partition bound to current thread by {@link ParallelScan}.
+ * It is always placed under {@link ParallelGather}.
+ */
+public class StoragePartitionScan extends EnumerableTableScan {
+    private final Class<?> elementType;
+
+    public StoragePartitionScan(RelOptCluster cluster, RelTraitSet traitSet, RelOptTable table, Class<?> elementType) {
+        super(cluster, traitSet, table, elementType);
+        this.elementType = elementType;
+    }
+
+    /**
+     * Create partition scan that reads the same table as table scan
+     *
+     * @param scan storage table scan
+     * @return partition scan
+     */
+    static StoragePartitionScan create(StorageTableScan scan) {
+        return new StoragePartitionScan(scan.getCluster(), scan.getTraitSet(), scan.getTable(), scan.getStorageTable().getTableStorage().getTableClass());
+    }
+
+    /**
+     * Each partition contains table rows divided by parallelism
+     *
+     * @param mq metadata query
+     * @return partition row count
+     */
+    @Override
+    public double estimateRowCount(RelMetadataQuery mq) {
+        return super.estimateRowCount(mq) / ParallelScan.PARALLELISM;
+    }
+
+    @Override
+    public RelNode copy(RelTraitSet traitSet, List<RelNode> inputs) {
+        return new StoragePartitionScan(getCluster(), traitSet, table, elementType);
+    }
+}
@@ -0,0 +1,94 @@
+package com.github.darrmirr.tweecache.calcite;
+
+import com.github.darrmirr.tweecache.TableStorage;
+import com.github.darrmirr.tweecache.util.QueryCancellation;
+import org.apache.calcite.adapter.java.AbstractQueryableTable;
+import org.apache.calcite.adapter.java.JavaTypeFactory;
+import org.apache.calcite.linq4j.Enumerator;
+import org.apache.calcite.linq4j.Linq4j;
+import org.apache.calcite.linq4j.QueryProvider;
+import org.apache.calcite.linq4j.Queryable;
+import org.apache.calcite.plan.RelOptTable;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.rel.type.RelDataTypeFactory;
+import org.apache.calcite.schema.SchemaPlus;
+import org.apache.calcite.schema.Statistic;
+import org.apache.calcite.schema.Statistics;
+import org.apache.calcite.schema.TranslatableTable;
+import org.apache.calcite.schema.impl.AbstractTableQueryable;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Apache Calcite table that reads rows straight from {@link TableStorage}.
+ *
+ * Table rows are table class instances stored at table storage, therefore Apache Calcite generated code
+ * reads row fields directly from stored objects.
+ */
+public class StorageTable extends AbstractQueryableTable implements TranslatableTable {
+    private final TableStorage tableStorage;
+
+    public StorageTable(TableStorage tableStorage) {
+        super(tableStorage.getTableClass());
+        this.tableStorage = tableStorage;
+    }
+
+    @Override
+    public RelDataType getRowType(RelDataTypeFactory typeFactory) {
+        return ((JavaTypeFactory) typeFactory).createType(elementType);
+    }
+
+    /**
+     * Row count is taken from table storage estimated size in order to help planner to choose join order
+     *
+     * @return table statistic
+     */
+    @Override
+    public Statistic getStatistic() {
+        return Statistics.of(tableStorage.getCache().estimatedSize(), Collections.emptyList());
+    }
+
+    /**
+     * Storage table is scanned by {@link StorageTableScan} that brings TweeCache planner rules
+     *
+     * @param context to rel context
+     * @param relOptTable planner table
+     * @return table scan
+     */
+    @Override
+    public RelNode toRel(RelOptTable.ToRelContext context, RelOptTable relOptTable) {
+        return StorageTableScan.create(context.getCluster(), relOptTable, this);
+    }
+
+    @Override
+    public <T> Queryable<T> asQueryable(QueryProvider queryProvider, SchemaPlus schema, String tableName) {
+        return new AbstractTableQueryable<T>(queryProvider, schema, this, tableName) {
+            @SuppressWarnings("unchecked")
+            @Override
+            public Enumerator<T> enumerator() {
+                return (Enumerator<T>) Linq4j.asEnumerable(rows()).enumerator();
+            }
+        };
+    }
+
+    /**
+     * Get table storage linked to table
+     *
+     * @return table storage
+     */
+    public TableStorage getTableStorage() {
+        return tableStorage;
+    }
+
+    private Collection<Object> rows() {
+        Collection<Object> partition = ParallelScan.partition(tableStorage);
+        return QueryCancellation.cancellable(partition != null ? partition : tableStorage.rows());
+    }
+
+    @Override
+    public String toString() {
+        return "StorageTable {class=" + tableStorage.getTableClass().getName() + "}";
+    }
+}
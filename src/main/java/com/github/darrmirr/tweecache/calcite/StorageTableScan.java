@@ -0,0 +1,82 @@
+package com.github.darrmirr.tweecache.calcite;
+
+import org.apache.calcite.adapter.enumerable.EnumerableConvention;
+import org.apache.calcite.adapter.enumerable.EnumerableRules;
+import org.apache.calcite.adapter.enumerable.EnumerableTableScan;
+import org.apache.calcite.plan.*;
+import org.apache.calcite.rel.RelCollationTraitDef;
+import org.apache.calcite.rel.RelNode;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Table scan over {@link StorageTable}.
+ *
+ * Scan registers TweeCache planner rules when it is added to planner:
+ * <ul>
+ *     <li>ORDER BY ... LIMIT is evaluated in a single pass over scan with bounded sorted buffer of OFFSET + LIMIT rows
+ *     instead of full sort of all table rows</li>
+ *     <li>join by table key field probes table storage directly, see {@link StorageLookupJoinRule}</li>
+ *     <li>{@link ParallelScanRules} if parallel scan is enabled for table</li>
+ *     <li>filter answered by table index reads rows found by index, filter over time partition field reads rows
+ *     of time buckets in range, see {@link StorageIndexRule}.
+ *     COUNT(*) of such filter is taken from index, see {@link StorageIndexCountRule}</li>
+ * </ul>
+ */
+public class StorageTableScan extends EnumerableTableScan {
+    static final List<RelOptRule> RULES = Collections.singletonList(
+            EnumerableRules.ENUMERABLE_LIMIT_SORT_RULE);
+    private final Class<?> elementType;
+
+    public StorageTableScan(RelOptCluster cluster, RelTraitSet traitSet, RelOptTable table, Class<?> elementType) {
+        super(cluster, traitSet, table, elementType);
+        this.elementType = elementType;
+    }
+
+    /**
+     * Create table scan over storage table
+     *
+     * @param cluster planner cluster
+     * @param relOptTable planner table
+     * @param storageTable storage table
+     * @return table scan
+     */
+    static StorageTableScan create(RelOptCluster cluster, RelOptTable relOptTable, StorageTable storageTable) {
+        RelTraitSet traitSet = cluster
+                .traitSetOf(EnumerableConvention.INSTANCE)
+                .replaceIfs(RelCollationTraitDef.INSTANCE, () -> storageTable.getStatistic().getCollations());
+        return new StorageTableScan(cluster, traitSet, relOptTable, storageTable.getTableStorage().getTableClass());
+    }
+
+    @Override
+    public void register(RelOptPlanner planner) {
+        super.register(planner);
+        RULES.forEach(planner::addRule);
+        if (getStorageTable().getTableStorage().getKeyField() != null) {
+            planner.addRule(StorageLookupJoinRule.INSTANCE);
+        }
+        if (!getStorageTable().getTableStorage().getIndexes().isEmpty()) {
+            planner.addRule(StorageIndexRule.INSTANCE);
+            planner.addRule(StorageIndexCountRule.INSTANCE);
+            planner.addRule(StorageIndexCountRule.PROJECT);
+        }
+        if (ParallelScan.PARALLELISM > 1 && getStorageTable().getTableStorage().getParallelScanThreshold() > 0) {
+            ParallelScanRules.RULES.forEach(planner::addRule);
+        }
+    }
+
+    /**
+     * Get scanned storage table
+     *
+     * @return storage table
+     */
+    public StorageTable getStorageTable() {
+        return table.unwrap(StorageTable.class);
+    }
+
+    @Override
+    public RelNode copy(RelTraitSet traitSet, List<RelNode> inputs) {
+        return new StorageTableScan(getCluster(), traitSet, table, elementType);
+    }
+}
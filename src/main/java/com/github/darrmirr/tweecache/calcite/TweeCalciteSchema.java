@@ -0,0 +1,27 @@
+package com.github.darrmirr.tweecache.calcite;
+
+import com.github.darrmirr.tweecache.TableStorage;
+import org.apache.calcite.schema.Table;
+import org.apache.calcite.schema.impl.AbstractSchema;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Apache Calcite schema that exposes tables straight from {@link TableStorage} map.
+ *
+ * Schema does not require runtime compilation, therefore schema name uniqueness is not required.
+ */
+public class TweeCalciteSchema extends AbstractSchema {
+    private final Map<String, Table> tableMap = new HashMap<>();
+
+    public TweeCalciteSchema(Map<String, TableStorage> tableStorageMap) {
+        tableStorageMap.forEach((tableName, tableStorage) ->
+                tableMap.put(tableName, new StorageTable(tableStorage)));
+    }
+
+    @Override
+    protected Map<String, Table> getTableMap() {
+        return tableMap;
+    }
+}
@@ -0,0 +1,339 @@
+package com.github.darrmirr.tweecache.importer;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Date;
+
+/**
+ * Parsers of field values from UTF-8 bytes of import file.
+ *
+ * Numbers and ISO dates are parsed from bytes directly without intermediate strings.
+ * Methods are invoked by generated {@link RowSetter} implementations, therefore they are public.
+ */
+public final class FieldParsers {
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private FieldParsers() { }
+
+    /**
+     * Check if field of type could be imported
+     *
+     * @param type field type
+     * @return true if field value could be parsed
+     */
+    static boolean isSupported(Class<?> type) {
+        return parserName(type) != null;
+    }
+
+    /**
+     * Get name of parser method for field type
+     *
+     * @param type field type
+     * @return parser method name or null if field type is not supported
+     */
+    static String parserName(Class<?> type) {
+        if (type == int.class || type == Integer.class) {
+            return "parseInt";
+        } else if (type == long.class || type == Long.class) {
+            return "parseLong";
+        } else if (type == double.class || type == Double.class) {
+            return "parseDouble";
+        } else if (type == float.class || type == Float.class) {
+            return "parseFloat";
+        } else if (type == short.class || type == Short.class) {
+            return "parseShort";
+        } else if (type == byte.class || type == Byte.class) {
+            return "parseByte";
+        } else if (type == boolean.class || type == Boolean.class) {
+            return "parseBoolean";
+        } else if (type == char.class || type == Character.class) {
+            return "parseChar";
+        } else if (type == String.class || type == Object.class) {
+            return "parseString";
+        } else if (type == BigDecimal.class) {
+            return "parseBigDecimal";
+        } else if (type == BigInteger.class) {
+            return "parseBigInteger";
+        } else if (type == LocalDate.class) {
+            return "parseLocalDate";
+        } else if (type == LocalDateTime.class) {
+            return "parseLocalDateTime";
+        } else if (type == Instant.class) {
+            return "parseInstant";
+        } else if (type == Timestamp.class) {
+            return "parseTimestamp";
+        } else if (type == java.sql.Date.class) {
+            return "parseSqlDate";
+        } else if (type == Time.class) {
+            return "parseTime";
+        } else if (type == Date.class) {
+            return "parseDate";
+        } else if (type.isEnum()) {
+            return "parseEnum";
+        }
+        return null;
+    }
+
+    /**
+     * Parse field value of type. Method is used if row setter could not be generated.
+     *
+     * @param type field type
+     * @param bytes file bytes
+     * @param start start of value
+     * @param end end of value (exclusive)
+     * @return field value
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static Object parse(Class<?> type, byte[] bytes, int start, int end) {
+        switch (String.valueOf(parserName(type))) {
+            case "parseInt": return parseInt(bytes, start, end);
+            case "parseLong": return parseLong(bytes, start, end);
+            case "parseDouble": return parseDouble(bytes, start, end);
+            case "parseFloat": return parseFloat(bytes, start, end);
+            case "parseShort": return parseShort(bytes, start, end);
+            case "parseByte": return parseByte(bytes, start, end);
+            case "parseBoolean": return parseBoolean(bytes, start, end);
+            case "parseChar": return parseChar(bytes, start, end);
+            case "parseString": return parseString(bytes, start, end);
+            case "parseBigDecimal": return parseBigDecimal(bytes, start, end);
+            case "parseBigInteger": return parseBigInteger(bytes, start, end);
+            case "parseLocalDate": return parseLocalDate(bytes, start, end);
+            case "parseLocalDateTime": return parseLocalDateTime(bytes, start, end);
+            case "parseInstant": return parseInstant(bytes, start, end);
+            case "parseTimestamp": return parseTimestamp(bytes, start, end);
+            case "parseSqlDate": return parseSqlDate(bytes, start, end);
+            case "parseTime": return parseTime(bytes, start, end);
+            case "parseDate": return parseDate(bytes, start, end);
+            case "parseEnum": return parseEnum((Class) type, bytes, start, end);
+            default: throw new IllegalArgumentException("field type '" + type.getName() + "' is not supported by import");
+        }
+    }
+
+    public static int parseInt(byte[] bytes, int start, int end) {
+        long value = parseLong(bytes, start, end);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw numberFormatException(bytes, start, end);
+        }
+        return (int) value;
+    }
+
+    public static long parseLong(byte[] bytes, int start, int end) {
+        int i = start;
+        boolean isNegative = false;
+        if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+            isNegative = bytes[i] == '-';
+            i++;
+        }
+        if (i == end) {
+            throw numberFormatException(bytes, start, end);
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9 || value < (Long.MIN_VALUE + digit) / 10) {
+                throw numberFormatException(bytes, start, end);
+            }
+            // accumulate negative value in order to parse Long.MIN_VALUE
+            value = value * 10 - digit;
+        }
+        if (!isNegative) {
+            if (value == Long.MIN_VALUE) {
+                throw numberFormatException(bytes, start, end);
+            }
+            return -value;
+        }
+        return value;
+    }
+
+    public static short parseShort(byte[] bytes, int start, int end) {
+        int value = parseInt(bytes, start, end);
+        if (value < Short.MIN_VALUE || value > Short.MAX_VALUE) {
+            throw numberFormatException(bytes, start, end);
+        }
+        return (short) value;
+    }
+
+    public static byte parseByte(byte[] bytes, int start, int end) {
+        int value = parseInt(bytes, start, end);
+        if (value < Byte.MIN_VALUE || value > Byte.MAX_VALUE) {
+            throw numberFormatException(bytes, start, end);
+        }
+        return (byte) value;
+    }
+
+    /**
+     * Parse double value. Plain decimal value with at most 15 significant digits is parsed exactly without string,
+     * other values are parsed by {@link Double#parseDouble(String)}.
+     *
+     * @param bytes file bytes
+     * @param start start of value
+     * @param end end of value (exclusive)
+     * @return double value
+     */
+    public static double parseDouble(byte[] bytes, int start, int end) {
+        int i = start;
+        boolean isNegative = false;
+        if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+            isNegative = bytes[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int scale = -1;
+        int digits = 0;
+        for (; i < end; i++) {
+            byte b = bytes[i];
+            if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                digits++;
+                if (scale >= 0) {
+                    scale++;
+                }
+            } else if (b == '.' && scale < 0) {
+                scale = 0;
+            } else {
+                break;
+            }
+        }
+        if (i == end && digits > 0 && digits <= 15 && mantissa < MAX_EXACT_MANTISSA) {
+            double value = scale > 0 ? mantissa / POWERS_OF_TEN[scale] : mantissa;
+            return isNegative ? -value : value;
+        }
+        return Double.parseDouble(parseString(bytes, start, end));
+    }
+
+    public static float parseFloat(byte[] bytes, int start, int end) {
+        return Float.parseFloat(parseString(bytes, start, end));
+    }
+
+    public static boolean parseBoolean(byte[] bytes, int start, int end) {
+        int length = end - start;
+        if (length == 1) {
+            return bytes[start] == '1' || bytes[start] == 't' || bytes[start] == 'T' || bytes[start] == 'y' || bytes[start] == 'Y';
+        }
+        return length == 4 && (bytes[start] | 0x20) == 't' && (bytes[start + 1] | 0x20) == 'r' && (bytes[start + 2] | 0x20) == 'u'
+                && (bytes[start + 3] | 0x20) == 'e';
+    }
+
+    public static char parseChar(byte[] bytes, int start, int end) {
+        return parseString(bytes, start, end).charAt(0);
+    }
+
+    public static String parseString(byte[] bytes, int start, int end) {
+        return new String(bytes, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    public static BigDecimal parseBigDecimal(byte[] bytes, int start, int end) {
+        return new BigDecimal(chars(bytes, start, end));
+    }
+
+    public static BigInteger parseBigInteger(byte[] bytes, int start, int end) {
+        return new BigInteger(parseString(bytes, start, end));
+    }
+
+    /**
+     * Parse date in ISO format yyyy-MM-dd
+     *
+     * @param bytes file bytes
+     * @param start start of value
+     * @param end end of value (exclusive)
+     * @return date
+     */
+    public static LocalDate parseLocalDate(byte[] bytes, int start, int end) {
+        if (end - start == 10 && bytes[start + 4] == '-' && bytes[start + 7] == '-') {
+            return LocalDate.of(digits(bytes, start, 4), digits(bytes, start + 5, 2), digits(bytes, start + 8, 2));
+        }
+        return LocalDate.parse(parseString(bytes, start, end));
+    }
+
+    /**
+     * Parse date time in ISO format. Date and time could be separated by 'T' or space.
+     *
+     * @param bytes file bytes
+     * @param start start of value
+     * @param end end of value (exclusive)
+     * @return date time
+     */
+    public static LocalDateTime parseLocalDateTime(byte[] bytes, int start, int end) {
+        int length = end - start;
+        if (length == 19 && (bytes[start + 10] == 'T' || bytes[start + 10] == ' ') && bytes[start + 13] == ':' && bytes[start + 16] == ':') {
+            return LocalDateTime.of(parseLocalDate(bytes, start, start + 10),
+                    LocalTime.of(digits(bytes, start + 11, 2), digits(bytes, start + 14, 2), digits(bytes, start + 17, 2)));
+        }
+        return LocalDateTime.parse(parseString(bytes, start, end).replace(' ', 'T'));
+    }
+
+    /**
+     * Parse instant in ISO format or as epoch milliseconds
+     *
+     * @param bytes file bytes
+     * @param start start of value
+     * @param end end of value (exclusive)
+     * @return instant
+     */
+    public static Instant parseInstant(byte[] bytes, int start, int end) {
+        return isInteger(bytes, start, end) ? Instant.ofEpochMilli(parseLong(bytes, start, end)) : Instant.parse(parseString(bytes, start, end));
+    }
+
+    public static Timestamp parseTimestamp(byte[] bytes, int start, int end) {
+        return isInteger(bytes, start, end) ? new Timestamp(parseLong(bytes, start, end)) : Timestamp.valueOf(parseString(bytes, start, end).replace('T', ' '));
+    }
+
+    public static java.sql.Date parseSqlDate(byte[] bytes, int start, int end) {
+        return isInteger(bytes, start, end) ? new java.sql.Date(parseLong(bytes, start, end)) : java.sql.Date.valueOf(parseLocalDate(bytes, start, end));
+    }
+
+    public static Time parseTime(byte[] bytes, int start, int end) {
+        return isInteger(bytes, start, end) ? new Time(parseLong(bytes, start, end)) : Time.valueOf(parseString(bytes, start, end));
+    }
+
+    public static Date parseDate(byte[] bytes, int start, int end) {
+        return Date.from(parseInstant(bytes, start, end));
+    }
+
+    public static <E extends Enum<E>> E parseEnum(Class<E> enumClass, byte[] bytes, int start, int end) {
+        return Enum.valueOf(enumClass, parseString(bytes, start, end));
+    }
+
+    private static boolean isInteger(byte[] bytes, int start, int end) {
+        for (int i = bytes[start] == '-' ? start + 1 : start; i < end; i++) {
+            if (bytes[i] < '0' || bytes[i] > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int digits(byte[] bytes, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("invalid digit at date value '" + parseString(bytes, start, start + count) + "'");
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static char[] chars(byte[] bytes, int start, int end) {
+        char[] chars = new char[end - start];
+        for (int i = start; i < end; i++) {
+            chars[i - start] = (char) (bytes[i] & 0xFF);
+        }
+        return chars;
+    }
+
+    private static NumberFormatException numberFormatException(byte[] bytes, int start, int end) {
+        return new NumberFormatException("for input string: \"" + parseString(bytes, start, end) + "\"");
+    }
+}
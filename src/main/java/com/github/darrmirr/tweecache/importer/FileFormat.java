@@ -0,0 +1,16 @@
+package com.github.darrmirr.tweecache.importer;
+
+/**
+ * Format of import file
+ */
+public enum FileFormat {
+    /**
+     * Comma-separated values. The first line is header with column names. Values could be quoted by double quotes,
+     * double quote inside quoted value is escaped by another double quote. Quoted values could not contain line breaks.
+     */
+    CSV,
+    /**
+     * JSON lines: one flat JSON object per line. Nested objects and arrays are not supported.
+     */
+    JSON_LINES
+}
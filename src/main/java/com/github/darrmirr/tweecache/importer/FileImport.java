@@ -0,0 +1,602 @@
+package com.github.darrmirr.tweecache.importer;
+
+import com.github.darrmirr.tweecache.TableStorage;
+import com.github.darrmirr.tweecache.accessor.RowAccessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Streaming import of CSV and JSON lines files to table storage.
+ *
+ * File is split into chunks of about {@link #CHUNK_BYTES} bytes at line boundaries. Chunks are read by positional reads
+ * and parsed in parallel. Each chunk is parsed from bytes directly into table rows by {@link RowSetter} of table row class,
+ * rows are put to table storage in batches of {@link #BATCH_ROWS} rows, therefore memory footprint of import does not depend on file size.
+ *
+ * Columns (CSV header names or JSON keys) are matched to public fields of table row class ignoring case, column type follows field type.
+ * Columns without matching field are ignored. Table must declare key field, row key is taken from key field.
+ * Lines that could not be parsed are skipped and reported by warning.
+ */
+public final class FileImport {
+    private static final Logger log = LoggerFactory.getLogger(FileImport.class);
+    static final int CHUNK_BYTES = 8 * 1024 * 1024;
+    static final int BATCH_ROWS = 10_000;
+    private static final int SCAN_BYTES = 64 * 1024;
+    private static final byte[] UTF8_BOM = { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF };
+    private static final ThreadLocal<byte[]> chunkBuffer = ThreadLocal.withInitial(() -> new byte[0]);
+
+    private FileImport() { }
+
+    /**
+     * Import file to table storage
+     *
+     * @param path file path
+     * @param format file format
+     * @param tableStorage table storage
+     * @return number of imported rows
+     * @throws IOException if file could not be read
+     * @throws IllegalArgumentException if table has no key field or file has no key column
+     */
+    public static long read(Path path, FileFormat format, TableStorage tableStorage) throws IOException {
+        return read(path, format, tableStorage, tableStorage::putAll);
+    }
+
+    /**
+     * Import file by batches of rows written by batch writer (e.g. writer that appends rows to change log as well).
+     * Batch writer is invoked by several threads concurrently, batch map is reused after writer returns.
+     *
+     * @param path file path
+     * @param format file format
+     * @param tableStorage table storage
+     * @param batchWriter writer of batch of rows by table storage key
+     * @return number of imported rows
+     * @throws IOException if file could not be read
+     * @throws IllegalArgumentException if table has no key field or file has no key column
+     */
+    public static long read(Path path, FileFormat format, TableStorage tableStorage, Consumer<Map<Object, Object>> batchWriter) throws IOException {
+        Class<?> tableClass = tableStorage.getTableClass();
+        String keyField = tableStorage.getKeyField();
+        if (keyField == null) {
+            throw new IllegalArgumentException("table of class '" + tableClass.getName() + "' has no key field");
+        }
+        RowSetter rowSetter = RowSetters.of(tableClass);
+        RowAccessor rowAccessor = tableStorage.getRowAccessor();
+        int keyIndex = Arrays
+                .asList(rowAccessor.getFieldNames())
+                .indexOf(keyField);
+        String[] fieldNames = importableFieldNames(tableClass);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long start = startsWith(channel, UTF8_BOM) ? UTF8_BOM.length : 0;
+            int[] columnFields = null;
+            if (format == FileFormat.CSV) {
+                long headerEnd = nextLineStart(channel, start, size);
+                byte[] header = readBytes(channel, start, (int) (headerEnd - start), new byte[(int) (headerEnd - start)]);
+                columnFields = columnFields(path, new CsvParser(null, null).columns(header, 0, lineEnd(header, 0, header.length)), fieldNames);
+                if (Arrays.stream(columnFields).noneMatch(field -> field == keyIndex)) {
+                    throw new IllegalArgumentException("file '" + path + "' has no column of key field '" + keyField + "'");
+                }
+                start = headerEnd;
+            }
+            List<long[]> chunks = new ArrayList<>();
+            for (long position = start; position < size; ) {
+                long end = position + CHUNK_BYTES < size ? nextLineStart(channel, position + CHUNK_BYTES, size) : size;
+                chunks.add(new long[] { position, end });
+                position = end;
+            }
+            ImportErrors errors = new ImportErrors();
+            int[] csvColumnFields = columnFields;
+            long rowCount;
+            try {
+                rowCount = chunks
+                        .parallelStream()
+                        .mapToLong(chunk -> {
+                            LineParser parser = format == FileFormat.CSV
+                                    ? new CsvParser(rowSetter, csvColumnFields)
+                                    : new JsonParser(rowSetter, fieldNames);
+                            return readChunk(channel, chunk[0], (int) (chunk[1] - chunk[0]), parser, rowAccessor, keyIndex, batchWriter, errors);
+                        })
+                        .sum();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            if (errors.count.sum() > 0) {
+                log.warn("{} lines of file '{}' are skipped due to parse errors. First error: {}", errors.count.sum(), path, errors.first.get());
+            }
+            return rowCount;
+        }
+    }
+
+    /**
+     * Get names of fields which could be imported: fields which type is supported by {@link FieldParsers} and which are not final.
+     * Name is null if field could not be imported.
+     *
+     * @param tableClass table row class
+     * @return field names by field index
+     */
+    private static String[] importableFieldNames(Class<?> tableClass) {
+        Field[] fields = RowSetters.publicFields(tableClass);
+        String[] fieldNames = new String[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            if (FieldParsers.isSupported(fields[i].getType()) && !Modifier.isFinal(fields[i].getModifiers())) {
+                fieldNames[i] = fields[i].getName();
+            }
+        }
+        return fieldNames;
+    }
+
+    private static int[] columnFields(Path path, List<String> columns, String[] fieldNames) {
+        int[] columnFields = new int[columns.size()];
+        for (int column = 0; column < columns.size(); column++) {
+            columnFields[column] = -1;
+            for (int field = 0; field < fieldNames.length; field++) {
+                if (fieldNames[field] != null && fieldNames[field].equalsIgnoreCase(columns.get(column).trim())) {
+                    columnFields[column] = field;
+                }
+            }
+            if (columnFields[column] < 0) {
+                log.debug("column '{}' of file '{}' is ignored due to table row class has no importable field with the same name", columns.get(column), path);
+            }
+        }
+        return columnFields;
+    }
+
+    private static long readChunk(FileChannel channel, long position, int length, LineParser parser, RowAccessor rowAccessor, int keyIndex,
+                                  Consumer<Map<Object, Object>> batchWriter, ImportErrors errors) {
+        byte[] bytes = chunkBuffer.get();
+        if (bytes.length < length) {
+            bytes = new byte[Math.max(length, CHUNK_BYTES + CHUNK_BYTES / 8)];
+            chunkBuffer.set(bytes);
+        }
+        try {
+            readBytes(channel, position, length, bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Map<Object, Object> rows = new HashMap<>(BATCH_ROWS * 4 / 3 + 1);
+        long rowCount = 0;
+        int lineStart = 0;
+        while (lineStart < length) {
+            int newLine = lineStart;
+            while (newLine < length && bytes[newLine] != '\n') {
+                newLine++;
+            }
+            int lineEnd = lineEnd(bytes, lineStart, newLine);
+            if (lineEnd > lineStart) {
+                try {
+                    Object row = parser.parse(bytes, lineStart, lineEnd);
+                    Object key = rowAccessor.get(row, keyIndex);
+                    if (key == null) {
+                        throw new IllegalArgumentException("key field value is absent");
+                    }
+                    rows.put(key, row);
+                } catch (RuntimeException e) {
+                    errors.add("line at byte " + (position + lineStart) + ": " + e.getMessage());
+                }
+                if (rows.size() >= BATCH_ROWS) {
+                    rowCount += rows.size();
+                    batchWriter.accept(rows);
+                    rows.clear();
+                }
+            }
+            lineStart = newLine + 1;
+        }
+        rowCount += rows.size();
+        batchWriter.accept(rows);
+        return rowCount;
+    }
+
+    /**
+     * Get line end excluding trailing carriage return
+     */
+    private static int lineEnd(byte[] bytes, int lineStart, int newLine) {
+        return newLine > lineStart && bytes[newLine - 1] == '\r' ? newLine - 1 : newLine;
+    }
+
+    private static byte[] readBytes(FileChannel channel, long position, int length, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("unexpected end of file");
+            }
+        }
+        return bytes;
+    }
+
+    private static boolean startsWith(FileChannel channel, byte[] prefix) throws IOException {
+        if (channel.size() < prefix.length) {
+            return false;
+        }
+        return Arrays.equals(readBytes(channel, 0, prefix.length, new byte[prefix.length]), prefix);
+    }
+
+    /**
+     * Find start of the line next to position
+     *
+     * @return position after the first line break at or after position or file size if there is no line break
+     */
+    private static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        byte[] bytes = new byte[SCAN_BYTES];
+        for (long offset = position; offset < size; offset += SCAN_BYTES) {
+            int length = (int) Math.min(SCAN_BYTES, size - offset);
+            readBytes(channel, offset, length, bytes);
+            for (int i = 0; i < length; i++) {
+                if (bytes[i] == '\n') {
+                    return offset + i + 1;
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Parse errors of import: number of skipped lines and the first error
+     */
+    private static class ImportErrors {
+        private final LongAdder count = new LongAdder();
+        private final AtomicReference<String> first = new AtomicReference<>();
+
+        private void add(String error) {
+            count.increment();
+            first.compareAndSet(null, error);
+        }
+    }
+
+    /**
+     * Parser of file line to table row. Parser is used by single thread.
+     */
+    private abstract static class LineParser {
+        final RowSetter rowSetter;
+        byte[] scratch = new byte[256];
+
+        LineParser(RowSetter rowSetter) {
+            this.rowSetter = rowSetter;
+        }
+
+        abstract Object parse(byte[] bytes, int start, int end);
+
+        byte[] scratch(int length) {
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            return scratch;
+        }
+    }
+
+    /**
+     * CSV line parser
+     */
+    private static class CsvParser extends LineParser {
+        private static final byte DELIMITER = ',';
+        private static final byte QUOTE = '"';
+        private final int[] columnFields;
+        private List<String> columns;
+        private Object row;
+
+        CsvParser(RowSetter rowSetter, int[] columnFields) {
+            super(rowSetter);
+            this.columnFields = columnFields;
+        }
+
+        List<String> columns(byte[] bytes, int start, int end) {
+            this.columns = new ArrayList<>();
+            split(bytes, start, end);
+            return columns;
+        }
+
+        @Override
+        Object parse(byte[] bytes, int start, int end) {
+            this.row = rowSetter.newRow();
+            split(bytes, start, end);
+            return row;
+        }
+
+        private void split(byte[] bytes, int start, int end) {
+            int column = 0;
+            int i = start;
+            while (true) {
+                byte[] source = bytes;
+                int valueStart;
+                int valueEnd;
+                if (i < end && bytes[i] == QUOTE) {
+                    valueStart = ++i;
+                    boolean isEscaped = false;
+                    while (i < end && (bytes[i] != QUOTE || i + 1 < end && bytes[i + 1] == QUOTE)) {
+                        if (bytes[i] == QUOTE) {
+                            isEscaped = true;
+                            i++;
+                        }
+                        i++;
+                    }
+                    if (i >= end) {
+                        throw new IllegalArgumentException("quoted value of column " + column + " is not closed");
+                    }
+                    valueEnd = i++;
+                    if (i < end && bytes[i] != DELIMITER) {
+                        throw new IllegalArgumentException("unexpected character after quoted value of column " + column);
+                    }
+                    if (isEscaped) {
+                        source = scratch(valueEnd - valueStart);
+                        int length = 0;
+                        for (int j = valueStart; j < valueEnd; j++) {
+                            source[length++] = bytes[j];
+                            if (bytes[j] == QUOTE) {
+                                j++;
+                            }
+                        }
+                        valueStart = 0;
+                        valueEnd = length;
+                    }
+                } else {
+                    valueStart = i;
+                    while (i < end && bytes[i] != DELIMITER) {
+                        i++;
+                    }
+                    valueEnd = i;
+                }
+                if (columns != null) {
+                    columns.add(new String(source, valueStart, valueEnd - valueStart, StandardCharsets.UTF_8));
+                } else if (column < columnFields.length && columnFields[column] >= 0) {
+                    rowSetter.set(row, columnFields[column], source, valueStart, valueEnd);
+                }
+                column++;
+                if (i >= end) {
+                    return;
+                }
+                i++;
+            }
+        }
+    }
+
+    /**
+     * JSON lines parser. Line must contain flat JSON object. Keys are matched to field names without string allocation.
+     */
+    private static class JsonParser extends LineParser {
+        private final byte[][] fieldNames;
+        private int lastField = -1;
+        private byte[] bytes;
+        private int end;
+        private int position;
+        private byte[] valueBytes;
+        private int valueStart;
+        private int valueEnd;
+
+        JsonParser(RowSetter rowSetter, String[] fieldNames) {
+            super(rowSetter);
+            this.fieldNames = Arrays
+                    .stream(fieldNames)
+                    .map(name -> name != null ? name.getBytes(StandardCharsets.UTF_8) : null)
+                    .toArray(byte[][]::new);
+        }
+
+        @Override
+        Object parse(byte[] bytes, int start, int end) {
+            this.bytes = bytes;
+            this.end = end;
+            this.position = start;
+            Object row = rowSetter.newRow();
+            expect('{');
+            if (peek() == '}') {
+                return row;
+            }
+            while (true) {
+                expect('"');
+                string();
+                int field = field();
+                expect(':');
+                byte next = peek();
+                if (next == '"') {
+                    position++;
+                    string();
+                } else if (next == '{' || next == '[') {
+                    if (field >= 0) {
+                        throw new IllegalArgumentException("nested value of field '" + new String(fieldNames[field], StandardCharsets.UTF_8) + "' is not supported");
+                    }
+                    skipNested();
+                } else {
+                    token();
+                }
+                if (field >= 0) {
+                    rowSetter.set(row, field, valueBytes, valueStart, valueEnd);
+                }
+                byte delimiter = peek();
+                position++;
+                if (delimiter == '}') {
+                    return row;
+                } else if (delimiter != ',') {
+                    throw new IllegalArgumentException("unexpected character '" + (char) delimiter + "' at JSON object");
+                }
+            }
+        }
+
+        /**
+         * Read literal value: number, boolean or null. Null is read as empty value.
+         */
+        private void token() {
+            int start = position;
+            while (position < end && bytes[position] != ',' && bytes[position] != '}' && !isWhitespace(bytes[position])) {
+                position++;
+            }
+            boolean isNull = position - start == 4 && bytes[start] == 'n' && bytes[start + 1] == 'u' && bytes[start + 2] == 'l' && bytes[start + 3] == 'l';
+            valueBytes = bytes;
+            valueStart = start;
+            valueEnd = isNull ? start : position;
+        }
+
+        /**
+         * Read JSON string after opening quote. Value without escapes refers to line bytes,
+         * value with escapes is decoded to scratch buffer.
+         */
+        private void string() {
+            int start = position;
+            while (position < end && bytes[position] != '"' && bytes[position] != '\\') {
+                position++;
+            }
+            if (position < end && bytes[position] == '"') {
+                valueBytes = bytes;
+                valueStart = start;
+                valueEnd = position++;
+                return;
+            }
+            byte[] target = scratch(end - start);
+            int length = position - start;
+            System.arraycopy(bytes, start, target, 0, length);
+            while (position < end && bytes[position] != '"') {
+                byte b = bytes[position++];
+                if (b != '\\') {
+                    target[length++] = b;
+                } else if (position < end) {
+                    byte escaped = bytes[position++];
+                    switch (escaped) {
+                        case 'b': target[length++] = '\b'; break;
+                        case 'f': target[length++] = '\f'; break;
+                        case 'n': target[length++] = '\n'; break;
+                        case 'r': target[length++] = '\r'; break;
+                        case 't': target[length++] = '\t'; break;
+                        case 'u': length = utf8(codePoint(), target, length); break;
+                        default: target[length++] = escaped;
+                    }
+                }
+            }
+            if (position >= end) {
+                throw new IllegalArgumentException("JSON string is not closed");
+            }
+            position++;
+            valueBytes = target;
+            valueStart = 0;
+            valueEnd = length;
+        }
+
+        /**
+         * Read code point of unicode escape. Surrogate pair is read as single code point.
+         */
+        private int codePoint() {
+            int codePoint = hex();
+            if (Character.isHighSurrogate((char) codePoint) && position + 1 < end && bytes[position] == '\\' && bytes[position + 1] == 'u') {
+                position += 2;
+                codePoint = Character.toCodePoint((char) codePoint, (char) hex());
+            }
+            return codePoint;
+        }
+
+        private int hex() {
+            if (position + 4 > end) {
+                throw new IllegalArgumentException("invalid unicode escape at JSON string");
+            }
+            int value = Integer.parseInt(new String(bytes, position, 4, StandardCharsets.US_ASCII), 16);
+            position += 4;
+            return value;
+        }
+
+        private static int utf8(int codePoint, byte[] target, int offset) {
+            if (codePoint < 0x80) {
+                target[offset++] = (byte) codePoint;
+            } else if (codePoint < 0x800) {
+                target[offset++] = (byte) (0xC0 | codePoint >> 6);
+                target[offset++] = (byte) (0x80 | codePoint & 0x3F);
+            } else if (codePoint < 0x10000) {
+                target[offset++] = (byte) (0xE0 | codePoint >> 12);
+                target[offset++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                target[offset++] = (byte) (0x80 | codePoint & 0x3F);
+            } else {
+                target[offset++] = (byte) (0xF0 | codePoint >> 18);
+                target[offset++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                target[offset++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                target[offset++] = (byte) (0x80 | codePoint & 0x3F);
+            }
+            return offset;
+        }
+
+        /**
+         * Find field by key that is just read by {@link #string()}.
+         * Keys usually follow the same order at each line, therefore field next to previous one is checked first.
+         *
+         * @return field index or -1 if there is no importable field with key name
+         */
+        private int field() {
+            int next = lastField + 1;
+            if (next < fieldNames.length && matches(fieldNames[next])) {
+                return lastField = next;
+            }
+            for (int field = 0; field < fieldNames.length; field++) {
+                if (matches(fieldNames[field])) {
+                    return lastField = field;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Check if field name matches value just read ignoring case of ASCII letters
+         */
+        private boolean matches(byte[] name) {
+            if (name == null || name.length != valueEnd - valueStart) {
+                return false;
+            }
+            for (int i = 0; i < name.length; i++) {
+                byte a = name[i];
+                byte b = valueBytes[valueStart + i];
+                boolean isLetter = (a | 0x20) >= 'a' && (a | 0x20) <= 'z';
+                if (a != b && !(isLetter && (a | 0x20) == (b | 0x20))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void skipNested() {
+            int depth = 0;
+            do {
+                byte b = bytes[position++];
+                if (b == '"') {
+                    string();
+                } else if (b == '{' || b == '[') {
+                    depth++;
+                } else if (b == '}' || b == ']') {
+                    depth--;
+                }
+            } while (depth > 0 && position < end);
+            if (depth > 0) {
+                throw new IllegalArgumentException("nested JSON value is not closed");
+            }
+        }
+
+        private void expect(char expected) {
+            if (peek() != expected) {
+                throw new IllegalArgumentException("expected '" + expected + "' at JSON line");
+            }
+            position++;
+        }
+
+        private byte peek() {
+            while (position < end && isWhitespace(bytes[position])) {
+                position++;
+            }
+            if (position >= end) {
+                throw new IllegalArgumentException("unexpected end of JSON line");
+            }
+            return bytes[position];
+        }
+
+        private static boolean isWhitespace(byte b) {
+            return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.github.darrmirr.tweecache.importer;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Row setter that creates row and assigns fields by reflection.
+ */
+class ReflectiveRowSetter implements RowSetter {
+    private final Class<?> tableClass;
+    private final Constructor<?> constructor;
+    private final Field[] fields;
+
+    ReflectiveRowSetter(Class<?> tableClass) {
+        this.tableClass = tableClass;
+        try {
+            this.constructor = tableClass.getDeclaredConstructor();
+            constructor.setAccessible(true);
+        } catch (NoSuchMethodException | SecurityException e) {
+            throw new IllegalArgumentException("class '" + tableClass.getName() + "' has no no-arg constructor", e);
+        }
+        this.fields = RowSetters.publicFields(tableClass);
+        for (Field field : fields) {
+            field.setAccessible(true);
+        }
+    }
+
+    @Override
+    public Class<?> getTableClass() {
+        return tableClass;
+    }
+
+    @Override
+    public Object newRow() {
+        try {
+            return constructor.newInstance();
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("error to create instance of class '" + tableClass.getName() + "'", e);
+        }
+    }
+
+    @Override
+    public void set(Object row, int field, byte[] bytes, int start, int end) {
+        Class<?> type = fields[field].getType();
+        if (start == end && type.isPrimitive()) {
+            return;
+        }
+        try {
+            fields[field].set(row, start == end ? null : FieldParsers.parse(type, bytes, start, end));
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
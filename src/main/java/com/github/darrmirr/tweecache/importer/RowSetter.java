@@ -0,0 +1,36 @@
+package com.github.darrmirr.tweecache.importer;
+
+/**
+ * Row setter creates table row object and assigns its fields from values of import file.
+ *
+ * Fields are identified by their index at public non-static fields of table row class
+ * that is public non-static fields in {@link Class#getFields()} order.
+ */
+public interface RowSetter {
+
+    /**
+     * Get table row class
+     *
+     * @return table row class
+     */
+    Class<?> getTableClass();
+
+    /**
+     * Create new table row object
+     *
+     * @return table row
+     */
+    Object newRow();
+
+    /**
+     * Parse field value from UTF-8 bytes and assign it to field.
+     * Empty value is assigned as null, primitive field keeps its default value.
+     *
+     * @param row table row
+     * @param field field index
+     * @param bytes file bytes
+     * @param start start of value
+     * @param end end of value (exclusive)
+     */
+    void set(Object row, int field, byte[] bytes, int start, int end);
+}
@@ -0,0 +1,122 @@
+package com.github.darrmirr.tweecache.importer;
+
+import com.github.darrmirr.tweecache.util.ClassDeclaration;
+import com.github.darrmirr.tweecache.util.ClassFactory;
+import com.github.darrmirr.tweecache.util.ClassUtils;
+import com.github.darrmirr.tweecache.util.Result;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * Generates {@link RowSetter} implementation for table row class at runtime.
+ *
+ * Generated setter assigns fields directly and parses primitive fields without boxing.
+ * Setter could be generated for public class with public no-arg constructor.
+ * Final fields and fields which type is not supported by {@link FieldParsers} are not assigned.
+ *
+ * Generated source does not use generics and autoboxing in order to be compatible with Janino compiler.
+ */
+class RowSetterGenerator {
+    private static final String CLASS_NAME_SUFFIX = "RuntimeSetter";
+    private final ClassFactory classFactory = ClassFactory.INSTANCE;
+
+    /**
+     * Generate and compile row setter for table row class
+     *
+     * @param tableClass table row class
+     * @return row setter instance
+     */
+    Result<RowSetter> generate(Class<?> tableClass) {
+        String reason = unsupportedReason(tableClass);
+        if (reason != null) {
+            return Result.error(new IllegalArgumentException("error to generate row setter for class '" + tableClass.getName() + "' due to " + reason));
+        }
+        return classFactory
+                .compile(classDeclaration(tableClass))
+                .flatMap(ClassUtils::newInstance)
+                .map(RowSetter.class::cast);
+    }
+
+    private ClassDeclaration classDeclaration(Class<?> tableClass) {
+        String tableClassName = tableClass.getCanonicalName();
+        String className = tableClass.getName().replace('.', '_').replace('$', '_') + CLASS_NAME_SUFFIX;
+        Field[] fields = RowSetters.publicFields(tableClass);
+
+        StringBuilder set = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            Class<?> type = fields[i].getType();
+            String parserName = FieldParsers.parserName(type);
+            if (parserName == null || Modifier.isFinal(fields[i].getModifiers())) {
+                continue;
+            }
+            String fieldName = "r." + fields[i].getName();
+            String parse = type.isEnum()
+                    ? "(" + type.getCanonicalName() + ") FieldParsers.parseEnum(" + type.getCanonicalName() + ".class, bytes, start, end)"
+                    : "FieldParsers." + parserName + "(bytes, start, end)";
+            set.append("case ").append(i).append(": ");
+            if (type.isPrimitive()) {
+                set.append("if (start < end) ").append(fieldName).append(" = ").append(parse).append("; ");
+            } else {
+                set.append(fieldName).append(" = start < end ? ").append(box(type, parse)).append(" : null; ");
+            }
+            set.append("return; ");
+        }
+
+        ClassDeclaration classDeclaration = new ClassDeclaration(RowSetter.class.getPackage().getName(), className, "public final");
+        classDeclaration.addInterface(RowSetter.class);
+        classDeclaration.addMethod("public Class getTableClass() { return " + tableClassName + ".class; }");
+        classDeclaration.addMethod("public Object newRow() { return new " + tableClassName + "(); }");
+        classDeclaration.addMethod("public void set(Object row, int field, byte[] bytes, int start, int end) { " +
+                tableClassName + " r = (" + tableClassName + ") row; " +
+                "switch (field) { " + set + "default: throw new IllegalArgumentException(\"field \" + field + \" could not be imported\"); } " +
+                "}");
+        return classDeclaration;
+    }
+
+    /**
+     * Box parsed primitive value explicitly since Janino does not support autoboxing
+     *
+     * @param type field type
+     * @param parse parse expression
+     * @return expression of field type
+     */
+    private static String box(Class<?> type, String parse) {
+        if (type == Integer.class || type == Long.class || type == Double.class || type == Float.class || type == Short.class
+                || type == Byte.class || type == Boolean.class || type == Character.class) {
+            return type.getSimpleName() + ".valueOf(" + parse + ")";
+        }
+        return parse;
+    }
+
+    /**
+     * Check if setter could be generated for table row class
+     *
+     * @param tableClass table row class
+     * @return reason why setter could not be generated or null if it could be generated
+     */
+    private String unsupportedReason(Class<?> tableClass) {
+        for (Class<?> currentClass = tableClass; currentClass != null; currentClass = currentClass.getEnclosingClass()) {
+            if (!Modifier.isPublic(currentClass.getModifiers()) || currentClass.getCanonicalName() == null) {
+                return "class is not public";
+            }
+            if (currentClass.isMemberClass() && !Modifier.isStatic(currentClass.getModifiers())) {
+                return "class is inner class";
+            }
+        }
+        if (Modifier.isAbstract(tableClass.getModifiers()) || tableClass.isInterface()) {
+            return "class is abstract";
+        }
+        try {
+            tableClass.getConstructor();
+        } catch (NoSuchMethodException e) {
+            return "class has no public no-arg constructor";
+        }
+        for (Field field : RowSetters.publicFields(tableClass)) {
+            if (field.getType().isEnum() && !Modifier.isPublic(field.getType().getModifiers())) {
+                return "enum type of field '" + field.getName() + "' is not public";
+            }
+        }
+        return null;
+    }
+}
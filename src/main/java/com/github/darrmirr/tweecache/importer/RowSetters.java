@@ -0,0 +1,61 @@
+package com.github.darrmirr.tweecache.importer;
+
+import com.github.darrmirr.tweecache.util.Result;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+
+/**
+ * Factory to obtain {@link RowSetter} for table row class.
+ *
+ * Setter is looked up in the following order:
+ *     - setter generated and compiled at runtime
+ *     - reflective setter if setter could not be generated (e.g. class is not public)
+ *
+ * Setter is created once per table row class.
+ */
+public final class RowSetters {
+    private static final Logger log = LoggerFactory.getLogger(RowSetters.class);
+    private static final RowSetterGenerator generator = new RowSetterGenerator();
+    private static final ClassValue<RowSetter> setters = new ClassValue<RowSetter>() {
+        @Override
+        protected RowSetter computeValue(Class<?> tableClass) {
+            Result<RowSetter> setter = generator.generate(tableClass);
+            setter
+                    .error()
+                    .ifPresent(throwable -> log.debug("use reflective row setter for class '{}' due to '{}'", tableClass.getName(), throwable.getMessage()));
+            return setter
+                    .get()
+                    .orElseGet(() -> new ReflectiveRowSetter(tableClass));
+        }
+    };
+
+    private RowSetters() { }
+
+    /**
+     * Get row setter for table row class
+     *
+     * @param tableClass table row class
+     * @return row setter
+     * @throws IllegalArgumentException if table row class has no no-arg constructor
+     */
+    public static RowSetter of(Class<?> tableClass) {
+        return setters.get(tableClass);
+    }
+
+    /**
+     * Get public non-static fields in {@link Class#getFields()} order
+     *
+     * @param tableClass table row class
+     * @return public non-static fields
+     */
+    static Field[] publicFields(Class<?> tableClass) {
+        return Arrays
+                .stream(tableClass.getFields())
+                .filter(field -> !Modifier.isStatic(field.getModifiers()))
+                .toArray(Field[]::new);
+    }
+}
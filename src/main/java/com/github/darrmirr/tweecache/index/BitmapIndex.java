@@ -0,0 +1,158 @@
+package com.github.darrmirr.tweecache.index;
+
+import com.github.darrmirr.tweecache.accessor.RowAccessor;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Bitmap index over low-cardinality field of table rows (e.g. status, category, boolean or enum field).
+ *
+ * Index keeps {@link CompressedBitmap} of row ordinals per distinct field value. Predicates over several
+ * bitmap indexes are combined by bitmap operations before any table row is read, see {@link BitmapLookup}.
+ * Null field value is indexed as well, so IS NULL predicate is answered by index.
+ */
+public class BitmapIndex implements TableIndex {
+    private static final Object NULL_VALUE = new Object() {
+        @Override
+        public String toString() {
+            return "null";
+        }
+    };
+    private final String fieldName;
+    private final int fieldIndex;
+    private final RowAccessor rowAccessor;
+    private final RowOrdinals rowOrdinals;
+    private final Map<Object, CompressedBitmap> bitmaps = new HashMap<>();
+    private Object[] values = new Object[64];
+
+    public BitmapIndex(String fieldName, RowAccessor rowAccessor, RowOrdinals rowOrdinals) {
+        this.fieldName = fieldName;
+        this.fieldIndex = Arrays.asList(rowAccessor.getFieldNames()).indexOf(fieldName);
+        this.rowAccessor = rowAccessor;
+        this.rowOrdinals = rowOrdinals;
+        if (fieldIndex < 0) {
+            throw new IllegalArgumentException("there is no public field '" + fieldName + "' at class " + rowAccessor.getTableClass().getName());
+        }
+    }
+
+    @Override
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    @Override
+    public int getFieldIndex() {
+        return fieldIndex;
+    }
+
+    /**
+     * Get row ordinals of table
+     *
+     * @return row ordinals
+     */
+    public RowOrdinals getRowOrdinals() {
+        return rowOrdinals;
+    }
+
+    @Override
+    public void insert(Object key, Object row) {
+        Object value = toIndexValue(rowAccessor.get(row, fieldIndex));
+        rowOrdinals.writeLock().lock();
+        try {
+            int ordinal = rowOrdinals.ordinal(key);
+            if (ordinal < 0) {
+                return;
+            }
+            if (ordinal >= values.length) {
+                values = Arrays.copyOf(values, Math.max(ordinal + 1, values.length * 2));
+            }
+            Object previous = values[ordinal];
+            if (value.equals(previous)) {
+                return;
+            }
+            if (previous != null) {
+                clear(previous, ordinal);
+            }
+            values[ordinal] = value;
+            bitmaps.computeIfAbsent(value, v -> new CompressedBitmap()).set(ordinal);
+        } finally {
+            rowOrdinals.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void delete(Object key) {
+        rowOrdinals.writeLock().lock();
+        try {
+            int ordinal = rowOrdinals.ordinal(key);
+            if (ordinal < 0 || ordinal >= values.length || values[ordinal] == null) {
+                return;
+            }
+            clear(values[ordinal], ordinal);
+            values[ordinal] = null;
+        } finally {
+            rowOrdinals.writeLock().unlock();
+        }
+    }
+
+    private void clear(Object value, int ordinal) {
+        CompressedBitmap bitmap = bitmaps.get(value);
+        if (bitmap != null) {
+            bitmap.clear(ordinal);
+            if (bitmap.isEmpty()) {
+                bitmaps.remove(value);
+            }
+        }
+    }
+
+    /**
+     * Get bitmap of rows with field value. Caller must hold table read lock, see {@link RowOrdinals#readLock()}.
+     * Returned bitmap must not be modified.
+     *
+     * @param value field value. Null value finds rows with null field value.
+     * @return bitmap of row ordinals
+     */
+    CompressedBitmap bitmap(Object value) {
+        CompressedBitmap bitmap = bitmaps.get(toIndexValue(value));
+        return bitmap != null ? bitmap : new CompressedBitmap();
+    }
+
+    /**
+     * Get number of distinct field values
+     *
+     * @return number of distinct values
+     */
+    public int distinctValueCount() {
+        rowOrdinals.readLock().lock();
+        try {
+            return bitmaps.size();
+        } finally {
+            rowOrdinals.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get number of rows with null field value
+     *
+     * @return number of rows
+     */
+    public long nullCount() {
+        rowOrdinals.readLock().lock();
+        try {
+            return bitmap(null).cardinality();
+        } finally {
+            rowOrdinals.readLock().unlock();
+        }
+    }
+
+    private static Object toIndexValue(Object value) {
+        return value != null ? TableIndex.normalize(value) : NULL_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        return "BitmapIndex {field=" + fieldName + "}";
+    }
+}
@@ -0,0 +1,313 @@
+package com.github.darrmirr.tweecache.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Index lookup by predicate over {@link BitmapIndex} and {@link PrefixIndex} fields.
+ *
+ * Predicate is tree of AND, OR and negated comparisons. Tree is evaluated by bitmap operations under table read lock,
+ * then matched row ordinals are translated to table storage keys. Count of matched rows is taken straight from
+ * bitmap cardinality, table rows are not read at all.
+ *
+ * Negation follows SQL semantics: rows with null field value match neither comparison nor its negation.
+ */
+public abstract class BitmapLookup implements IndexLookup {
+    /**
+     * Pattern value is unknown at planning time, prefix predicate is assumed to be selective
+     */
+    private static final double PREFIX_SELECTIVITY = 0.05;
+    private final RowOrdinals rowOrdinals;
+
+    private BitmapLookup(RowOrdinals rowOrdinals) {
+        this.rowOrdinals = rowOrdinals;
+    }
+
+    /**
+     * Evaluate predicate. Caller must hold table read lock.
+     *
+     * @param operands predicate operand values
+     * @return bitmap of matched row ordinals. Bitmap must not be modified.
+     */
+    abstract CompressedBitmap evaluate(Object[] operands);
+
+    /**
+     * Estimate fraction of table rows that match predicate
+     *
+     * @return selectivity from 0 to 1
+     */
+    abstract double selectivity();
+
+    @Override
+    public Collection<Object> keys(Object[] operands) {
+        rowOrdinals.readLock().lock();
+        try {
+            CompressedBitmap bitmap = evaluate(operands);
+            List<Object> keys = new ArrayList<>((int) Math.min(bitmap.cardinality(), Integer.MAX_VALUE));
+            bitmap.forEach(ordinal -> {
+                Object key = rowOrdinals.key(ordinal);
+                if (key != null) {
+                    keys.add(key);
+                }
+            });
+            return keys;
+        } finally {
+            rowOrdinals.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long count(Object[] operands) {
+        rowOrdinals.readLock().lock();
+        try {
+            return evaluate(operands).cardinality();
+        } finally {
+            rowOrdinals.readLock().unlock();
+        }
+    }
+
+    @Override
+    public double estimateRowCount(double tableRowCount) {
+        return tableRowCount * selectivity();
+    }
+
+    /**
+     * Create lookup of rows which field value is equal to operand value
+     *
+     * @param index bitmap index of field
+     * @param operand index of lookup operand
+     * @return bitmap lookup
+     */
+    public static BitmapLookup equalTo(BitmapIndex index, int operand) {
+        return new BitmapLookup(index.getRowOrdinals()) {
+            @Override
+            CompressedBitmap evaluate(Object[] operands) {
+                Object value = operands[operand];
+                return value != null ? index.bitmap(value) : new CompressedBitmap();
+            }
+
+            @Override
+            double selectivity() {
+                return 1.0 / Math.max(1, index.distinctValueCount());
+            }
+
+            @Override
+            public String toString() {
+                return index.getFieldName() + " = $" + operand;
+            }
+        };
+    }
+
+    /**
+     * Create lookup of rows which field value is not null and it is not equal to operand value
+     *
+     * @param index bitmap index of field
+     * @param operand index of lookup operand
+     * @return bitmap lookup
+     */
+    public static BitmapLookup notEqualTo(BitmapIndex index, int operand) {
+        return new BitmapLookup(index.getRowOrdinals()) {
+            @Override
+            CompressedBitmap evaluate(Object[] operands) {
+                Object value = operands[operand];
+                return value != null
+                        ? index.getRowOrdinals().rows().andNot(index.bitmap(value)).andNot(index.bitmap(null))
+                        : new CompressedBitmap();
+            }
+
+            @Override
+            double selectivity() {
+                return Math.max(0, 1.0 - 1.0 / Math.max(1, index.distinctValueCount()) - nullSelectivity(index));
+            }
+
+            @Override
+            public String toString() {
+                return index.getFieldName() + " <> $" + operand;
+            }
+        };
+    }
+
+    /**
+     * Create lookup of rows with null field value
+     *
+     * @param index bitmap index of field
+     * @return bitmap lookup
+     */
+    public static BitmapLookup isNull(BitmapIndex index) {
+        return new BitmapLookup(index.getRowOrdinals()) {
+            @Override
+            CompressedBitmap evaluate(Object[] operands) {
+                return index.bitmap(null);
+            }
+
+            @Override
+            double selectivity() {
+                return nullSelectivity(index);
+            }
+
+            @Override
+            public String toString() {
+                return index.getFieldName() + " IS NULL";
+            }
+        };
+    }
+
+    /**
+     * Create lookup of rows with not null field value
+     *
+     * @param index bitmap index of field
+     * @return bitmap lookup
+     */
+    public static BitmapLookup isNotNull(BitmapIndex index) {
+        return new BitmapLookup(index.getRowOrdinals()) {
+            @Override
+            CompressedBitmap evaluate(Object[] operands) {
+                return index.getRowOrdinals().rows().andNot(index.bitmap(null));
+            }
+
+            @Override
+            double selectivity() {
+                return 1.0 - nullSelectivity(index);
+            }
+
+            @Override
+            public String toString() {
+                return index.getFieldName() + " IS NOT NULL";
+            }
+        };
+    }
+
+    /**
+     * Create lookup of rows which field value matches LIKE pattern
+     *
+     * @param index prefix index of field
+     * @param operand index of lookup operand which value is pattern
+     * @param suffix text appended to operand value, e.g. '%' of {@code field LIKE ? || '%'}
+     * @param isLowerCase true to match lower case field value
+     * @return bitmap lookup
+     */
+    public static BitmapLookup like(PrefixIndex index, int operand, String suffix, boolean isLowerCase) {
+        return new BitmapLookup(index.getRowOrdinals()) {
+            @Override
+            CompressedBitmap evaluate(Object[] operands) {
+                Object value = operands[operand];
+                return value != null ? index.like(value + suffix, isLowerCase) : new CompressedBitmap();
+            }
+
+            @Override
+            double selectivity() {
+                return PREFIX_SELECTIVITY;
+            }
+
+            @Override
+            public String toString() {
+                return field(index, isLowerCase) + " LIKE $" + operand + (suffix.isEmpty() ? "" : " || '" + suffix + "'");
+            }
+        };
+    }
+
+    /**
+     * Create lookup of rows which field value starts with operand value
+     *
+     * @param index prefix index of field
+     * @param operand index of lookup operand which value is prefix
+     * @param isLowerCase true to match lower case field value
+     * @return bitmap lookup
+     */
+    public static BitmapLookup startsWith(PrefixIndex index, int operand, boolean isLowerCase) {
+        return new BitmapLookup(index.getRowOrdinals()) {
+            @Override
+            CompressedBitmap evaluate(Object[] operands) {
+                Object value = operands[operand];
+                return value != null ? index.startsWith(value.toString(), isLowerCase) : new CompressedBitmap();
+            }
+
+            @Override
+            double selectivity() {
+                return PREFIX_SELECTIVITY;
+            }
+
+            @Override
+            public String toString() {
+                return field(index, isLowerCase) + " STARTS WITH $" + operand;
+            }
+        };
+    }
+
+    /**
+     * Create lookup of rows that match all predicates
+     *
+     * @param lookups lookups over the same table
+     * @return bitmap lookup
+     */
+    public static BitmapLookup and(List<BitmapLookup> lookups) {
+        return new BitmapLookup(lookups.get(0).rowOrdinals) {
+            @Override
+            CompressedBitmap evaluate(Object[] operands) {
+                CompressedBitmap result = lookups.get(0).evaluate(operands);
+                for (int i = 1; i < lookups.size() && !result.isEmpty(); i++) {
+                    result = result.and(lookups.get(i).evaluate(operands));
+                }
+                return result;
+            }
+
+            @Override
+            double selectivity() {
+                double selectivity = 1.0;
+                for (BitmapLookup lookup : lookups) {
+                    selectivity *= lookup.selectivity();
+                }
+                return selectivity;
+            }
+
+            @Override
+            public String toString() {
+                return lookups.stream().map(Object::toString).collect(Collectors.joining(", ", "AND(", ")"));
+            }
+        };
+    }
+
+    /**
+     * Create lookup of rows that match any predicate
+     *
+     * @param lookups lookups over the same table
+     * @return bitmap lookup
+     */
+    public static BitmapLookup or(List<BitmapLookup> lookups) {
+        return new BitmapLookup(lookups.get(0).rowOrdinals) {
+            @Override
+            CompressedBitmap evaluate(Object[] operands) {
+                CompressedBitmap result = lookups.get(0).evaluate(operands);
+                for (int i = 1; i < lookups.size(); i++) {
+                    result = result.or(lookups.get(i).evaluate(operands));
+                }
+                return result;
+            }
+
+            @Override
+            double selectivity() {
+                double selectivity = 0;
+                for (BitmapLookup lookup : lookups) {
+                    selectivity += lookup.selectivity();
+                }
+                return Math.min(1.0, selectivity);
+            }
+
+            @Override
+            public String toString() {
+                return lookups.stream().map(Object::toString).collect(Collectors.joining(", ", "OR(", ")"));
+            }
+        };
+    }
+
+    private static String field(PrefixIndex index, boolean isLowerCase) {
+        return isLowerCase ? "LOWER(" + index.getFieldName() + ")" : index.getFieldName();
+    }
+
+    private static double nullSelectivity(BitmapIndex index) {
+        int rowCount = index.getRowOrdinals().size();
+        return rowCount > 0 ? (double) index.nullCount() / rowCount : 0;
+    }
+}
@@ -0,0 +1,569 @@
+package com.github.darrmirr.tweecache.index;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed bitmap of non-negative int values (row ordinals).
+ *
+ * Values are split into chunks by 16 high bits. Each chunk is stored as sorted array of 16 low bits
+ * if chunk holds at most {@value #MAX_ARRAY_SIZE} values or as plain bitset of 65536 bits otherwise.
+ * Empty chunks are not stored. Therefore, sparse bitmap takes 2 bytes per value and dense bitmap takes 1 bit per value.
+ *
+ * AND, OR and AND NOT operations create new bitmap. Bitset chunks are combined word by word,
+ * array chunks are merged or probed against other chunk.
+ *
+ * Bitmap is not thread-safe.
+ */
+public final class CompressedBitmap {
+    private static final int MAX_ARRAY_SIZE = 4096;
+    private static final int BITSET_WORDS = 1024;
+    private char[] keys;
+    private Container[] containers;
+    private int size;
+
+    public CompressedBitmap() {
+        this(4);
+    }
+
+    private CompressedBitmap(int capacity) {
+        this.keys = new char[capacity];
+        this.containers = new Container[capacity];
+    }
+
+    /**
+     * Add value to bitmap
+     *
+     * @param value non-negative value
+     * @return true if bitmap did not contain value
+     */
+    public boolean set(int value) {
+        char high = high(value);
+        int i = indexOf(high);
+        if (i < 0) {
+            i = -i - 1;
+            insert(i, high, new ArrayContainer());
+        }
+        Container container = containers[i];
+        int cardinality = container.cardinality();
+        containers[i] = container.add(low(value));
+        return containers[i].cardinality() != cardinality;
+    }
+
+    /**
+     * Remove value from bitmap
+     *
+     * @param value non-negative value
+     * @return true if bitmap contained value
+     */
+    public boolean clear(int value) {
+        int i = indexOf(high(value));
+        if (i < 0) {
+            return false;
+        }
+        Container container = containers[i];
+        int cardinality = container.cardinality();
+        containers[i] = container.remove(low(value));
+        if (containers[i].cardinality() == 0) {
+            remove(i);
+            return true;
+        }
+        return containers[i].cardinality() != cardinality;
+    }
+
+    /**
+     * Check if bitmap contains value
+     *
+     * @param value non-negative value
+     * @return true if bitmap contains value
+     */
+    public boolean get(int value) {
+        int i = indexOf(high(value));
+        return i >= 0 && containers[i].contains(low(value));
+    }
+
+    /**
+     * Get number of values at bitmap
+     *
+     * @return bitmap cardinality
+     */
+    public long cardinality() {
+        long cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += containers[i].cardinality();
+        }
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Create bitmap of values that are contained by this and other bitmaps
+     *
+     * @param other other bitmap
+     * @return new bitmap
+     */
+    public CompressedBitmap and(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap(Math.max(1, Math.min(size, other.size)));
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                result.append(keys[i], containers[i].and(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Create bitmap of values that are contained by this or other bitmap
+     *
+     * @param other other bitmap
+     * @return new bitmap
+     */
+    public CompressedBitmap or(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap(Math.max(1, size + other.size));
+        int i = 0;
+        int j = 0;
+        while (i < size || j < other.size) {
+            if (j == other.size || i < size && keys[i] < other.keys[j]) {
+                result.append(keys[i], containers[i].copy());
+                i++;
+            } else if (i == size || keys[i] > other.keys[j]) {
+                result.append(other.keys[j], other.containers[j].copy());
+                j++;
+            } else {
+                result.append(keys[i], containers[i].or(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Create bitmap of values that are contained by this bitmap and are not contained by other bitmap
+     *
+     * @param other other bitmap
+     * @return new bitmap
+     */
+    public CompressedBitmap andNot(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap(Math.max(1, size));
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            while (j < other.size && other.keys[j] < keys[i]) {
+                j++;
+            }
+            if (j < other.size && other.keys[j] == keys[i]) {
+                result.append(keys[i], containers[i].andNot(other.containers[j]));
+            } else {
+                result.append(keys[i], containers[i].copy());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Create copy of bitmap
+     *
+     * @return new bitmap
+     */
+    public CompressedBitmap copy() {
+        CompressedBitmap result = new CompressedBitmap(Math.max(1, size));
+        for (int i = 0; i < size; i++) {
+            result.append(keys[i], containers[i].copy());
+        }
+        return result;
+    }
+
+    /**
+     * Pass each value of bitmap to consumer in ascending order
+     *
+     * @param consumer value consumer
+     */
+    public void forEach(IntConsumer consumer) {
+        for (int i = 0; i < size; i++) {
+            containers[i].forEach(keys[i] << 16, consumer);
+        }
+    }
+
+    private void append(char key, Container container) {
+        if (container == null) {
+            return;
+        }
+        ensureCapacity(size + 1);
+        keys[size] = key;
+        containers[size] = container;
+        size++;
+    }
+
+    private void insert(int i, char key, Container container) {
+        ensureCapacity(size + 1);
+        System.arraycopy(keys, i, keys, i + 1, size - i);
+        System.arraycopy(containers, i, containers, i + 1, size - i);
+        keys[i] = key;
+        containers[i] = container;
+        size++;
+    }
+
+    private void remove(int i) {
+        System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+        System.arraycopy(containers, i + 1, containers, i, size - i - 1);
+        size--;
+        containers[size] = null;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > keys.length) {
+            int newCapacity = Math.max(capacity, keys.length * 2);
+            keys = Arrays.copyOf(keys, newCapacity);
+            containers = Arrays.copyOf(containers, newCapacity);
+        }
+    }
+
+    private int indexOf(char key) {
+        if (size > 0 && keys[size - 1] == key) {
+            return size - 1;
+        }
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private static char high(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("bitmap value must be non-negative: " + value);
+        }
+        return (char) (value >>> 16);
+    }
+
+    private static char low(int value) {
+        return (char) value;
+    }
+
+    /**
+     * Chunk of 65536 values
+     */
+    private abstract static class Container {
+
+        abstract int cardinality();
+
+        abstract boolean contains(char value);
+
+        abstract Container add(char value);
+
+        abstract Container remove(char value);
+
+        abstract Container copy();
+
+        abstract BitsetContainer toBitset();
+
+        abstract void forEach(int high, IntConsumer consumer);
+
+        /**
+         * @return new container or null if result is empty
+         */
+        abstract Container and(Container other);
+
+        /**
+         * @return new container
+         */
+        abstract Container or(Container other);
+
+        /**
+         * @return new container or null if result is empty
+         */
+        abstract Container andNot(Container other);
+    }
+
+    private static final class ArrayContainer extends Container {
+        private char[] values;
+        private int cardinality;
+
+        private ArrayContainer() {
+            this(new char[4], 0);
+        }
+
+        private ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        @Override
+        Container add(char value) {
+            int i = Arrays.binarySearch(values, 0, cardinality, value);
+            if (i >= 0) {
+                return this;
+            }
+            if (cardinality == MAX_ARRAY_SIZE) {
+                return toBitset().add(value);
+            }
+            i = -i - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(MAX_ARRAY_SIZE, Math.max(4, values.length * 2)));
+            }
+            System.arraycopy(values, i, values, i + 1, cardinality - i);
+            values[i] = value;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            int i = Arrays.binarySearch(values, 0, cardinality, value);
+            if (i >= 0) {
+                System.arraycopy(values, i + 1, values, i, cardinality - i - 1);
+                cardinality--;
+            }
+            return this;
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, cardinality), cardinality);
+        }
+
+        @Override
+        BitsetContainer toBitset() {
+            BitsetContainer bitset = new BitsetContainer();
+            for (int i = 0; i < cardinality; i++) {
+                bitset.words[values[i] >>> 6] |= 1L << values[i];
+            }
+            bitset.cardinality = cardinality;
+            return bitset;
+        }
+
+        @Override
+        void forEach(int high, IntConsumer consumer) {
+            for (int i = 0; i < cardinality; i++) {
+                consumer.accept(high | values[i]);
+            }
+        }
+
+        @Override
+        Container and(Container other) {
+            char[] result = new char[Math.min(cardinality, other.cardinality())];
+            int count = 0;
+            if (other instanceof ArrayContainer) {
+                ArrayContainer array = (ArrayContainer) other;
+                int i = 0;
+                int j = 0;
+                while (i < cardinality && j < array.cardinality) {
+                    if (values[i] < array.values[j]) {
+                        i++;
+                    } else if (values[i] > array.values[j]) {
+                        j++;
+                    } else {
+                        result[count++] = values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < cardinality; i++) {
+                    if (other.contains(values[i])) {
+                        result[count++] = values[i];
+                    }
+                }
+            }
+            return count > 0 ? new ArrayContainer(result, count) : null;
+        }
+
+        @Override
+        Container or(Container other) {
+            if (!(other instanceof ArrayContainer)) {
+                return other.or(this);
+            }
+            if (cardinality + other.cardinality() > MAX_ARRAY_SIZE) {
+                return toBitset().or(other);
+            }
+            ArrayContainer array = (ArrayContainer) other;
+            char[] result = new char[cardinality + array.cardinality];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < cardinality || j < array.cardinality) {
+                if (j == array.cardinality || i < cardinality && values[i] < array.values[j]) {
+                    result[count++] = values[i++];
+                } else if (i == cardinality || values[i] > array.values[j]) {
+                    result[count++] = array.values[j++];
+                } else {
+                    result[count++] = values[i];
+                    i++;
+                    j++;
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+
+        @Override
+        Container andNot(Container other) {
+            char[] result = new char[cardinality];
+            int count = 0;
+            for (int i = 0; i < cardinality; i++) {
+                if (!other.contains(values[i])) {
+                    result[count++] = values[i];
+                }
+            }
+            return count > 0 ? new ArrayContainer(result, count) : null;
+        }
+    }
+
+    private static final class BitsetContainer extends Container {
+        private final long[] words;
+        private int cardinality;
+
+        private BitsetContainer() {
+            this(new long[BITSET_WORDS], 0);
+        }
+
+        private BitsetContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        Container add(char value) {
+            long word = words[value >>> 6];
+            long newWord = word | (1L << value);
+            if (newWord != word) {
+                words[value >>> 6] = newWord;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            long word = words[value >>> 6];
+            long newWord = word & ~(1L << value);
+            if (newWord != word) {
+                words[value >>> 6] = newWord;
+                cardinality--;
+                if (cardinality <= MAX_ARRAY_SIZE / 2) {
+                    return toArray();
+                }
+            }
+            return this;
+        }
+
+        @Override
+        Container copy() {
+            return new BitsetContainer(words.clone(), cardinality);
+        }
+
+        @Override
+        BitsetContainer toBitset() {
+            return (BitsetContainer) copy();
+        }
+
+        private ArrayContainer toArray() {
+            char[] values = new char[cardinality];
+            int count = 0;
+            for (int i = 0; i < BITSET_WORDS; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    values[count++] = (char) ((i << 6) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(values, count);
+        }
+
+        @Override
+        void forEach(int high, IntConsumer consumer) {
+            for (int i = 0; i < BITSET_WORDS; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    consumer.accept(high | (i << 6) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        @Override
+        Container and(Container other) {
+            if (!(other instanceof BitsetContainer)) {
+                return other.and(this);
+            }
+            long[] otherWords = ((BitsetContainer) other).words;
+            long[] result = new long[BITSET_WORDS];
+            for (int i = 0; i < BITSET_WORDS; i++) {
+                result[i] = words[i] & otherWords[i];
+            }
+            return normalize(result);
+        }
+
+        @Override
+        Container or(Container other) {
+            long[] result = words.clone();
+            if (other instanceof BitsetContainer) {
+                long[] otherWords = ((BitsetContainer) other).words;
+                for (int i = 0; i < BITSET_WORDS; i++) {
+                    result[i] |= otherWords[i];
+                }
+            } else {
+                other.forEach(0, value -> result[value >>> 6] |= 1L << value);
+            }
+            return normalize(result);
+        }
+
+        @Override
+        Container andNot(Container other) {
+            long[] result = words.clone();
+            if (other instanceof BitsetContainer) {
+                long[] otherWords = ((BitsetContainer) other).words;
+                for (int i = 0; i < BITSET_WORDS; i++) {
+                    result[i] &= ~otherWords[i];
+                }
+            } else {
+                other.forEach(0, value -> result[value >>> 6] &= ~(1L << value));
+            }
+            return normalize(result);
+        }
+
+        /**
+         * Create container from words. Array container is created if number of values is small enough.
+         *
+         * @param words bitset words
+         * @return container or null if there is no value
+         */
+        private static Container normalize(long[] words) {
+            int cardinality = 0;
+            for (long word : words) {
+                cardinality += Long.bitCount(word);
+            }
+            if (cardinality == 0) {
+                return null;
+            }
+            BitsetContainer bitset = new BitsetContainer(words, cardinality);
+            return cardinality <= MAX_ARRAY_SIZE ? bitset.toArray() : bitset;
+        }
+    }
+}
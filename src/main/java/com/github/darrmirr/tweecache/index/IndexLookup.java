@@ -0,0 +1,48 @@
+package com.github.darrmirr.tweecache.index;
+
+import java.util.Collection;
+
+/**
+ * Lookup of table storage keys by index.
+ *
+ * Lookup is created by planner for SQL-query predicate over indexed field. Lookup operands are values of
+ * SQL-query literals and parameters evaluated at runtime.
+ */
+public interface IndexLookup {
+
+    /**
+     * Find keys of table rows that match predicate
+     *
+     * @param operands predicate operand values
+     * @return table storage keys
+     */
+    Collection<Object> keys(Object[] operands);
+
+    /**
+     * Find table rows that match predicate if lookup holds rows itself
+     *
+     * @param operands predicate operand values
+     * @return table rows or null if rows are read from table storage by keys
+     */
+    default Collection<Object> rows(Object[] operands) {
+        return null;
+    }
+
+    /**
+     * Count table rows that match predicate
+     *
+     * @param operands predicate operand values
+     * @return number of rows
+     */
+    default long count(Object[] operands) {
+        return keys(operands).size();
+    }
+
+    /**
+     * Estimate number of table rows that match predicate
+     *
+     * @param tableRowCount number of table rows
+     * @return number of rows
+     */
+    double estimateRowCount(double tableRowCount);
+}
@@ -0,0 +1,106 @@
+package com.github.darrmirr.tweecache.index;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheWriter;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Cache writer maintains table indexes.
+ *
+ * Caffeine invokes writer synchronously and atomically with each write and removal of key, including eviction
+ * and expiration. Therefore, index never contains keys absent at table storage for longer than write operation.
+ *
+ * Row ordinal is assigned to key before indexes are updated and it is released after row is removed from indexes.
+ */
+public class IndexWriter implements CacheWriter<Object, Object> {
+    private static final ThreadLocal<Boolean> isBulkWrite = new ThreadLocal<>();
+    private final List<TableIndex> indexes;
+    private final RowOrdinals rowOrdinals;
+
+    public IndexWriter(List<TableIndex> indexes) {
+        this(indexes, null);
+    }
+
+    /**
+     * Create writer
+     *
+     * @param indexes table indexes
+     * @param rowOrdinals row ordinals of table. It is null if there is no index over row ordinals.
+     */
+    public IndexWriter(List<TableIndex> indexes, RowOrdinals rowOrdinals) {
+        this.indexes = indexes;
+        this.rowOrdinals = rowOrdinals;
+    }
+
+    @Override
+    public void write(Object key, Object value) {
+        if (isBulkWrite.get() != null) {
+            return;
+        }
+        if (rowOrdinals != null) {
+            rowOrdinals.assign(key);
+        }
+        for (TableIndex index : indexes) {
+            index.insert(key, value);
+        }
+    }
+
+    @Override
+    public void delete(Object key, Object value, RemovalCause cause) {
+        for (TableIndex index : indexes) {
+            index.delete(key);
+        }
+        if (rowOrdinals != null) {
+            rowOrdinals.release(key);
+        }
+    }
+
+    /**
+     * Put rows to table storage and add them to indexes in bulk.
+     *
+     * Rows are put to table storage without index updates first, then ordinals and indexes are updated
+     * under single table lock hold. Rows are indexed as they are at table storage rather than as they are passed,
+     * since key could be written by other thread meanwhile. Keys removed from table storage meanwhile (e.g. evicted) are removed from indexes.
+     *
+     * Concurrent write of the same key invokes this writer before its row becomes visible at table storage,
+     * therefore it waits for table lock and indexes its row after bulk write. If table has no lock, each key is indexed under its cache entry lock.
+     *
+     * @param cache table storage which writer is this one
+     * @param rows rows to put by table storage key
+     */
+    public void writeAll(Cache<Object, Object> cache, Map<Object, Object> rows) {
+        isBulkWrite.set(Boolean.TRUE);
+        try {
+            cache.putAll(rows);
+        } finally {
+            isBulkWrite.remove();
+        }
+        Map<Object, Object> storage = cache.asMap();
+        if (rowOrdinals == null) {
+            rows.keySet().forEach(key -> storage.compute(key, (storageKey, row) -> {
+                reindex(storageKey, row);
+                return row;
+            }));
+            return;
+        }
+        Lock lock = rowOrdinals.writeLock();
+        lock.lock();
+        try {
+            rows.keySet().forEach(key -> reindex(key, storage.get(key)));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void reindex(Object key, Object row) {
+        if (row != null) {
+            write(key, row);
+        } else {
+            delete(key, null, RemovalCause.EXPLICIT);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.github.darrmirr.tweecache.index;
+
+import com.github.darrmirr.tweecache.accessor.RowAccessor;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Inverted index over collection or array field of table rows.
+ *
+ * Index maps each element of field value to keys of table rows which field value contains the element.
+ * Membership predicate is answered by postings list of element instead of expanding field value of each row.
+ */
+public class InvertedIndex implements TableIndex {
+    private static final Object[] NO_ELEMENTS = new Object[0];
+    private final String fieldName;
+    private final int fieldIndex;
+    private final RowAccessor rowAccessor;
+    private final Map<Object, Set<Object>> postings = new ConcurrentHashMap<>();
+    private final Map<Object, Object[]> elementsByKey = new ConcurrentHashMap<>();
+    private final LongAdder postingCount = new LongAdder();
+
+    public InvertedIndex(String fieldName, RowAccessor rowAccessor) {
+        this.fieldName = fieldName;
+        this.fieldIndex = Arrays.asList(rowAccessor.getFieldNames()).indexOf(fieldName);
+        this.rowAccessor = rowAccessor;
+        if (fieldIndex < 0) {
+            throw new IllegalArgumentException("there is no public field '" + fieldName + "' at class " + rowAccessor.getTableClass().getName());
+        }
+    }
+
+    @Override
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    @Override
+    public int getFieldIndex() {
+        return fieldIndex;
+    }
+
+    @Override
+    public void insert(Object key, Object row) {
+        Object[] elements = elements(rowAccessor.get(row, fieldIndex));
+        Object[] previous = elements.length > 0 ? elementsByKey.put(key, elements) : elementsByKey.remove(key);
+        if (previous != null) {
+            removePostings(key, previous);
+        }
+        for (Object element : elements) {
+            postings.compute(element, (e, keys) -> {
+                Set<Object> postingList = keys != null ? keys : ConcurrentHashMap.newKeySet();
+                if (postingList.add(key)) {
+                    postingCount.increment();
+                }
+                return postingList;
+            });
+        }
+    }
+
+    @Override
+    public void delete(Object key) {
+        Object[] previous = elementsByKey.remove(key);
+        if (previous != null) {
+            removePostings(key, previous);
+        }
+    }
+
+    private void removePostings(Object key, Object[] elements) {
+        for (Object element : elements) {
+            postings.computeIfPresent(element, (e, keys) -> {
+                if (keys.remove(key)) {
+                    postingCount.decrement();
+                }
+                return keys.isEmpty() ? null : keys;
+            });
+        }
+    }
+
+    /**
+     * Find keys of table rows which field value contains element
+     *
+     * @param element collection or array element
+     * @return table storage keys
+     */
+    public Collection<Object> find(Object element) {
+        Set<Object> keys = element != null ? postings.get(TableIndex.normalize(element)) : null;
+        return keys != null ? keys : Collections.emptySet();
+    }
+
+    /**
+     * Get average number of rows per element
+     *
+     * @return average posting list size
+     */
+    public double averagePostingSize() {
+        int elementCount = postings.size();
+        return elementCount > 0 ? postingCount.doubleValue() / elementCount : 0;
+    }
+
+    /**
+     * Create lookup of rows which field value contains element passed as lookup operand
+     *
+     * @param operand index of lookup operand
+     * @return index lookup
+     */
+    public IndexLookup contains(int operand) {
+        return new IndexLookup() {
+            @Override
+            public Collection<Object> keys(Object[] operands) {
+                return find(operands[operand]);
+            }
+
+            @Override
+            public double estimateRowCount(double tableRowCount) {
+                return Math.min(averagePostingSize(), tableRowCount);
+            }
+
+            @Override
+            public String toString() {
+                return fieldName + " contains $" + operand;
+            }
+        };
+    }
+
+    private static Object[] elements(Object value) {
+        Collection<?> collection;
+        if (value instanceof Collection) {
+            collection = (Collection<?>) value;
+        } else if (value instanceof Object[]) {
+            collection = Arrays.asList((Object[]) value);
+        } else if (value != null) {
+            collection = Collections.singletonList(value);
+        } else {
+            return NO_ELEMENTS;
+        }
+        Set<Object> elements = new LinkedHashSet<>();
+        for (Object element : collection) {
+            if (element != null) {
+                elements.add(TableIndex.normalize(element));
+            }
+        }
+        return elements.toArray();
+    }
+
+    @Override
+    public String toString() {
+        return "InvertedIndex {field=" + fieldName + "}";
+    }
+}
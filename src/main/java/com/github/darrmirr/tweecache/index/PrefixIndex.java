@@ -0,0 +1,219 @@
+package com.github.darrmirr.tweecache.index;
+
+import com.github.darrmirr.tweecache.accessor.RowAccessor;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Sorted string index over string field of table rows.
+ *
+ * Index keeps distinct field values in sorted map with {@link CompressedBitmap} of row ordinals per value.
+ * Values that start with prefix form contiguous range of sorted map, therefore LIKE 'abc%' and prefix predicates
+ * are answered by range lookup. LIKE pattern with wildcards in the middle is answered by range of its literal prefix,
+ * each distinct value of the range is matched against pattern.
+ *
+ * Values are also kept in lower case in order to answer case-insensitive predicates over {@code lower(field)}.
+ * Null field values are not indexed since LIKE predicate is never true for them.
+ */
+public class PrefixIndex implements TableIndex {
+    private final String fieldName;
+    private final int fieldIndex;
+    private final RowAccessor rowAccessor;
+    private final RowOrdinals rowOrdinals;
+    private final NavigableMap<String, CompressedBitmap> values = new TreeMap<>();
+    private final NavigableMap<String, CompressedBitmap> lowerCaseValues = new TreeMap<>();
+    private String[] valuesByOrdinal = new String[64];
+
+    public PrefixIndex(String fieldName, RowAccessor rowAccessor, RowOrdinals rowOrdinals) {
+        this.fieldName = fieldName;
+        this.fieldIndex = Arrays.asList(rowAccessor.getFieldNames()).indexOf(fieldName);
+        this.rowAccessor = rowAccessor;
+        this.rowOrdinals = rowOrdinals;
+        if (fieldIndex < 0) {
+            throw new IllegalArgumentException("there is no public field '" + fieldName + "' at class " + rowAccessor.getTableClass().getName());
+        }
+    }
+
+    @Override
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    @Override
+    public int getFieldIndex() {
+        return fieldIndex;
+    }
+
+    /**
+     * Get row ordinals of table
+     *
+     * @return row ordinals
+     */
+    public RowOrdinals getRowOrdinals() {
+        return rowOrdinals;
+    }
+
+    @Override
+    public void insert(Object key, Object row) {
+        Object fieldValue = rowAccessor.get(row, fieldIndex);
+        String value = fieldValue != null ? fieldValue.toString() : null;
+        rowOrdinals.writeLock().lock();
+        try {
+            int ordinal = rowOrdinals.ordinal(key);
+            if (ordinal < 0) {
+                return;
+            }
+            if (ordinal >= valuesByOrdinal.length) {
+                valuesByOrdinal = Arrays.copyOf(valuesByOrdinal, Math.max(ordinal + 1, valuesByOrdinal.length * 2));
+            }
+            String previous = valuesByOrdinal[ordinal];
+            if (Objects.equals(value, previous)) {
+                return;
+            }
+            if (previous != null) {
+                clear(previous, ordinal);
+            }
+            valuesByOrdinal[ordinal] = value;
+            if (value != null) {
+                values.computeIfAbsent(value, v -> new CompressedBitmap()).set(ordinal);
+                lowerCaseValues.computeIfAbsent(toLowerCase(value), v -> new CompressedBitmap()).set(ordinal);
+            }
+        } finally {
+            rowOrdinals.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void delete(Object key) {
+        rowOrdinals.writeLock().lock();
+        try {
+            int ordinal = rowOrdinals.ordinal(key);
+            if (ordinal < 0 || ordinal >= valuesByOrdinal.length || valuesByOrdinal[ordinal] == null) {
+                return;
+            }
+            clear(valuesByOrdinal[ordinal], ordinal);
+            valuesByOrdinal[ordinal] = null;
+        } finally {
+            rowOrdinals.writeLock().unlock();
+        }
+    }
+
+    private void clear(String value, int ordinal) {
+        clear(values, value, ordinal);
+        clear(lowerCaseValues, toLowerCase(value), ordinal);
+    }
+
+    private static void clear(Map<String, CompressedBitmap> bitmaps, String value, int ordinal) {
+        CompressedBitmap bitmap = bitmaps.get(value);
+        if (bitmap != null) {
+            bitmap.clear(ordinal);
+            if (bitmap.isEmpty()) {
+                bitmaps.remove(value);
+            }
+        }
+    }
+
+    /**
+     * Find rows which field value starts with prefix. Caller must hold table read lock, see {@link RowOrdinals#readLock()}.
+     *
+     * @param prefix value prefix
+     * @param isLowerCase true to match lower case field value
+     * @return bitmap of row ordinals
+     */
+    CompressedBitmap startsWith(String prefix, boolean isLowerCase) {
+        CompressedBitmap result = new CompressedBitmap();
+        for (CompressedBitmap bitmap : range(isLowerCase ? lowerCaseValues : values, prefix).values()) {
+            bitmap.forEach(result::set);
+        }
+        return result;
+    }
+
+    /**
+     * Find rows which field value matches SQL LIKE pattern. Caller must hold table read lock, see {@link RowOrdinals#readLock()}.
+     *
+     * @param pattern LIKE pattern without escape character
+     * @param isLowerCase true to match lower case field value
+     * @return bitmap of row ordinals
+     */
+    CompressedBitmap like(String pattern, boolean isLowerCase) {
+        NavigableMap<String, CompressedBitmap> bitmaps = isLowerCase ? lowerCaseValues : values;
+        int wildcard = firstWildcard(pattern);
+        if (wildcard < 0) {
+            CompressedBitmap bitmap = bitmaps.get(pattern);
+            return bitmap != null ? bitmap : new CompressedBitmap();
+        }
+        String prefix = pattern.substring(0, wildcard);
+        if (wildcard == pattern.length() - 1 && pattern.charAt(wildcard) == '%') {
+            return startsWith(prefix, isLowerCase);
+        }
+        Pattern regex = toRegex(pattern);
+        CompressedBitmap result = new CompressedBitmap();
+        for (Map.Entry<String, CompressedBitmap> entry : range(bitmaps, prefix).entrySet()) {
+            if (regex.matcher(entry.getKey()).matches()) {
+                entry.getValue().forEach(result::set);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get sub map of values that start with prefix
+     *
+     * @param bitmaps sorted map of values
+     * @param prefix value prefix
+     * @return sub map
+     */
+    private static NavigableMap<String, CompressedBitmap> range(NavigableMap<String, CompressedBitmap> bitmaps, String prefix) {
+        if (prefix.isEmpty()) {
+            return bitmaps;
+        }
+        int last = prefix.length() - 1;
+        while (last >= 0 && prefix.charAt(last) == Character.MAX_VALUE) {
+            last--;
+        }
+        if (last < 0) {
+            return bitmaps.tailMap(prefix, true);
+        }
+        String upperBound = prefix.substring(0, last) + (char) (prefix.charAt(last) + 1);
+        return bitmaps.subMap(prefix, true, upperBound, false);
+    }
+
+    private static int firstWildcard(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '%' || c == '_') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Pattern toRegex(String pattern) {
+        StringBuilder regex = new StringBuilder();
+        int start = 0;
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '%' || c == '_') {
+                if (i > start) {
+                    regex.append(Pattern.quote(pattern.substring(start, i)));
+                }
+                regex.append(c == '%' ? ".*" : ".");
+                start = i + 1;
+            }
+        }
+        if (start < pattern.length()) {
+            regex.append(Pattern.quote(pattern.substring(start)));
+        }
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+
+    private static String toLowerCase(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public String toString() {
+        return "PrefixIndex {field=" + fieldName + "}";
+    }
+}
@@ -0,0 +1,128 @@
+package com.github.darrmirr.tweecache.index;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Mapping of table storage keys to dense int ordinals.
+ *
+ * Ordinal is assigned to key on first write of key to table storage and released on removal of key.
+ * Released ordinals are reused, therefore ordinals stay dense and bitmaps over ordinals stay compact.
+ *
+ * Ordinals and indexes over ordinals are guarded by read-write lock of table. Indexes take write lock to update
+ * ordinal-based structures, index lookup takes read lock to evaluate bitmaps and to translate ordinals to keys.
+ */
+public class RowOrdinals {
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Object, Integer> ordinalsByKey = new HashMap<>();
+    private final CompressedBitmap rows = new CompressedBitmap();
+    private Object[] keys = new Object[64];
+    private int[] releasedOrdinals = new int[16];
+    private int releasedCount;
+    private int ordinalCount;
+
+    /**
+     * Assign ordinal to key if key does not have ordinal yet
+     *
+     * @param key table storage key
+     * @return key ordinal
+     */
+    public int assign(Object key) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinalsByKey.get(key);
+            if (ordinal != null) {
+                return ordinal;
+            }
+            int newOrdinal = releasedCount > 0 ? releasedOrdinals[--releasedCount] : ordinalCount++;
+            if (newOrdinal == keys.length) {
+                keys = Arrays.copyOf(keys, keys.length * 2);
+            }
+            keys[newOrdinal] = key;
+            ordinalsByKey.put(key, newOrdinal);
+            rows.set(newOrdinal);
+            return newOrdinal;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Release ordinal of key
+     *
+     * @param key table storage key
+     */
+    public void release(Object key) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinalsByKey.remove(key);
+            if (ordinal == null) {
+                return;
+            }
+            keys[ordinal] = null;
+            rows.clear(ordinal);
+            if (releasedCount == releasedOrdinals.length) {
+                releasedOrdinals = Arrays.copyOf(releasedOrdinals, releasedCount * 2);
+            }
+            releasedOrdinals[releasedCount++] = ordinal;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Get ordinal of key. Caller must hold table lock.
+     *
+     * @param key table storage key
+     * @return key ordinal or -1 if key has no ordinal
+     */
+    public int ordinal(Object key) {
+        Integer ordinal = ordinalsByKey.get(key);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    /**
+     * Get key by ordinal. Caller must hold table lock.
+     *
+     * @param ordinal key ordinal
+     * @return table storage key or null if ordinal is not assigned
+     */
+    public Object key(int ordinal) {
+        return ordinal < ordinalCount ? keys[ordinal] : null;
+    }
+
+    /**
+     * Get bitmap of all assigned ordinals. Caller must hold table lock.
+     *
+     * @return bitmap of all table rows
+     */
+    public CompressedBitmap rows() {
+        return rows;
+    }
+
+    /**
+     * Get number of table rows
+     *
+     * @return number of assigned ordinals
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinalsByKey.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Lock readLock() {
+        return lock.readLock();
+    }
+
+    public Lock writeLock() {
+        return lock.writeLock();
+    }
+}
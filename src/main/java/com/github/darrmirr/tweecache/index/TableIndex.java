@@ -0,0 +1,79 @@
+package com.github.darrmirr.tweecache.index;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Secondary index over field of table rows.
+ *
+ * Index is maintained by {@link IndexWriter} synchronously on each write to table storage and on each removal
+ * from table storage, including eviction and expiration. Index keeps its own copy of indexed values per table storage key,
+ * therefore previous values of replaced or evicted row are removed from index without reading row object.
+ */
+public interface TableIndex {
+
+    /**
+     * Get name of indexed field
+     *
+     * @return field name
+     */
+    String getFieldName();
+
+    /**
+     * Get index of indexed field at table row type
+     *
+     * @return field index
+     */
+    int getFieldIndex();
+
+    /**
+     * Add row to index. Previously indexed row with the same key is replaced.
+     *
+     * @param key table storage key
+     * @param row table row
+     */
+    void insert(Object key, Object row);
+
+    /**
+     * Remove row from index
+     *
+     * @param key table storage key
+     */
+    void delete(Object key);
+
+    /**
+     * Normalize indexed value, so that values of different numeric types are equal if they hold the same number
+     * and enum constant is equal to its name. SQL-query parameters and literals could be of other type than table row fields.
+     *
+     * @param value indexed value or lookup value
+     * @return normalized value
+     */
+    static Object normalize(Object value) {
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof BigDecimal) {
+            BigDecimal decimal = (BigDecimal) value;
+            try {
+                return decimal.longValueExact();
+            } catch (ArithmeticException e) {
+                return decimal.doubleValue();
+            }
+        }
+        if (value instanceof BigInteger) {
+            BigInteger integer = (BigInteger) value;
+            return integer.bitLength() < Long.SIZE ? (Object) integer.longValue() : value;
+        }
+        if (value instanceof Float || value instanceof Double) {
+            double number = ((Number) value).doubleValue();
+            return number == Math.rint(number) && Math.abs(number) < Long.MAX_VALUE ? (Object) (long) number : (Object) number;
+        }
+        if (value instanceof Enum) {
+            return ((Enum<?>) value).name();
+        }
+        if (value instanceof Character) {
+            return value.toString();
+        }
+        return value;
+    }
+}
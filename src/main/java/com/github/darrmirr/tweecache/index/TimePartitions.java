@@ -0,0 +1,288 @@
+package com.github.darrmirr.tweecache.index;
+
+import com.github.darrmirr.tweecache.accessor.RowAccessor;
+import org.apache.calcite.runtime.SqlFunctions;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Time partitions of table rows.
+ *
+ * Table rows are split into time buckets of fixed size by value of date or epoch millis field. Scan of partitioned
+ * table reads rows of live buckets, therefore bucket that is dropped disappears from SQL-queries at once regardless
+ * of its size. Rows of dropped bucket are removed from table storage in background, meanwhile rows read by key
+ * (e.g. found by other index) are checked by {@link #isLive(Object)}.
+ * Time predicates over partition field prune buckets that are out of predicate range.
+ *
+ * Field values are bucketed by their Apache Calcite internal representation (see {@link SqlFunctions#toLong(Object)}),
+ * so that bucket boundaries are comparable with SQL-query literals and parameters as is.
+ * Rows with null field value are kept apart from buckets, they are never dropped by retention.
+ */
+public class TimePartitions implements TableIndex {
+    private final String fieldName;
+    private final int fieldIndex;
+    private final RowAccessor rowAccessor;
+    private final long bucketMillis;
+    private final long retentionMillis;
+    private final boolean isEpochMillis;
+    private final ConcurrentSkipListMap<Long, Partition> partitions = new ConcurrentSkipListMap<>();
+    private final Partition unpartitioned = new Partition();
+    private final Map<Object, Partition> partitionByKey = new ConcurrentHashMap<>();
+    private volatile ConcurrentMap<Object, Object> storage;
+
+    /**
+     * Create time partitions
+     *
+     * @param fieldName name of date or epoch millis field
+     * @param rowAccessor row accessor of table class
+     * @param bucketSize time bucket size
+     * @param retention time span of buckets to keep counted back from the latest bucket or null to keep all buckets
+     */
+    public TimePartitions(String fieldName, RowAccessor rowAccessor, Duration bucketSize, Duration retention) {
+        this.fieldName = fieldName;
+        this.fieldIndex = Arrays.asList(rowAccessor.getFieldNames()).indexOf(fieldName);
+        this.rowAccessor = rowAccessor;
+        this.bucketMillis = bucketSize.toMillis();
+        this.retentionMillis = retention != null ? retention.toMillis() : 0;
+        if (fieldIndex < 0) {
+            throw new IllegalArgumentException("there is no public field '" + fieldName + "' at class " + rowAccessor.getTableClass().getName());
+        }
+        this.isEpochMillis = !Date.class.isAssignableFrom(fieldType(rowAccessor.getTableClass(), fieldName));
+        if (bucketMillis <= 0) {
+            throw new IllegalArgumentException("time bucket size must be greater than zero");
+        }
+        if (retention != null && retentionMillis < bucketMillis) {
+            throw new IllegalArgumentException("retention must not be less than time bucket size");
+        }
+    }
+
+    @Override
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    @Override
+    public int getFieldIndex() {
+        return fieldIndex;
+    }
+
+    /**
+     * Bind table storage. Rows of dropped buckets are removed from table storage.
+     *
+     * @param storage map view of table storage
+     */
+    public void bind(ConcurrentMap<Object, Object> storage) {
+        this.storage = storage;
+    }
+
+    @Override
+    public void insert(Object key, Object row) {
+        Object value = rowAccessor.get(row, fieldIndex);
+        Partition partition = value != null ? partition(bucketStart(SqlFunctions.toLong(value))) : unpartitioned;
+        Partition previous = partitionByKey.put(key, partition);
+        if (previous != null && previous != partition) {
+            previous.rows.remove(key);
+        }
+        partition.rows.put(key, row);
+        if (partition.isDropped) {
+            expire(Collections.singletonMap(key, row));
+        }
+    }
+
+    @Override
+    public void delete(Object key) {
+        Partition partition = partitionByKey.remove(key);
+        if (partition != null) {
+            partition.rows.remove(key);
+        }
+    }
+
+    /**
+     * Drop buckets which time range ends before instant
+     *
+     * @param instant instant
+     * @return number of dropped buckets
+     */
+    public int dropBefore(Instant instant) {
+        // date is shifted to local time zone by Apache Calcite, epoch millis is bucketed as is
+        long end = isEpochMillis ? instant.toEpochMilli() : SqlFunctions.toLong(Date.from(instant));
+        return drop(partitions.headMap(end - bucketMillis, true));
+    }
+
+    /**
+     * Check if row of key belongs to live bucket. Rows of dropped bucket stay at table storage and other indexes
+     * until they are removed in background, therefore rows read by key must be checked.
+     *
+     * @param key table storage key
+     * @return false if row of key belongs to dropped bucket
+     */
+    public boolean isLive(Object key) {
+        Partition partition = partitionByKey.get(key);
+        return partition == null || !partition.isDropped;
+    }
+
+    /**
+     * Get number of time buckets
+     *
+     * @return number of time buckets
+     */
+    public int partitionCount() {
+        return partitions.size();
+    }
+
+    /**
+     * Get all table rows
+     *
+     * @return table rows
+     */
+    public Collection<Object> rows() {
+        return new PartitionRows(() -> Stream.concat(Stream.of(unpartitioned), partitions.values().stream()), false);
+    }
+
+    /**
+     * Create lookup of rows of buckets that intersect time range. Lookup does not check row field value,
+     * therefore range predicate must be evaluated over found rows.
+     *
+     * @param lowerOperand index of lookup operand which value is lower bound of range or -1 if range has no lower bound
+     * @param upperOperand index of lookup operand which value is upper bound of range or -1 if range has no upper bound
+     * @return index lookup
+     */
+    public IndexLookup range(int lowerOperand, int upperOperand) {
+        return new IndexLookup() {
+            @Override
+            public Collection<Object> keys(Object[] operands) {
+                return rows(operands, true);
+            }
+
+            @Override
+            public Collection<Object> rows(Object[] operands) {
+                return rows(operands, false);
+            }
+
+            private Collection<Object> rows(Object[] operands, boolean isKeys) {
+                Object lower = lowerOperand >= 0 ? operands[lowerOperand] : Long.MIN_VALUE;
+                Object upper = upperOperand >= 0 ? operands[upperOperand] : Long.MAX_VALUE;
+                if (lower == null || upper == null) {
+                    return Collections.emptyList();
+                }
+                long from = lowerOperand >= 0 ? bucketStart(SqlFunctions.toLong(lower)) : Long.MIN_VALUE;
+                long to = SqlFunctions.toLong(upper);
+                return from <= to
+                        ? new PartitionRows(() -> partitions.subMap(from, true, to, true).values().stream(), isKeys)
+                        : Collections.emptyList();
+            }
+
+            @Override
+            public double estimateRowCount(double tableRowCount) {
+                return tableRowCount * (lowerOperand >= 0 && upperOperand >= 0 ? 0.25 : 0.5);
+            }
+
+            @Override
+            public String toString() {
+                return fieldName + " IN [" + (lowerOperand >= 0 ? "$" + lowerOperand : "") + ", "
+                        + (upperOperand >= 0 ? "$" + upperOperand : "") + "]";
+            }
+        };
+    }
+
+    private Partition partition(long start) {
+        Partition partition = partitions.get(start);
+        if (partition == null) {
+            partition = partitions.computeIfAbsent(start, bucket -> new Partition());
+            Map.Entry<Long, Partition> latest = partitions.lastEntry();
+            if (retentionMillis > 0 && latest != null) {
+                drop(partitions.headMap(latest.getKey() - retentionMillis, true));
+            }
+        }
+        return partition;
+    }
+
+    private int drop(NavigableMap<Long, Partition> dropped) {
+        int count = 0;
+        Map.Entry<Long, Partition> entry;
+        while ((entry = dropped.pollFirstEntry()) != null) {
+            entry.getValue().isDropped = true;
+            expire(entry.getValue().rows);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Remove rows from table storage in background. Row is removed if it is not replaced yet.
+     *
+     * @param rows rows to remove
+     */
+    private void expire(Map<Object, Object> rows) {
+        ConcurrentMap<Object, Object> storage = this.storage;
+        if (storage != null && !rows.isEmpty()) {
+            ForkJoinPool.commonPool().execute(() -> rows.forEach(storage::remove));
+        }
+    }
+
+    private static Class<?> fieldType(Class<?> tableClass, String fieldName) {
+        try {
+            return tableClass.getField(fieldName).getType();
+        } catch (NoSuchFieldException e) {
+            throw new IllegalArgumentException("there is no public field '" + fieldName + "' at class " + tableClass.getName(), e);
+        }
+    }
+
+    private long bucketStart(long millis) {
+        return Math.floorDiv(millis, bucketMillis) * bucketMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "TimePartitions {field=" + fieldName + ", bucket=" + Duration.ofMillis(bucketMillis) + "}";
+    }
+
+    private static class Partition {
+        private final Map<Object, Object> rows = new ConcurrentHashMap<>();
+        private volatile boolean isDropped;
+    }
+
+    /**
+     * Rows or keys of buckets. Buckets are read on each iteration.
+     */
+    private static class PartitionRows extends AbstractCollection<Object> {
+        private final Supplier<Stream<Partition>> partitions;
+        private final boolean isKeys;
+
+        private PartitionRows(Supplier<Stream<Partition>> partitions, boolean isKeys) {
+            this.partitions = partitions;
+            this.isKeys = isKeys;
+        }
+
+        @Override
+        public Iterator<Object> iterator() {
+            return partitions
+                    .get()
+                    .flatMap(partition -> (isKeys ? partition.rows.keySet() : partition.rows.values()).stream())
+                    .iterator();
+        }
+
+        @Override
+        public int size() {
+            return partitions
+                    .get()
+                    .mapToInt(partition -> partition.rows.size())
+                    .sum();
+        }
+    }
+}
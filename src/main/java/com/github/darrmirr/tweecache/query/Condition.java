@@ -0,0 +1,299 @@
+package com.github.darrmirr.tweecache.query;
+
+import com.github.darrmirr.tweecache.index.BitmapIndex;
+import com.github.darrmirr.tweecache.index.BitmapLookup;
+import com.github.darrmirr.tweecache.index.IndexLookup;
+import com.github.darrmirr.tweecache.index.InvertedIndex;
+import com.github.darrmirr.tweecache.index.PrefixIndex;
+import com.github.darrmirr.tweecache.index.TableIndex;
+import com.github.darrmirr.tweecache.util.TweeFunctions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Condition over field value of {@link TableQuery}.
+ *
+ * Comparison follows SQL semantics: null field value matches {@link #isNull()} only, null operand matches nothing.
+ * Numeric values are compared by value regardless of their type, enum constant is equal to its name.
+ * Condition over field with table index is answered by index: {@code eq}, {@code ne}, {@code in}, {@code isNull}
+ * and {@code isNotNull} by {@link BitmapIndex}, {@code startsWith} by {@link PrefixIndex}
+ * and {@code contains} by {@link InvertedIndex}.
+ */
+public final class Condition {
+    private static final Object[] NO_OPERANDS = new Object[0];
+    private final Kind kind;
+    private final Object[] operands;
+
+    private enum Kind {
+        EQ("="), NE("<>"), IN("IN"), IS_NULL("IS NULL"), IS_NOT_NULL("IS NOT NULL"), LT("<"), LE("<="), GT(">"), GE(">="),
+        BETWEEN("BETWEEN"), STARTS_WITH("STARTS WITH"), CONTAINS("CONTAINS");
+
+        private final String operator;
+
+        Kind(String operator) {
+            this.operator = operator;
+        }
+    }
+
+    private Condition(Kind kind, Object... operands) {
+        this.kind = kind;
+        this.operands = operands;
+    }
+
+    /**
+     * Field value is equal to value
+     *
+     * @param value value to compare with
+     * @return condition
+     */
+    public static Condition eq(Object value) {
+        return new Condition(Kind.EQ, TableIndex.normalize(value));
+    }
+
+    /**
+     * Field value is not null and it is not equal to value
+     *
+     * @param value value to compare with
+     * @return condition
+     */
+    public static Condition ne(Object value) {
+        return new Condition(Kind.NE, TableIndex.normalize(value));
+    }
+
+    /**
+     * Field value is equal to one of values
+     *
+     * @param values values to compare with
+     * @return condition
+     */
+    public static Condition in(Object... values) {
+        Object[] operands = new Object[values.length];
+        for (int i = 0; i < values.length; i++) {
+            operands[i] = TableIndex.normalize(values[i]);
+        }
+        return new Condition(Kind.IN, operands);
+    }
+
+    /**
+     * Field value is null
+     *
+     * @return condition
+     */
+    public static Condition isNull() {
+        return new Condition(Kind.IS_NULL, NO_OPERANDS);
+    }
+
+    /**
+     * Field value is not null
+     *
+     * @return condition
+     */
+    public static Condition isNotNull() {
+        return new Condition(Kind.IS_NOT_NULL, NO_OPERANDS);
+    }
+
+    /**
+     * Field value is less than value
+     *
+     * @param value value to compare with
+     * @return condition
+     */
+    public static Condition lt(Object value) {
+        return new Condition(Kind.LT, TableIndex.normalize(value));
+    }
+
+    /**
+     * Field value is less than or equal to value
+     *
+     * @param value value to compare with
+     * @return condition
+     */
+    public static Condition le(Object value) {
+        return new Condition(Kind.LE, TableIndex.normalize(value));
+    }
+
+    /**
+     * Field value is greater than value
+     *
+     * @param value value to compare with
+     * @return condition
+     */
+    public static Condition gt(Object value) {
+        return new Condition(Kind.GT, TableIndex.normalize(value));
+    }
+
+    /**
+     * Field value is greater than or equal to value
+     *
+     * @param value value to compare with
+     * @return condition
+     */
+    public static Condition ge(Object value) {
+        return new Condition(Kind.GE, TableIndex.normalize(value));
+    }
+
+    /**
+     * Field value is between lower and upper bounds inclusive
+     *
+     * @param from lower bound
+     * @param to upper bound
+     * @return condition
+     */
+    public static Condition between(Object from, Object to) {
+        return new Condition(Kind.BETWEEN, TableIndex.normalize(from), TableIndex.normalize(to));
+    }
+
+    /**
+     * String field value starts with prefix. Prefix is literal text, it has no wildcards.
+     *
+     * @param prefix prefix
+     * @return condition
+     */
+    public static Condition startsWith(String prefix) {
+        return new Condition(Kind.STARTS_WITH, prefix);
+    }
+
+    /**
+     * Collection or array field value contains element
+     *
+     * @param element element to find
+     * @return condition
+     */
+    public static Condition contains(Object element) {
+        return new Condition(Kind.CONTAINS, element);
+    }
+
+    /**
+     * Check if field value matches condition
+     *
+     * @param value field value
+     * @return true if value matches condition
+     */
+    public boolean test(Object value) {
+        switch (kind) {
+            case IS_NULL:
+                return value == null;
+            case IS_NOT_NULL:
+                return value != null;
+            case CONTAINS:
+                return TweeFunctions.arrayContains(value, operands[0]);
+            case STARTS_WITH:
+                return value != null && operands[0] != null && value.toString().startsWith((String) operands[0]);
+            default:
+                break;
+        }
+        if (value == null) {
+            return false;
+        }
+        Object fieldValue = TableIndex.normalize(value);
+        switch (kind) {
+            case EQ:
+                return fieldValue.equals(operands[0]) || isEqualNumber(fieldValue, operands[0]);
+            case NE:
+                return operands[0] != null && !fieldValue.equals(operands[0]) && !isEqualNumber(fieldValue, operands[0]);
+            case IN:
+                for (Object operand : operands) {
+                    if (fieldValue.equals(operand) || isEqualNumber(fieldValue, operand)) {
+                        return true;
+                    }
+                }
+                return false;
+            case LT:
+                return operands[0] != null && compare(fieldValue, operands[0]) < 0;
+            case LE:
+                return operands[0] != null && compare(fieldValue, operands[0]) <= 0;
+            case GT:
+                return operands[0] != null && compare(fieldValue, operands[0]) > 0;
+            case GE:
+                return operands[0] != null && compare(fieldValue, operands[0]) >= 0;
+            case BETWEEN:
+                return operands[0] != null && operands[1] != null
+                        && compare(fieldValue, operands[0]) >= 0 && compare(fieldValue, operands[1]) <= 0;
+            default:
+                throw new IllegalStateException("unknown condition " + kind);
+        }
+    }
+
+    /**
+     * Create index lookup that answers condition
+     *
+     * @param index index over condition field
+     * @param lookupOperands list to collect index lookup operands
+     * @return index lookup or null if condition is not answered by index
+     */
+    IndexLookup toLookup(TableIndex index, List<Object> lookupOperands) {
+        if (index instanceof BitmapIndex) {
+            BitmapIndex bitmapIndex = (BitmapIndex) index;
+            switch (kind) {
+                case EQ:
+                    return BitmapLookup.equalTo(bitmapIndex, addOperand(lookupOperands, operands[0]));
+                case NE:
+                    return BitmapLookup.notEqualTo(bitmapIndex, addOperand(lookupOperands, operands[0]));
+                case IN:
+                    List<BitmapLookup> lookups = new ArrayList<>(operands.length);
+                    for (Object operand : operands) {
+                        lookups.add(BitmapLookup.equalTo(bitmapIndex, addOperand(lookupOperands, operand)));
+                    }
+                    return lookups.isEmpty() ? null : BitmapLookup.or(lookups);
+                case IS_NULL:
+                    return BitmapLookup.isNull(bitmapIndex);
+                case IS_NOT_NULL:
+                    return BitmapLookup.isNotNull(bitmapIndex);
+                default:
+                    return null;
+            }
+        }
+        if (index instanceof PrefixIndex && kind == Kind.STARTS_WITH) {
+            return BitmapLookup.startsWith((PrefixIndex) index, addOperand(lookupOperands, operands[0]), false);
+        }
+        if (index instanceof InvertedIndex && kind == Kind.CONTAINS) {
+            return ((InvertedIndex) index).contains(addOperand(lookupOperands, operands[0]));
+        }
+        return null;
+    }
+
+    private static int addOperand(List<Object> lookupOperands, Object operand) {
+        lookupOperands.add(operand);
+        return lookupOperands.size() - 1;
+    }
+
+    /**
+     * Normalized numbers are longs or doubles, double with fraction is never equal to long
+     * except when double does not fit into long.
+     */
+    private static boolean isEqualNumber(Object value, Object operand) {
+        return value instanceof Number && operand instanceof Number && compare(value, operand) == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compare(Object value, Object operand) {
+        if (value instanceof Long && operand instanceof Long) {
+            return Long.compare((Long) value, (Long) operand);
+        }
+        if (value instanceof Number && operand instanceof Number) {
+            return Double.compare(((Number) value).doubleValue(), ((Number) operand).doubleValue());
+        }
+        if (value instanceof Comparable) {
+            try {
+                return ((Comparable<Object>) value).compareTo(operand);
+            } catch (ClassCastException e) {
+                // fall through to error of incomparable values
+            }
+        }
+        throw new IllegalArgumentException("value of " + value.getClass().getName() + " cannot be compared with " + operand.getClass().getName());
+    }
+
+    @Override
+    public String toString() {
+        switch (operands.length) {
+            case 0:
+                return kind.operator;
+            case 1:
+                return kind.operator + " " + operands[0];
+            default:
+                return kind.operator + " " + Arrays.toString(operands);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.github.darrmirr.tweecache.query;
+
+import java.lang.reflect.Field;
+
+/**
+ * Comparison of table row field with operand value or null check of table row field.
+ */
+final class FilterCondition {
+    private final Field field;
+    private final int fieldIndex;
+    private final Operator operator;
+    private final int operand;
+
+    /**
+     * Create condition
+     *
+     * @param field table row field
+     * @param fieldIndex index of field at table row type
+     * @param operator comparison operator
+     * @param operand index of operand value or -1 if operator has no operand
+     */
+    FilterCondition(Field field, int fieldIndex, Operator operator, int operand) {
+        this.field = field;
+        this.fieldIndex = fieldIndex;
+        this.operator = operator;
+        this.operand = operand;
+    }
+
+    Field getField() {
+        return field;
+    }
+
+    int getFieldIndex() {
+        return fieldIndex;
+    }
+
+    Operator getOperator() {
+        return operator;
+    }
+
+    int getOperand() {
+        return operand;
+    }
+
+    /**
+     * Shape of condition that does not depend on operand values
+     *
+     * @return condition shape
+     */
+    String shape() {
+        return field.getName() + " " + operator.getSymbol() + (operand >= 0 ? " $" + operand : "");
+    }
+
+    @Override
+    public String toString() {
+        return shape();
+    }
+
+    /**
+     * Comparison operators supported by SQL-query fast path
+     */
+    enum Operator {
+        EQ("="), NE("<>"), LT("<"), LE("<="), GT(">"), GE(">="), IS_NULL("IS NULL"), IS_NOT_NULL("IS NOT NULL");
+
+        private final String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+
+        String getSymbol() {
+            return symbol;
+        }
+
+        boolean hasOperand() {
+            return this != IS_NULL && this != IS_NOT_NULL;
+        }
+
+        /**
+         * Check comparison result
+         *
+         * @param comparison result of comparison of field value with operand value
+         * @return true if comparison result satisfies operator
+         */
+        boolean test(int comparison) {
+            switch (this) {
+                case EQ:
+                    return comparison == 0;
+                case NE:
+                    return comparison != 0;
+                case LT:
+                    return comparison < 0;
+                case LE:
+                    return comparison <= 0;
+                case GT:
+                    return comparison > 0;
+                case GE:
+                    return comparison >= 0;
+                default:
+                    throw new IllegalStateException("operator " + this + " does not compare values");
+            }
+        }
+
+        /**
+         * Compare floating point values the same way as Java and SQL do, e.g. {@code 0.0 = -0.0} is true and any comparison with NaN except {@code <>} is false
+         *
+         * @param value field value
+         * @param operand operand value
+         * @return true if values satisfy operator
+         */
+        boolean test(double value, double operand) {
+            switch (this) {
+                case EQ:
+                    return value == operand;
+                case NE:
+                    return value != operand;
+                case LT:
+                    return value < operand;
+                case LE:
+                    return value <= operand;
+                case GT:
+                    return value > operand;
+                case GE:
+                    return value >= operand;
+                default:
+                    throw new IllegalStateException("operator " + this + " does not compare values");
+            }
+        }
+    }
+}
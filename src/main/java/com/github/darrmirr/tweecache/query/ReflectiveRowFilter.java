@@ -0,0 +1,70 @@
+package com.github.darrmirr.tweecache.query;
+
+import com.github.darrmirr.tweecache.accessor.RowAccessor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Row filter that reads table row fields by {@link RowAccessor}.
+ *
+ * It is used if filter could not be generated for table row class.
+ */
+class ReflectiveRowFilter implements RowFilter {
+    private final RowAccessor rowAccessor;
+    private final FilterCondition[] conditions;
+    private final RowFilters.ValueType[] valueTypes;
+
+    ReflectiveRowFilter(RowAccessor rowAccessor, List<FilterCondition> conditions) {
+        this.rowAccessor = rowAccessor;
+        this.conditions = conditions.toArray(new FilterCondition[0]);
+        this.valueTypes = new RowFilters.ValueType[this.conditions.length];
+        for (int i = 0; i < this.conditions.length; i++) {
+            valueTypes[i] = RowFilters.ValueType.of(this.conditions[i].getField().getType());
+        }
+    }
+
+    @Override
+    public boolean test(Object row, Object[] operands) {
+        for (int i = 0; i < conditions.length; i++) {
+            if (!test(row, conditions[i], valueTypes[i], operands)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean test(Object row, FilterCondition condition, RowFilters.ValueType valueType, Object[] operands) {
+        Object value = rowAccessor.get(row, condition.getFieldIndex());
+        switch (condition.getOperator()) {
+            case IS_NULL:
+                return value == null;
+            case IS_NOT_NULL:
+                return value != null;
+            default:
+                break;
+        }
+        if (value == null) {
+            return false;
+        }
+        Object operand = operands[condition.getOperand()];
+        int comparison;
+        switch (valueType) {
+            case INTEGRAL:
+                comparison = RowFilters.compareLong(((Number) value).longValue(), operand);
+                break;
+            case FLOATING:
+                return condition.getOperator().test(((Number) value).doubleValue(), (Double) operand);
+            case DECIMAL:
+                comparison = RowFilters.compareDecimal((BigDecimal) value, operand);
+                break;
+            case STRING:
+                comparison = RowFilters.compareString((String) value, operand);
+                break;
+            default:
+                comparison = RowFilters.compareBoolean((Boolean) value, operand);
+                break;
+        }
+        return condition.getOperator().test(comparison);
+    }
+}
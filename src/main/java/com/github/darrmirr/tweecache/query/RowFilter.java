@@ -0,0 +1,20 @@
+package com.github.darrmirr.tweecache.query;
+
+/**
+ * Row filter checks table row against conditions of simple SQL-query.
+ *
+ * Filter is created once per query shape, values compared with table row fields are passed on each check.
+ * Numeric operand is {@link Long} or {@link Double}, string operand is {@link String} and boolean operand is {@link Boolean}.
+ * Operand is never null.
+ */
+public interface RowFilter {
+
+    /**
+     * Check if table row matches all conditions
+     *
+     * @param row table row
+     * @param operands operand values of conditions
+     * @return true if row matches conditions
+     */
+    boolean test(Object row, Object[] operands);
+}
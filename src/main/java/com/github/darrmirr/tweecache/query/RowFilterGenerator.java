@@ -0,0 +1,146 @@
+package com.github.darrmirr.tweecache.query;
+
+import com.github.darrmirr.tweecache.util.ClassDeclaration;
+import com.github.darrmirr.tweecache.util.ClassFactory;
+import com.github.darrmirr.tweecache.util.ClassUtils;
+import com.github.darrmirr.tweecache.util.Result;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates {@link RowFilter} implementation for conditions over table row fields at runtime.
+ *
+ * Generated filter reads fields directly and compares primitive fields without boxing.
+ * Filter could be generated for public class.
+ *
+ * Generated source does not use generics and autoboxing in order to be compatible with Janino compiler.
+ */
+class RowFilterGenerator {
+    private static final String CLASS_NAME_SUFFIX = "RuntimeFilter";
+    private final ClassFactory classFactory = ClassFactory.INSTANCE;
+    private final AtomicLong classCounter = new AtomicLong();
+
+    /**
+     * Generate and compile row filter
+     *
+     * @param tableClass table row class
+     * @param conditions conditions over table row fields
+     * @return row filter instance
+     */
+    Result<RowFilter> generate(Class<?> tableClass, List<FilterCondition> conditions) {
+        String reason = unsupportedReason(tableClass);
+        if (reason != null) {
+            return Result.error(new IllegalArgumentException("error to generate row filter for class '" + tableClass.getName() + "' due to " + reason));
+        }
+        return classFactory
+                .compile(classDeclaration(tableClass, conditions))
+                .flatMap(ClassUtils::newInstance)
+                .map(RowFilter.class::cast);
+    }
+
+    private ClassDeclaration classDeclaration(Class<?> tableClass, List<FilterCondition> conditions) {
+        String tableClassName = tableClass.getCanonicalName();
+        String className = tableClass.getName().replace('.', '_').replace('$', '_') + CLASS_NAME_SUFFIX + classCounter.incrementAndGet();
+
+        StringBuilder test = new StringBuilder();
+        for (FilterCondition condition : conditions) {
+            if (test.length() > 0) {
+                test.append(" && ");
+            }
+            test.append(expression(condition));
+        }
+        if (test.length() == 0) {
+            test.append("true");
+        }
+
+        ClassDeclaration classDeclaration = new ClassDeclaration(RowFilter.class.getPackage().getName(), className, "public final");
+        classDeclaration.addInterface(RowFilter.class);
+        classDeclaration.addMethod("public boolean test(Object row, Object[] operands) { " +
+                tableClassName + " r = (" + tableClassName + ") row; " +
+                "return " + test + "; " +
+                "}");
+        return classDeclaration;
+    }
+
+    /**
+     * Generate boolean expression of condition
+     *
+     * @param condition condition over table row field
+     * @return java expression
+     */
+    private static String expression(FilterCondition condition) {
+        Field field = condition.getField();
+        Class<?> type = field.getType();
+        String value = "r." + field.getName();
+        switch (condition.getOperator()) {
+            case IS_NULL:
+                return type.isPrimitive() ? "false" : "(" + value + " == null)";
+            case IS_NOT_NULL:
+                return type.isPrimitive() ? "true" : "(" + value + " != null)";
+            default:
+                break;
+        }
+        String operand = "operands[" + condition.getOperand() + "]";
+        RowFilters.ValueType valueType = RowFilters.ValueType.of(type);
+        String comparison;
+        if (valueType == RowFilters.ValueType.STRING && condition.getOperator() == FilterCondition.Operator.EQ) {
+            comparison = value + ".equals(" + operand + ")";
+        } else if (valueType == RowFilters.ValueType.FLOATING) {
+            // primitive comparison keeps SQL semantics of 0.0 = -0.0 and NaN
+            comparison = unbox(type, value) + " " + javaOperator(condition.getOperator()) + " ((Double) " + operand + ").doubleValue()";
+        } else {
+            comparison = "RowFilters." + valueType.compareFunction() + "(" + unbox(type, value) + ", " + operand + ") "
+                    + javaOperator(condition.getOperator()) + " 0";
+        }
+        return type.isPrimitive() ? "(" + comparison + ")" : "(" + value + " != null && " + comparison + ")";
+    }
+
+    /**
+     * Unbox field value explicitly since Janino does not support autoboxing
+     *
+     * @param type field type
+     * @param value field value expression
+     * @return expression of primitive type or field value expression if field is not boxed primitive
+     */
+    private static String unbox(Class<?> type, String value) {
+        if (type == Integer.class || type == Long.class || type == Short.class || type == Byte.class) {
+            return value + ".longValue()";
+        }
+        if (type == Double.class || type == Float.class) {
+            return value + ".doubleValue()";
+        }
+        if (type == Boolean.class) {
+            return value + ".booleanValue()";
+        }
+        return value;
+    }
+
+    private static String javaOperator(FilterCondition.Operator operator) {
+        switch (operator) {
+            case EQ:
+                return "==";
+            case NE:
+                return "!=";
+            default:
+                return operator.getSymbol();
+        }
+    }
+
+    /**
+     * Check if filter could be generated for table row class
+     *
+     * @param tableClass table row class
+     * @return reason why filter could not be generated or null if it could be generated
+     */
+    private String unsupportedReason(Class<?> tableClass) {
+        for (Class<?> currentClass = tableClass; currentClass != null; currentClass = currentClass.getEnclosingClass()) {
+            if (!Modifier.isPublic(currentClass.getModifiers()) || currentClass.getCanonicalName() == null) {
+                return "class is not public";
+            }
+        }
+        return null;
+    }
+}
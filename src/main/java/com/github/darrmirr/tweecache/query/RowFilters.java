@@ -0,0 +1,229 @@
+package com.github.darrmirr.tweecache.query;
+
+import com.github.darrmirr.tweecache.accessor.RowAccessor;
+import com.github.darrmirr.tweecache.util.Result;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.darrmirr.tweecache.index.TableIndex;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Factory to obtain {@link RowFilter} for conditions over table row fields.
+ *
+ * Filter is looked up in the following order:
+ *     - filter generated and compiled at runtime
+ *     - reflective filter if filter could not be generated (e.g. class is not public) or too many filters were generated
+ *
+ * Filter is created once per table row class and condition shape. Class also holds comparison functions invoked by generated filters.
+ */
+public final class RowFilters {
+    private static final Logger log = LoggerFactory.getLogger(RowFilters.class);
+    /**
+     * Generated classes are never unloaded, number of generated filters is bounded in case of unexpected variety of SQL-queries
+     */
+    private static final int MAX_GENERATED_FILTERS = 1024;
+    private static final RowFilterGenerator generator = new RowFilterGenerator();
+    private static final Map<String, RowFilter> filters = new ConcurrentHashMap<>();
+
+    private RowFilters() { }
+
+    /**
+     * Get row filter that checks all conditions
+     *
+     * @param tableClass table row class
+     * @param rowAccessor accessor of table row fields
+     * @param conditions conditions over table row fields
+     * @return row filter
+     */
+    static RowFilter of(Class<?> tableClass, RowAccessor rowAccessor, List<FilterCondition> conditions) {
+        String shape = tableClass.getName() + ": " + conditions
+                .stream()
+                .map(FilterCondition::shape)
+                .collect(Collectors.joining(" AND "));
+        RowFilter filter = filters.get(shape);
+        if (filter != null) {
+            return filter;
+        }
+        if (filters.size() >= MAX_GENERATED_FILTERS) {
+            return new ReflectiveRowFilter(rowAccessor, conditions);
+        }
+        return filters.computeIfAbsent(shape, key -> {
+            Result<RowFilter> generated = generator.generate(tableClass, conditions);
+            generated
+                    .error()
+                    .ifPresent(throwable -> log.debug("use reflective row filter for '{}' due to '{}'", key, throwable.getMessage()));
+            return generated
+                    .get()
+                    .orElseGet(() -> new ReflectiveRowFilter(rowAccessor, conditions));
+        });
+    }
+
+    /**
+     * Compare integral field value with numeric operand. Field value is compared with {@link Long} and {@link BigDecimal}
+     * operand exactly, it is converted to double to be compared with {@link Double} operand as SQL does.
+     *
+     * @param value field value
+     * @param operand {@link Long}, {@link BigDecimal} or {@link Double} operand that is not NaN
+     * @return comparison result
+     */
+    public static int compareLong(long value, Object operand) {
+        if (operand instanceof Long) {
+            return Long.compare(value, (Long) operand);
+        }
+        if (operand instanceof BigDecimal) {
+            return BigDecimal.valueOf(value).compareTo((BigDecimal) operand);
+        }
+        return compareDouble((double) value, (Double) operand);
+    }
+
+    /**
+     * Compare decimal field value with numeric operand. Field value is compared with {@link Long} and {@link BigDecimal}
+     * operand exactly, it is converted to double to be compared with {@link Double} operand as SQL does.
+     *
+     * @param value field value
+     * @param operand {@link Long}, {@link BigDecimal} or {@link Double} operand that is not NaN
+     * @return comparison result
+     */
+    public static int compareDecimal(BigDecimal value, Object operand) {
+        if (operand instanceof Long) {
+            return value.compareTo(BigDecimal.valueOf((Long) operand));
+        }
+        if (operand instanceof BigDecimal) {
+            return value.compareTo((BigDecimal) operand);
+        }
+        return compareDouble(value.doubleValue(), (Double) operand);
+    }
+
+    /**
+     * Compare double values by {@code <} and {@code >}, so that {@code 0.0} is equal to {@code -0.0} unlike {@link Double#compare(double, double)}
+     */
+    private static int compareDouble(double value, double operand) {
+        return value < operand ? -1 : value > operand ? 1 : 0;
+    }
+
+    /**
+     * Compare string field value with string operand
+     *
+     * @param value field value
+     * @param operand {@link String} operand
+     * @return comparison result
+     */
+    public static int compareString(String value, Object operand) {
+        return value.compareTo((String) operand);
+    }
+
+    /**
+     * Compare boolean field value with boolean operand
+     *
+     * @param value field value
+     * @param operand {@link Boolean} operand
+     * @return comparison result
+     */
+    public static int compareBoolean(boolean value, Object operand) {
+        return Boolean.compare(value, (Boolean) operand);
+    }
+
+    /**
+     * Types of table row fields supported by SQL-query fast path
+     */
+    enum ValueType {
+        INTEGRAL, FLOATING, DECIMAL, STRING, BOOLEAN;
+
+        /**
+         * Get value type of field type
+         *
+         * @param type field type
+         * @return value type or null if field type is not supported
+         */
+        static ValueType of(Class<?> type) {
+            if (type == int.class || type == long.class || type == short.class || type == byte.class
+                    || type == Integer.class || type == Long.class || type == Short.class || type == Byte.class) {
+                return INTEGRAL;
+            }
+            if (type == double.class || type == float.class || type == Double.class || type == Float.class) {
+                return FLOATING;
+            }
+            if (type == BigDecimal.class) {
+                return DECIMAL;
+            }
+            if (type == String.class) {
+                return STRING;
+            }
+            if (type == boolean.class || type == Boolean.class) {
+                return BOOLEAN;
+            }
+            return null;
+        }
+
+        /**
+         * Name of comparison function of {@link RowFilters}. Floating point field value is compared by Java operators.
+         *
+         * @return function name
+         */
+        String compareFunction() {
+            switch (this) {
+                case INTEGRAL:
+                    return "compareLong";
+                case DECIMAL:
+                    return "compareDecimal";
+                case STRING:
+                    return "compareString";
+                default:
+                    return "compareBoolean";
+            }
+        }
+
+        /**
+         * Convert SQL-query literal or parameter value to operand that is compared with field value of this type.
+         *
+         * Numbers are kept exact as {@link Long} or {@link BigDecimal}, floating point numbers are kept as {@link Double}.
+         * Operand of floating point field is {@link Double} always. NaN is not comparable with integral and decimal field value.
+         *
+         * @param value literal or parameter value
+         * @return operand value or null if value is not comparable with field value of this type
+         */
+        Object operand(Object value) {
+            switch (this) {
+                case STRING:
+                    Object string = TableIndex.normalize(value);
+                    return string instanceof String ? string : null;
+                case BOOLEAN:
+                    return value instanceof Boolean ? value : null;
+                case FLOATING:
+                    Number number = exact(value);
+                    return number != null ? (Object) number.doubleValue() : null;
+                default:
+                    Number exact = exact(value);
+                    return exact instanceof Double && ((Double) exact).isNaN() ? null : exact;
+            }
+        }
+
+        private static Number exact(Object value) {
+            if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+                return ((Number) value).longValue();
+            }
+            if (value instanceof BigInteger) {
+                value = new BigDecimal((BigInteger) value);
+            }
+            if (value instanceof BigDecimal) {
+                BigDecimal decimal = (BigDecimal) value;
+                try {
+                    return decimal.longValueExact();
+                } catch (ArithmeticException e) {
+                    return decimal;
+                }
+            }
+            if (value instanceof Float || value instanceof Double) {
+                return ((Number) value).doubleValue();
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,1141 @@
+package com.github.darrmirr.tweecache.query;
+
+import com.github.darrmirr.tweecache.accessor.RowAccessor;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Date;
+import java.sql.NClob;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Read-only forward-only {@link ResultSet} over table row objects.
+ *
+ * Result set allows row mappers written for SQL-queries to read matched rows without Apache Calcite and JDBC driver.
+ * Columns are public fields of table row class, primitive fields are read by typed methods of {@link RowAccessor} without boxing.
+ * Column labels are case-insensitive. Methods that update rows, move cursor backward or read LOB and date values
+ * throw {@link SQLFeatureNotSupportedException}.
+ */
+final class RowResultSet implements ResultSet {
+    private final RowResultSetMetaData metaData;
+    private final RowAccessor rowAccessor;
+    private final Iterator<Object> rows;
+    private Object row;
+    private int rowNumber;
+    private boolean wasNull;
+    private boolean isClosed;
+
+    /**
+     * Create result set
+     *
+     * @param metaData result set metadata
+     * @param rowAccessor accessor of table row fields
+     * @param rows table rows
+     */
+    RowResultSet(RowResultSetMetaData metaData, RowAccessor rowAccessor, Iterator<Object> rows) {
+        this.metaData = metaData;
+        this.rowAccessor = rowAccessor;
+        this.rows = rows;
+    }
+
+    @Override
+    public boolean next() {
+        if (isClosed || !rows.hasNext()) {
+            row = null;
+            return false;
+        }
+        row = rows.next();
+        rowNumber++;
+        return true;
+    }
+
+    @Override
+    public void close() {
+        isClosed = true;
+        row = null;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return isClosed;
+    }
+
+    @Override
+    public boolean wasNull() {
+        return wasNull;
+    }
+
+    @Override
+    public int findColumn(String columnLabel) throws SQLException {
+        return metaData.findColumn(columnLabel);
+    }
+
+    @Override
+    public ResultSetMetaData getMetaData() {
+        return metaData;
+    }
+
+    @Override
+    public Object getObject(int columnIndex) throws SQLException {
+        return value(columnIndex);
+    }
+
+    @Override
+    public Object getObject(String columnLabel) throws SQLException {
+        return getObject(findColumn(columnLabel));
+    }
+
+    @Override
+    public <T> T getObject(int columnIndex, Class<T> type) throws SQLException {
+        Object value = value(columnIndex);
+        if (value == null || type.isInstance(value)) {
+            return type.cast(value);
+        }
+        if (type == String.class) {
+            return type.cast(value.toString());
+        }
+        if (type == Boolean.class) {
+            return type.cast(getBoolean(columnIndex));
+        }
+        if (type == BigDecimal.class) {
+            return type.cast(getBigDecimal(columnIndex));
+        }
+        Number number = number(value);
+        if (type == Long.class) {
+            return type.cast(number.longValue());
+        }
+        if (type == Integer.class) {
+            return type.cast(number.intValue());
+        }
+        if (type == Short.class) {
+            return type.cast(number.shortValue());
+        }
+        if (type == Byte.class) {
+            return type.cast(number.byteValue());
+        }
+        if (type == Double.class) {
+            return type.cast(number.doubleValue());
+        }
+        if (type == Float.class) {
+            return type.cast(number.floatValue());
+        }
+        throw new SQLException("error to convert value of column " + columnIndex + " to " + type.getName());
+    }
+
+    @Override
+    public <T> T getObject(String columnLabel, Class<T> type) throws SQLException {
+        return getObject(findColumn(columnLabel), type);
+    }
+
+    @Override
+    public String getString(int columnIndex) throws SQLException {
+        Object value = value(columnIndex);
+        return value == null ? null : value.toString();
+    }
+
+    @Override
+    public String getString(String columnLabel) throws SQLException {
+        return getString(findColumn(columnLabel));
+    }
+
+    @Override
+    public boolean getBoolean(int columnIndex) throws SQLException {
+        Object value = value(columnIndex);
+        if (value == null) {
+            return false;
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        if (value instanceof String) {
+            String string = ((String) value).trim();
+            return string.equalsIgnoreCase("true") || string.equals("1");
+        }
+        return number(value).doubleValue() != 0;
+    }
+
+    @Override
+    public boolean getBoolean(String columnLabel) throws SQLException {
+        return getBoolean(findColumn(columnLabel));
+    }
+
+    @Override
+    public byte getByte(int columnIndex) throws SQLException {
+        return (byte) getLong(columnIndex);
+    }
+
+    @Override
+    public byte getByte(String columnLabel) throws SQLException {
+        return getByte(findColumn(columnLabel));
+    }
+
+    @Override
+    public short getShort(int columnIndex) throws SQLException {
+        return (short) getLong(columnIndex);
+    }
+
+    @Override
+    public short getShort(String columnLabel) throws SQLException {
+        return getShort(findColumn(columnLabel));
+    }
+
+    @Override
+    public int getInt(int columnIndex) throws SQLException {
+        Class<?> type = field(columnIndex).getType();
+        if (type == int.class || type == short.class || type == byte.class) {
+            wasNull = false;
+            return rowAccessor.getInt(row, columnIndex - 1);
+        }
+        return (int) getLong(columnIndex);
+    }
+
+    @Override
+    public int getInt(String columnLabel) throws SQLException {
+        return getInt(findColumn(columnLabel));
+    }
+
+    @Override
+    public long getLong(int columnIndex) throws SQLException {
+        Class<?> type = field(columnIndex).getType();
+        if (type == long.class || type == int.class || type == short.class || type == byte.class) {
+            wasNull = false;
+            return rowAccessor.getLong(row, columnIndex - 1);
+        }
+        if (type == double.class || type == float.class) {
+            wasNull = false;
+            return (long) rowAccessor.getDouble(row, columnIndex - 1);
+        }
+        Number number = number(value(columnIndex));
+        return number == null ? 0 : number.longValue();
+    }
+
+    @Override
+    public long getLong(String columnLabel) throws SQLException {
+        return getLong(findColumn(columnLabel));
+    }
+
+    @Override
+    public float getFloat(int columnIndex) throws SQLException {
+        return (float) getDouble(columnIndex);
+    }
+
+    @Override
+    public float getFloat(String columnLabel) throws SQLException {
+        return getFloat(findColumn(columnLabel));
+    }
+
+    @Override
+    public double getDouble(int columnIndex) throws SQLException {
+        Class<?> type = field(columnIndex).getType();
+        if (type.isPrimitive() && type != boolean.class) {
+            wasNull = false;
+            return rowAccessor.getDouble(row, columnIndex - 1);
+        }
+        Number number = number(value(columnIndex));
+        return number == null ? 0 : number.doubleValue();
+    }
+
+    @Override
+    public double getDouble(String columnLabel) throws SQLException {
+        return getDouble(findColumn(columnLabel));
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(int columnIndex) throws SQLException {
+        Object value = value(columnIndex);
+        if (value == null || value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value ? BigDecimal.ONE : BigDecimal.ZERO;
+        }
+        return decimal(value);
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(String columnLabel) throws SQLException {
+        return getBigDecimal(findColumn(columnLabel));
+    }
+
+    @Override
+    public int getRow() {
+        return row == null ? 0 : rowNumber;
+    }
+
+    @Override
+    public boolean isBeforeFirst() {
+        return rowNumber == 0 && rows.hasNext();
+    }
+
+    @Override
+    public boolean isFirst() {
+        return row != null && rowNumber == 1;
+    }
+
+    @Override
+    public int getType() {
+        return TYPE_FORWARD_ONLY;
+    }
+
+    @Override
+    public int getConcurrency() {
+        return CONCUR_READ_ONLY;
+    }
+
+    @Override
+    public int getHoldability() {
+        return CLOSE_CURSORS_AT_COMMIT;
+    }
+
+    @Override
+    public int getFetchDirection() {
+        return FETCH_FORWARD;
+    }
+
+    @Override
+    public void setFetchDirection(int direction) throws SQLException {
+        if (direction != FETCH_FORWARD) {
+            throw unsupported("setFetchDirection");
+        }
+    }
+
+    @Override
+    public int getFetchSize() {
+        return 0;
+    }
+
+    @Override
+    public void setFetchSize(int rows) {
+        // rows are read straight from table storage, fetch size makes no sense
+    }
+
+    @Override
+    public Statement getStatement() {
+        return null;
+    }
+
+    @Override
+    public SQLWarning getWarnings() {
+        return null;
+    }
+
+    @Override
+    public void clearWarnings() {
+        // result set has no warnings
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("result set is not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+    /**
+     * Get table row field of column and check that cursor is on row
+     *
+     * @param columnIndex column index starting from 1
+     * @return table row field
+     * @throws SQLException if cursor is not on row or column index is out of range
+     */
+    private Field field(int columnIndex) throws SQLException {
+        if (row == null) {
+            throw new SQLException(isClosed ? "result set is closed" : "cursor is not on row");
+        }
+        return metaData.field(columnIndex);
+    }
+
+    private Object value(int columnIndex) throws SQLException {
+        field(columnIndex);
+        Object value = rowAccessor.get(row, columnIndex - 1);
+        wasNull = value == null;
+        return value;
+    }
+
+    private static Number number(Object value) throws SQLException {
+        if (value == null || value instanceof Number) {
+            return (Number) value;
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value ? 1 : 0;
+        }
+        return decimal(value);
+    }
+
+    private static BigDecimal decimal(Object value) throws SQLException {
+        try {
+            return new BigDecimal(value.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new SQLException("error to convert '" + value + "' to number", e);
+        }
+    }
+
+    private static SQLFeatureNotSupportedException unsupported(String method) {
+        return new SQLFeatureNotSupportedException(RowResultSet.class.getSimpleName() + " does not support " + method);
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(int columnIndex, int scale) throws SQLException {
+        throw unsupported("getBigDecimal");
+    }
+
+    @Override
+    public byte[] getBytes(int columnIndex) throws SQLException {
+        throw unsupported("getBytes");
+    }
+
+    @Override
+    public Date getDate(int columnIndex) throws SQLException {
+        throw unsupported("getDate");
+    }
+
+    @Override
+    public Time getTime(int columnIndex) throws SQLException {
+        throw unsupported("getTime");
+    }
+
+    @Override
+    public Timestamp getTimestamp(int columnIndex) throws SQLException {
+        throw unsupported("getTimestamp");
+    }
+
+    @Override
+    public InputStream getAsciiStream(int columnIndex) throws SQLException {
+        throw unsupported("getAsciiStream");
+    }
+
+    @Override
+    public InputStream getUnicodeStream(int columnIndex) throws SQLException {
+        throw unsupported("getUnicodeStream");
+    }
+
+    @Override
+    public InputStream getBinaryStream(int columnIndex) throws SQLException {
+        throw unsupported("getBinaryStream");
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(String columnLabel, int scale) throws SQLException {
+        throw unsupported("getBigDecimal");
+    }
+
+    @Override
+    public byte[] getBytes(String columnLabel) throws SQLException {
+        throw unsupported("getBytes");
+    }
+
+    @Override
+    public Date getDate(String columnLabel) throws SQLException {
+        throw unsupported("getDate");
+    }
+
+    @Override
+    public Time getTime(String columnLabel) throws SQLException {
+        throw unsupported("getTime");
+    }
+
+    @Override
+    public Timestamp getTimestamp(String columnLabel) throws SQLException {
+        throw unsupported("getTimestamp");
+    }
+
+    @Override
+    public InputStream getAsciiStream(String columnLabel) throws SQLException {
+        throw unsupported("getAsciiStream");
+    }
+
+    @Override
+    public InputStream getUnicodeStream(String columnLabel) throws SQLException {
+        throw unsupported("getUnicodeStream");
+    }
+
+    @Override
+    public InputStream getBinaryStream(String columnLabel) throws SQLException {
+        throw unsupported("getBinaryStream");
+    }
+
+    @Override
+    public String getCursorName() throws SQLException {
+        throw unsupported("getCursorName");
+    }
+
+    @Override
+    public Reader getCharacterStream(int columnIndex) throws SQLException {
+        throw unsupported("getCharacterStream");
+    }
+
+    @Override
+    public Reader getCharacterStream(String columnLabel) throws SQLException {
+        throw unsupported("getCharacterStream");
+    }
+
+    @Override
+    public boolean isAfterLast() throws SQLException {
+        throw unsupported("isAfterLast");
+    }
+
+    @Override
+    public boolean isLast() throws SQLException {
+        throw unsupported("isLast");
+    }
+
+    @Override
+    public void beforeFirst() throws SQLException {
+        throw unsupported("beforeFirst");
+    }
+
+    @Override
+    public void afterLast() throws SQLException {
+        throw unsupported("afterLast");
+    }
+
+    @Override
+    public boolean first() throws SQLException {
+        throw unsupported("first");
+    }
+
+    @Override
+    public boolean last() throws SQLException {
+        throw unsupported("last");
+    }
+
+    @Override
+    public boolean absolute(int row) throws SQLException {
+        throw unsupported("absolute");
+    }
+
+    @Override
+    public boolean relative(int rows) throws SQLException {
+        throw unsupported("relative");
+    }
+
+    @Override
+    public boolean previous() throws SQLException {
+        throw unsupported("previous");
+    }
+
+    @Override
+    public boolean rowUpdated() throws SQLException {
+        throw unsupported("rowUpdated");
+    }
+
+    @Override
+    public boolean rowInserted() throws SQLException {
+        throw unsupported("rowInserted");
+    }
+
+    @Override
+    public boolean rowDeleted() throws SQLException {
+        throw unsupported("rowDeleted");
+    }
+
+    @Override
+    public void updateNull(int columnIndex) throws SQLException {
+        throw unsupported("updateNull");
+    }
+
+    @Override
+    public void updateBoolean(int columnIndex, boolean x) throws SQLException {
+        throw unsupported("updateBoolean");
+    }
+
+    @Override
+    public void updateByte(int columnIndex, byte x) throws SQLException {
+        throw unsupported("updateByte");
+    }
+
+    @Override
+    public void updateShort(int columnIndex, short x) throws SQLException {
+        throw unsupported("updateShort");
+    }
+
+    @Override
+    public void updateInt(int columnIndex, int x) throws SQLException {
+        throw unsupported("updateInt");
+    }
+
+    @Override
+    public void updateLong(int columnIndex, long x) throws SQLException {
+        throw unsupported("updateLong");
+    }
+
+    @Override
+    public void updateFloat(int columnIndex, float x) throws SQLException {
+        throw unsupported("updateFloat");
+    }
+
+    @Override
+    public void updateDouble(int columnIndex, double x) throws SQLException {
+        throw unsupported("updateDouble");
+    }
+
+    @Override
+    public void updateBigDecimal(int columnIndex, BigDecimal x) throws SQLException {
+        throw unsupported("updateBigDecimal");
+    }
+
+    @Override
+    public void updateString(int columnIndex, String x) throws SQLException {
+        throw unsupported("updateString");
+    }
+
+    @Override
+    public void updateBytes(int columnIndex, byte[] x) throws SQLException {
+        throw unsupported("updateBytes");
+    }
+
+    @Override
+    public void updateDate(int columnIndex, Date x) throws SQLException {
+        throw unsupported("updateDate");
+    }
+
+    @Override
+    public void updateTime(int columnIndex, Time x) throws SQLException {
+        throw unsupported("updateTime");
+    }
+
+    @Override
+    public void updateTimestamp(int columnIndex, Timestamp x) throws SQLException {
+        throw unsupported("updateTimestamp");
+    }
+
+    @Override
+    public void updateAsciiStream(int columnIndex, InputStream x, int length) throws SQLException {
+        throw unsupported("updateAsciiStream");
+    }
+
+    @Override
+    public void updateBinaryStream(int columnIndex, InputStream x, int length) throws SQLException {
+        throw unsupported("updateBinaryStream");
+    }
+
+    @Override
+    public void updateCharacterStream(int columnIndex, Reader x, int length) throws SQLException {
+        throw unsupported("updateCharacterStream");
+    }
+
+    @Override
+    public void updateObject(int columnIndex, Object x, int scaleOrLength) throws SQLException {
+        throw unsupported("updateObject");
+    }
+
+    @Override
+    public void updateObject(int columnIndex, Object x) throws SQLException {
+        throw unsupported("updateObject");
+    }
+
+    @Override
+    public void updateNull(String columnLabel) throws SQLException {
+        throw unsupported("updateNull");
+    }
+
+    @Override
+    public void updateBoolean(String columnLabel, boolean x) throws SQLException {
+        throw unsupported("updateBoolean");
+    }
+
+    @Override
+    public void updateByte(String columnLabel, byte x) throws SQLException {
+        throw unsupported("updateByte");
+    }
+
+    @Override
+    public void updateShort(String columnLabel, short x) throws SQLException {
+        throw unsupported("updateShort");
+    }
+
+    @Override
+    public void updateInt(String columnLabel, int x) throws SQLException {
+        throw unsupported("updateInt");
+    }
+
+    @Override
+    public void updateLong(String columnLabel, long x) throws SQLException {
+        throw unsupported("updateLong");
+    }
+
+    @Override
+    public void updateFloat(String columnLabel, float x) throws SQLException {
+        throw unsupported("updateFloat");
+    }
+
+    @Override
+    public void updateDouble(String columnLabel, double x) throws SQLException {
+        throw unsupported("updateDouble");
+    }
+
+    @Override
+    public void updateBigDecimal(String columnLabel, BigDecimal x) throws SQLException {
+        throw unsupported("updateBigDecimal");
+    }
+
+    @Override
+    public void updateString(String columnLabel, String x) throws SQLException {
+        throw unsupported("updateString");
+    }
+
+    @Override
+    public void updateBytes(String columnLabel, byte[] x) throws SQLException {
+        throw unsupported("updateBytes");
+    }
+
+    @Override
+    public void updateDate(String columnLabel, Date x) throws SQLException {
+        throw unsupported("updateDate");
+    }
+
+    @Override
+    public void updateTime(String columnLabel, Time x) throws SQLException {
+        throw unsupported("updateTime");
+    }
+
+    @Override
+    public void updateTimestamp(String columnLabel, Timestamp x) throws SQLException {
+        throw unsupported("updateTimestamp");
+    }
+
+    @Override
+    public void updateAsciiStream(String columnLabel, InputStream x, int length) throws SQLException {
+        throw unsupported("updateAsciiStream");
+    }
+
+    @Override
+    public void updateBinaryStream(String columnLabel, InputStream x, int length) throws SQLException {
+        throw unsupported("updateBinaryStream");
+    }
+
+    @Override
+    public void updateCharacterStream(String columnLabel, Reader x, int length) throws SQLException {
+        throw unsupported("updateCharacterStream");
+    }
+
+    @Override
+    public void updateObject(String columnLabel, Object x, int scaleOrLength) throws SQLException {
+        throw unsupported("updateObject");
+    }
+
+    @Override
+    public void updateObject(String columnLabel, Object x) throws SQLException {
+        throw unsupported("updateObject");
+    }
+
+    @Override
+    public void insertRow() throws SQLException {
+        throw unsupported("insertRow");
+    }
+
+    @Override
+    public void updateRow() throws SQLException {
+        throw unsupported("updateRow");
+    }
+
+    @Override
+    public void deleteRow() throws SQLException {
+        throw unsupported("deleteRow");
+    }
+
+    @Override
+    public void refreshRow() throws SQLException {
+        throw unsupported("refreshRow");
+    }
+
+    @Override
+    public void cancelRowUpdates() throws SQLException {
+        throw unsupported("cancelRowUpdates");
+    }
+
+    @Override
+    public void moveToInsertRow() throws SQLException {
+        throw unsupported("moveToInsertRow");
+    }
+
+    @Override
+    public void moveToCurrentRow() throws SQLException {
+        throw unsupported("moveToCurrentRow");
+    }
+
+    @Override
+    public Object getObject(int columnIndex, Map<String, Class<?>> map) throws SQLException {
+        throw unsupported("getObject");
+    }
+
+    @Override
+    public Ref getRef(int columnIndex) throws SQLException {
+        throw unsupported("getRef");
+    }
+
+    @Override
+    public Blob getBlob(int columnIndex) throws SQLException {
+        throw unsupported("getBlob");
+    }
+
+    @Override
+    public Clob getClob(int columnIndex) throws SQLException {
+        throw unsupported("getClob");
+    }
+
+    @Override
+    public Array getArray(int columnIndex) throws SQLException {
+        throw unsupported("getArray");
+    }
+
+    @Override
+    public Object getObject(String columnLabel, Map<String, Class<?>> map) throws SQLException {
+        throw unsupported("getObject");
+    }
+
+    @Override
+    public Ref getRef(String columnLabel) throws SQLException {
+        throw unsupported("getRef");
+    }
+
+    @Override
+    public Blob getBlob(String columnLabel) throws SQLException {
+        throw unsupported("getBlob");
+    }
+
+    @Override
+    public Clob getClob(String columnLabel) throws SQLException {
+        throw unsupported("getClob");
+    }
+
+    @Override
+    public Array getArray(String columnLabel) throws SQLException {
+        throw unsupported("getArray");
+    }
+
+    @Override
+    public Date getDate(int columnIndex, Calendar cal) throws SQLException {
+        throw unsupported("getDate");
+    }
+
+    @Override
+    public Date getDate(String columnLabel, Calendar cal) throws SQLException {
+        throw unsupported("getDate");
+    }
+
+    @Override
+    public Time getTime(int columnIndex, Calendar cal) throws SQLException {
+        throw unsupported("getTime");
+    }
+
+    @Override
+    public Time getTime(String columnLabel, Calendar cal) throws SQLException {
+        throw unsupported("getTime");
+    }
+
+    @Override
+    public Timestamp getTimestamp(int columnIndex, Calendar cal) throws SQLException {
+        throw unsupported("getTimestamp");
+    }
+
+    @Override
+    public Timestamp getTimestamp(String columnLabel, Calendar cal) throws SQLException {
+        throw unsupported("getTimestamp");
+    }
+
+    @Override
+    public URL getURL(int columnIndex) throws SQLException {
+        throw unsupported("getURL");
+    }
+
+    @Override
+    public URL getURL(String columnLabel) throws SQLException {
+        throw unsupported("getURL");
+    }
+
+    @Override
+    public void updateRef(int columnIndex, Ref x) throws SQLException {
+        throw unsupported("updateRef");
+    }
+
+    @Override
+    public void updateRef(String columnLabel, Ref x) throws SQLException {
+        throw unsupported("updateRef");
+    }
+
+    @Override
+    public void updateBlob(int columnIndex, Blob x) throws SQLException {
+        throw unsupported("updateBlob");
+    }
+
+    @Override
+    public void updateBlob(String columnLabel, Blob x) throws SQLException {
+        throw unsupported("updateBlob");
+    }
+
+    @Override
+    public void updateClob(int columnIndex, Clob x) throws SQLException {
+        throw unsupported("updateClob");
+    }
+
+    @Override
+    public void updateClob(String columnLabel, Clob x) throws SQLException {
+        throw unsupported("updateClob");
+    }
+
+    @Override
+    public void updateArray(int columnIndex, Array x) throws SQLException {
+        throw unsupported("updateArray");
+    }
+
+    @Override
+    public void updateArray(String columnLabel, Array x) throws SQLException {
+        throw unsupported("updateArray");
+    }
+
+    @Override
+    public RowId getRowId(int columnIndex) throws SQLException {
+        throw unsupported("getRowId");
+    }
+
+    @Override
+    public RowId getRowId(String columnLabel) throws SQLException {
+        throw unsupported("getRowId");
+    }
+
+    @Override
+    public void updateRowId(int columnIndex, RowId x) throws SQLException {
+        throw unsupported("updateRowId");
+    }
+
+    @Override
+    public void updateRowId(String columnLabel, RowId x) throws SQLException {
+        throw unsupported("updateRowId");
+    }
+
+    @Override
+    public void updateNString(int columnIndex, String x) throws SQLException {
+        throw unsupported("updateNString");
+    }
+
+    @Override
+    public void updateNString(String columnLabel, String x) throws SQLException {
+        throw unsupported("updateNString");
+    }
+
+    @Override
+    public void updateNClob(int columnIndex, NClob x) throws SQLException {
+        throw unsupported("updateNClob");
+    }
+
+    @Override
+    public void updateNClob(String columnLabel, NClob x) throws SQLException {
+        throw unsupported("updateNClob");
+    }
+
+    @Override
+    public NClob getNClob(int columnIndex) throws SQLException {
+        throw unsupported("getNClob");
+    }
+
+    @Override
+    public NClob getNClob(String columnLabel) throws SQLException {
+        throw unsupported("getNClob");
+    }
+
+    @Override
+    public SQLXML getSQLXML(int columnIndex) throws SQLException {
+        throw unsupported("getSQLXML");
+    }
+
+    @Override
+    public SQLXML getSQLXML(String columnLabel) throws SQLException {
+        throw unsupported("getSQLXML");
+    }
+
+    @Override
+    public void updateSQLXML(int columnIndex, SQLXML x) throws SQLException {
+        throw unsupported("updateSQLXML");
+    }
+
+    @Override
+    public void updateSQLXML(String columnLabel, SQLXML x) throws SQLException {
+        throw unsupported("updateSQLXML");
+    }
+
+    @Override
+    public String getNString(int columnIndex) throws SQLException {
+        throw unsupported("getNString");
+    }
+
+    @Override
+    public String getNString(String columnLabel) throws SQLException {
+        throw unsupported("getNString");
+    }
+
+    @Override
+    public Reader getNCharacterStream(int columnIndex) throws SQLException {
+        throw unsupported("getNCharacterStream");
+    }
+
+    @Override
+    public Reader getNCharacterStream(String columnLabel) throws SQLException {
+        throw unsupported("getNCharacterStream");
+    }
+
+    @Override
+    public void updateNCharacterStream(int columnIndex, Reader x, long length) throws SQLException {
+        throw unsupported("updateNCharacterStream");
+    }
+
+    @Override
+    public void updateNCharacterStream(String columnLabel, Reader x, long length) throws SQLException {
+        throw unsupported("updateNCharacterStream");
+    }
+
+    @Override
+    public void updateAsciiStream(int columnIndex, InputStream x, long length) throws SQLException {
+        throw unsupported("updateAsciiStream");
+    }
+
+    @Override
+    public void updateBinaryStream(int columnIndex, InputStream x, long length) throws SQLException {
+        throw unsupported("updateBinaryStream");
+    }
+
+    @Override
+    public void updateCharacterStream(int columnIndex, Reader x, long length) throws SQLException {
+        throw unsupported("updateCharacterStream");
+    }
+
+    @Override
+    public void updateAsciiStream(String columnLabel, InputStream x, long length) throws SQLException {
+        throw unsupported("updateAsciiStream");
+    }
+
+    @Override
+    public void updateBinaryStream(String columnLabel, InputStream x, long length) throws SQLException {
+        throw unsupported("updateBinaryStream");
+    }
+
+    @Override
+    public void updateCharacterStream(String columnLabel, Reader x, long length) throws SQLException {
+        throw unsupported("updateCharacterStream");
+    }
+
+    @Override
+    public void updateBlob(int columnIndex, InputStream x, long length) throws SQLException {
+        throw unsupported("updateBlob");
+    }
+
+    @Override
+    public void updateBlob(String columnLabel, InputStream x, long length) throws SQLException {
+        throw unsupported("updateBlob");
+    }
+
+    @Override
+    public void updateClob(int columnIndex, Reader x, long length) throws SQLException {
+        throw unsupported("updateClob");
+    }
+
+    @Override
+    public void updateClob(String columnLabel, Reader x, long length) throws SQLException {
+        throw unsupported("updateClob");
+    }
+
+    @Override
+    public void updateNClob(int columnIndex, Reader x, long length) throws SQLException {
+        throw unsupported("updateNClob");
+    }
+
+    @Override
+    public void updateNClob(String columnLabel, Reader x, long length) throws SQLException {
+        throw unsupported("updateNClob");
+    }
+
+    @Override
+    public void updateNCharacterStream(int columnIndex, Reader x) throws SQLException {
+        throw unsupported("updateNCharacterStream");
+    }
+
+    @Override
+    public void updateNCharacterStream(String columnLabel, Reader x) throws SQLException {
+        throw unsupported("updateNCharacterStream");
+    }
+
+    @Override
+    public void updateAsciiStream(int columnIndex, InputStream x) throws SQLException {
+        throw unsupported("updateAsciiStream");
+    }
+
+    @Override
+    public void updateBinaryStream(int columnIndex, InputStream x) throws SQLException {
+        throw unsupported("updateBinaryStream");
+    }
+
+    @Override
+    public void updateCharacterStream(int columnIndex, Reader x) throws SQLException {
+        throw unsupported("updateCharacterStream");
+    }
+
+    @Override
+    public void updateAsciiStream(String columnLabel, InputStream x) throws SQLException {
+        throw unsupported("updateAsciiStream");
+    }
+
+    @Override
+    public void updateBinaryStream(String columnLabel, InputStream x) throws SQLException {
+        throw unsupported("updateBinaryStream");
+    }
+
+    @Override
+    public void updateCharacterStream(String columnLabel, Reader x) throws SQLException {
+        throw unsupported("updateCharacterStream");
+    }
+
+    @Override
+    public void updateBlob(int columnIndex, InputStream x) throws SQLException {
+        throw unsupported("updateBlob");
+    }
+
+    @Override
+    public void updateBlob(String columnLabel, InputStream x) throws SQLException {
+        throw unsupported("updateBlob");
+    }
+
+    @Override
+    public void updateClob(int columnIndex, Reader x) throws SQLException {
+        throw unsupported("updateClob");
+    }
+
+    @Override
+    public void updateClob(String columnLabel, Reader x) throws SQLException {
+        throw unsupported("updateClob");
+    }
+
+    @Override
+    public void updateNClob(int columnIndex, Reader x) throws SQLException {
+        throw unsupported("updateNClob");
+    }
+
+    @Override
+    public void updateNClob(String columnLabel, Reader x) throws SQLException {
+        throw unsupported("updateNClob");
+    }
+}
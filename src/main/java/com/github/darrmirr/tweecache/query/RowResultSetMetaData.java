@@ -0,0 +1,246 @@
+package com.github.darrmirr.tweecache.query;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Metadata of {@link RowResultSet}. Columns are public fields of table row class in field index order.
+ */
+final class RowResultSetMetaData implements ResultSetMetaData {
+    private final String tableName;
+    private final Field[] fields;
+    private final Map<String, Integer> columnIndexes = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+    /**
+     * Create metadata
+     *
+     * @param tableName table name
+     * @param fields public fields of table row class in field index order
+     */
+    RowResultSetMetaData(String tableName, Field[] fields) {
+        this.tableName = tableName;
+        this.fields = fields;
+        for (int i = fields.length - 1; i >= 0; i--) {
+            columnIndexes.put(fields[i].getName(), i + 1);
+        }
+    }
+
+    /**
+     * Get table row field by column index
+     *
+     * @param column column index starting from 1
+     * @return table row field
+     * @throws SQLException if column index is out of range
+     */
+    Field field(int column) throws SQLException {
+        if (column < 1 || column > fields.length) {
+            throw new SQLException("column index " + column + " is out of range 1.." + fields.length);
+        }
+        return fields[column - 1];
+    }
+
+    /**
+     * Get column index by column label case-insensitively
+     *
+     * @param columnLabel column label
+     * @return column index starting from 1
+     * @throws SQLException if column is not found
+     */
+    int findColumn(String columnLabel) throws SQLException {
+        Integer column = columnLabel == null ? null : columnIndexes.get(columnLabel);
+        if (column == null) {
+            throw new SQLException("column '" + columnLabel + "' is not found");
+        }
+        return column;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return fields.length;
+    }
+
+    @Override
+    public boolean isAutoIncrement(int column) {
+        return false;
+    }
+
+    @Override
+    public boolean isCaseSensitive(int column) throws SQLException {
+        return field(column).getType() == String.class;
+    }
+
+    @Override
+    public boolean isSearchable(int column) {
+        return true;
+    }
+
+    @Override
+    public boolean isCurrency(int column) {
+        return false;
+    }
+
+    @Override
+    public int isNullable(int column) throws SQLException {
+        return field(column).getType().isPrimitive() ? columnNoNulls : columnNullable;
+    }
+
+    @Override
+    public boolean isSigned(int column) throws SQLException {
+        RowFilters.ValueType valueType = RowFilters.ValueType.of(field(column).getType());
+        return valueType == RowFilters.ValueType.INTEGRAL || valueType == RowFilters.ValueType.FLOATING || valueType == RowFilters.ValueType.DECIMAL;
+    }
+
+    @Override
+    public int getColumnDisplaySize(int column) {
+        return 0;
+    }
+
+    @Override
+    public String getColumnLabel(int column) throws SQLException {
+        return field(column).getName();
+    }
+
+    @Override
+    public String getColumnName(int column) throws SQLException {
+        return field(column).getName();
+    }
+
+    @Override
+    public String getSchemaName(int column) {
+        return "";
+    }
+
+    @Override
+    public int getPrecision(int column) {
+        return 0;
+    }
+
+    @Override
+    public int getScale(int column) {
+        return 0;
+    }
+
+    @Override
+    public String getTableName(int column) {
+        return tableName;
+    }
+
+    @Override
+    public String getCatalogName(int column) {
+        return "";
+    }
+
+    @Override
+    public int getColumnType(int column) throws SQLException {
+        Class<?> type = field(column).getType();
+        if (type == int.class || type == Integer.class) {
+            return Types.INTEGER;
+        }
+        if (type == long.class || type == Long.class) {
+            return Types.BIGINT;
+        }
+        if (type == short.class || type == Short.class) {
+            return Types.SMALLINT;
+        }
+        if (type == byte.class || type == Byte.class) {
+            return Types.TINYINT;
+        }
+        if (type == double.class || type == Double.class) {
+            return Types.DOUBLE;
+        }
+        if (type == float.class || type == Float.class) {
+            return Types.REAL;
+        }
+        if (type == BigDecimal.class) {
+            return Types.DECIMAL;
+        }
+        if (type == boolean.class || type == Boolean.class) {
+            return Types.BOOLEAN;
+        }
+        return Types.VARCHAR;
+    }
+
+    @Override
+    public String getColumnTypeName(int column) throws SQLException {
+        switch (getColumnType(column)) {
+            case Types.INTEGER:
+                return "INTEGER";
+            case Types.BIGINT:
+                return "BIGINT";
+            case Types.SMALLINT:
+                return "SMALLINT";
+            case Types.TINYINT:
+                return "TINYINT";
+            case Types.DOUBLE:
+                return "DOUBLE";
+            case Types.REAL:
+                return "REAL";
+            case Types.DECIMAL:
+                return "DECIMAL";
+            case Types.BOOLEAN:
+                return "BOOLEAN";
+            default:
+                return "VARCHAR";
+        }
+    }
+
+    @Override
+    public boolean isReadOnly(int column) {
+        return true;
+    }
+
+    @Override
+    public boolean isWritable(int column) {
+        return false;
+    }
+
+    @Override
+    public boolean isDefinitelyWritable(int column) {
+        return false;
+    }
+
+    @Override
+    public String getColumnClassName(int column) throws SQLException {
+        Class<?> type = field(column).getType();
+        if (!type.isPrimitive()) {
+            return type.getName();
+        }
+        if (type == int.class) {
+            return Integer.class.getName();
+        }
+        if (type == long.class) {
+            return Long.class.getName();
+        }
+        if (type == short.class) {
+            return Short.class.getName();
+        }
+        if (type == byte.class) {
+            return Byte.class.getName();
+        }
+        if (type == double.class) {
+            return Double.class.getName();
+        }
+        if (type == float.class) {
+            return Float.class.getName();
+        }
+        return Boolean.class.getName();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("result set metadata is not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
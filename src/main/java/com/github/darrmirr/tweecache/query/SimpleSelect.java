@@ -0,0 +1,310 @@
+package com.github.darrmirr.tweecache.query;
+
+import com.github.darrmirr.tweecache.TableStorage;
+import com.github.darrmirr.tweecache.TweeSchema;
+import com.github.darrmirr.tweecache.accessor.RowAccessor;
+import com.github.darrmirr.tweecache.index.BitmapIndex;
+import com.github.darrmirr.tweecache.index.BitmapLookup;
+import com.github.darrmirr.tweecache.index.TableIndex;
+import com.github.darrmirr.tweecache.util.QueryCancellation;
+
+import java.lang.reflect.Field;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.OptionalLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Execution plan of simple SELECT SQL-query over single table, see {@link SimpleSelectParser}.
+ *
+ * Plan is created once per SQL-query string and it is executed straight against table storage:
+ * rows are selected by bitmap index lookup if equality or null check is answered by bitmap index,
+ * otherwise table rows are scanned. Each candidate row is checked by {@link RowFilter} created for conditions shape.
+ * Matched rows are passed to row mapper through {@link RowResultSet}.
+ *
+ * Plan is immutable and it could be executed by several threads at the same time.
+ */
+final class SimpleSelect {
+    private final TableStorage tableStorage;
+    private final RowFilter filter;
+    private final BitmapLookup lookup;
+    private final RowResultSetMetaData metaData;
+    private final Operand[] operands;
+    private final int limit;
+
+    private SimpleSelect(TableStorage tableStorage, RowFilter filter, BitmapLookup lookup, RowResultSetMetaData metaData, Operand[] operands, int limit) {
+        this.tableStorage = tableStorage;
+        this.filter = filter;
+        this.lookup = lookup;
+        this.metaData = metaData;
+        this.operands = operands;
+        this.limit = limit;
+    }
+
+    /**
+     * Create execution plan of parsed SQL-query
+     *
+     * @param tweeSchema cache schema
+     * @param statement parsed SQL-query
+     * @return execution plan or null if SQL-query could not be executed without Apache Calcite
+     */
+    static SimpleSelect plan(TweeSchema tweeSchema, SimpleSelectParser.Statement statement) {
+        if (!tweeSchema.getSchemaName().equalsIgnoreCase(statement.getSchemaName())) {
+            return null;
+        }
+        String tableName = find(tweeSchema.getTableStorages().keySet(), statement.getTableName());
+        if (tableName == null) {
+            return null;
+        }
+        TableStorage tableStorage = tweeSchema.getTableStorages().get(tableName);
+        RowAccessor rowAccessor = tableStorage.getRowAccessor();
+        Field[] fields = fields(tableStorage.getTableClass(), rowAccessor.getFieldNames());
+        if (fields == null) {
+            return null;
+        }
+
+        List<String> fieldNames = Arrays.asList(rowAccessor.getFieldNames());
+        List<FilterCondition> conditions = new ArrayList<>();
+        List<Operand> operands = new ArrayList<>();
+        for (SimpleSelectParser.Predicate predicate : statement.getPredicates()) {
+            String fieldName = find(fieldNames, predicate.getColumn());
+            if (fieldName == null) {
+                return null;
+            }
+            int fieldIndex = fieldNames.indexOf(fieldName);
+            Field field = fields[fieldIndex];
+            FilterCondition.Operator operator = predicate.getOperator();
+            if (!operator.hasOperand()) {
+                conditions.add(new FilterCondition(field, fieldIndex, operator, -1));
+                continue;
+            }
+            RowFilters.ValueType valueType = RowFilters.ValueType.of(field.getType());
+            if (valueType == RowFilters.ValueType.BOOLEAN && operator != FilterCondition.Operator.EQ && operator != FilterCondition.Operator.NE) {
+                return null;
+            }
+            Object literal = predicate.getLiteral() != null ? valueType.operand(predicate.getLiteral()) : null;
+            if (predicate.getLiteral() != null && literal == null) {
+                return null;
+            }
+            conditions.add(new FilterCondition(field, fieldIndex, operator, operands.size()));
+            operands.add(new Operand(predicate.getParameterName(), literal, valueType));
+        }
+
+        RowFilter filter = RowFilters.of(tableStorage.getTableClass(), rowAccessor, conditions);
+        return new SimpleSelect(tableStorage, filter, lookup(tableStorage, conditions), new RowResultSetMetaData(tableName, fields),
+                operands.toArray(new Operand[0]), statement.getLimit());
+    }
+
+    /**
+     * Execute plan
+     *
+     * @param parameters named SQL-query parameters
+     * @param mapper row mapper function
+     * @param consumer row item consumer
+     * @param cancellation SQL-query cancellation token
+     * @param <T> row item data type
+     * @return number of consumed row items or empty optional if parameter is missing or its type does not match table row field
+     */
+    <T> OptionalLong execute(Map<String, Object> parameters, Function<ResultSet, T> mapper, Consumer<? super T> consumer, QueryCancellation cancellation) {
+        Object[] values = new Object[operands.length];
+        boolean hasNull = false;
+        for (int i = 0; i < operands.length; i++) {
+            Operand operand = operands[i];
+            if (operand.parameterName == null) {
+                values[i] = operand.literal;
+                continue;
+            }
+            if (parameters == null || !parameters.containsKey(operand.parameterName)) {
+                return OptionalLong.empty();
+            }
+            Object parameter = parameters.get(operand.parameterName);
+            Object value = parameter != null ? operand.valueType.operand(parameter) : null;
+            if (parameter == null) {
+                hasNull = true;
+            } else if (value == null) {
+                return OptionalLong.empty();
+            }
+            values[i] = value;
+        }
+        if (hasNull || limit == 0) {
+            // comparison with null is never true
+            return OptionalLong.of(0);
+        }
+
+        long rowCount = 0;
+        RowResultSet resultSet = new RowResultSet(metaData, tableStorage.getRowAccessor(), new MatchedRows(candidates(values), values, cancellation));
+        while (resultSet.next()) {
+            consumer.accept(mapper.apply(resultSet));
+            rowCount++;
+        }
+        return OptionalLong.of(rowCount);
+    }
+
+    private Iterator<Object> candidates(Object[] values) {
+        if (lookup == null) {
+            return tableStorage.rows().iterator();
+        }
+        tableStorage.recordAccess();
+        Iterator<Object> keys = lookup.keys(values).iterator();
+        return new Iterator<Object>() {
+            @Override
+            public boolean hasNext() {
+                return keys.hasNext();
+            }
+
+            @Override
+            public Object next() {
+                // row could be removed after index lookup, null row is skipped by filter iterator
+                return tableStorage.getIfPresent(keys.next());
+            }
+        };
+    }
+
+    /**
+     * Create bitmap lookup for equality and null check conditions answered by bitmap indexes.
+     * Other conditions are not selective enough to prefer index lookup to table scan.
+     *
+     * @param tableStorage table storage
+     * @param conditions query conditions
+     * @return bitmap lookup or null if no condition is answered by bitmap index
+     */
+    private static BitmapLookup lookup(TableStorage tableStorage, List<FilterCondition> conditions) {
+        List<BitmapLookup> lookups = new ArrayList<>();
+        for (FilterCondition condition : conditions) {
+            if (condition.getOperator() != FilterCondition.Operator.EQ && condition.getOperator() != FilterCondition.Operator.IS_NULL) {
+                continue;
+            }
+            for (TableIndex index : tableStorage.getIndexes()) {
+                if (index instanceof BitmapIndex && index.getFieldName().equals(condition.getField().getName())) {
+                    BitmapIndex bitmapIndex = (BitmapIndex) index;
+                    lookups.add(condition.getOperator() == FilterCondition.Operator.EQ
+                            ? BitmapLookup.equalTo(bitmapIndex, condition.getOperand())
+                            : BitmapLookup.isNull(bitmapIndex));
+                    break;
+                }
+            }
+        }
+        if (lookups.isEmpty()) {
+            return null;
+        }
+        return lookups.size() == 1 ? lookups.get(0) : BitmapLookup.and(lookups);
+    }
+
+    /**
+     * Get public fields of table row class in field index order
+     *
+     * @param tableClass table row class
+     * @param fieldNames field names in field index order
+     * @return fields or null if some field type is not supported by plan
+     */
+    private static Field[] fields(Class<?> tableClass, String[] fieldNames) {
+        Field[] fields = new Field[fieldNames.length];
+        for (int i = 0; i < fieldNames.length; i++) {
+            try {
+                fields[i] = tableClass.getField(fieldNames[i]);
+            } catch (NoSuchFieldException e) {
+                return null;
+            }
+            if (RowFilters.ValueType.of(fields[i].getType()) == null) {
+                return null;
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Find name case-insensitively as Apache Calcite does for MySQL lexical policy
+     *
+     * @param names available names
+     * @param name name to find
+     * @return found name or null if name is absent or ambiguous
+     */
+    private static String find(Iterable<String> names, String name) {
+        String found = null;
+        for (String candidate : names) {
+            if (candidate.equalsIgnoreCase(name)) {
+                if (found != null) {
+                    return null;
+                }
+                found = candidate;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Iterator of candidate rows that match filter up to limit
+     */
+    private final class MatchedRows implements Iterator<Object> {
+        private final Iterator<Object> candidates;
+        private final Object[] values;
+        private final QueryCancellation cancellation;
+        private Object next;
+        private int count;
+
+        private MatchedRows(Iterator<Object> candidates, Object[] values, QueryCancellation cancellation) {
+            this.candidates = candidates;
+            this.values = values;
+            this.cancellation = cancellation;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next != null) {
+                return true;
+            }
+            if (limit >= 0 && count >= limit) {
+                return false;
+            }
+            while (candidates.hasNext()) {
+                if (cancellation != null) {
+                    cancellation.check();
+                }
+                Object row = candidates.next();
+                if (row != null && filter.test(row, values)) {
+                    next = row;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Object next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Object row = next;
+            next = null;
+            count++;
+            return row;
+        }
+    }
+
+    /**
+     * Operand of condition: named parameter or literal
+     */
+    private static final class Operand {
+        private final String parameterName;
+        private final Object literal;
+        private final RowFilters.ValueType valueType;
+
+        private Operand(String parameterName, Object literal, RowFilters.ValueType valueType) {
+            this.parameterName = parameterName;
+            this.literal = literal;
+            this.valueType = valueType;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SimpleSelect {table=" + tableStorage.getTableClass().getSimpleName() + ", filter=" + filter.getClass().getSimpleName()
+                + ", lookup=" + lookup + ", limit=" + limit + "}";
+    }
+}
@@ -0,0 +1,404 @@
+package com.github.darrmirr.tweecache.query;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Parser of simple SELECT SQL-queries over single table:
+ * <pre>
+ * SELECT * | alias.* FROM schema.table [[AS] alias]
+ * [WHERE [alias.]column operator operand [AND ...]]
+ * [LIMIT number]
+ * </pre>
+ * Operator is one of {@code =}, {@code <>}, {@code <}, {@code <=}, {@code >}, {@code >=},
+ * {@code IS NULL} and {@code IS NOT NULL}. Operand is named parameter ({@code :name}), number, string literal,
+ * {@code TRUE} or {@code FALSE}. Keywords and identifiers are case-insensitive, quoted identifiers are not supported.
+ * Comments are skipped.
+ *
+ * Parser recognizes query shape only, table and columns are resolved by caller.
+ */
+final class SimpleSelectParser {
+    private final String sql;
+    private final List<String> tokens = new ArrayList<>();
+    private int position;
+
+    private SimpleSelectParser(String sql) {
+        this.sql = sql;
+    }
+
+    /**
+     * Parse SQL-query
+     *
+     * @param sql SQL-query
+     * @return parsed statement or null if SQL-query is not simple SELECT
+     */
+    static Statement parse(String sql) {
+        SimpleSelectParser parser = new SimpleSelectParser(sql);
+        return parser.tokenize() ? parser.statement() : null;
+    }
+
+    private Statement statement() {
+        if (!accept("select")) {
+            return null;
+        }
+        String projectionAlias = null;
+        if (!accept("*")) {
+            projectionAlias = identifier();
+            if (projectionAlias == null || !accept(".") || !accept("*")) {
+                return null;
+            }
+        }
+        if (!accept("from")) {
+            return null;
+        }
+        String schemaName = identifier();
+        if (schemaName == null || !accept(".")) {
+            return null;
+        }
+        String tableName = identifier();
+        if (tableName == null) {
+            return null;
+        }
+        accept("as");
+        String alias = isKeyword(peek()) ? null : identifier();
+        String qualifier = alias != null ? alias : tableName;
+        if (projectionAlias != null && !projectionAlias.equalsIgnoreCase(qualifier)) {
+            return null;
+        }
+        List<Predicate> predicates = new ArrayList<>();
+        if (accept("where")) {
+            do {
+                Predicate predicate = predicate(qualifier);
+                if (predicate == null) {
+                    return null;
+                }
+                predicates.add(predicate);
+            } while (accept("and"));
+        }
+        int limit = -1;
+        if (accept("limit")) {
+            String number = next();
+            if (number == null || !number.chars().allMatch(Character::isDigit) || number.length() > 9) {
+                return null;
+            }
+            limit = Integer.parseInt(number);
+        }
+        accept(";");
+        return position == tokens.size() ? new Statement(schemaName, tableName, predicates, limit) : null;
+    }
+
+    private Predicate predicate(String qualifier) {
+        String column = identifier();
+        if (column == null) {
+            return null;
+        }
+        if (accept(".")) {
+            if (!column.equalsIgnoreCase(qualifier)) {
+                return null;
+            }
+            column = identifier();
+            if (column == null) {
+                return null;
+            }
+        }
+        if (accept("is")) {
+            boolean isNot = accept("not");
+            if (!accept("null")) {
+                return null;
+            }
+            return new Predicate(column, isNot ? FilterCondition.Operator.IS_NOT_NULL : FilterCondition.Operator.IS_NULL, null, null);
+        }
+        FilterCondition.Operator operator = operator(next());
+        String operand = next();
+        if (operator == null || operand == null) {
+            return null;
+        }
+        if (operand.startsWith(":")) {
+            return operand.length() > 1 ? new Predicate(column, operator, operand.substring(1), null) : null;
+        }
+        Object literal = literal(operand);
+        return literal != null ? new Predicate(column, operator, null, literal) : null;
+    }
+
+    private static FilterCondition.Operator operator(String token) {
+        if (token == null) {
+            return null;
+        }
+        switch (token) {
+            case "=":
+                return FilterCondition.Operator.EQ;
+            case "<>":
+                return FilterCondition.Operator.NE;
+            case "<":
+                return FilterCondition.Operator.LT;
+            case "<=":
+                return FilterCondition.Operator.LE;
+            case ">":
+                return FilterCondition.Operator.GT;
+            case ">=":
+                return FilterCondition.Operator.GE;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Convert literal token to operand value
+     *
+     * @param token literal token
+     * @return {@link BigDecimal} for number, {@link String} for string literal, {@link Boolean} for TRUE and FALSE
+     * or null if token is not literal
+     */
+    private static Object literal(String token) {
+        if (token.startsWith("'")) {
+            return token.substring(1, token.length() - 1).replace("''", "'");
+        }
+        if (token.equalsIgnoreCase("true") || token.equalsIgnoreCase("false")) {
+            return Boolean.valueOf(token);
+        }
+        char first = token.charAt(0);
+        if (Character.isDigit(first) || first == '-' || first == '.') {
+            try {
+                return new BigDecimal(token);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private String identifier() {
+        String token = peek();
+        if (token == null || !isIdentifier(token) || isKeyword(token)) {
+            return null;
+        }
+        position++;
+        return token;
+    }
+
+    private static boolean isIdentifier(String token) {
+        if (!Character.isJavaIdentifierStart(token.charAt(0))) {
+            return false;
+        }
+        for (int i = 1; i < token.length(); i++) {
+            if (!Character.isJavaIdentifierPart(token.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isKeyword(String token) {
+        if (token == null) {
+            return false;
+        }
+        switch (token.toLowerCase()) {
+            case "select":
+            case "from":
+            case "where":
+            case "and":
+            case "or":
+            case "not":
+            case "is":
+            case "null":
+            case "limit":
+            case "as":
+            case "order":
+            case "group":
+            case "having":
+            case "offset":
+            case "fetch":
+            case "join":
+            case "union":
+            case "true":
+            case "false":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private boolean accept(String expected) {
+        String token = peek();
+        if (token != null && token.equalsIgnoreCase(expected)) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private String peek() {
+        return position < tokens.size() ? tokens.get(position) : null;
+    }
+
+    private String next() {
+        return position < tokens.size() ? tokens.get(position++) : null;
+    }
+
+    /**
+     * Split SQL-query into tokens
+     *
+     * @return false if SQL-query contains token that is not supported by parser
+     */
+    private boolean tokenize() {
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? length : end + 1;
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                if (end < 0) {
+                    return false;
+                }
+                i = end + 2;
+            } else if (c == '\'') {
+                int end = i + 1;
+                while (true) {
+                    end = sql.indexOf('\'', end);
+                    if (end < 0) {
+                        return false;
+                    }
+                    if (end + 1 < length && sql.charAt(end + 1) == '\'') {
+                        end += 2;
+                    } else {
+                        break;
+                    }
+                }
+                tokens.add(sql.substring(i, end + 1));
+                i = end + 1;
+            } else if (c == ':' && i + 1 < length && Character.isJavaIdentifierPart(sql.charAt(i + 1))) {
+                int end = i + 1;
+                while (end < length && Character.isJavaIdentifierPart(sql.charAt(end))) {
+                    end++;
+                }
+                tokens.add(sql.substring(i, end));
+                i = end;
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int end = i + 1;
+                while (end < length && Character.isJavaIdentifierPart(sql.charAt(end))) {
+                    end++;
+                }
+                tokens.add(sql.substring(i, end));
+                i = end;
+            } else if (Character.isDigit(c) || (c == '-' && i + 1 < length && (Character.isDigit(sql.charAt(i + 1)) || sql.charAt(i + 1) == '.'))
+                    || (c == '.' && i + 1 < length && Character.isDigit(sql.charAt(i + 1)) && isOperandPosition())) {
+                int end = i + 1;
+                while (end < length && (Character.isDigit(sql.charAt(end)) || sql.charAt(end) == '.')) {
+                    end++;
+                }
+                if (end < length && (sql.charAt(end) == 'e' || sql.charAt(end) == 'E')) {
+                    end++;
+                    if (end < length && (sql.charAt(end) == '+' || sql.charAt(end) == '-')) {
+                        end++;
+                    }
+                    while (end < length && Character.isDigit(sql.charAt(end))) {
+                        end++;
+                    }
+                }
+                tokens.add(sql.substring(i, end));
+                i = end;
+            } else if ((c == '<' || c == '>') && i + 1 < length && (sql.charAt(i + 1) == '=' || (c == '<' && sql.charAt(i + 1) == '>'))) {
+                tokens.add(sql.substring(i, i + 2));
+                i += 2;
+            } else if (c == '*' || c == '.' || c == '=' || c == '<' || c == '>' || c == ';') {
+                tokens.add(String.valueOf(c));
+                i++;
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isOperandPosition() {
+        return !tokens.isEmpty() && operator(tokens.get(tokens.size() - 1)) != null;
+    }
+
+    /**
+     * Parsed simple SELECT statement
+     */
+    static final class Statement {
+        private final String schemaName;
+        private final String tableName;
+        private final List<Predicate> predicates;
+        private final int limit;
+
+        Statement(String schemaName, String tableName, List<Predicate> predicates, int limit) {
+            this.schemaName = schemaName;
+            this.tableName = tableName;
+            this.predicates = Collections.unmodifiableList(predicates);
+            this.limit = limit;
+        }
+
+        String getSchemaName() {
+            return schemaName;
+        }
+
+        String getTableName() {
+            return tableName;
+        }
+
+        List<Predicate> getPredicates() {
+            return predicates;
+        }
+
+        /**
+         * Get max number of rows
+         *
+         * @return max number of rows or -1 if number of rows is not limited
+         */
+        int getLimit() {
+            return limit;
+        }
+    }
+
+    /**
+     * Parsed predicate of WHERE clause
+     */
+    static final class Predicate {
+        private final String column;
+        private final FilterCondition.Operator operator;
+        private final String parameterName;
+        private final Object literal;
+
+        Predicate(String column, FilterCondition.Operator operator, String parameterName, Object literal) {
+            this.column = column;
+            this.operator = operator;
+            this.parameterName = parameterName;
+            this.literal = literal;
+        }
+
+        String getColumn() {
+            return column;
+        }
+
+        FilterCondition.Operator getOperator() {
+            return operator;
+        }
+
+        /**
+         * Get name of named parameter which value is operand
+         *
+         * @return parameter name or null if operand is literal or operator has no operand
+         */
+        String getParameterName() {
+            return parameterName;
+        }
+
+        /**
+         * Get operand literal value
+         *
+         * @return literal value or null if operand is named parameter or operator has no operand
+         */
+        Object getLiteral() {
+            return literal;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.github.darrmirr.tweecache.query;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.darrmirr.tweecache.TweeSchema;
+import com.github.darrmirr.tweecache.util.QueryCancellation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.ResultSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Fast path of trivially simple SQL-queries that bypasses Apache Calcite parsing, planning and code generation.
+ *
+ * SQL-query is executed straight against table storage if it has the following shape:
+ * <pre>
+ * SELECT * FROM schema.table [[AS] alias] [WHERE column operator operand [AND ...]] [LIMIT number]
+ * </pre>
+ * and all table row fields are of numeric, string or boolean type. See {@link SimpleSelectParser} for supported
+ * operators and operands. SQL-query string is parsed and planned once, plan or its absence is cached by SQL-query string.
+ * Any other SQL-query is not executed by fast path and it should be executed by Apache Calcite.
+ */
+public final class SqlFastPath {
+    private static final Logger log = LoggerFactory.getLogger(SqlFastPath.class);
+    /**
+     * SQL-queries built by string concatenation could produce unbounded number of distinct strings
+     */
+    private static final int MAX_PLANS = 10_000;
+    private final TweeSchema tweeSchema;
+    private final Cache<String, Optional<SimpleSelect>> plans = Caffeine
+            .newBuilder()
+            .maximumSize(MAX_PLANS)
+            .build();
+
+    public SqlFastPath(TweeSchema tweeSchema) {
+        this.tweeSchema = tweeSchema;
+    }
+
+    /**
+     * Execute SQL-query by fast path if SQL-query is simple enough
+     *
+     * @param sqlQuery SQL-query string
+     * @param sqlParameters named query parameters
+     * @param mapper row mapper function
+     * @param consumer row item consumer
+     * @param cancellation SQL-query cancellation token
+     * @param <T> row item data type
+     * @return number of consumed row items or empty optional if SQL-query is not executed by fast path.
+     * Consumer is not invoked if SQL-query is not executed by fast path.
+     */
+    public <T> OptionalLong execute(String sqlQuery, Map<String, Object> sqlParameters, Function<ResultSet, T> mapper,
+                                    Consumer<? super T> consumer, QueryCancellation cancellation) {
+        if (sqlQuery == null) {
+            return OptionalLong.empty();
+        }
+        Optional<SimpleSelect> plan = plans.get(sqlQuery, this::plan);
+        return plan.isPresent() ? plan.get().execute(sqlParameters, mapper, consumer, cancellation) : OptionalLong.empty();
+    }
+
+    private Optional<SimpleSelect> plan(String sqlQuery) {
+        try {
+            SimpleSelectParser.Statement statement = SimpleSelectParser.parse(sqlQuery);
+            Optional<SimpleSelect> plan = Optional
+                    .ofNullable(statement)
+                    .map(parsed -> SimpleSelect.plan(tweeSchema, parsed));
+            plan.ifPresent(simpleSelect -> log.debug("SQL-query '{}' is executed by fast path: {}", sqlQuery, simpleSelect));
+            return plan;
+        } catch (RuntimeException e) {
+            log.debug("error to plan SQL-query '" + sqlQuery + "' for fast path", e);
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.github.darrmirr.tweecache.query;
+
+import com.github.darrmirr.tweecache.TableStorage;
+import com.github.darrmirr.tweecache.accessor.RowAccessor;
+import com.github.darrmirr.tweecache.index.BitmapLookup;
+import com.github.darrmirr.tweecache.index.IndexLookup;
+import com.github.darrmirr.tweecache.index.TableIndex;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Query over rows of single table that is executed straight against table storage without SQL.
+ *
+ * Conditions are combined by AND. Conditions over named fields that are answered by table indexes
+ * select rows by single index lookup, otherwise table rows are scanned. Conditions over values returned
+ * by extractor functions and predicates are evaluated over each candidate row.
+ * Query returns table row objects stored at cache, it does not load rows missing at read-through table.
+ *
+ * Query object is not thread-safe, it is supposed to be built and executed by the same thread.
+ *
+ * @param <V> table row data type
+ */
+public final class TableQuery<V> {
+    private final TableStorage tableStorage;
+    private final Class<V> valueClass;
+    private final RowAccessor rowAccessor;
+    private final List<FieldCondition> fieldConditions = new ArrayList<>();
+    private final List<Predicate<? super V>> predicates = new ArrayList<>();
+    private int limit = -1;
+
+    public TableQuery(TableStorage tableStorage, Class<V> valueClass) {
+        this.tableStorage = Objects.requireNonNull(tableStorage, "table storage is null");
+        this.valueClass = Objects.requireNonNull(valueClass, "value class is null");
+        this.rowAccessor = tableStorage.getRowAccessor();
+    }
+
+    /**
+     * Add condition over table row field. Condition is answered by table index if field is indexed.
+     *
+     * @param fieldName name of public field of table row
+     * @param condition condition over field value
+     * @return this {@link TableQuery} instance
+     * @throws IllegalArgumentException if table row has no such field
+     */
+    public TableQuery<V> where(String fieldName, Condition condition) {
+        Objects.requireNonNull(condition, "condition is null");
+        String[] fieldNames = rowAccessor.getFieldNames();
+        for (int field = 0; field < fieldNames.length; field++) {
+            if (fieldNames[field].equals(fieldName)) {
+                fieldConditions.add(new FieldCondition(fieldName, field, condition));
+                return this;
+            }
+        }
+        throw new IllegalArgumentException("there is no public field '" + fieldName + "' at class " + tableStorage.getTableClass().getName());
+    }
+
+    /**
+     * Add condition over value returned by extractor, e.g. {@code where(employee -> employee.departmentId, eq(5))}.
+     * Condition is evaluated over each candidate row, use {@link #where(String, Condition)} to use table index.
+     *
+     * @param extractor function that returns value of table row
+     * @param condition condition over value
+     * @return this {@link TableQuery} instance
+     */
+    public TableQuery<V> where(Function<? super V, ?> extractor, Condition condition) {
+        Objects.requireNonNull(extractor, "extractor is null");
+        Objects.requireNonNull(condition, "condition is null");
+        predicates.add(row -> condition.test(extractor.apply(row)));
+        return this;
+    }
+
+    /**
+     * Add predicate over table row. Predicate is evaluated over each candidate row.
+     *
+     * @param predicate predicate over table row
+     * @return this {@link TableQuery} instance
+     */
+    public TableQuery<V> where(Predicate<? super V> predicate) {
+        predicates.add(Objects.requireNonNull(predicate, "predicate is null"));
+        return this;
+    }
+
+    /**
+     * Limit number of returned rows
+     *
+     * @param limit max number of rows
+     * @return this {@link TableQuery} instance
+     */
+    public TableQuery<V> limit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit must not be negative: " + limit);
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * Execute query
+     *
+     * @return matched table rows in unspecified order
+     */
+    public List<V> list() {
+        if (limit == 0) {
+            return new ArrayList<>();
+        }
+        List<Object> lookupOperands = new ArrayList<>();
+        IndexLookup lookup = toLookup(lookupOperands);
+        if (lookup == null && limit < 0 && isParallelScan()) {
+            return tableStorage
+                    .rows()
+                    .parallelStream()
+                    .filter(this::matches)
+                    .map(valueClass::cast)
+                    .collect(Collectors.toList());
+        }
+        List<V> result = new ArrayList<>();
+        forEachMatch(lookup, lookupOperands, row -> {
+            result.add(row);
+            return limit < 0 || result.size() < limit;
+        });
+        return result;
+    }
+
+    /**
+     * Execute query and get the first matched row
+     *
+     * @return matched table row or empty optional if no row matches query
+     */
+    public Optional<V> first() {
+        if (limit == 0) {
+            return Optional.empty();
+        }
+        List<Object> lookupOperands = new ArrayList<>();
+        IndexLookup lookup = toLookup(lookupOperands);
+        List<V> result = new ArrayList<>(1);
+        forEachMatch(lookup, lookupOperands, row -> {
+            result.add(row);
+            return false;
+        });
+        return result.isEmpty() ? Optional.empty() : Optional.of(result.get(0));
+    }
+
+    /**
+     * Count matched rows. Rows are not collected.
+     *
+     * @return number of matched rows up to limit
+     */
+    public long count() {
+        if (limit == 0) {
+            return 0;
+        }
+        List<Object> lookupOperands = new ArrayList<>();
+        IndexLookup lookup = toLookup(lookupOperands);
+        long[] count = new long[1];
+        forEachMatch(lookup, lookupOperands, row -> ++count[0] != limit);
+        return count[0];
+    }
+
+    private boolean isParallelScan() {
+        int threshold = tableStorage.getParallelScanThreshold();
+        return threshold > 0 && tableStorage.getCache().estimatedSize() >= threshold;
+    }
+
+    /**
+     * Pass matched rows to consumer
+     *
+     * @param lookup index lookup or null to scan table rows
+     * @param lookupOperands index lookup operands
+     * @param consumer row consumer. It returns false to stop.
+     */
+    private void forEachMatch(IndexLookup lookup, List<Object> lookupOperands, Predicate<V> consumer) {
+        if (lookup == null) {
+            for (Object row : tableStorage.rows()) {
+                if (matches(row) && !consumer.test(valueClass.cast(row))) {
+                    return;
+                }
+            }
+            return;
+        }
+        tableStorage.recordAccess();
+        Object[] operands = lookupOperands.toArray();
+        Collection<Object> rows = lookup.rows(operands);
+        if (rows == null) {
+            for (Object key : lookup.keys(operands)) {
+                Object row = tableStorage.getIfPresent(key);
+                if (row != null && matches(row) && !consumer.test(valueClass.cast(row))) {
+                    return;
+                }
+            }
+            return;
+        }
+        for (Object row : rows) {
+            if (matches(row) && !consumer.test(valueClass.cast(row))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Row is checked against all conditions including ones answered by index,
+     * since row could be replaced after index lookup.
+     */
+    @SuppressWarnings("unchecked")
+    private boolean matches(Object row) {
+        if (!valueClass.isInstance(row)) {
+            return false;
+        }
+        for (FieldCondition fieldCondition : fieldConditions) {
+            if (!fieldCondition.condition.test(rowAccessor.get(row, fieldCondition.field))) {
+                return false;
+            }
+        }
+        for (Predicate<? super V> predicate : predicates) {
+            if (!predicate.test((V) row)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Create index lookup for field conditions. Conditions answered by bitmap and prefix indexes are combined
+     * into single bitmap lookup, otherwise the first condition answered by inverted index is used.
+     *
+     * @param lookupOperands list to collect index lookup operands
+     * @return index lookup or null if no condition is answered by table index
+     */
+    private IndexLookup toLookup(List<Object> lookupOperands) {
+        List<BitmapLookup> bitmapLookups = new ArrayList<>();
+        IndexLookup otherLookup = null;
+        List<Object> otherOperands = null;
+        for (FieldCondition fieldCondition : fieldConditions) {
+            for (TableIndex index : tableStorage.getIndexes()) {
+                if (!index.getFieldName().equals(fieldCondition.fieldName)) {
+                    continue;
+                }
+                List<Object> operands = new ArrayList<>(lookupOperands);
+                IndexLookup lookup = fieldCondition.condition.toLookup(index, operands);
+                if (lookup instanceof BitmapLookup) {
+                    bitmapLookups.add((BitmapLookup) lookup);
+                    lookupOperands.clear();
+                    lookupOperands.addAll(operands);
+                    break;
+                } else if (lookup != null && otherLookup == null) {
+                    otherOperands = new ArrayList<>();
+                    otherLookup = fieldCondition.condition.toLookup(index, otherOperands);
+                    break;
+                }
+            }
+        }
+        if (!bitmapLookups.isEmpty()) {
+            return bitmapLookups.size() == 1 ? bitmapLookups.get(0) : BitmapLookup.and(bitmapLookups);
+        }
+        if (otherLookup != null) {
+            lookupOperands.clear();
+            lookupOperands.addAll(otherOperands);
+        }
+        return otherLookup;
+    }
+
+    @Override
+    public String toString() {
+        return "TableQuery {table=" + tableStorage.getTableClass().getSimpleName() + ", conditions=" + fieldConditions
+                + ", predicates=" + predicates.size() + ", limit=" + limit + "}";
+    }
+
+    private static final class FieldCondition {
+        private final String fieldName;
+        private final int field;
+        private final Condition condition;
+
+        private FieldCondition(String fieldName, int field, Condition condition) {
+            this.fieldName = fieldName;
+            this.field = field;
+            this.condition = condition;
+        }
+
+        @Override
+        public String toString() {
+            return fieldName + " " + condition;
+        }
+    }
+}
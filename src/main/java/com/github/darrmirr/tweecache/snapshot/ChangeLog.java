@@ -0,0 +1,637 @@
+package com.github.darrmirr.tweecache.snapshot;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.darrmirr.tweecache.TableStorage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only change log of table storage writes.
+ *
+ * Log consists of segment files at log directory. Each record holds table name, key and row for put or table name and key for invalidation.
+ * Record is framed by its length and CRC32 checksum, therefore incomplete record at the end of segment after crash is detected and ignored.
+ *
+ * Records are appended by single writer thread: records enqueued by many threads meanwhile are written by one gathering write
+ * (group commit) and synced to disk according to {@link FsyncPolicy}. Active segment is closed and new one is opened
+ * when active segment size exceeds segment size limit. Closed segments are compacted in background when their total size exceeds
+ * compaction threshold: only the last record of each key is kept. Invalidation record is kept as tombstone, since log is replayed
+ * on top of snapshot that could contain invalidated row. Tombstones are dropped only if compacted segments all precede snapshot.
+ *
+ * On start, segments are replayed in order after snapshot is restored. Records of one segment are replayed in parallel per table,
+ * records of one table are replayed in log order.
+ */
+public class ChangeLog implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(ChangeLog.class);
+    public static final long DEFAULT_SEGMENT_BYTES = 64L * 1024 * 1024;
+    public static final long DEFAULT_COMPACTION_BYTES = 256L * 1024 * 1024;
+    static final Duration PERIODIC_FSYNC_INTERVAL = Duration.ofSeconds(1);
+    static final byte PUT = 1;
+    static final byte INVALIDATE = 2;
+    private static final int FRAME_BYTES = 8;
+    private static final Pattern SEGMENT_NAME = Pattern.compile("changelog-(\\d{20})\\.log");
+    private static final int KEY_LOCKS = 1024;
+    private static final ThreadLocal<ValueOutput> recordOutput = ThreadLocal.withInitial(() -> new ValueOutput(256));
+
+    /**
+     * Policy to sync change log to disk
+     */
+    public enum FsyncPolicy {
+        /**
+         * Write returns after its record is synced to disk. Records of concurrent writes are synced together.
+         */
+        ALWAYS,
+        /**
+         * Change log is synced to disk once per second. Write returns after its record is enqueued.
+         */
+        PERIODIC,
+        /**
+         * Change log is not synced explicitly, operating system writes it to disk on its own.
+         */
+        NEVER
+    }
+
+    private final Path directory;
+    private final FsyncPolicy fsyncPolicy;
+    private final long segmentBytes;
+    private final long compactionBytes;
+    private final ClassLoader classLoader;
+    private final Object queueMonitor = new Object();
+    private final Lock segmentLock = new ReentrantLock();
+    private final AtomicBoolean isCompacting = new AtomicBoolean();
+    private final Object[] keyLocks = new Object[KEY_LOCKS];
+    private final ExecutorService compactor;
+    private final Thread writer;
+    private List<byte[]> queue = new ArrayList<>();
+    private long enqueuedSequence;
+    private long writtenSequence;
+    private boolean isClosed;
+    private IOException failure;
+    private long activeSegment;
+    private FileChannel activeChannel;
+    private long activeSize;
+    private boolean isDirty;
+    private long lastFsyncNanos = System.nanoTime();
+    private volatile long snapshotSegment;
+
+    /**
+     * Open change log at directory. Records are appended to new segment after segments present at directory.
+     * Existing segments should be replayed by {@link #replay(Map)} before first write.
+     *
+     * @param directory log directory. It is created if it is absent.
+     * @param fsyncPolicy policy to sync log to disk
+     * @param segmentBytes max size of segment file
+     * @param compactionBytes total size of closed segments that triggers compaction
+     * @throws IOException if log directory or segment could not be created
+     */
+    public ChangeLog(Path directory, FsyncPolicy fsyncPolicy, long segmentBytes, long compactionBytes) throws IOException {
+        if (segmentBytes <= 0 || segmentBytes > Integer.MAX_VALUE / 2) {
+            throw new IllegalArgumentException("segment size must be greater than zero and less than 1 GB");
+        }
+        this.directory = directory;
+        this.fsyncPolicy = Objects.requireNonNull(fsyncPolicy, "fsync policy is null");
+        this.segmentBytes = segmentBytes;
+        this.compactionBytes = compactionBytes;
+        this.classLoader = Thread.currentThread().getContextClassLoader();
+        for (int i = 0; i < KEY_LOCKS; i++) {
+            keyLocks[i] = new Object();
+        }
+        Files.createDirectories(directory);
+        List<Long> segments = segments();
+        openSegment(segments.isEmpty() ? 1 : segments.get(segments.size() - 1) + 1);
+        this.compactor = Executors.newSingleThreadExecutor(runnable -> daemon(runnable, "ChangeLogCompactor"));
+        this.writer = daemon(this::writeLoop, "ChangeLogWriter");
+        writer.start();
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Append put of row to change log
+     *
+     * @param tableStorage table storage
+     * @param tableName table name
+     * @param key table storage key
+     * @param row table row
+     */
+    public void put(TableStorage tableStorage, String tableName, Object key, Object row) {
+        awaitWritten(write(tableStorage, tableName, key, row));
+    }
+
+    /**
+     * Append puts of rows to change log. Method waits for sync of the last record only.
+     *
+     * @param tableStorage table storage
+     * @param tableName table name
+     * @param rows table rows by key
+     */
+    public void putAll(TableStorage tableStorage, String tableName, Map<?, ?> rows) {
+        long sequence = 0;
+        for (Map.Entry<?, ?> entry : rows.entrySet()) {
+            if (entry.getKey() != null && entry.getValue() != null) {
+                sequence = write(tableStorage, tableName, entry.getKey(), entry.getValue());
+            }
+        }
+        awaitWritten(sequence);
+    }
+
+    /**
+     * Append invalidation of key to change log
+     *
+     * @param tableStorage table storage
+     * @param tableName table name
+     * @param key table storage key
+     */
+    public void invalidate(TableStorage tableStorage, String tableName, Object key) {
+        awaitWritten(write(tableStorage, tableName, key, null));
+    }
+
+    /**
+     * Apply write to table storage and append it to change log. Record is enqueued and write is applied under key stripe lock,
+     * therefore records of the same key are appended in the same order as writes are applied.
+     * Write is applied by put or invalidation rather than by compute, so that cache writer maintains table indexes.
+     *
+     * @param tableStorage table storage
+     * @param tableName table name
+     * @param key table storage key
+     * @param row table row or null to invalidate key
+     * @return sequence number of record
+     */
+    private long write(TableStorage tableStorage, String tableName, Object key, Object row) {
+        byte[] record = encode(tableStorage, tableName, key, row);
+        int hash = key.hashCode();
+        synchronized (keyLocks[(hash ^ (hash >>> 16)) & (KEY_LOCKS - 1)]) {
+            long sequence = enqueue(record);
+            if (row != null) {
+                tableStorage.getCache().put(key, row);
+            } else {
+                tableStorage.getCache().invalidate(key);
+            }
+            return sequence;
+        }
+    }
+
+    private static byte[] encode(TableStorage tableStorage, String tableName, Object key, Object row) {
+        ValueOutput out = recordOutput.get();
+        out.reset();
+        out.writeByte(row != null ? PUT : INVALIDATE);
+        out.writeString(tableName);
+        out.writeValue(key);
+        if (row != null) {
+            RowCodecs
+                    .of(tableStorage.getTableClass())
+                    .orElseThrow()
+                    .write(row, out);
+        }
+        ByteBuffer payload = out.toByteBuffer();
+        CRC32 crc = new CRC32();
+        crc.update(payload.array(), 0, out.size());
+        byte[] record = new byte[FRAME_BYTES + out.size()];
+        ByteBuffer
+                .wrap(record)
+                .putInt(out.size())
+                .putInt((int) crc.getValue())
+                .put(payload);
+        return record;
+    }
+
+    private long enqueue(byte[] record) {
+        synchronized (queueMonitor) {
+            if (failure != null) {
+                throw new UncheckedIOException("change log write is failed", failure);
+            }
+            if (isClosed) {
+                throw new IllegalStateException("change log is closed");
+            }
+            queue.add(record);
+            queueMonitor.notifyAll();
+            return ++enqueuedSequence;
+        }
+    }
+
+    /**
+     * Wait for record to be synced to disk if fsync policy is {@link FsyncPolicy#ALWAYS}
+     *
+     * @param sequence sequence number of record
+     */
+    private void awaitWritten(long sequence) {
+        if (fsyncPolicy != FsyncPolicy.ALWAYS) {
+            return;
+        }
+        synchronized (queueMonitor) {
+            while (writtenSequence < sequence && failure == null) {
+                try {
+                    queueMonitor.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("interrupted while waiting for change log sync", e);
+                }
+            }
+            if (writtenSequence < sequence) {
+                throw new UncheckedIOException("change log write is failed", failure);
+            }
+        }
+    }
+
+    /**
+     * Writer thread loop: take all enqueued records, write them by one gathering write and sync them according to fsync policy
+     */
+    private void writeLoop() {
+        long waitMillis = PERIODIC_FSYNC_INTERVAL.toMillis();
+        while (true) {
+            List<byte[]> batch;
+            long batchSequence;
+            synchronized (queueMonitor) {
+                while (queue.isEmpty() && !isClosed) {
+                    try {
+                        queueMonitor.wait(waitMillis);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    if (queue.isEmpty()) {
+                        break;
+                    }
+                }
+                if (queue.isEmpty() && isClosed) {
+                    return;
+                }
+                batch = queue;
+                batchSequence = enqueuedSequence;
+                queue = new ArrayList<>();
+            }
+            try {
+                writeBatch(batch);
+                synchronized (queueMonitor) {
+                    writtenSequence = batchSequence;
+                    queueMonitor.notifyAll();
+                }
+            } catch (IOException e) {
+                log.error("error to write change log at '{}' due to '{}'", directory, e.getMessage());
+                synchronized (queueMonitor) {
+                    failure = e;
+                    queueMonitor.notifyAll();
+                }
+                return;
+            }
+        }
+    }
+
+    private void writeBatch(List<byte[]> batch) throws IOException {
+        segmentLock.lock();
+        try {
+            if (!batch.isEmpty()) {
+                ByteBuffer[] buffers = batch
+                        .stream()
+                        .map(ByteBuffer::wrap)
+                        .toArray(ByteBuffer[]::new);
+                long length = 0;
+                for (ByteBuffer buffer : buffers) {
+                    length += buffer.remaining();
+                }
+                long written = 0;
+                while (written < length) {
+                    written += activeChannel.write(buffers);
+                }
+                activeSize += length;
+                isDirty = true;
+            }
+            boolean isFsyncDue = System.nanoTime() - lastFsyncNanos >= PERIODIC_FSYNC_INTERVAL.toNanos();
+            if (isDirty && (fsyncPolicy == FsyncPolicy.ALWAYS || fsyncPolicy == FsyncPolicy.PERIODIC && isFsyncDue)) {
+                activeChannel.force(false);
+                lastFsyncNanos = System.nanoTime();
+                isDirty = false;
+            }
+            if (activeSize >= segmentBytes) {
+                rollSegment();
+            }
+        } finally {
+            segmentLock.unlock();
+        }
+    }
+
+    /**
+     * Close active segment and open new one. Records enqueued afterwards are written to new segment.
+     *
+     * @return number of closed segment
+     * @throws IOException if new segment could not be opened
+     */
+    public long roll() throws IOException {
+        segmentLock.lock();
+        try {
+            return rollSegment();
+        } finally {
+            segmentLock.unlock();
+        }
+    }
+
+    private long rollSegment() throws IOException {
+        long closedSegment = activeSegment;
+        if (fsyncPolicy != FsyncPolicy.NEVER) {
+            activeChannel.force(false);
+            isDirty = false;
+        }
+        activeChannel.close();
+        openSegment(closedSegment + 1);
+        scheduleCompaction();
+        return closedSegment;
+    }
+
+    private void openSegment(long segment) throws IOException {
+        this.activeChannel = FileChannel.open(segmentPath(segment), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.activeSegment = segment;
+        this.activeSize = activeChannel.size();
+    }
+
+    /**
+     * Delete segments which records are contained by snapshot.
+     *
+     * Segment just before snapshot is kept since writes which records are at this segment could be still applied to table storage
+     * when snapshot reads it. Replay of records already contained by snapshot is harmless.
+     *
+     * @param rolledSegment segment closed by {@link #roll()} before snapshot is written
+     * @throws IOException if segment could not be deleted
+     */
+    public void deleteBefore(long rolledSegment) throws IOException {
+        segmentLock.lock();
+        try {
+            snapshotSegment = Math.max(snapshotSegment, rolledSegment);
+            for (long segment : segments()) {
+                if (segment < rolledSegment) {
+                    Files.deleteIfExists(segmentPath(segment));
+                }
+            }
+        } finally {
+            segmentLock.unlock();
+        }
+    }
+
+    /**
+     * Replay records of segments which precede active segment
+     *
+     * @param tableStorageMap table storages by table name
+     * @return number of replayed records
+     * @throws IOException if segment could not be read
+     */
+    public long replay(Map<String, TableStorage> tableStorageMap) throws IOException {
+        long recordCount = 0;
+        for (long segment : segments()) {
+            if (segment >= activeSegment) {
+                break;
+            }
+            Map<String, List<ByteBuffer>> recordsByTable = new LinkedHashMap<>();
+            for (ByteBuffer record : readRecords(segment)) {
+                ValueInput in = new ValueInput(record.duplicate(), classLoader);
+                in.readByte();
+                recordsByTable
+                        .computeIfAbsent(in.readString(), tableName -> new ArrayList<>())
+                        .add(record);
+            }
+            recordsByTable
+                    .keySet()
+                    .stream()
+                    .filter(tableName -> !tableStorageMap.containsKey(tableName))
+                    .forEach(tableName -> log.warn("change log records of table '{}' are skipped due to table is absent at schema", tableName));
+            recordCount += recordsByTable
+                    .entrySet()
+                    .parallelStream()
+                    .filter(entry -> tableStorageMap.containsKey(entry.getKey()))
+                    .mapToLong(entry -> replay(tableStorageMap.get(entry.getKey()), entry.getValue()))
+                    .sum();
+        }
+        return recordCount;
+    }
+
+    private long replay(TableStorage tableStorage, List<ByteBuffer> records) {
+        RowCodec codec = RowCodecs
+                .of(tableStorage.getTableClass())
+                .orElseThrow();
+        Cache<Object, Object> cache = tableStorage.getCache();
+        for (ByteBuffer record : records) {
+            ValueInput in = new ValueInput(record, tableStorage.getTableClass().getClassLoader());
+            byte operation = in.readByte();
+            in.readString();
+            Object key = in.readValue();
+            if (operation == PUT) {
+                cache.put(key, codec.read(in));
+            } else {
+                cache.invalidate(key);
+            }
+        }
+        return records.size();
+    }
+
+    /**
+     * Read valid records of segment. Reading stops at first incomplete or corrupted record.
+     *
+     * @param segment segment number
+     * @return record payloads
+     * @throws IOException if segment could not be read
+     */
+    private List<ByteBuffer> readRecords(long segment) throws IOException {
+        Path path = segmentPath(segment);
+        byte[] bytes = Files.readAllBytes(path);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        List<ByteBuffer> records = new ArrayList<>();
+        while (buffer.remaining() >= FRAME_BYTES) {
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                log.warn("change log segment '{}' has incomplete record at its end, the rest of segment is ignored", path);
+                return records;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(bytes, buffer.position(), length);
+            if ((int) crc.getValue() != checksum) {
+                log.warn("change log segment '{}' has corrupted record, the rest of segment is ignored", path);
+                return records;
+            }
+            records.add(ByteBuffer.wrap(bytes, buffer.position(), length).slice());
+            ((Buffer) buffer).position(buffer.position() + length);
+        }
+        return records;
+    }
+
+    private void scheduleCompaction() {
+        if (compactionBytes > 0 && !isCompacting.get()) {
+            compactor.execute(() -> {
+                if (isCompacting.compareAndSet(false, true)) {
+                    try {
+                        compact();
+                    } catch (IOException | RuntimeException e) {
+                        log.warn("error to compact change log at '{}' due to '{}'", directory, e.getMessage());
+                        log.debug("error to compact change log at '" + directory + "'", e);
+                    } finally {
+                        isCompacting.set(false);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Compact closed segments if their total size exceeds compaction threshold.
+     * Closed segments are replaced by one segment that keeps the last record of each key.
+     * Last invalidation record of key is dropped only if all closed segments precede segment rolled for the latest snapshot,
+     * otherwise row could be present at snapshot and it must stay invalidated on replay.
+     *
+     * @return true if segments are compacted
+     * @throws IOException if segments could not be compacted
+     */
+    boolean compact() throws IOException {
+        List<Long> closedSegments;
+        segmentLock.lock();
+        try {
+            closedSegments = segments()
+                    .stream()
+                    .filter(segment -> segment < activeSegment)
+                    .collect(Collectors.toList());
+        } finally {
+            segmentLock.unlock();
+        }
+        long closedBytes = 0;
+        for (long segment : closedSegments) {
+            closedBytes += Files.size(segmentPath(segment));
+        }
+        if (closedSegments.isEmpty() || closedBytes < compactionBytes) {
+            return false;
+        }
+        long lastSegment = closedSegments.get(closedSegments.size() - 1);
+        boolean isTombstoneDropped = lastSegment < snapshotSegment;
+        Map<List<Object>, ByteBuffer> lastRecords = new LinkedHashMap<>();
+        for (long segment : closedSegments) {
+            for (ByteBuffer record : readRecords(segment)) {
+                ValueInput in = new ValueInput(record.duplicate(), classLoader);
+                byte operation = in.readByte();
+                List<Object> recordKey = new ArrayList<>(2);
+                recordKey.add(in.readString());
+                recordKey.add(in.readValue());
+                lastRecords.remove(recordKey);
+                if (operation == PUT || !isTombstoneDropped) {
+                    lastRecords.put(recordKey, record);
+                }
+            }
+        }
+        Path compactedPath = directory.resolve(segmentPath(lastSegment).getFileName() + ".compact");
+        try (FileChannel channel = FileChannel.open(compactedPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer frame = ByteBuffer.allocate(FRAME_BYTES);
+            for (ByteBuffer record : lastRecords.values()) {
+                CRC32 crc = new CRC32();
+                crc.update(record.duplicate());
+                ((Buffer) frame).clear();
+                frame.putInt(record.remaining()).putInt((int) crc.getValue());
+                ((Buffer) frame).flip();
+                ByteBuffer payload = record.duplicate();
+                while (frame.hasRemaining() || payload.hasRemaining()) {
+                    channel.write(new ByteBuffer[] { frame, payload });
+                }
+            }
+            channel.force(true);
+        }
+        segmentLock.lock();
+        try {
+            try {
+                Files.move(compactedPath, segmentPath(lastSegment), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(compactedPath, segmentPath(lastSegment), StandardCopyOption.REPLACE_EXISTING);
+            }
+            for (long segment : closedSegments) {
+                if (segment != lastSegment) {
+                    Files.deleteIfExists(segmentPath(segment));
+                }
+            }
+        } finally {
+            segmentLock.unlock();
+        }
+        log.debug("change log at '{}' is compacted: {} segments of {} bytes into {} records", directory, closedSegments.size(), closedBytes, lastRecords.size());
+        return true;
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("changelog-%020d.log", segment));
+    }
+
+    /**
+     * Get numbers of segments present at log directory in ascending order
+     *
+     * @return segment numbers
+     * @throws IOException if directory could not be listed
+     */
+    List<Long> segments() throws IOException {
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths
+                    .map(path -> SEGMENT_NAME.matcher(path.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(matcher -> Long.parseLong(matcher.group(1)))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Write and sync all enqueued records and close change log
+     *
+     * @throws IOException if change log could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (queueMonitor) {
+            if (isClosed) {
+                return;
+            }
+            isClosed = true;
+            queueMonitor.notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        compactor.shutdownNow();
+        segmentLock.lock();
+        try {
+            if (activeChannel.isOpen()) {
+                if (fsyncPolicy != FsyncPolicy.NEVER) {
+                    activeChannel.force(false);
+                }
+                activeChannel.close();
+            }
+        } finally {
+            segmentLock.unlock();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.github.darrmirr.tweecache.snapshot;
+
+/**
+ * Row codec writes table row to snapshot and reads it back.
+ */
+public interface RowCodec {
+
+    /**
+     * Get table row class
+     *
+     * @return table row class
+     */
+    Class<?> getTableClass();
+
+    /**
+     * Write table row
+     *
+     * @param row table row object
+     * @param out snapshot chunk buffer
+     */
+    void write(Object row, ValueOutput out);
+
+    /**
+     * Read table row
+     *
+     * @param in snapshot chunk reader
+     * @return table row object
+     */
+    Object read(ValueInput in);
+}
@@ -0,0 +1,128 @@
+package com.github.darrmirr.tweecache.snapshot;
+
+import com.github.darrmirr.tweecache.util.ClassDeclaration;
+import com.github.darrmirr.tweecache.util.ClassFactory;
+import com.github.darrmirr.tweecache.util.ClassUtils;
+import com.github.darrmirr.tweecache.util.Result;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+
+/**
+ * Generates {@link RowCodec} implementation for table row class at runtime.
+ *
+ * Generated codec reads and assigns fields directly and writes primitive fields without boxing.
+ * Codec could be generated for public class with public no-arg constructor which instance fields are all public and not final,
+ * otherwise part of row state would be lost by snapshot.
+ *
+ * Generated source does not use generics and autoboxing in order to be compatible with Janino compiler.
+ */
+class RowCodecGenerator {
+    private static final String CLASS_NAME_SUFFIX = "RuntimeCodec";
+    private final ClassFactory classFactory = ClassFactory.INSTANCE;
+
+    /**
+     * Generate and compile row codec for table row class
+     *
+     * @param tableClass table row class
+     * @return row codec instance
+     */
+    Result<RowCodec> generate(Class<?> tableClass) {
+        String reason = unsupportedReason(tableClass);
+        if (reason != null) {
+            return Result.error(new IllegalArgumentException("error to generate row codec for class '" + tableClass.getName() + "' due to " + reason));
+        }
+        return classFactory
+                .compile(classDeclaration(tableClass))
+                .flatMap(ClassUtils::newInstance)
+                .map(RowCodec.class::cast);
+    }
+
+    private ClassDeclaration classDeclaration(Class<?> tableClass) {
+        String tableClassName = tableClass.getCanonicalName();
+        String className = tableClass.getName().replace('.', '_').replace('$', '_') + CLASS_NAME_SUFFIX;
+        Field[] fields = instanceFields(tableClass);
+
+        StringBuilder write = new StringBuilder();
+        StringBuilder read = new StringBuilder();
+        for (Field field : fields) {
+            Class<?> type = field.getType();
+            String fieldName = "r." + field.getName();
+            if (type.isPrimitive()) {
+                String typeName = typeName(type);
+                write.append("out.write").append(typeName).append("(").append(fieldName).append("); ");
+                read.append(fieldName).append(" = in.read").append(typeName).append("(); ");
+            } else {
+                write.append("out.writeValue(").append(fieldName).append("); ");
+                read.append(fieldName).append(" = (").append(type.getCanonicalName()).append(") in.readValue(); ");
+            }
+        }
+
+        ClassDeclaration classDeclaration = new ClassDeclaration(RowCodec.class.getPackage().getName(), className, "public final");
+        classDeclaration.addInterface(RowCodec.class);
+        classDeclaration.addMethod("public Class getTableClass() { return " + tableClassName + ".class; }");
+        classDeclaration.addMethod("public void write(Object row, " + ValueOutput.class.getName() + " out) { " +
+                tableClassName + " r = (" + tableClassName + ") row; " +
+                write +
+                "}");
+        classDeclaration.addMethod("public Object read(" + ValueInput.class.getName() + " in) { " +
+                tableClassName + " r = new " + tableClassName + "(); " +
+                read +
+                "return r; " +
+                "}");
+        return classDeclaration;
+    }
+
+    /**
+     * Get name of primitive type at read and write method names
+     *
+     * @param type primitive type
+     * @return type name with capital first letter
+     */
+    private String typeName(Class<?> type) {
+        String primitiveName = type.getName();
+        return primitiveName.substring(0, 1).toUpperCase() + primitiveName.substring(1);
+    }
+
+    private static Field[] instanceFields(Class<?> tableClass) {
+        return Arrays
+                .stream(tableClass.getFields())
+                .filter(field -> !Modifier.isStatic(field.getModifiers()))
+                .toArray(Field[]::new);
+    }
+
+    /**
+     * Check if codec could be generated for table row class
+     *
+     * @param tableClass table row class
+     * @return reason why codec could not be generated or null if it could be generated
+     */
+    private String unsupportedReason(Class<?> tableClass) {
+        for (Class<?> currentClass = tableClass; currentClass != null; currentClass = currentClass.getEnclosingClass()) {
+            if (!Modifier.isPublic(currentClass.getModifiers()) || currentClass.getCanonicalName() == null) {
+                return "class is not public";
+            }
+            if (currentClass.isMemberClass() && !Modifier.isStatic(currentClass.getModifiers())) {
+                return "class is inner class";
+            }
+        }
+        if (Modifier.isAbstract(tableClass.getModifiers()) || tableClass.isInterface()) {
+            return "class is abstract";
+        }
+        try {
+            tableClass.getConstructor();
+        } catch (NoSuchMethodException e) {
+            return "class has no public no-arg constructor";
+        }
+        for (Class<?> currentClass = tableClass; currentClass != null; currentClass = currentClass.getSuperclass()) {
+            for (Field field : currentClass.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (!Modifier.isStatic(modifiers) && (!Modifier.isPublic(modifiers) || Modifier.isFinal(modifiers))) {
+                    return "field '" + field.getName() + "' is not public or it is final";
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.darrmirr.tweecache.snapshot;
+
+import com.github.darrmirr.tweecache.util.Result;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+
+/**
+ * Factory to obtain {@link RowCodec} for table row class.
+ *
+ * Codec is looked up in the following order:
+ *     - codec generated and compiled at runtime
+ *     - codec based on Java serialization if table row class is serializable
+ *
+ * Codec is created once per table row class.
+ */
+public final class RowCodecs {
+    private static final Logger log = LoggerFactory.getLogger(RowCodecs.class);
+    private static final RowCodecGenerator generator = new RowCodecGenerator();
+    private static final ClassValue<Result<RowCodec>> codecs = new ClassValue<Result<RowCodec>>() {
+        @Override
+        protected Result<RowCodec> computeValue(Class<?> tableClass) {
+            Result<RowCodec> codec = generator.generate(tableClass);
+            if (codec.get().isPresent() || !Serializable.class.isAssignableFrom(tableClass)) {
+                return codec;
+            }
+            codec
+                    .error()
+                    .ifPresent(throwable -> log.debug("use serialization row codec for class '{}' due to '{}'", tableClass.getName(), throwable.getMessage()));
+            return Result.ok(new SerializedRowCodec(tableClass));
+        }
+    };
+
+    private RowCodecs() { }
+
+    /**
+     * Get row codec for table row class
+     *
+     * @param tableClass table row class
+     * @return row codec or error if table row class is neither supported by generated codec nor serializable
+     */
+    public static Result<RowCodec> of(Class<?> tableClass) {
+        Result<RowCodec> codec = codecs.get(tableClass);
+        // cached result is shared, therefore new result is returned to let caller set its own error consumer
+        return codec
+                .get()
+                .map(Result::ok)
+                .orElseGet(() -> Result.error(codec.error().orElse(null)));
+    }
+}
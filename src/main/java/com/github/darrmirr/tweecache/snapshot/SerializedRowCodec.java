@@ -0,0 +1,28 @@
+package com.github.darrmirr.tweecache.snapshot;
+
+/**
+ * Row codec that writes table row by Java serialization.
+ * It is used for serializable table row class which codec could not be generated.
+ */
+public class SerializedRowCodec implements RowCodec {
+    private final Class<?> tableClass;
+
+    public SerializedRowCodec(Class<?> tableClass) {
+        this.tableClass = tableClass;
+    }
+
+    @Override
+    public Class<?> getTableClass() {
+        return tableClass;
+    }
+
+    @Override
+    public void write(Object row, ValueOutput out) {
+        out.writeBytes(ValueOutput.serialize(row));
+    }
+
+    @Override
+    public Object read(ValueInput in) {
+        return ValueInput.deserialize(in.readBytes(), tableClass.getClassLoader());
+    }
+}
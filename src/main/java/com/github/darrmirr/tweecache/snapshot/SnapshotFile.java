@@ -0,0 +1,259 @@
+package com.github.darrmirr.tweecache.snapshot;
+
+import com.github.darrmirr.tweecache.TableStorage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Snapshot file of table storages.
+ *
+ * File consists of header, chunks of table rows and chunk directory:
+ * <pre>
+ * header:    int magic, int version
+ * chunk:     (key value, row) * row count, rows are written by {@link RowCodec} of table row class
+ * directory: int chunk count, (table name, table row class name, long offset, int length, int row count) * chunk count
+ * trailer:   long directory offset, int magic
+ * </pre>
+ * Tables are written in parallel, each table is split into chunks of about {@link #CHUNK_BYTES} bytes.
+ * Chunks are read in parallel from memory-mapped file regions and each chunk is put to table storage in bulk.
+ *
+ * Snapshot of table storage that is modified while snapshot is written is weakly consistent:
+ * it contains all rows that are not modified during snapshot and it may or may not contain modifications.
+ */
+public final class SnapshotFile {
+    private static final Logger log = LoggerFactory.getLogger(SnapshotFile.class);
+    static final int MAGIC = 0x54574545;
+    static final int VERSION = 1;
+    static final int CHUNK_BYTES = 4 * 1024 * 1024;
+    private static final int HEADER_BYTES = 8;
+    private static final int TRAILER_BYTES = 12;
+
+    private SnapshotFile() { }
+
+    /**
+     * Write table storages to snapshot file. File is written to temporary file first and then it replaces target file,
+     * therefore previous snapshot stays intact if snapshot fails.
+     *
+     * @param path snapshot file path
+     * @param tableStorageMap table storages by table name
+     * @return number of written rows
+     * @throws IOException if snapshot could not be written
+     */
+    public static long write(Path path, Map<String, TableStorage> tableStorageMap) throws IOException {
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        List<Chunk> chunks;
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ChunkWriter chunkWriter = new ChunkWriter(channel);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION);
+            ((Buffer) header).flip();
+            chunkWriter.append(header);
+            try {
+                tableStorageMap
+                        .entrySet()
+                        .parallelStream()
+                        .forEach(entry -> writeTable(entry.getKey(), entry.getValue(), chunkWriter));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            chunks = chunkWriter.chunks;
+            ValueOutput directory = new ValueOutput(64 * chunks.size());
+            directory.writeInt(chunks.size());
+            for (Chunk chunk : chunks) {
+                directory.writeString(chunk.tableName);
+                directory.writeString(chunk.tableClassName);
+                directory.writeLong(chunk.offset);
+                directory.writeInt(chunk.length);
+                directory.writeInt(chunk.rowCount);
+            }
+            long directoryOffset = chunkWriter.append(directory.toByteBuffer());
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_BYTES).putLong(directoryOffset).putInt(MAGIC);
+            ((Buffer) trailer).flip();
+            chunkWriter.append(trailer);
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempPath);
+            throw e;
+        }
+        try {
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return chunks
+                .stream()
+                .mapToLong(chunk -> chunk.rowCount)
+                .sum();
+    }
+
+    private static void writeTable(String tableName, TableStorage tableStorage, ChunkWriter chunkWriter) {
+        RowCodec codec = RowCodecs
+                .of(tableStorage.getTableClass())
+                .orElseThrow();
+        String tableClassName = tableStorage.getTableClass().getName();
+        ValueOutput out = new ValueOutput(CHUNK_BYTES + CHUNK_BYTES / 4);
+        int rowCount = 0;
+        try {
+            for (Map.Entry<Object, Object> entry : tableStorage.getCache().asMap().entrySet()) {
+                out.writeValue(entry.getKey());
+                codec.write(entry.getValue(), out);
+                rowCount++;
+                if (out.size() >= CHUNK_BYTES) {
+                    chunkWriter.appendChunk(tableName, tableClassName, out, rowCount);
+                    rowCount = 0;
+                }
+            }
+            if (rowCount > 0) {
+                chunkWriter.appendChunk(tableName, tableClassName, out, rowCount);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Read snapshot file and put its rows to table storages.
+     *
+     * Chunks of tables that are absent at schema or which row class differs from table row class are skipped.
+     *
+     * @param path snapshot file path
+     * @param tableStorageMap table storages by table name
+     * @return number of restored rows
+     * @throws IOException if snapshot could not be read or it is corrupted
+     */
+    public static long read(Path path, Map<String, TableStorage> tableStorageMap) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + TRAILER_BYTES) {
+                throw new IOException("snapshot file '" + path + "' is corrupted: file is too short");
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            MappedByteBuffer trailer = channel.map(FileChannel.MapMode.READ_ONLY, size - TRAILER_BYTES, TRAILER_BYTES);
+            long directoryOffset = trailer.getLong();
+            if (header.getInt() != MAGIC || trailer.getInt() != MAGIC) {
+                throw new IOException("snapshot file '" + path + "' is corrupted: file is not snapshot or it is incomplete");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("snapshot file '" + path + "' has unsupported version " + version);
+            }
+            if (directoryOffset < HEADER_BYTES || directoryOffset > size - TRAILER_BYTES) {
+                throw new IOException("snapshot file '" + path + "' is corrupted: invalid directory offset");
+            }
+            ValueInput directory = new ValueInput(channel.map(FileChannel.MapMode.READ_ONLY, directoryOffset, size - TRAILER_BYTES - directoryOffset),
+                    SnapshotFile.class.getClassLoader());
+            int chunkCount = directory.readInt();
+            List<Chunk> chunks = new ArrayList<>(chunkCount);
+            Set<String> skippedTables = new HashSet<>();
+            for (int i = 0; i < chunkCount; i++) {
+                Chunk chunk = new Chunk(directory.readString(), directory.readString(), directory.readLong(), directory.readInt(), directory.readInt());
+                TableStorage tableStorage = tableStorageMap.get(chunk.tableName);
+                if (tableStorage != null && tableStorage.getTableClass().getName().equals(chunk.tableClassName)) {
+                    chunks.add(chunk);
+                } else if (skippedTables.add(chunk.tableName)) {
+                    log.warn("snapshot rows of table '{}' are skipped due to table is absent at schema or its row class differs from '{}'",
+                            chunk.tableName, chunk.tableClassName);
+                }
+            }
+            try {
+                return chunks
+                        .parallelStream()
+                        .mapToLong(chunk -> readChunk(channel, chunk, tableStorageMap.get(chunk.tableName)))
+                        .sum();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private static long readChunk(FileChannel channel, Chunk chunk, TableStorage tableStorage) {
+        Class<?> tableClass = tableStorage.getTableClass();
+        RowCodec codec = RowCodecs
+                .of(tableClass)
+                .orElseThrow();
+        try {
+            ValueInput in = new ValueInput(channel.map(FileChannel.MapMode.READ_ONLY, chunk.offset, chunk.length), tableClass.getClassLoader());
+            Map<Object, Object> rows = new HashMap<>(chunk.rowCount * 4 / 3 + 1);
+            for (int i = 0; i < chunk.rowCount; i++) {
+                Object key = in.readValue();
+                rows.put(key, codec.read(in));
+            }
+            tableStorage.putAll(rows);
+            return chunk.rowCount;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Chunk of table rows at snapshot file
+     */
+    private static class Chunk {
+        private final String tableName;
+        private final String tableClassName;
+        private final long offset;
+        private final int length;
+        private final int rowCount;
+
+        private Chunk(String tableName, String tableClassName, long offset, int length, int rowCount) {
+            this.tableName = tableName;
+            this.tableClassName = tableClassName;
+            this.offset = offset;
+            this.length = length;
+            this.rowCount = rowCount;
+        }
+    }
+
+    /**
+     * Appends chunks of tables written in parallel to snapshot file one by one and keeps their positions
+     */
+    private static class ChunkWriter {
+        private final FileChannel channel;
+        private final List<Chunk> chunks = Collections.synchronizedList(new ArrayList<>());
+        private long position;
+
+        private ChunkWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Append bytes to file
+         *
+         * @param buffer bytes to append
+         * @return file offset of appended bytes
+         * @throws IOException if bytes could not be written
+         */
+        private synchronized long append(ByteBuffer buffer) throws IOException {
+            long offset = position;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            return offset;
+        }
+
+        private void appendChunk(String tableName, String tableClassName, ValueOutput out, int rowCount) throws IOException {
+            int length = out.size();
+            long offset = append(out.toByteBuffer());
+            chunks.add(new Chunk(tableName, tableClassName, offset, length, rowCount));
+            out.reset();
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.github.darrmirr.tweecache.snapshot;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.github.darrmirr.tweecache.snapshot.ValueOutput.*;
+
+/**
+ * Reader of snapshot chunk written by {@link ValueOutput}. Chunk is read from byte buffer, e.g. memory-mapped file region.
+ */
+public final class ValueInput {
+    private final ByteBuffer buffer;
+    private final ClassLoader classLoader;
+    private final List<Class<?>> classes = new ArrayList<>();
+    private byte[] stringBytes = new byte[64];
+
+    public ValueInput(ByteBuffer buffer, ClassLoader classLoader) {
+        this.buffer = buffer;
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * Check if there are unread bytes
+     *
+     * @return true if there are unread bytes
+     */
+    public boolean hasRemaining() {
+        return buffer.hasRemaining();
+    }
+
+    public byte readByte() {
+        return buffer.get();
+    }
+
+    public boolean readBoolean() {
+        return buffer.get() != 0;
+    }
+
+    public short readShort() {
+        return buffer.getShort();
+    }
+
+    public char readChar() {
+        return buffer.getChar();
+    }
+
+    public int readInt() {
+        return buffer.getInt();
+    }
+
+    public long readLong() {
+        return buffer.getLong();
+    }
+
+    public float readFloat() {
+        return buffer.getFloat();
+    }
+
+    public double readDouble() {
+        return buffer.getDouble();
+    }
+
+    public byte[] readBytes() {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    public String readString() {
+        int length = buffer.getInt();
+        if (length > stringBytes.length) {
+            stringBytes = new byte[Math.max(length, stringBytes.length * 2)];
+        }
+        buffer.get(stringBytes, 0, length);
+        return new String(stringBytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read class written by {@link ValueOutput#writeClass(Class)}
+     *
+     * @return class
+     */
+    Class<?> readClass() {
+        int number = buffer.getInt();
+        if (number < classes.size()) {
+            return classes.get(number);
+        }
+        String className = readString();
+        Class<?> type = primitiveClass(className);
+        try {
+            classes.add(type != null ? type : Class.forName(className, false, classLoader));
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("class '" + className + "' of snapshot value is not found", e);
+        }
+        return classes.get(number);
+    }
+
+    private static Class<?> primitiveClass(String className) {
+        switch (className) {
+            case "boolean": return boolean.class;
+            case "byte": return byte.class;
+            case "char": return char.class;
+            case "short": return short.class;
+            case "int": return int.class;
+            case "long": return long.class;
+            case "float": return float.class;
+            case "double": return double.class;
+            default: return null;
+        }
+    }
+
+    /**
+     * Read value written by {@link ValueOutput#writeValue(Object)}
+     *
+     * @return value
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Object readValue() {
+        byte tag = buffer.get();
+        switch (tag) {
+            case NULL: return null;
+            case STRING: return readString();
+            case INT: return buffer.getInt();
+            case LONG: return buffer.getLong();
+            case DOUBLE: return buffer.getDouble();
+            case FLOAT: return buffer.getFloat();
+            case SHORT: return buffer.getShort();
+            case BYTE: return buffer.get();
+            case CHAR: return buffer.getChar();
+            case BOOLEAN: return buffer.get() != 0;
+            case BIG_DECIMAL: {
+                int scale = buffer.getInt();
+                return new BigDecimal(new BigInteger(readBytes()), scale);
+            }
+            case BIG_INTEGER: return new BigInteger(readBytes());
+            case DATE: return new Date(buffer.getLong());
+            case SQL_DATE: return new java.sql.Date(buffer.getLong());
+            case SQL_TIME: return new Time(buffer.getLong());
+            case TIMESTAMP: {
+                Timestamp timestamp = new Timestamp(buffer.getLong());
+                timestamp.setNanos(buffer.getInt());
+                return timestamp;
+            }
+            case INSTANT: return Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+            case LOCAL_DATE: return LocalDate.ofEpochDay(buffer.getLong());
+            case LOCAL_DATE_TIME: {
+                LocalDate date = LocalDate.ofEpochDay(buffer.getLong());
+                return LocalDateTime.of(date, LocalTime.ofNanoOfDay(buffer.getLong()));
+            }
+            case ENUM: {
+                Class enumClass = readClass();
+                return Enum.valueOf(enumClass, readString());
+            }
+            case LIST: {
+                int size = buffer.getInt();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue());
+                }
+                return list;
+            }
+            case SET: {
+                int size = buffer.getInt();
+                Set<Object> set = new LinkedHashSet<>(size * 4 / 3 + 1);
+                for (int i = 0; i < size; i++) {
+                    set.add(readValue());
+                }
+                return set;
+            }
+            case MAP: {
+                int size = buffer.getInt();
+                Map<Object, Object> map = new LinkedHashMap<>(size * 4 / 3 + 1);
+                for (int i = 0; i < size; i++) {
+                    map.put(readValue(), readValue());
+                }
+                return map;
+            }
+            case ARRAY: {
+                Class<?> componentType = readClass();
+                int length = buffer.getInt();
+                Object array = Array.newInstance(componentType, length);
+                for (int i = 0; i < length; i++) {
+                    Array.set(array, i, readValue());
+                }
+                return array;
+            }
+            case INT_ARRAY: {
+                int[] array = new int[buffer.getInt()];
+                buffer.asIntBuffer().get(array);
+                ((Buffer) buffer).position(buffer.position() + array.length * Integer.BYTES);
+                return array;
+            }
+            case LONG_ARRAY: {
+                long[] array = new long[buffer.getInt()];
+                buffer.asLongBuffer().get(array);
+                ((Buffer) buffer).position(buffer.position() + array.length * Long.BYTES);
+                return array;
+            }
+            case DOUBLE_ARRAY: {
+                double[] array = new double[buffer.getInt()];
+                buffer.asDoubleBuffer().get(array);
+                ((Buffer) buffer).position(buffer.position() + array.length * Double.BYTES);
+                return array;
+            }
+            case BYTE_ARRAY: return readBytes();
+            case SERIALIZED: return deserialize(readBytes(), classLoader);
+            default: throw new IllegalStateException("unknown snapshot value tag " + tag + " at position " + (buffer.position() - 1));
+        }
+    }
+
+    static Object deserialize(byte[] bytes, ClassLoader classLoader) {
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes)) {
+            @Override
+            protected Class<?> resolveClass(ObjectStreamClass description) throws IOException, ClassNotFoundException {
+                try {
+                    return Class.forName(description.getName(), false, classLoader);
+                } catch (ClassNotFoundException e) {
+                    return super.resolveClass(description);
+                }
+            }
+        }) {
+            return input.readObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException("error to deserialize snapshot value", e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("error to deserialize snapshot value", e);
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.github.darrmirr.tweecache.snapshot;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Growable buffer to encode snapshot chunk.
+ *
+ * Primitive values are written in big-endian order. Values of reference type are written with type tag,
+ * see {@link #writeValue(Object)}. Classes of enums, arrays and serialized values are written by name once per chunk,
+ * next occurrences refer to class by its number at chunk.
+ */
+public final class ValueOutput {
+    static final byte NULL = 0;
+    static final byte STRING = 1;
+    static final byte INT = 2;
+    static final byte LONG = 3;
+    static final byte DOUBLE = 4;
+    static final byte FLOAT = 5;
+    static final byte SHORT = 6;
+    static final byte BYTE = 7;
+    static final byte CHAR = 8;
+    static final byte BOOLEAN = 9;
+    static final byte BIG_DECIMAL = 10;
+    static final byte BIG_INTEGER = 11;
+    static final byte DATE = 12;
+    static final byte SQL_DATE = 13;
+    static final byte SQL_TIME = 14;
+    static final byte TIMESTAMP = 15;
+    static final byte INSTANT = 16;
+    static final byte LOCAL_DATE = 17;
+    static final byte LOCAL_DATE_TIME = 18;
+    static final byte ENUM = 19;
+    static final byte LIST = 20;
+    static final byte SET = 21;
+    static final byte MAP = 22;
+    static final byte ARRAY = 23;
+    static final byte INT_ARRAY = 24;
+    static final byte LONG_ARRAY = 25;
+    static final byte DOUBLE_ARRAY = 26;
+    static final byte BYTE_ARRAY = 27;
+    static final byte SERIALIZED = 28;
+    private final Map<Class<?>, Integer> classNumbers = new HashMap<>();
+    private byte[] buffer;
+    private int size;
+
+    public ValueOutput(int capacity) {
+        this.buffer = new byte[Math.max(16, capacity)];
+    }
+
+    /**
+     * Get number of written bytes
+     *
+     * @return number of written bytes
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get written bytes. Buffer is valid until next write or {@link #reset()} invocation.
+     *
+     * @return buffer that wraps written bytes
+     */
+    public ByteBuffer toByteBuffer() {
+        return ByteBuffer.wrap(buffer, 0, size);
+    }
+
+    /**
+     * Discard written bytes and class numbers in order to start new chunk
+     */
+    public void reset() {
+        size = 0;
+        classNumbers.clear();
+    }
+
+    private void ensureCapacity(int length) {
+        if (size + length > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(size + length, buffer.length * 2));
+        }
+    }
+
+    public void writeByte(byte value) {
+        ensureCapacity(1);
+        buffer[size++] = value;
+    }
+
+    public void writeBoolean(boolean value) {
+        writeByte(value ? (byte) 1 : (byte) 0);
+    }
+
+    public void writeShort(short value) {
+        ensureCapacity(2);
+        buffer[size++] = (byte) (value >>> 8);
+        buffer[size++] = (byte) value;
+    }
+
+    public void writeChar(char value) {
+        writeShort((short) value);
+    }
+
+    public void writeInt(int value) {
+        ensureCapacity(4);
+        buffer[size++] = (byte) (value >>> 24);
+        buffer[size++] = (byte) (value >>> 16);
+        buffer[size++] = (byte) (value >>> 8);
+        buffer[size++] = (byte) value;
+    }
+
+    public void writeLong(long value) {
+        writeInt((int) (value >>> 32));
+        writeInt((int) value);
+    }
+
+    public void writeFloat(float value) {
+        writeInt(Float.floatToRawIntBits(value));
+    }
+
+    public void writeDouble(double value) {
+        writeLong(Double.doubleToRawLongBits(value));
+    }
+
+    public void writeBytes(byte[] bytes) {
+        writeInt(bytes.length);
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+    }
+
+    public void writeString(String value) {
+        writeBytes(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Write class by name on its first occurrence at chunk and by number on next occurrences
+     *
+     * @param type class
+     */
+    void writeClass(Class<?> type) {
+        Integer number = classNumbers.get(type);
+        if (number != null) {
+            writeInt(number);
+            return;
+        }
+        writeInt(classNumbers.size());
+        writeString(type.getName());
+        classNumbers.put(type, classNumbers.size());
+    }
+
+    /**
+     * Write value with its type tag.
+     *
+     * Strings, boxed primitives, big numbers, dates, enums, arrays, lists, sets and maps of such values are supported.
+     * Other serializable values are written by Java serialization.
+     * Lists, sets and maps are read as {@link java.util.ArrayList}, {@link java.util.LinkedHashSet} and {@link java.util.LinkedHashMap}.
+     *
+     * @param value value
+     * @throws IllegalArgumentException if value is not supported
+     */
+    public void writeValue(Object value) {
+        if (value == null) {
+            writeByte(NULL);
+        } else if (value instanceof String) {
+            writeByte(STRING);
+            writeString((String) value);
+        } else if (value instanceof Integer) {
+            writeByte(INT);
+            writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            writeByte(LONG);
+            writeLong((Long) value);
+        } else if (value instanceof Double) {
+            writeByte(DOUBLE);
+            writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            writeByte(FLOAT);
+            writeFloat((Float) value);
+        } else if (value instanceof Short) {
+            writeByte(SHORT);
+            writeShort((Short) value);
+        } else if (value instanceof Byte) {
+            writeByte(BYTE);
+            writeByte((Byte) value);
+        } else if (value instanceof Character) {
+            writeByte(CHAR);
+            writeChar((Character) value);
+        } else if (value instanceof Boolean) {
+            writeByte(BOOLEAN);
+            writeBoolean((Boolean) value);
+        } else if (value instanceof BigDecimal) {
+            writeByte(BIG_DECIMAL);
+            writeInt(((BigDecimal) value).scale());
+            writeBytes(((BigDecimal) value).unscaledValue().toByteArray());
+        } else if (value instanceof BigInteger) {
+            writeByte(BIG_INTEGER);
+            writeBytes(((BigInteger) value).toByteArray());
+        } else if (value instanceof Date) {
+            writeDate((Date) value);
+        } else if (value instanceof Instant) {
+            writeByte(INSTANT);
+            writeLong(((Instant) value).getEpochSecond());
+            writeInt(((Instant) value).getNano());
+        } else if (value instanceof LocalDate) {
+            writeByte(LOCAL_DATE);
+            writeLong(((LocalDate) value).toEpochDay());
+        } else if (value instanceof LocalDateTime) {
+            writeByte(LOCAL_DATE_TIME);
+            writeLong(((LocalDateTime) value).toLocalDate().toEpochDay());
+            writeLong(((LocalDateTime) value).toLocalTime().toNanoOfDay());
+        } else if (value instanceof Enum) {
+            writeByte(ENUM);
+            writeClass(((Enum<?>) value).getDeclaringClass());
+            writeString(((Enum<?>) value).name());
+        } else if (value instanceof List || value instanceof Set) {
+            Object[] elements = ((Collection<?>) value).toArray();
+            writeByte(value instanceof List ? LIST : SET);
+            writeInt(elements.length);
+            for (Object element : elements) {
+                writeValue(element);
+            }
+        } else if (value instanceof Map) {
+            List<Map.Entry<?, ?>> entries = new ArrayList<>(((Map<?, ?>) value).entrySet());
+            writeByte(MAP);
+            writeInt(entries.size());
+            for (Map.Entry<?, ?> entry : entries) {
+                writeValue(entry.getKey());
+                writeValue(entry.getValue());
+            }
+        } else if (value.getClass().isArray()) {
+            writeArray(value);
+        } else if (value instanceof Serializable) {
+            writeByte(SERIALIZED);
+            writeBytes(serialize(value));
+        } else {
+            throw new IllegalArgumentException("value of class '" + value.getClass().getName() + "' cannot be written to snapshot");
+        }
+    }
+
+    private void writeDate(Date date) {
+        if (date instanceof Timestamp) {
+            writeByte(TIMESTAMP);
+            writeLong(date.getTime());
+            writeInt(((Timestamp) date).getNanos());
+            return;
+        }
+        writeByte(date instanceof java.sql.Date ? SQL_DATE : date instanceof Time ? SQL_TIME : DATE);
+        writeLong(date.getTime());
+    }
+
+    private void writeArray(Object array) {
+        if (array instanceof int[]) {
+            int[] values = (int[]) array;
+            writeByte(INT_ARRAY);
+            writeInt(values.length);
+            for (int value : values) {
+                writeInt(value);
+            }
+        } else if (array instanceof long[]) {
+            long[] values = (long[]) array;
+            writeByte(LONG_ARRAY);
+            writeInt(values.length);
+            for (long value : values) {
+                writeLong(value);
+            }
+        } else if (array instanceof double[]) {
+            double[] values = (double[]) array;
+            writeByte(DOUBLE_ARRAY);
+            writeInt(values.length);
+            for (double value : values) {
+                writeDouble(value);
+            }
+        } else if (array instanceof byte[]) {
+            writeByte(BYTE_ARRAY);
+            writeBytes((byte[]) array);
+        } else {
+            // other primitive arrays are boxed element by element
+            int length = Array.getLength(array);
+            writeByte(ARRAY);
+            writeClass(array.getClass().getComponentType());
+            writeInt(length);
+            for (int i = 0; i < length; i++) {
+                writeValue(Array.get(array, i));
+            }
+        }
+    }
+
+    static byte[] serialize(Object value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException("error to serialize value of class '" + value.getClass().getName() + "'", e);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -14,7 +14,9 @@ public class ClassDeclaration {
     private String className;
     private String modifier;
     private List<String> importDeclarations = new LinkedList<>();
+    private List<String> interfaceDeclarations = new LinkedList<>();
     private List<String> fieldDeclarations = new LinkedList<>();
+    private List<String> methodDeclarations = new LinkedList<>();
 
     public ClassDeclaration(String packageName, String className) {
         this(packageName, className, "public");
@@ -34,11 +36,22 @@ public class ClassDeclaration {
                 .ifPresent(importDeclarations::add);
     }
 
+    public void addInterface(Class<?> interfaceClass) {
+        Optional.ofNullable(interfaceClass)
+                .map(Class::getName)
+                .ifPresent(interfaceDeclarations::add);
+    }
+
     public void addField(String fieldDeclaration) {
         Optional.ofNullable(fieldDeclaration)
                 .ifPresent(fieldDeclarations::add);
     }
 
+    public void addMethod(String methodDeclaration) {
+        Optional.ofNullable(methodDeclaration)
+                .ifPresent(methodDeclarations::add);
+    }
+
     public String getDefinition() {
         return new StringBuilder()
                 .append("package").append(" ")
@@ -47,8 +60,10 @@ public class ClassDeclaration {
                 .append(modifier).append(" ")
                 .append("class").append(" ")
                 .append(className).append(" ")
+                .append(interfaces())
                 .append("{").append(" ")
                 .append(fields()).append(" ")
+                .append(methods()).append(" ")
                 .append("}")
                 .toString();
     }
@@ -73,10 +88,18 @@ public class ClassDeclaration {
         return String.join(" ", importDeclarations);
     }
 
+    private String interfaces() {
+        return interfaceDeclarations.isEmpty() ? "" : "implements " + String.join(", ", interfaceDeclarations) + " ";
+    }
+
     private String fields() {
         return String.join(" ", fieldDeclarations);
     }
 
+    private String methods() {
+        return String.join(" ", methodDeclarations);
+    }
+
     private String toCapitalFirstLetter(String string) {
         String firstCapital = string.substring(0, 1).toUpperCase();
         return firstCapital + string.substring(1);
@@ -3,9 +3,7 @@ package com.github.darrmirr.tweecache.util;
 import org.apache.calcite.adapter.enumerable.EnumerableInterpretable;
 import org.codehaus.commons.compiler.CompileException;
 import org.codehaus.commons.compiler.ICompiler;
-import org.codehaus.commons.compiler.util.ResourceFinderClassLoader;
 import org.codehaus.commons.compiler.util.resource.MapResourceCreator;
-import org.codehaus.commons.compiler.util.resource.MapResourceFinder;
 import org.codehaus.commons.compiler.util.resource.Resource;
 import org.codehaus.commons.compiler.util.resource.StringResource;
 import org.codehaus.janino.CompilerFactory;
@@ -13,24 +11,25 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * {@link ClassFactory} compiles cache schema classes and loads it using by special ClassLoader.
  *
  * ClassLoader is set to {@link EnumerableInterpretable} in order to make compiled classes visible to Apache Calcite
+ *
+ * Janino compiler instance is not thread-safe. Therefore, new compiler instance is created per each compilation
+ * that allows to compile several classes concurrently without global lock.
  */
 public class ClassFactory {
     private static final Logger log = LoggerFactory.getLogger(ClassFactory.class);
     public static final ClassFactory INSTANCE = new ClassFactory();
-    private final ICompiler compiler = new CompilerFactory().newCompiler();
-    private final MapResourceCreator resourceCreator = new MapResourceCreator(new ConcurrentHashMap<>());                           // Store generated .class files in a Map
-    private final MapResourceFinder resourceFinder = new MapResourceFinder();                                                       // Store java files content
-    private final ClassLoader classLoader = new ResourceFinderClassLoader(resourceFinder, ClassLoader.getSystemClassLoader());      // Set up a class loader that uses the generated classes.
+    private final CompilerFactory compilerFactory = new CompilerFactory();
+    private final GeneratedClassLoader classLoader = new GeneratedClassLoader(ClassLoader.getSystemClassLoader());      // Set up a class loader that uses the generated classes.
 
     private ClassFactory() {
-        compiler.setClassFileCreator(resourceCreator);
         EnumerableInterpretable.setParentClassLoader(classLoader);
     }
 
@@ -43,10 +42,11 @@ public class ClassFactory {
     private Result<Class<?>> compileFunction(ClassDeclaration classDeclaration) {
         try {
             log.debug("compile java class : '{}'", classDeclaration);
-            synchronized (compiler) {
-                compiler.compile(new Resource[] { new StringResource(classDeclaration.getJavaFilePath(),  classDeclaration.getDefinition()) });
-            }
-            add2classLoader(classDeclaration);
+            Map<String, byte[]> classFiles = new HashMap<>();                                                        // Store generated .class files in a Map
+            ICompiler compiler = compilerFactory.newCompiler();
+            compiler.setClassFileCreator(new MapResourceCreator(classFiles));
+            compiler.compile(new Resource[] { new StringResource(classDeclaration.getJavaFilePath(),  classDeclaration.getDefinition()) });
+            add2classLoader(classDeclaration, classFiles);
             return Result.ok(classLoader.loadClass(classDeclaration.getClassName()));
         } catch (CompileException | IOException | ClassNotFoundException | ClassFormatError e) {
             log.error("error to compile class : '{}' due to '{}'.", classDeclaration, e.getMessage());
@@ -57,6 +57,8 @@ public class ClassFactory {
     /**
      * Compile class according to provided {@link ClassDeclaration}
      *
+     * Method is thread-safe.
+     *
      * @param classDeclaration class declaration to compile
      * @return compiled Class object
      */
@@ -71,10 +73,10 @@ public class ClassFactory {
      * Add compiled class to class loader
      *
      * @param classDeclaration class declaration of complied class
+     * @param classFiles compiled .class files content
      */
-    private void add2classLoader(ClassDeclaration classDeclaration) {
-        String classFilePath = classDeclaration.getClassFilePath();
-        byte[] classFileBytes = resourceCreator.getMap().get(classFilePath);
-        resourceFinder.addResource(classFilePath, classFileBytes);
+    private void add2classLoader(ClassDeclaration classDeclaration, Map<String, byte[]> classFiles) {
+        byte[] classFileBytes = classFiles.get(classDeclaration.getClassFilePath());
+        classLoader.addClass(classDeclaration.getClassName(), classFileBytes);
     }
 }
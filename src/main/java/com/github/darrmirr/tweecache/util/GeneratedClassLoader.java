@@ -0,0 +1,40 @@
+package com.github.darrmirr.tweecache.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Class loader for classes compiled at runtime by {@link ClassFactory}.
+ *
+ * Class loader is registered as parallel capable, therefore classes with different names could be defined concurrently.
+ */
+class GeneratedClassLoader extends ClassLoader {
+    private final Map<String, byte[]> classFiles = new ConcurrentHashMap<>();
+
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+
+    GeneratedClassLoader(ClassLoader parent) {
+        super(parent);
+    }
+
+    /**
+     * Add compiled class file content to class loader
+     *
+     * @param className fully qualified class name
+     * @param classFileBytes content of compiled .class file
+     */
+    void addClass(String className, byte[] classFileBytes) {
+        classFiles.put(className, classFileBytes);
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        byte[] classFileBytes = classFiles.get(name);
+        if (classFileBytes == null) {
+            throw new ClassNotFoundException(name);
+        }
+        return defineClass(name, classFileBytes, 0, classFileBytes.length);
+    }
+}
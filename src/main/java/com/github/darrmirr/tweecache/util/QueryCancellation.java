@@ -0,0 +1,258 @@
+package com.github.darrmirr.tweecache.util;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Cooperative cancellation token of SQL-query.
+ *
+ * Token is bound to thread that executes SQL-query. Table rows are read through {@link #cancellable(Collection)} view
+ * that checks token of current thread on each row. Therefore, scans, joins and sorts over table rows stop
+ * as soon as token is cancelled or SQL-query deadline is passed.
+ * Besides, token is checked at boundaries of SQL-query execution by {@link #checkpoint()}.
+ */
+public final class QueryCancellation {
+    private static final ThreadLocal<QueryCancellation> CURRENT = new ThreadLocal<>();
+    private static final ThreadLocal<int[]> CHECK_COUNTER = ThreadLocal.withInitial(() -> new int[1]);
+    private static final int DEADLINE_CHECK_MASK = 0x3FF;
+    private final Duration timeout;
+    private final long deadlineNanos;
+    private volatile String cancelReason;
+    private volatile Statement statement;
+    private volatile Runnable cancelListener;
+
+    /**
+     * Create cancellation token
+     *
+     * @param timeout SQL-query timeout. SQL-query has no timeout if it is null, zero or negative.
+     */
+    public QueryCancellation(Duration timeout) {
+        this.timeout = timeout != null && !timeout.isNegative() && !timeout.isZero() ? timeout : null;
+        this.deadlineNanos = this.timeout != null ? System.nanoTime() + this.timeout.toNanos() : 0;
+    }
+
+    /**
+     * Cancel SQL-query
+     */
+    public void cancel() {
+        cancel("query is cancelled");
+    }
+
+    private void cancel(String reason) {
+        if (cancelReason != null) {
+            return;
+        }
+        cancelReason = reason;
+        cancelStatement(statement);
+        Runnable listener = cancelListener;
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Check if SQL-query is cancelled or timed out
+     *
+     * @return true if SQL-query is cancelled
+     */
+    public boolean isCancelled() {
+        return cancelReason != null;
+    }
+
+    /**
+     * Get time left till SQL-query deadline
+     *
+     * @param unit time unit of result
+     * @return time left till SQL-query deadline or {@link Long#MAX_VALUE} if SQL-query has no timeout
+     */
+    public long remaining(TimeUnit unit) {
+        return timeout != null ? unit.convert(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS) : Long.MAX_VALUE;
+    }
+
+    /**
+     * Bind JDBC statement that executes SQL-query. Statement is cancelled together with token.
+     *
+     * @param statement JDBC statement
+     */
+    public void bindStatement(Statement statement) {
+        this.statement = statement;
+        if (isCancelled()) {
+            cancelStatement(statement);
+        }
+    }
+
+    /**
+     * Set listener that is invoked once token is cancelled (e.g. to wake up SQL-query waiting for execution slot).
+     * Listener is invoked at once if token is already cancelled.
+     *
+     * @param listener cancel listener or null to remove listener
+     */
+    public void onCancel(Runnable listener) {
+        this.cancelListener = listener;
+        if (listener != null && isCancelled()) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Throw {@link CancellationException} if SQL-query is cancelled or timed out.
+     *
+     * Deadline is checked on every 1024 invocation at current thread in order to keep check cheap at tight loops.
+     * Invocation counter is kept per thread, because parts of SQL-query could be checked by several threads at once.
+     */
+    public void check() {
+        if (timeout != null && (++CHECK_COUNTER.get()[0] & DEADLINE_CHECK_MASK) == 0) {
+            checkDeadline();
+        }
+        throwIfCancelled();
+    }
+
+    /**
+     * Throw {@link CancellationException} if SQL-query is cancelled or its deadline is passed.
+     *
+     * Deadline is checked on each invocation, therefore it is used at boundaries of SQL-query execution
+     * (e.g. when SQL-query is planned and before its result is read) rather than per table row.
+     */
+    public void checkpoint() {
+        checkDeadline();
+        throwIfCancelled();
+    }
+
+    private void checkDeadline() {
+        if (timeout != null && System.nanoTime() - deadlineNanos >= 0) {
+            cancel("query is timed out after " + timeout.toMillis() + " ms");
+        }
+    }
+
+    private void throwIfCancelled() {
+        String reason = cancelReason;
+        if (reason != null) {
+            throw new CancellationException(reason);
+        }
+    }
+
+    /**
+     * Run SQL-query at current thread with this token bound to the thread.
+     *
+     * Any exception thrown by cancelled SQL-query is replaced by {@link CancellationException}.
+     *
+     * @param query SQL-query to run
+     * @param <T> SQL-query result type
+     * @return SQL-query result
+     */
+    public <T> T run(Supplier<T> query) {
+        QueryCancellation previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            checkpoint();
+            return query.get();
+        } catch (CancellationException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            if (isCancelled()) {
+                CancellationException cancellationException = new CancellationException(cancelReason);
+                cancellationException.initCause(e);
+                throw cancellationException;
+            }
+            throw e;
+        } finally {
+            statement = null;
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /**
+     * Run part of SQL-query at another thread (e.g. partition of parallel scan) with this token bound to the thread
+     *
+     * @param task part of SQL-query
+     * @param <T> result type
+     * @return result of SQL-query part
+     */
+    public <T> T propagate(Supplier<T> task) {
+        QueryCancellation previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            throwIfCancelled();
+            return task.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /**
+     * Get cancellation token bound to current thread
+     *
+     * @return cancellation token or null if there is no SQL-query executed by current thread
+     */
+    public static QueryCancellation current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Check cancellation token bound to current thread
+     */
+    public static void checkCurrent() {
+        QueryCancellation current = CURRENT.get();
+        if (current != null) {
+            current.check();
+        }
+    }
+
+    /**
+     * Create read-only collection view which iterator checks cancellation token bound to current thread
+     *
+     * @param collection source collection
+     * @param <E> collection item type
+     * @return collection view
+     */
+    public static <E> Collection<E> cancellable(Collection<E> collection) {
+        return new AbstractCollection<E>() {
+            @Override
+            public Iterator<E> iterator() {
+                Iterator<E> iterator = collection.iterator();
+                return new Iterator<E>() {
+                    @Override
+                    public boolean hasNext() {
+                        checkCurrent();
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public E next() {
+                        return iterator.next();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return collection.size();
+            }
+        };
+    }
+
+    private static void cancelStatement(Statement statement) {
+        if (statement != null) {
+            try {
+                statement.cancel();
+            } catch (SQLException ignored) {
+                // statement is already closed
+            }
+        }
+    }
+}
@@ -0,0 +1,415 @@
+package com.github.darrmirr.tweecache.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Cache that consists of independent cache shards. Shard of key is selected by key hash.
+ *
+ * Writes to different shards do not contend for the same write buffer and eviction maintenance, therefore
+ * write throughput scales with number of writing threads. Operations over single key are delegated to its shard,
+ * bulk operations and statistics are aggregated over all shards. Scan of cache values is split by shards first.
+ */
+public class ShardedCache implements Cache<Object, Object> {
+    private final List<Cache<Object, Object>> shards;
+    private final ConcurrentMap<Object, Object> map = new ShardedMap();
+
+    public ShardedCache(List<Cache<Object, Object>> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("sharded cache must have at least one shard");
+        }
+        this.shards = new ArrayList<>(shards);
+    }
+
+    /**
+     * Get cache shards
+     *
+     * @return cache shards
+     */
+    public List<Cache<Object, Object>> getShards() {
+        return shards;
+    }
+
+    private Cache<Object, Object> shard(Object key) {
+        int hash = key.hashCode();
+        return shards.get(Math.floorMod(hash ^ (hash >>> 16), shards.size()));
+    }
+
+    @Override
+    public Object getIfPresent(Object key) {
+        return shard(key).getIfPresent(key);
+    }
+
+    @Override
+    public Object get(Object key, Function<? super Object, ? extends Object> mappingFunction) {
+        return shard(key).get(key, mappingFunction);
+    }
+
+    @Override
+    public Map<Object, Object> getAllPresent(Iterable<?> keys) {
+        Map<Object, Object> result = new LinkedHashMap<>();
+        for (Object key : keys) {
+            Object value = shard(key).getIfPresent(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get values of keys, values absent at shards are computed by single invocation of mapping function
+     * rather than by one invocation per shard.
+     */
+    @Override
+    public Map<Object, Object> getAll(Iterable<? extends Object> keys, Function<Iterable<? extends Object>, Map<Object, Object>> mappingFunction) {
+        Map<Object, Object> found = getAllPresent(keys);
+        Set<Object> missingKeys = new LinkedHashSet<>();
+        for (Object key : keys) {
+            if (!found.containsKey(key)) {
+                missingKeys.add(key);
+            }
+        }
+        if (!missingKeys.isEmpty()) {
+            Map<Object, Object> loaded = mappingFunction.apply(Collections.unmodifiableSet(missingKeys));
+            loaded.forEach((key, value) -> {
+                shard(key).put(key, value);
+                found.put(key, value);
+            });
+        }
+        Map<Object, Object> result = new LinkedHashMap<>();
+        for (Object key : keys) {
+            Object value = found.get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        shard(key).put(key, value);
+    }
+
+    @Override
+    public void putAll(Map<? extends Object, ? extends Object> map) {
+        map.forEach(this::put);
+    }
+
+    @Override
+    public void invalidate(Object key) {
+        shard(key).invalidate(key);
+    }
+
+    @Override
+    public void invalidateAll(Iterable<?> keys) {
+        for (Object key : keys) {
+            invalidate(key);
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        shards.forEach(Cache::invalidateAll);
+    }
+
+    @Override
+    public long estimatedSize() {
+        return shards
+                .stream()
+                .mapToLong(Cache::estimatedSize)
+                .sum();
+    }
+
+    @Override
+    public CacheStats stats() {
+        return shards
+                .stream()
+                .map(Cache::stats)
+                .reduce(CacheStats.empty(), CacheStats::plus);
+    }
+
+    @Override
+    public ConcurrentMap<Object, Object> asMap() {
+        return map;
+    }
+
+    @Override
+    public void cleanUp() {
+        shards.forEach(Cache::cleanUp);
+    }
+
+    /**
+     * Get policy of the first shard. Shards are built by the same builder function,
+     * therefore their policies have the same settings. Each setting applies to single shard.
+     *
+     * @return policy of the first shard
+     */
+    @Override
+    public Policy<Object, Object> policy() {
+        return shards.get(0).policy();
+    }
+
+    /**
+     * Map view of sharded cache. Operations over key are atomic since they are delegated to map view of key shard.
+     */
+    private class ShardedMap extends AbstractMap<Object, Object> implements ConcurrentMap<Object, Object> {
+
+        private ConcurrentMap<Object, Object> shardMap(Object key) {
+            return shard(key).asMap();
+        }
+
+        @Override
+        public Object get(Object key) {
+            return shardMap(key).get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return shardMap(key).containsKey(key);
+        }
+
+        @Override
+        public Object put(Object key, Object value) {
+            return shardMap(key).put(key, value);
+        }
+
+        @Override
+        public Object remove(Object key) {
+            return shardMap(key).remove(key);
+        }
+
+        @Override
+        public Object putIfAbsent(Object key, Object value) {
+            return shardMap(key).putIfAbsent(key, value);
+        }
+
+        @Override
+        public boolean remove(Object key, Object value) {
+            return shardMap(key).remove(key, value);
+        }
+
+        @Override
+        public boolean replace(Object key, Object oldValue, Object newValue) {
+            return shardMap(key).replace(key, oldValue, newValue);
+        }
+
+        @Override
+        public Object replace(Object key, Object value) {
+            return shardMap(key).replace(key, value);
+        }
+
+        @Override
+        public Object computeIfAbsent(Object key, Function<? super Object, ? extends Object> mappingFunction) {
+            return shardMap(key).computeIfAbsent(key, mappingFunction);
+        }
+
+        @Override
+        public Object computeIfPresent(Object key, BiFunction<? super Object, ? super Object, ? extends Object> remappingFunction) {
+            return shardMap(key).computeIfPresent(key, remappingFunction);
+        }
+
+        @Override
+        public Object compute(Object key, BiFunction<? super Object, ? super Object, ? extends Object> remappingFunction) {
+            return shardMap(key).compute(key, remappingFunction);
+        }
+
+        @Override
+        public Object merge(Object key, Object value, BiFunction<? super Object, ? super Object, ? extends Object> remappingFunction) {
+            return shardMap(key).merge(key, value, remappingFunction);
+        }
+
+        @Override
+        public int size() {
+            return (int) Math.min(Integer.MAX_VALUE, shards
+                    .stream()
+                    .mapToLong(shard -> shard.asMap().size())
+                    .sum());
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return shards
+                    .stream()
+                    .allMatch(shard -> shard.asMap().isEmpty());
+        }
+
+        @Override
+        public void clear() {
+            shards.forEach(shard -> shard.asMap().clear());
+        }
+
+        @Override
+        public Collection<Object> values() {
+            return new ShardedCollection<>(shardMap -> shardMap.values());
+        }
+
+        @Override
+        public Set<Object> keySet() {
+            return new ShardedSet<>(shardMap -> shardMap.keySet());
+        }
+
+        @Override
+        public Set<Entry<Object, Object>> entrySet() {
+            return new ShardedSet<>(shardMap -> shardMap.entrySet());
+        }
+    }
+
+    /**
+     * Concatenation of collection views of shards
+     *
+     * @param <E> element type
+     */
+    private class ShardedCollection<E> extends AbstractCollection<E> {
+        private final Function<ConcurrentMap<Object, Object>, Collection<E>> view;
+
+        private ShardedCollection(Function<ConcurrentMap<Object, Object>, Collection<E>> view) {
+            this.view = view;
+        }
+
+        private List<Collection<E>> views() {
+            return shards
+                    .stream()
+                    .map(shard -> view.apply(shard.asMap()))
+                    .collect(Collectors.toList());
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return views()
+                    .stream()
+                    .flatMap(Collection::stream)
+                    .iterator();
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return map.isEmpty();
+        }
+
+        @Override
+        public Spliterator<E> spliterator() {
+            return new ShardSpliterator<>(views()
+                    .stream()
+                    .map(Collection::spliterator)
+                    .collect(Collectors.toList()), 0, shards.size());
+        }
+    }
+
+    private class ShardedSet<E> extends ShardedCollection<E> implements Set<E> {
+
+        private ShardedSet(Function<ConcurrentMap<Object, Object>, Collection<E>> view) {
+            super(view);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) {
+                return true;
+            }
+            if (!(o instanceof Set) || ((Set<?>) o).size() != size()) {
+                return false;
+            }
+            return containsAll((Set<?>) o);
+        }
+
+        @Override
+        public int hashCode() {
+            int hashCode = 0;
+            for (E element : this) {
+                hashCode += element != null ? element.hashCode() : 0;
+            }
+            return hashCode;
+        }
+    }
+
+    /**
+     * Spliterator over shards. It splits range of shards in halves while range has more than one shard,
+     * then it splits spliterator of single shard.
+     *
+     * @param <E> element type
+     */
+    private static class ShardSpliterator<E> implements Spliterator<E> {
+        private final List<Spliterator<E>> spliterators;
+        private final int fence;
+        private int index;
+
+        private ShardSpliterator(List<Spliterator<E>> spliterators, int index, int fence) {
+            this.spliterators = spliterators;
+            this.index = index;
+            this.fence = fence;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super E> action) {
+            while (index < fence) {
+                if (spliterators.get(index).tryAdvance(action)) {
+                    return true;
+                }
+                index++;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super E> action) {
+            for (; index < fence; index++) {
+                spliterators.get(index).forEachRemaining(action);
+            }
+        }
+
+        @Override
+        public Spliterator<E> trySplit() {
+            int remaining = fence - index;
+            if (remaining > 1) {
+                int middle = index + remaining / 2;
+                Spliterator<E> prefix = new ShardSpliterator<>(spliterators, index, middle);
+                index = middle;
+                return prefix;
+            }
+            return remaining == 1 ? spliterators.get(index).trySplit() : null;
+        }
+
+        @Override
+        public long estimateSize() {
+            long size = 0;
+            for (int i = index; i < fence; i++) {
+                size += spliterators.get(i).estimateSize();
+                if (size < 0) {
+                    return Long.MAX_VALUE;
+                }
+            }
+            return size;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.CONCURRENT | Spliterator.NONNULL;
+        }
+    }
+}
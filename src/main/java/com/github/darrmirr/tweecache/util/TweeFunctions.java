@@ -2,7 +2,10 @@ package com.github.darrmirr.tweecache.util;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.darrmirr.tweecache.TableStorage;
+import com.github.darrmirr.tweecache.index.TableIndex;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.function.Function;
 
@@ -10,6 +13,14 @@ import java.util.function.Function;
  * Storage for library functions
  */
 public final class TweeFunctions {
+    /**
+     * Name of SQL function that checks if collection or array contains element
+     */
+    public static final String ARRAY_CONTAINS = "array_contains";
+    /**
+     * Name of SQL function that checks if string starts with prefix
+     */
+    public static final String STARTS_WITH = "starts_with";
 
     private TweeFunctions() { }
 
@@ -28,4 +39,52 @@ public final class TweeFunctions {
                 .map(TableStorage::getCache)
                 .orElse(null);
     }
+
+    /**
+     * Check if collection or array contains element. Numeric values are compared by value regardless of their type.
+     *
+     * Function is available at SQL-queries as {@link #ARRAY_CONTAINS}.
+     * Predicate over field with inverted index is answered by index.
+     *
+     * @param array collection or array of objects
+     * @param element element to find
+     * @return true if array contains element
+     */
+    public static boolean arrayContains(Object array, Object element) {
+        Collection<?> collection;
+        if (array instanceof Collection) {
+            collection = (Collection<?>) array;
+        } else if (array instanceof Object[]) {
+            collection = Arrays.asList((Object[]) array);
+        } else {
+            return false;
+        }
+        if (element == null) {
+            return false;
+        }
+        Object value = TableIndex.normalize(element);
+        for (Object item : collection) {
+            if (item != null && TableIndex.normalize(item).equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check if string starts with prefix. Prefix is literal text, it has no wildcards unlike LIKE pattern.
+     *
+     * Function is available at SQL-queries as {@link #STARTS_WITH}.
+     * Predicate over field with prefix index is answered by index.
+     *
+     * @param value string value
+     * @param prefix prefix to check
+     * @return true if value starts with prefix, null if any argument is null
+     */
+    public static Boolean startsWith(String value, String prefix) {
+        if (value == null || prefix == null) {
+            return null;
+        }
+        return value.startsWith(prefix);
+    }
 }
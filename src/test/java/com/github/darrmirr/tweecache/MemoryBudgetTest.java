@@ -0,0 +1,108 @@
+package com.github.darrmirr.tweecache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.darrmirr.tweecache.accessor.RowSizeEstimator;
+import com.github.darrmirr.tweecache.test.model.Employee;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class MemoryBudgetTest {
+    private static final long BUDGET = 100_000;
+
+    @Test
+    void budgetFollowsAccessFrequency() {
+        Map<String, TableStorage> tableStorageMap = new HashMap<>();
+        tableStorageMap.put("hot", tableStorage(1000));
+        tableStorageMap.put("cold", tableStorage(1000));
+        MemoryBudget memoryBudget = new MemoryBudget("budgetFollowsAccessFrequency", BUDGET, tableStorageMap, null);
+        for (int i = 0; i < 100; i++) {
+            tableStorageMap.get("hot").get(i);
+        }
+
+        memoryBudget.rebalance();
+        tableStorageMap.values().forEach(tableStorage -> tableStorage.getCache().cleanUp());
+
+        long hotShare = memoryBudget.share("hot").orElse(0L);
+        long coldShare = memoryBudget.share("cold").orElse(0L);
+        assertThat(hotShare, greaterThan(coldShare));
+        assertThat(hotShare + coldShare, is(BUDGET));
+        assertThat(memoryBudget.frequency("hot"), is(100.0));
+        assertThat(MemoryBudget.usedBytes(tableStorageMap.get("cold")), lessThanOrEqualTo(coldShare));
+        assertThat(tableStorageMap.get("hot").getCache().estimatedSize(), greaterThan(tableStorageMap.get("cold").getCache().estimatedSize()));
+    }
+
+    @Test
+    void unusedShareIsPassedToOtherTables() {
+        Map<String, TableStorage> tableStorageMap = new HashMap<>();
+        tableStorageMap.put("large", tableStorage(1000));
+        tableStorageMap.put("small", tableStorage(5));
+        MemoryBudget memoryBudget = new MemoryBudget("unusedShareIsPassedToOtherTables", BUDGET, tableStorageMap, null);
+
+        memoryBudget.rebalance();
+
+        assertThat(memoryBudget.share("small").orElse(0L), is((long) (BUDGET * MemoryBudget.EVEN_SHARE / 2)));
+        assertThat(memoryBudget.share("large").orElse(0L), is(BUDGET - (long) (BUDGET * MemoryBudget.EVEN_SHARE / 2)));
+    }
+
+    @Test
+    void unusedBudgetIsSpreadOverAllTables() {
+        Map<String, TableStorage> tableStorageMap = new HashMap<>();
+        tableStorageMap.put("small", tableStorage(5));
+        tableStorageMap.put("empty", tableStorage(0));
+        MemoryBudget memoryBudget = new MemoryBudget("unusedBudgetIsSpreadOverAllTables", BUDGET, tableStorageMap, null);
+
+        memoryBudget.rebalance();
+
+        long smallShare = memoryBudget.share("small").orElse(0L);
+        long emptyShare = memoryBudget.share("empty").orElse(0L);
+        assertThat(smallShare + emptyShare, is(BUDGET));
+        assertThat(smallShare, greaterThan(MemoryBudget.usedBytes(tableStorageMap.get("small")) * MemoryBudget.USAGE_HEADROOM));
+        assertThat(emptyShare, greaterThan((long) (BUDGET * MemoryBudget.EVEN_SHARE)));
+    }
+
+    @Test
+    void suspendedBudgetDoesNotBoundTables() {
+        Map<String, TableStorage> tableStorageMap = new HashMap<>();
+        tableStorageMap.put("large", tableStorage(0));
+        tableStorageMap.put("small", tableStorage(5));
+        MemoryBudget memoryBudget = new MemoryBudget("suspendedBudgetDoesNotBoundTables", BUDGET, tableStorageMap, null);
+
+        memoryBudget.suspend();
+        fill(tableStorageMap.get("large").getCache(), 400);
+        memoryBudget.rebalance();
+
+        assertThat(memoryBudget.share("large").orElse(0L), is(BUDGET));
+        assertThat(tableStorageMap.get("large").getCache().estimatedSize(), is(400L));
+
+        memoryBudget.resume();
+
+        assertThat(memoryBudget.share("large").orElse(0L) + memoryBudget.share("small").orElse(0L), is(BUDGET));
+    }
+
+    private static TableStorage tableStorage(int rowCount) {
+        RowSizeEstimator sizeEstimator = RowSizeEstimator.of(Employee.class);
+        Cache<Object, Object> cache = Caffeine
+                .newBuilder()
+                .executor(Runnable::run)
+                .weigher(sizeEstimator::weigh)
+                .maximumWeight(MemoryBudget.initialShare(BUDGET, 2))
+                .build();
+        fill(cache, rowCount);
+        return new TableStorage(Employee.class, cache);
+    }
+
+    private static void fill(Cache<Object, Object> cache, int rowCount) {
+        for (int i = 0; i < rowCount; i++) {
+            Employee employee = new Employee();
+            employee.id = i;
+            employee.lastName = "employee " + i;
+            cache.put(employee.id, employee);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.github.darrmirr.tweecache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class PreparedQueryTest {
+
+    @Test
+    void namedParametersAreReplacedByPositions() {
+        PreparedQuery preparedQuery = PreparedQuery.parse("select * from cache.employee where id = :id or departmentId = :department_id or id > :id");
+
+        assertThat(preparedQuery.getSql(), is("select * from cache.employee where id = ? or departmentId = ? or id > ?"));
+        assertThat(preparedQuery.getParameterNames(), contains("id", "department_id"));
+        assertThat(preparedQuery.getPositionCount(), is(3));
+        assertThat(preparedQuery.getParameterIndex(2), is(0));
+    }
+
+    @Test
+    void quotedColonIsNotParameter() {
+        PreparedQuery preparedQuery = PreparedQuery.parse("select \"a:b\" from cache.employee where lastName = ':name' and firstName = 'it''s :name' and id = :id");
+
+        assertThat(preparedQuery.getSql(), is("select \"a:b\" from cache.employee where lastName = ':name' and firstName = 'it''s :name' and id = ?"));
+        assertThat(preparedQuery.getParameterNames(), contains("id"));
+    }
+
+    @Test
+    void commentedColonIsNotParameter() {
+        PreparedQuery preparedQuery = PreparedQuery.parse("select * /* :hint */ from cache.employee where id = :id");
+
+        assertThat(preparedQuery.getSql(), is("select * /* :hint */ from cache.employee where id = ?"));
+        assertThat(preparedQuery.getParameterNames(), contains("id"));
+    }
+
+    @Test
+    void doubleColonCastIsLeftToJdbi() {
+        assertThat(PreparedQuery.parse("select id::varchar from cache.employee where id = :id"), is(nullValue()));
+        assertThat(PreparedQuery.parse("select * from cache.employee where id = ?"), is(nullValue()));
+    }
+}
@@ -0,0 +1,122 @@
+package com.github.darrmirr.tweecache;
+
+import com.github.darrmirr.tweecache.util.QueryCancellation;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class QueryDispatcherTest {
+
+    @Test
+    void slotsAreDispatchedByWeight() throws Exception {
+        QueryClass holder = new QueryClass("holder", 1, 0);
+        QueryClass lookup = new QueryClass("lookup", 10, 10, 3);
+        QueryClass analytic = new QueryClass("analytic", 10, 10, 1);
+        QueryDispatcher dispatcher = new QueryDispatcher(Arrays.asList(holder, lookup, analytic), 1);
+        List<String> grants = new CopyOnWriteArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            dispatcher.acquire(holder, System.nanoTime(), new QueryCancellation(null));
+            List<Future<?>> futures = new ArrayList<>();
+            for (QueryClass queryClass : Arrays.asList(lookup, analytic)) {
+                for (int i = 0; i < 4; i++) {
+                    futures.add(executor.submit(() -> {
+                        dispatcher.acquire(queryClass, System.nanoTime(), new QueryCancellation(null));
+                        grants.add(queryClass.getName());
+                        dispatcher.release(queryClass);
+                    }));
+                }
+            }
+            while (dispatcher.waitingQueries(lookup) + dispatcher.waitingQueries(analytic) < 8) {
+                Thread.sleep(1);
+            }
+
+            dispatcher.release(holder);
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+
+            assertThat(grants, hasSize(8));
+            assertThat(Collections.frequency(grants.subList(0, 4), "lookup"), greaterThanOrEqualTo(3));
+            assertThat(dispatcher.runningQueries(lookup) + dispatcher.runningQueries(analytic), is(0));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void queryClassLimitIsKept() {
+        QueryClass analytic = new QueryClass("analytic", 1, 10);
+        QueryDispatcher dispatcher = new QueryDispatcher(Collections.singletonList(analytic), 10);
+
+        dispatcher.acquire(analytic, System.nanoTime(), new QueryCancellation(null));
+
+        assertThrows(CancellationException.class,
+                () -> dispatcher.acquire(analytic, System.nanoTime(), new QueryCancellation(Duration.ofMillis(10))));
+        assertThat(dispatcher.waitingQueries(analytic), is(0));
+        assertThat(dispatcher.runningQueries(analytic), is(1));
+    }
+
+    @Test
+    void cancelledWaiterLeavesQueue() throws Exception {
+        QueryClass analytic = new QueryClass("analytic", 1, 10);
+        QueryDispatcher dispatcher = new QueryDispatcher(Collections.singletonList(analytic), 10);
+        QueryCancellation cancellation = new QueryCancellation(null);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            dispatcher.acquire(analytic, System.nanoTime(), new QueryCancellation(null));
+            Future<?> future = executor.submit(() -> dispatcher.acquire(analytic, System.nanoTime(), cancellation));
+            while (dispatcher.waitingQueries(analytic) < 1) {
+                Thread.sleep(1);
+            }
+
+            cancellation.cancel();
+
+            ExecutionException exception = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+            assertThat(exception.getCause(), is(instanceOf(CancellationException.class)));
+            assertThat(dispatcher.waitingQueries(analytic), is(0));
+            assertThat(dispatcher.runningQueries(analytic), is(1));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shutdownWakesUpWaiters() throws Exception {
+        QueryClass analytic = new QueryClass("analytic", 1, 10);
+        QueryDispatcher dispatcher = new QueryDispatcher(Collections.singletonList(analytic), 10);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            dispatcher.acquire(analytic, System.nanoTime(), new QueryCancellation(null));
+            Future<?> future = executor.submit(() -> dispatcher.acquire(analytic, System.nanoTime(), new QueryCancellation(null)));
+            while (dispatcher.waitingQueries(analytic) < 1) {
+                Thread.sleep(1);
+            }
+
+            dispatcher.shutdown();
+
+            ExecutionException exception = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+            assertThat(exception.getCause(), is(instanceOf(CancellationException.class)));
+            assertThat(dispatcher.waitingQueries(analytic), is(0));
+            assertThrows(CancellationException.class,
+                    () -> dispatcher.acquire(analytic, System.nanoTime(), new QueryCancellation(null)));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -1,21 +1,55 @@
 package com.github.darrmirr.tweecache;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.darrmirr.tweecache.builder.SchemaBuilder;
+import com.github.darrmirr.tweecache.builder.SchemaMode;
+import com.github.darrmirr.tweecache.importer.FileFormat;
+import com.github.darrmirr.tweecache.query.Condition;
+import com.github.darrmirr.tweecache.snapshot.ChangeLog;
 import com.github.darrmirr.tweecache.test.model.*;
 import com.github.darrmirr.tweecache.test.TestFunctions;
+import com.github.darrmirr.tweecache.util.ShardedCache;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.api.parallel.Execution;
 import org.junit.jupiter.api.parallel.ExecutionMode;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static com.github.darrmirr.tweecache.test.factory.ComputerFactory.*;
 import static com.github.darrmirr.tweecache.test.factory.DepartmentFactory.*;
 import static com.github.darrmirr.tweecache.test.factory.EmployeeFactory.*;
 import static com.github.darrmirr.tweecache.test.factory.EventFactory.*;
 import static com.github.darrmirr.tweecache.test.factory.IncidentFactory.*;
+import static com.github.darrmirr.tweecache.query.Condition.between;
+import static com.github.darrmirr.tweecache.query.Condition.eq;
+import static com.github.darrmirr.tweecache.query.Condition.in;
+import static com.github.darrmirr.tweecache.query.Condition.isNull;
 import static java.util.Collections.singletonMap;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.hamcrest.MatcherAssert.*;
@@ -294,6 +328,280 @@ class TweeCacheTest {
         assertThat(employeeOptional.get().middleName, is(employee1.middleName));
     }
 
+    @Test
+    void getByIds() {
+        tweeCache = TweeCache
+                .builder("cacheGetByIds")
+                .withSchema(builder -> builder
+                        .addTable(Employee.class)
+                        .withStorage(Caffeine::build))
+                .build()
+                .orElseThrow(IllegalStateException::new);
+
+        Employee employee1 = createEmployee1();
+        Employee employee2 = createEmployee2();
+
+        tweeCache
+                .put(employee1.id, employee1)
+                .put(employee2.id, employee2);
+        Map<Integer, Employee> employees = tweeCache.getByIds(Arrays.asList(employee2.id, 5000, null, employee1.id), Employee.class);
+
+        assertThat(employees.keySet(), contains(employee2.id, employee1.id));
+        assertThat(employees.get(employee1.id).lastName, is(employee1.lastName));
+        assertThat(tweeCache.getByIds("employee", Collections.singletonList(employee2.id), Employee.class).keySet(), contains(employee2.id));
+        assertThat(tweeCache.getByIds("absent", Collections.singletonList(employee2.id), Employee.class).isEmpty(), is(true));
+        assertThat(tweeCache.getByIds(Collections.singletonList(employee1.id), Department.class).isEmpty(), is(true));
+    }
+
+    @Test
+    void tableHandle() {
+        tweeCache = TweeCache
+                .builder("cacheTableHandle")
+                .withSchema(builder -> builder
+                        .withMode(SchemaMode.DYNAMIC)
+                        .addTable(Employee.class)
+                        .withBitmapIndex("departmentId")
+                        .withStorage(Caffeine::build))
+                .build()
+                .orElseThrow(IllegalStateException::new);
+
+        Employee employee1 = createEmployee1();
+        Employee employee2 = createEmployee2();
+        employee1.departmentId = 7;
+        employee2.departmentId = 7;
+        TableHandle<Integer, Employee> employees = tweeCache.table(Employee.class);
+
+        employees
+                .put(employee1.id, employee1)
+                .put(employee2.id, employee2)
+                .invalidate(employee2.id);
+
+        assertThat(tweeCache.table(Employee.class), is(sameInstance(employees)));
+        assertThat(employees.getTableName(), is("employee"));
+        assertThat(employees.get(employee1.id).lastName, is(employee1.lastName));
+        assertThat(employees.get(employee2.id), is(nullValue()));
+        assertThat(employees.getAll(Arrays.asList(employee1.id, employee2.id)).keySet(), contains(employee1.id));
+        assertThat(tweeCache.getById(employee1.id, Employee.class).isPresent(), is(true));
+        assertThat(tweeCache.table("employee", Employee.class).get(employee1.id), is(notNullValue()));
+        assertThat(tweeCache.table("employee", Employee.class), is(sameInstance(tweeCache.table("employee", Employee.class))));
+        assertThat(tweeCache.query("select emp.* from cacheTableHandle.employee emp where emp.departmentId = 7", employeeRowMapper()), hasSize(1));
+        assertThrows(IllegalArgumentException.class, () -> tweeCache.table(Department.class));
+        assertThrows(IllegalArgumentException.class, () -> tweeCache.table("absent", Employee.class));
+
+        tweeCache.invalidate(Employee.class, employee1.id);
+
+        assertThat(tweeCache.getByIds("employee", Collections.singletonList(employee1.id), Employee.class), is(anEmptyMap()));
+    }
+
+    @Test
+    void tableQuery() {
+        tweeCache = TweeCache
+                .builder("cacheTableQuery")
+                .withSchema(builder -> builder
+                        .withMode(SchemaMode.DYNAMIC)
+                        .addTable(Employee.class)
+                        .withBitmapIndex("departmentId")
+                        .withPrefixIndex("lastName")
+                        .withStorage(Caffeine::build))
+                .build()
+                .orElseThrow(IllegalStateException::new);
+        for (int i = 0; i < 1000; i++) {
+            Employee employee = new Employee();
+            employee.id = i;
+            employee.lastName = "employee " + i;
+            employee.departmentId = i % 10;
+            tweeCache.put(employee.id, employee);
+        }
+
+        List<Employee> department = tweeCache.from(Employee.class).where("departmentId", eq(3)).list();
+        List<Employee> prefixed = tweeCache
+                .from(Employee.class)
+                .where("departmentId", eq(3L))
+                .where("lastName", Condition.startsWith("employee 1"))
+                .list();
+        List<Employee> limited = tweeCache
+                .from(Employee.class)
+                .where(employee -> employee.departmentId, eq(5))
+                .limit(10)
+                .list();
+        List<Employee> range = tweeCache
+                .from(Employee.class)
+                .where("id", between(10, 19))
+                .where(employee -> employee.id % 2 == 0)
+                .list();
+
+        assertThat(department, hasSize(100));
+        assertThat(department.stream().allMatch(employee -> employee.departmentId == 3), is(true));
+        assertThat(prefixed.stream().map(employee -> employee.id).collect(Collectors.toSet()),
+                is(new HashSet<>(Arrays.asList(13, 103, 113, 123, 133, 143, 153, 163, 173, 183, 193))));
+        assertThat(limited, hasSize(10));
+        assertThat(limited.stream().allMatch(employee -> employee.departmentId == 5), is(true));
+        assertThat(range.stream().map(employee -> employee.id).collect(Collectors.toSet()), is(new HashSet<>(Arrays.asList(10, 12, 14, 16, 18))));
+        assertThat(tweeCache.from(Employee.class).where("departmentId", in(1, 2)).count(), is(200L));
+        assertThat(tweeCache.from(Employee.class).where("departmentId", in(1, 2)).limit(7).count(), is(7L));
+        assertThat(tweeCache.from(Employee.class).where("departmentId", isNull()).first(), is(Optional.empty()));
+        assertThat(tweeCache.from("employee", Employee.class).where("firstName", eq("absent")).list(), is(empty()));
+        assertThrows(IllegalArgumentException.class, () -> tweeCache.from(Employee.class).where("absent", eq(1)));
+    }
+
+    @Test
+    void sqlFastPath() {
+        tweeCache = TweeCache
+                .builder("cacheSqlFastPath")
+                .withSchema(builder -> builder
+                        .addTable(Employee.class)
+                        .withBitmapIndex("departmentId")
+                        .withStorage(Caffeine::build))
+                .build()
+                .orElseThrow(IllegalStateException::new);
+        TweeCache calciteCache = TweeCache
+                .builder("cacheSqlFastPathOff")
+                .withSchema(builder -> builder
+                        .addTable(Employee.class)
+                        .withStorage(Caffeine::build))
+                .withSqlFastPath(false)
+                .build()
+                .orElseThrow(IllegalStateException::new);
+        for (int i = 0; i < 100; i++) {
+            Employee employee = new Employee();
+            employee.id = i;
+            employee.firstName = "firstName" + i % 3;
+            employee.lastName = i % 7 == 0 ? null : "lastName" + i;
+            employee.departmentId = i % 5 == 4 ? null : i % 5;
+            tweeCache.put(employee.id, employee);
+            calciteCache.put(employee.id, employee);
+        }
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("department_id", 2);
+        parameters.put("first_name", "firstName1");
+        parameters.put("min_id", 40L);
+        List<String> queries = Arrays.asList(
+                "select * from cacheSqlFastPath.employee",
+                "select emp.* from cacheSqlFastPath.employee emp where emp.departmentId = :department_id",
+                "SELECT E.* FROM cacheSqlFastPath.Employee AS E WHERE E.DepartmentId = 2 AND e.firstName = :first_name",
+                "select * from cacheSqlFastPath.employee where departmentId is null and id >= :min_id",
+                "/* fast path */ select * from cacheSqlFastPath.employee where lastName is not null and id < 30.5",
+                "select * from cacheSqlFastPath.employee -- comment\n where firstName <> 'firstName0' and id <> 3 and departmentId <= 1",
+                "select emp.* from cacheSqlFastPath.employee emp where emp.id = 5 or emp.id = 6");
+
+        for (String query : queries) {
+            Set<Integer> ids = tweeCache.query(query, parameters, employeeRowMapper())
+                    .stream()
+                    .map(employee -> employee.id)
+                    .collect(Collectors.toSet());
+            Set<Integer> calciteIds = calciteCache.query(query.replace("cacheSqlFastPath.", "cacheSqlFastPathOff."), parameters, employeeRowMapper())
+                    .stream()
+                    .map(employee -> employee.id)
+                    .collect(Collectors.toSet());
+            assertThat(query, ids, is(calciteIds));
+            assertThat(query, ids, is(not(empty())));
+        }
+        Function<ResultSet, Boolean> isFastPath = rs -> {
+            try {
+                return rs.getStatement() == null;
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+        assertThat(tweeCache.query("select * from cacheSqlFastPath.employee limit 3", isFastPath), contains(true, true, true));
+        assertThat(tweeCache.query("select * from cacheSqlFastPath.employee where id = 5 or id = 6", isFastPath), contains(false, false));
+        assertThat(tweeCache.query("select * from cacheSqlFastPath.employee where departmentId = :department_id",
+                singletonMap("department_id", null), isFastPath), is(empty()));
+        assertThat(tweeCache.queryAsync("select * from cacheSqlFastPath.employee where departmentId = 1", null, employeeRowMapper(), employee -> { })
+                .join(), is(20L));
+        calciteCache.destroy();
+    }
+
+    @Test
+    void sqlFastPathComparesNumbersExactly() {
+        tweeCache = TweeCache
+                .builder("cacheSqlFastPathExact")
+                .withSchema(builder -> builder
+                        .addTable(Product.class)
+                        .withStorage(Caffeine::build)
+                        .addTable(Measurement.class)
+                        .withStorage(Caffeine::build))
+                .build()
+                .orElseThrow(IllegalStateException::new);
+        double[] prices = { 0.0, -0.0, 0.1, 0.1 + 0.2 };
+        for (int i = 0; i < prices.length; i++) {
+            Product product = new Product();
+            product.id = i;
+            product.price = prices[i];
+            tweeCache.put(product.id, product);
+        }
+        for (int i = 0; i < 2; i++) {
+            Measurement measurement = new Measurement();
+            measurement.id = i;
+            measurement.createdAt = (1L << 53) + i;
+            tweeCache.put(measurement.id, measurement);
+        }
+        Function<ResultSet, Integer> fastPathId = rs -> {
+            try {
+                assertThat(rs.getStatement(), is(nullValue()));
+                return rs.getInt("id");
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+
+        assertThat(tweeCache.query("select * from cacheSqlFastPathExact.product where price = :price",
+                singletonMap("price", -0.0), fastPathId), containsInAnyOrder(0, 1));
+        assertThat(tweeCache.query("select * from cacheSqlFastPathExact.product where price = 0.0", fastPathId), containsInAnyOrder(0, 1));
+        assertThat(tweeCache.query("select * from cacheSqlFastPathExact.product where price > 0.3", fastPathId), contains(3));
+        assertThat(tweeCache.query("select * from cacheSqlFastPathExact.measurement where createdAt < 9007199254740992.5", fastPathId), contains(0));
+        assertThat(tweeCache.query("select * from cacheSqlFastPathExact.measurement where createdAt > :created_at",
+                singletonMap("created_at", new BigDecimal("9007199254740992.5")), fastPathId), contains(1));
+    }
+
+    @Test
+    void preparedQuery() {
+        tweeCache = TweeCache
+                .builder("cachePreparedQuery")
+                .withSchema(builder -> builder
+                        .addTable(Employee.class)
+                        .withStorage(Caffeine::build))
+                .build()
+                .orElseThrow(IllegalStateException::new);
+        for (int i = 0; i < 100; i++) {
+            Employee employee = new Employee();
+            employee.id = i;
+            employee.firstName = "firstName" + i;
+            employee.departmentId = i % 5;
+            tweeCache.put(employee.id, employee);
+        }
+        String sqlQuery = "select emp.* from cachePreparedQuery.employee emp /* :comment */ " +
+                "where emp.departmentId = :department_id and emp.id < :max_id and emp.firstName <> 'first:Name' " +
+                "and (emp.id > :min_id or emp.id = :max_id)";
+
+        PreparedQuery preparedQuery = tweeCache.prepare(sqlQuery);
+        int departmentId = preparedQuery.indexOf("department_id");
+        int maxId = preparedQuery.indexOf("max_id");
+        ParameterBinder binder = preparedQuery
+                .newBinder()
+                .bind(departmentId, 2)
+                .bind(maxId, 50L)
+                .bind("min_id", 40);
+        List<Employee> employees = tweeCache.query(binder, employeeRowMapper());
+        List<Employee> rebound = tweeCache.query(binder.bind(departmentId, 3L), employeeRowMapper());
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("department_id", 2);
+        parameters.put("max_id", 50);
+        parameters.put("min_id", 40);
+        List<Employee> mapBound = tweeCache.query(sqlQuery, parameters, employeeRowMapper());
+
+        assertThat(preparedQuery, is(sameInstance(tweeCache.prepare(sqlQuery))));
+        assertThat(preparedQuery.getParameterNames(), contains("department_id", "max_id", "min_id"));
+        assertThat(preparedQuery.getSql(), containsString("emp.departmentId = ? and emp.id < ? and emp.firstName <> 'first:Name'"));
+        assertThat(preparedQuery.getSql(), containsString("/* :comment */"));
+        assertThat(employees.stream().map(employee -> employee.id).collect(Collectors.toSet()), is(new HashSet<>(Arrays.asList(42, 47))));
+        assertThat(rebound.stream().map(employee -> employee.id).collect(Collectors.toSet()), is(new HashSet<>(Arrays.asList(43, 48))));
+        assertThat(mapBound.stream().map(employee -> employee.id).collect(Collectors.toSet()), is(new HashSet<>(Arrays.asList(42, 47))));
+        assertThrows(IllegalStateException.class, () -> tweeCache.query(binder.clear(), employeeRowMapper()));
+        assertThrows(IllegalArgumentException.class, () -> preparedQuery.indexOf("absent"));
+        assertThrows(IllegalArgumentException.class, () -> tweeCache.prepare("select emp.* from cachePreparedQuery.employee emp where emp.id = ?"));
+    }
+
     @Test
     void queryComplexObject() {
         tweeCache = TweeCache
@@ -518,4 +826,903 @@ class TweeCacheTest {
         employeeList.forEach(employee ->
                 assertThat(employee.id, isOneOf(1, 2)));
     }
-}
\ No newline at end of file
+
+    @Test
+    void dynamicSchema() {
+        tweeCache = TweeCache
+                .builder("cacheDynamicSchema")
+                .withSchema(builder -> builder
+                        .withMode(SchemaMode.DYNAMIC)
+                        .addTable(Employee.class)
+                        .withStorage(Caffeine::build)
+                        .addTable(Department.class)
+                        .withStorage(Caffeine::build))
+                .build()
+                .orElseThrow(IllegalStateException::new);
+        Employee employee1 = createEmployee1();
+        Employee employee2 = createEmployee2();
+        Department department1 = createDepartment1();
+        Department department2 = createDepartment2();
+        employee1.departmentId = department1.id;
+        employee2.departmentId = department2.id;
+
+        tweeCache.put(employee1.id, employee1)
+                .put(employee2.id, employee2)
+                .put(department1.id, department1)
+                .put(department2.id, department2);
+
+        String sqlQuery = "select emp.*  from cacheDynamicSchema.employee emp " +
+                "left join cacheDynamicSchema.department as dep on emp.departmentId = dep.id " +
+                "where dep.name = :dep_name";
+        List<Employee> employeeList = tweeCache.query(sqlQuery, singletonMap("dep_name", "IT department"), employeeRowMapper());
+
+        assertThat(employeeList, hasSize(1));
+        assertThat(employeeList.get(0).id, is(employee1.id));
+    }
+
+    @Test
+    void dynamicSchemaComplexObject() {
+        tweeCache = TweeCache
+                .builder("cacheDynamicSchemaComplexObject")
+                .withSchema(builder -> builder
+                        .withMode(SchemaMode.DYNAMIC)
+                        .addTable(Computer.class)
+                        .withStorage(Caffeine::build))
+                .build()
+                .orElseThrow(IllegalStateException::new);
+
+        Computer computer1 = computer1();
+        Computer computer2 = computer2();
+
+        tweeCache.put(computer1.id, computer1)
+                .put(computer2.id, computer2);
+
+        String query = "select comp.*, comp.cpu.name as cpu_name from cacheDynamicSchemaComplexObject.computer comp where comp.cpu.name = :cpu_name";
+        List<Computer> computers = tweeCache.query(query, singletonMap("cpu_name", "ELBRUS"), computerRowMapper());
+
+        assertThat(computers, hasSize(1));
+        assertThat(computers.get(0).id, is(1));
+        assertThat(computers.get(0).cpu.name, is("ELBRUS"));
+    }
+
+    @Test
+    void queryAsync() throws Exception {
+        tweeCache = TweeCache
+                .builder("cacheQueryAsync")
+                .withSchema(builder -> builder
+                        .addTable(Department.class)
+                        .withStorage(Caffeine::build))
+                .withMaxConcurrentQueries(2)
+                .build()
+                .orElseThrow(IllegalStateException::new);
+
+        Department department1 = createDepartment1();
+        Department department2 = createDepartment2();
+
+        tweeCache.put(department1.id, department1)
+                .put(department2.id, department2);
+
+        String sqlQuery = "select dep.* from cacheQueryAsync.department as dep where dep.id = :id";
+        List<CompletableFuture<List<Department>>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(tweeCache.queryAsync(sqlQuery, singletonMap("id", department1.id), departmentRowMapper()));
+        }
+
+        for (CompletableFuture<List<Department>> future : futures) {
+            List<Department> departments = future.get(10, TimeUnit.SECONDS);
+            assertThat(departments, hasSize(1));
+            assertThat(departments.get(0).id, is(department1.id));
+        }
+    }
+
+    @Test
+    void queryAsyncStream() throws Exception {
+        tweeCache = TweeCache
+                .builder("cacheQueryAsyncStream")
+                .withSchema(builder -> builder
+                        .addTable(Department.class)
+                        .withStorage(Caffeine::build))
+                .build()
+                .orElseThrow(IllegalStateException::new);
+
+        Department department1 = createDepartment1();
+        Department department2 = createDepartment2();
+
+        tweeCache.put(department1.id, department1)
+                .put(department2.id, department2);
+
+        List<Department> departments = new CopyOnWriteArrayList<>();
+        long rowCount = tweeCache
+                .queryAsync("select dep.* from cacheQueryAsyncStream.department as dep", null, departmentRowMapper(), departments::add)
+                .get(10, TimeUnit.SECONDS);
+
+        assertThat(rowCount, is(2L));
+        assertThat(departments, hasSize(2));
+    }
+
+    @Test
+    void queryTimeout() {
+        tweeCache = TweeCache
+                .builder("cacheQueryTimeout")
+                .withSchema(builder -> builder
+                        .addTable(Department.class)
+                        .withStorage(Caffeine::build))
+                .withQueryTimeout(Duration.ofMillis(200))
+                .build()
+                .orElseThrow(IllegalStateException::new);
+
+        putDepartments(tweeCache, 1000);
+
+        String sqlQuery = "select d1.id from cacheQueryTimeout.department d1, cacheQueryTimeout.department d2, cacheQueryTimeout.department d3 " +
+                "where d1.id + d2.id + d3.id < 0";
+        long startTime = System.currentTimeMillis();
+        assertThrows(CancellationException.class, () -> tweeCache.query(sqlQuery, departmentRowMapper()));
+        assertThat(System.currentTimeMillis() - startTime, lessThan(10_000L));
+    }
+
+    @Test
+    void queryAsyncCancel() throws Exception {
+        tweeCache = TweeCache
+                .builder("cacheQueryAsyncCancel")
+                .withSchema(builder -> builder
+                        .addTable(Department.class)
+                        .withStorage(Caffeine::build))
+                .withMaxConcurrentQueries(1)
+                .build()
+                .orElseThrow(IllegalStateException::new);
+
+        putDepartments(tweeCache, 1000);
+
+        String sqlQuery = "select d1.id from cacheQueryAsyncCancel.department d1, cacheQueryAsyncCancel.department d2, cacheQueryAsyncCancel.department d3 " +
+                "where d1.id + d2.id + d3.id < 0";
+        QueryFuture<List<Department>> future = tweeCache.queryAsync(sqlQuery, departmentRowMapper());
+        TimeUnit.MILLISECONDS.sleep(200);
+        future.cancel(true);
+
+        assertTrue(future.isCancelled());
+        // the only execution permit is released by cancelled query
+        List<Department> departments = tweeCache
+                .queryAsync("select dep.* from cacheQueryAsyncCancel.department dep where dep.id = 1", departmentRowMapper())
+                .get(10, TimeUnit.SECONDS);
+        assertThat(departments, hasSize(1));
+    }
+
+    @Test
+    void dataSourceMaxPoolSizeIsKept() throws Exception {
+        tweeCache = TweeCache
+                .builder("cachePoolSize")
+                .withSchema(builder -> builder
+                        .addTable(Department.class)
+                        .withStorage(Caffeine::build))
+                .withDataSourceConfig(config -> {
+                    config.setMaximumPoolSize(2);
+                    config.setMinimumIdle(1);
+                })
+                .withQueryClass("analytic", 5, 10)
+                .build()
+                .orElseThrow(IllegalStateException::new);
+        Department department1 = createDepartment1();
+        tweeCache.put(department1.id, department1);
+
+        List<QueryFuture<List<Department>>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            String queryClass = i % 2 == 0 ? "analytic" : "default";
+            futures.add(tweeCache.queryAsync("/* query_class: " + queryClass + " */ select dep.* from cachePoolSize.department dep",
+                    departmentRowMapper()));
+        }
+
+        for (QueryFuture<List<Department>> future : futures) {
+            assertThat(future.get(10, TimeUnit.SECONDS), hasSize(1));
+        }
+    }
+
+    @Test
+    void queryClassAdmission() throws Exception {
+        tweeCache = TweeCache
+                .builder("cacheQueryClass")
+                .withSchema(builder -> builder
+                        .addTable(Department.class)
+                        .withStorage(Caffeine::build))
+                .withQueryClass("analytic", 1, 0)
+                .build()
+                .orElseThrow(IllegalStateException::new);
+
+        putDepartments(tweeCache, 1000);
+
+        String analyticQuery = "/* query_class: analytic */ select d1.id from cacheQueryClass.department d1, cacheQueryClass.department d2, cacheQueryClass.department d3 " +
+                "where d1.id + d2.id + d3.id < 0";
+        QueryFuture<List<Department>> runningQuery = tweeCache.queryAsync(analyticQuery, departmentRowMapper());
+        QueryFuture<List<Department>> rejectedQuery = tweeCache.queryAsync(analyticQuery, departmentRowMapper());
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> rejectedQuery.get(10, TimeUnit.SECONDS));
+        assertThat(exception.getCause(), is(instanceOf(RejectedExecutionException.class)));
+
+        // point query of default class is not blocked by running analytic query
+        List<Department> departments = tweeCache.query("select dep.* from cacheQueryClass.department dep where dep.id = 1", departmentRowMapper());
+        assertThat(departments, hasSize(1));
+
+        runningQuery.cancel(true);
+
+        Map<String, QueryClassStats> stats = tweeCache.queryClassStats();
+        assertThat(stats.keySet(), containsInAnyOrder("default", "analytic"));
+        assertThat(stats.get("analytic").getRejectedCount(), is(1L));
+        assertThat(stats.get("default").getAdmittedCount(), is(1L));
+    }
+
+    @Test
+    void dynamicSchemaTopN() {
+        tweeCache = TweeCache
+                .builder("cacheTopN")
+                .withSchema(builder -> builder
+                        .withMode(SchemaMode.DYNAMIC)
+                        .addTable(Department.class)
+                        .withStorage(Caffeine::build))
+                .build()
+                .orElseThrow(IllegalStateException::new);
+
+        putDepartments(tweeCache, 100);
+
+        String sqlQuery = "select dep.* from cacheTopN.department dep where dep.id > 10 order by dep.id desc limit 3";
+        List<Department> departments = tweeCache.query(sqlQuery, departmentRowMapper());
+        List<String> plan = tweeCache.query("explain plan for " + sqlQuery, rs -> {
+            try {
+                return rs.getString(1);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertThat(departments, hasSize(3));
+        assertThat(departments.get(0).id, is(100));
+        assertThat(departments.get(2).id, is(98));
+        assertThat(plan.get(0), containsString("EnumerableLimitSort"));
+    }
+
+    @Test
+    void dynamicSchemaParallelScan() {
+        tweeCache = TweeCache
+                .builder("cacheParallelScan")
+                .withSchema(builder -> builder
+                        .withMode(SchemaMode.DYNAMIC)
+                        .addTable(Department.class)
+                        .withParallelScan(1)
+                        .withStorage(Caffeine::build))
+                .build()
+                .orElseThrow(IllegalStateException::new);
+
+        putDepartments(tweeCache, 10_000);
+
+        List<Department> departments = tweeCache.query("select dep.* from cacheParallelScan.department dep where mod(dep.id, 10) = 0", departmentRowMapper());
+        List<long[]> aggregates = tweeCache.query(
+                "select count(*), sum(cast(dep.id as bigint)), min(dep.id), max(dep.id) from cacheParallelScan.department dep where dep.id > 5000",
+                rs -> {
+                    try {
+                        return new long[] { rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getLong(4) };
+                    } catch (SQLException e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+        List<Long> groupCounts = tweeCache.query(
+                "select mod(dep.id, 4) as bucket, count(*) from cacheParallelScan.department dep group by mod(dep.id, 4)",
+                rs -> {
+                    try {
+                        return rs.getLong(2);
+                    } catch (SQLException e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+
+        assertThat(departments, hasSize(1000));
+        assertThat(aggregates, hasSize(1));
+        assertThat(aggregates.get(0)[0], is(5000L));
+        assertThat(aggregates.get(0)[1], is(37_502_500L));
+        assertThat(aggregates.get(0)[2], is(5001L));
+        assertThat(aggregates.get(0)[3], is(10_000L));
+        assertThat(groupCounts, contains(2500L, 2500L, 2500L, 2500L));
+    }
+
+    @Test
+    void dynamicSchemaLookupJoin() {
+        tweeCache = TweeCache
+                .builder("cacheLookupJoin")
+                .withSchema(builder -> builder
+                        .withMode(SchemaMode.DYNAMIC)
+                        .addTable(Employee.class)
+                        .withStorage(Caffeine::build)
+                        .addTable(Department.class)
+                        .withKey("id")
+                        .withStorage(Caffeine::build))
+                .build()
+                .orElseThrow(IllegalStateException::new);
+        Employee employee1 = createEmployee1();
+        Employee employee2 = createEmployee2();
+        Employee employee3 = createEmployee3();
+
+        Department department1 = createDepartment1();
+        Department department2 = createDepartment2();
+
+        employee1.departmentId = department1.id;
+        employee2.departmentId = department2.id;
+        employee3.departmentId = null;
+
+        tweeCache.put(employee1.id, employee1)
+                .put(employee2.id, employee2)
+                .put(employee3.id, employee3)
+                .put(department1.id, department1)
+                .put(department2.id, department2);
+
+        String innerJoinQuery = "select emp.*, dep.name from cacheLookupJoin.employee emp " +
+                "join cacheLookupJoin.department as dep on emp.departmentId = dep.id";
+        String leftJoinQuery = "select emp.* from cacheLookupJoin.employee emp " +
+                "left join cacheLookupJoin.department as dep on emp.departmentId = dep.id " +
+                "where dep.id is null";
+        List<Employee> innerJoinEmployees = tweeCache.query(innerJoinQuery, employeeRowMapper());
+        List<Employee> leftJoinEmployees = tweeCache.query(leftJoinQuery, employeeRowMapper());
+        List<String> plan = tweeCache.query("explain plan for " + innerJoinQuery, rs -> {
+            try {
+                return rs.getString(1);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertThat(innerJoinEmployees, hasSize(2));
+        assertThat(leftJoinEmployees, hasSize(1));
+        assertThat(leftJoinEmployees.get(0).id, is(employee3.id));
+        assertThat(plan.get(0), containsString("StorageLookupJoin"));
+    }
+
+    @Test
+    void dynamicSchemaLookupJoinKeyTypeMismatch() {
+        tweeCache = TweeCache
+                .builder("cacheLookupJoinType")
+                .withSchema(builder -> builder
+                        .withMode(SchemaMode.DYNAMIC)
+                        .addTable(Measurement.class)
+                        .withStorage(Caffeine::build)
+                        .addTable(Department.class)
+                        .withKey("id")
+                        .withStorage(Caffeine::build))
+                .build()
+                .orElseThrow(IllegalStateException::new);
+        Department department1 = createDepartment1();
+        Measurement measurement = new Measurement();
+        measurement.id = 1;
+        measurement.createdAt = department1.id;
+
+        tweeCache.put(measurement.id, measurement)
+                .put(department1.id, department1);
+
+        String query = "select m.id, d.name from cacheLookupJoinType.measurement m " +
+                "join cacheLookupJoinType.department as d on m.createdAt = d.id";
+        List<String> names = tweeCache.query(query, rs -> {
+            try {
+                return rs.getString(2);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        List<String> plan = tweeCache.query("explain plan for " + query, rs -> {
+            try {
+                return rs.getString(1);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertThat(names, contains(department1.name));
+        assertThat(plan.get(0), not(containsString("StorageLookupJoin")));
+    }
+
+    @Test
+    void dynamicSchemaInvertedIndex() {
+        tweeCache = TweeCache
+                .builder("cacheInvertedIndex")
+                .withSchema(builder -> builder
+                        .withMode(SchemaMode.DYNAMIC)
+                        .addTable(Incident.class)
+                        .withInvertedIndex("servicesInvolved")
+                        .withStorage(Caffeine::build))
+                .build()
+                .orElseThrow(IllegalStateException::new);
+        for (int i = 10; i < 100; i++) {
+            tweeCache.put(i, new Incident(i, Collections.singletonList(String.valueOf(i))));
+        }
+        Incident incident1 = incident1();
+        Incident incident2 = incident2();
+
+        tweeCache.put(incident1.id, incident1)
+                .put(incident2.id, incident2);
+
+        String query = "select inc.* from cacheInvertedIndex.incident inc where array_contains(inc.servicesInvolved, :service_name)";
+        List<Incident> incidents = tweeCache.query(query, singletonMap("service_name", SERVICE_02), incidentRowMapper());
+        List<String> plan = tweeCache.query("explain plan for select inc.* from cacheInvertedIndex.incident inc " +
+                "where array_contains(inc.servicesInvolved, '" + SERVICE_02 + "')", rs -> {
+            try {
+                return rs.getString(1);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertThat(incidents, hasSize(1));
+        assertThat(incidents.get(0).id, is(incident2.id));
+        assertThat(plan.get(0), containsString("StorageIndexScan"));
+
+        tweeCache.put(incident1.id, new Incident(incident1.id, Arrays.asList(SERVICE_01, SERVICE_02)));
+        tweeCache.put(incident2.id, new Incident(incident2.id, Collections.singletonList(SERVICE_03)));
+        incidents = tweeCache.query(query, singletonMap("service_name", SERVICE_02), incidentRowMapper());
+
+        assertThat(incidents, hasSize(1));
+        assertThat(incidents.get(0).id, is(incident1.id));
+    }
+
+    @Test
+    void dynamicSchemaBitmapIndex() {
+        tweeCache = TweeCache
+                .builder("cacheBitmapIndex")
+                .withSchema(builder -> builder
+                        .withMode(SchemaMode.DYNAMIC)
+                        .addTable(Employee.class)
+                        .withBitmapIndex("departmentId")
+                        .withStorage(Caffeine::build))
+                .build()
+                .orElseThrow(IllegalStateException::new);
+        for (int i = 0; i < 100; i++) {
+            Employee employee = new Employee();
+            employee.id = i;
+            employee.firstName = "firstName" + i;
+            employee.departmentId = i % 5 == 4 ? null : i % 5;
+            tweeCache.put(employee.id, employee);
+        }
+        Function<ResultSet, Long> countMapper = rs -> {
+            try {
+                return rs.getLong(1);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+        Function<ResultSet, String> planMapper = rs -> {
+            try {
+                return rs.getString(1);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+
+        String inQuery = "select emp.* from cacheBitmapIndex.employee emp where emp.departmentId in (1, 2)";
+        String notEqualQuery = "select emp.* from cacheBitmapIndex.employee emp where emp.departmentId <> :department_id and emp.id < 50";
+        String countQuery = "select count(*) from cacheBitmapIndex.employee emp where emp.departmentId = 1 or emp.departmentId is null";
+        List<Employee> inEmployees = tweeCache.query(inQuery, employeeRowMapper());
+        List<Employee> notEqualEmployees = tweeCache.query(notEqualQuery, singletonMap("department_id", 1), employeeRowMapper());
+        List<Long> count = tweeCache.query(countQuery, countMapper);
+        List<String> inPlan = tweeCache.query("explain plan for " + inQuery, planMapper);
+        List<String> countPlan = tweeCache.query("explain plan for " + countQuery, planMapper);
+
+        assertThat(inEmployees, hasSize(40));
+        assertThat(inEmployees.stream().map(employee -> employee.id % 5).distinct().sorted().collect(Collectors.toList()), contains(1, 2));
+        assertThat(notEqualEmployees, hasSize(30));
+        assertThat(count, contains(40L));
+        assertThat(inPlan.get(0), containsString("StorageIndexScan"));
+        assertThat(countPlan.get(0), containsString("StorageIndexCount"));
+
+        Employee employee = new Employee();
+        employee.id = 0;
+        employee.departmentId = 1;
+        tweeCache.put(employee.id, employee);
+
+        assertThat(tweeCache.query(countQuery, countMapper), contains(41L));
+    }
+
+    @Test
+    void dynamicSchemaIndexIgnoresLossyCast() {
+        tweeCache = TweeCache
+                .builder("cacheLossyCast")
+                .withSchema(builder -> builder
+                        .withMode(SchemaMode.DYNAMIC)
+                        .addTable(Product.class)
+                        .withBitmapIndex("code")
+                        .withBitmapIndex("price")
+                        .withStorage(Caffeine::build))
+                .build()
+                .orElseThrow(IllegalStateException::new);
+        for (int i = 0; i < 10; i++) {
+            Product product = new Product();
+            product.id = i;
+            product.code = "abc" + i;
+            product.price = i + 0.25;
+            tweeCache.put(product.id, product);
+        }
+        Function<ResultSet, Integer> idMapper = rs -> {
+            try {
+                return rs.getInt("id");
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+
+        List<Integer> priceIds = tweeCache.query("select p.* from cacheLossyCast.product p where cast(p.price as integer) = 5", idMapper);
+        List<Integer> codeIds = tweeCache.query("select p.* from cacheLossyCast.product p where cast(p.code as char(3)) = 'abc' and p.id < 3", idMapper);
+
+        assertThat(priceIds, contains(5));
+        assertThat(codeIds, containsInAnyOrder(0, 1, 2));
+    }
+
+    @Test
+    void dynamicSchemaPrefixIndex() {
+        tweeCache = TweeCache
+                .builder("cachePrefixIndex")
+                .withSchema(builder -> builder
+                        .withMode(SchemaMode.DYNAMIC)
+                        .addTable(Employee.class)
+                        .withPrefixIndex("lastName")
+                        .withBitmapIndex("departmentId")
+                        .withStorage(Caffeine::build))
+                .build()
+                .orElseThrow(IllegalStateException::new);
+        String[] lastNames = { "Smith", "smithson", "Smyth", "Snow", "Brown" };
+        for (int i = 0; i < 100; i++) {
+            Employee employee = new Employee();
+            employee.id = i;
+            employee.lastName = lastNames[i % lastNames.length];
+            employee.departmentId = i % 2;
+            tweeCache.put(employee.id, employee);
+        }
+        Function<ResultSet, String> planMapper = rs -> {
+            try {
+                return rs.getString(1);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+
+        String likeQuery = "select emp.* from cachePrefixIndex.employee emp where emp.lastName like 'Sm%'";
+        String paramQuery = "select emp.* from cachePrefixIndex.employee emp where emp.lastName like cast(:prefix as varchar) || '%' and emp.departmentId = 1";
+        String lowerQuery = "select emp.* from cachePrefixIndex.employee emp where lower(emp.lastName) like 'smith%'";
+        String patternQuery = "select emp.* from cachePrefixIndex.employee emp where emp.lastName like 'S_ith'";
+        String startsWithQuery = "select emp.* from cachePrefixIndex.employee emp where starts_with(emp.lastName, :prefix)";
+        List<Employee> likeEmployees = tweeCache.query(likeQuery, employeeRowMapper());
+        List<Employee> paramEmployees = tweeCache.query(paramQuery, singletonMap("prefix", "Sm"), employeeRowMapper());
+        List<Employee> lowerEmployees = tweeCache.query(lowerQuery, employeeRowMapper());
+        List<Employee> patternEmployees = tweeCache.query(patternQuery, employeeRowMapper());
+        List<Employee> startsWithEmployees = tweeCache.query(startsWithQuery, singletonMap("prefix", "S"), employeeRowMapper());
+        List<String> likePlan = tweeCache.query("explain plan for " + likeQuery, planMapper);
+        List<String> lowerPlan = tweeCache.query("explain plan for " + lowerQuery, planMapper);
+
+        assertThat(likeEmployees, hasSize(40));
+        assertThat(likeEmployees.stream().map(employee -> employee.lastName).distinct().sorted().collect(Collectors.toList()), contains("Smith", "Smyth"));
+        assertThat(paramEmployees, hasSize(20));
+        assertThat(lowerEmployees, hasSize(40));
+        assertThat(lowerEmployees.stream().map(employee -> employee.lastName).distinct().sorted().collect(Collectors.toList()), contains("Smith", "smithson"));
+        assertThat(patternEmployees, hasSize(20));
+        assertThat(startsWithEmployees, hasSize(60));
+        assertThat(likePlan.get(0), containsString("StorageIndexScan"));
+        assertThat(lowerPlan.get(0), containsString("StorageIndexScan"));
+    }
+
+    @Test
+    void dynamicSchemaTimePartitions() {
+        tweeCache = TweeCache
+                .builder("cacheTimePartitions")
+                .withSchema(builder -> builder
+                        .withMode(SchemaMode.DYNAMIC)
+                        .addTable(Event.class)
+                        .withTimePartitions("dateTime", Duration.ofHours(6))
+                        .withStorage(Caffeine::build))
+                .build()
+                .orElseThrow(IllegalStateException::new);
+        Instant start = LocalDate.of(2021, 9, 1).atStartOfDay(ZoneId.systemDefault()).toInstant();
+        for (int i = 0; i < 48; i++) {
+            Event event = new Event();
+            event.id = i;
+            event.dateTime = Date.from(start.plus(Duration.ofHours(i)));
+            tweeCache.put(event.id, event);
+        }
+        Function<ResultSet, String> planMapper = rs -> {
+            try {
+                return rs.getString(1);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+
+        String literalQuery = "select evt.* from cacheTimePartitions.event evt where evt.dateTime >= '2021-09-02 00:00:00'";
+        String paramQuery = "select evt.* from cacheTimePartitions.event evt where evt.dateTime >= cast(:from as timestamp)";
+        List<Event> literalEvents = tweeCache.query(literalQuery, eventRowMapper());
+        List<Event> paramEvents = tweeCache.query(paramQuery, singletonMap("from", Date.from(start.plus(Duration.ofHours(40)))), eventRowMapper());
+        List<String> literalPlan = tweeCache.query("explain plan for " + literalQuery, planMapper);
+
+        assertThat(literalEvents, hasSize(24));
+        assertThat(paramEvents, hasSize(8));
+        assertThat(literalPlan.get(0), containsString("StorageIndexScan"));
+
+        assertThat(tweeCache.dropPartitions(Event.class, start.plus(Duration.ofHours(12))), is(2));
+        assertThat(tweeCache.query("select evt.* from cacheTimePartitions.event evt", eventRowMapper()), hasSize(36));
+    }
+
+    @Test
+    void dynamicSchemaShardedStorage() {
+        tweeCache = TweeCache
+                .builder("cacheShardedStorage")
+                .withSchema(builder -> builder
+                        .withMode(SchemaMode.DYNAMIC)
+                        .addTable(Employee.class)
+                        .withShards(8)
+                        .withBitmapIndex("departmentId")
+                        .withStorage(Caffeine::build))
+                .build()
+                .orElseThrow(IllegalStateException::new);
+        Map<Integer, Employee> employees = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            Employee employee = new Employee();
+            employee.id = i;
+            employee.departmentId = i % 4;
+            employees.put(employee.id, employee);
+        }
+        employees.values().parallelStream().forEach(employee -> tweeCache.put(employee.id, employee));
+
+        List<Employee> all = tweeCache.query("select emp.* from cacheShardedStorage.employee emp", employeeRowMapper());
+        List<Employee> department = tweeCache.query("select emp.* from cacheShardedStorage.employee emp where emp.departmentId = 1", employeeRowMapper());
+
+        assertThat(all, hasSize(1000));
+        assertThat(department, hasSize(250));
+        assertThat(tweeCache.getById(10, Employee.class).map(employee -> employee.id), is(Optional.of(10)));
+        assertThat(tweeCache.getById(10000, Employee.class).isPresent(), is(false));
+    }
+
+    @Test
+    void memoryBudget() {
+        tweeCache = TweeCache
+                .builder("cacheMemoryBudget")
+                .withMemoryBudget(200_000)
+                .withSchema(builder -> builder
+                        .withMode(SchemaMode.DYNAMIC)
+                        .addTable(Employee.class)
+                        .withStorage(caffeine -> caffeine.executor(Runnable::run).build())
+                        .addTable(Department.class)
+                        .withStorage(caffeine -> caffeine.executor(Runnable::run).build()))
+                .build()
+                .orElseThrow(IllegalStateException::new);
+        for (int i = 0; i < 5000; i++) {
+            Employee employee = new Employee();
+            employee.id = i;
+            employee.lastName = "employee " + i;
+            tweeCache.put(employee.id, employee);
+        }
+        putDepartments(tweeCache, 10);
+
+        Map<String, TableMemoryStats> memoryStats = tweeCache.memoryStats();
+        TableMemoryStats employeeStats = tweeCache.memoryStats(Employee.class).orElseThrow(IllegalStateException::new);
+        List<Employee> employees = tweeCache.query("select emp.* from cacheMemoryBudget.employee emp", employeeRowMapper());
+
+        assertThat(memoryStats.keySet(), contains("department", "employee"));
+        assertThat(memoryStats.values().stream().mapToLong(TableMemoryStats::getMaxBytes).sum(), is(200_000L));
+        assertThat(employeeStats.getEstimatedBytes(), allOf(greaterThan(0L), lessThanOrEqualTo(employeeStats.getMaxBytes())));
+        assertThat(employees, hasSize((int) employeeStats.getRowCount()));
+        assertThat(employees.size(), lessThan(5000));
+        assertThat(memoryStats.get("department").getRowCount(), is(10L));
+    }
+
+    @Test
+    void snapshotAndRestore(@TempDir Path directory) {
+        Path snapshot = directory.resolve("cache.snapshot");
+        Consumer<SchemaBuilder> schema = builder -> builder
+                .withMode(SchemaMode.DYNAMIC)
+                .addTable(Employee.class)
+                .withBitmapIndex("departmentId")
+                .withStorage(Caffeine::build)
+                .addTable(Incident.class)
+                .withStorage(Caffeine::build);
+        TweeCache source = TweeCache
+                .builder("cacheSnapshotSource")
+                .withSchema(schema)
+                .build()
+                .orElseThrow(IllegalStateException::new);
+        for (int i = 0; i < 20_000; i++) {
+            Employee employee = new Employee();
+            employee.id = i;
+            employee.lastName = "employee " + i;
+            employee.departmentId = i % 10;
+            source.put(employee.id, employee);
+        }
+        source.put(1, new Incident(1, Arrays.asList("database", "network")));
+        long writtenRows = source.snapshot(snapshot);
+        source.destroy();
+
+        tweeCache = TweeCache
+                .builder("cacheSnapshotRestore")
+                .withSchema(schema)
+                .restoreFrom(snapshot)
+                .build()
+                .orElseThrow(IllegalStateException::new);
+        List<Employee> department = tweeCache.query("select emp.* from cacheSnapshotRestore.employee emp where emp.departmentId = 3", employeeRowMapper());
+
+        assertThat(writtenRows, is(20_001L));
+        assertThat(tweeCache.getAll(Employee.class), hasSize(20_000));
+        assertThat(department, hasSize(2000));
+        assertThat(tweeCache.getById(42, Employee.class).map(employee -> employee.lastName), is(Optional.of("employee 42")));
+        assertThat(tweeCache.getById(1, Incident.class).map(Incident::getServicesInvolved), is(Optional.of(Arrays.asList("database", "network"))));
+    }
+
+    @Test
+    void changeLogReplay(@TempDir Path directory) {
+        Path snapshot = directory.resolve("cache.snapshot");
+        Path changeLog = directory.resolve("changelog");
+        Consumer<SchemaBuilder> schema = builder -> builder
+                .withMode(SchemaMode.DYNAMIC)
+                .addTable(Employee.class)
+                .withBitmapIndex("departmentId")
+                .withStorage(Caffeine::build);
+        TweeCache source = TweeCache
+                .builder("cacheChangeLogSource")
+                .withSchema(schema)
+                .withChangeLog(changeLog, ChangeLog.FsyncPolicy.ALWAYS)
+                .build()
+                .orElseThrow(IllegalStateException::new);
+        Map<Integer, Employee> employees = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            Employee employee = new Employee();
+            employee.id = i;
+            employee.lastName = "employee " + i;
+            employee.departmentId = i % 10;
+            employees.put(employee.id, employee);
+        }
+        source.putAll(employees);
+        source.snapshot(snapshot);
+        Employee renamed = new Employee();
+        renamed.id = 42;
+        renamed.lastName = "renamed";
+        renamed.departmentId = 3;
+        source
+                .put(renamed.id, renamed)
+                .invalidate(Employee.class, 13)
+                .destroy();
+
+        tweeCache = TweeCache
+                .builder("cacheChangeLogRestore")
+                .withSchema(schema)
+                .restoreFrom(snapshot)
+                .withChangeLog(changeLog)
+                .build()
+                .orElseThrow(IllegalStateException::new);
+        List<Employee> department = tweeCache.query("select emp.* from cacheChangeLogRestore.employee emp where emp.departmentId = 3", employeeRowMapper());
+
+        assertThat(tweeCache.getAll(Employee.class), hasSize(999));
+        assertThat(tweeCache.getById(13, Employee.class), is(Optional.empty()));
+        assertThat(tweeCache.getById(42, Employee.class).map(employee -> employee.lastName), is(Optional.of("renamed")));
+        assertThat(department, hasSize(100));
+    }
+
+    @Test
+    void importFileToChangeLog(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("employee.csv");
+        Files.write(file, Arrays.asList("id,lastName,departmentId", "1,Smith,3", "2,Doe,4"), StandardCharsets.UTF_8);
+        Path changeLog = directory.resolve("changelog");
+        Consumer<SchemaBuilder> schema = builder -> builder
+                .withMode(SchemaMode.DYNAMIC)
+                .addTable(Employee.class)
+                .withKey("id")
+                .withStorage(Caffeine::build);
+        TweeCache source = TweeCache
+                .builder("cacheImportChangeLogSource")
+                .withSchema(schema)
+                .withChangeLog(changeLog, ChangeLog.FsyncPolicy.ALWAYS)
+                .build()
+                .orElseThrow(IllegalStateException::new);
+        assertThat(source.importFile(file, Employee.class, FileFormat.CSV), is(2L));
+        source.destroy();
+
+        tweeCache = TweeCache
+                .builder("cacheImportChangeLogRestore")
+                .withSchema(schema)
+                .withChangeLog(changeLog)
+                .build()
+                .orElseThrow(IllegalStateException::new);
+
+        assertThat(tweeCache.getAll(Employee.class), hasSize(2));
+        assertThat(tweeCache.getById(2, Employee.class).map(employee -> employee.lastName), is(Optional.of("Doe")));
+    }
+
+    @Test
+    void readThrough() throws Exception {
+        AtomicInteger loadCount = new AtomicInteger();
+        CacheLoader<Object, Object> loader = key -> {
+            loadCount.incrementAndGet();
+            int id = (Integer) key;
+            if (id >= 1000) {
+                return null;
+            }
+            Employee employee = new Employee();
+            employee.id = id;
+            employee.lastName = "employee " + id;
+            employee.departmentId = id % 10;
+            return employee;
+        };
+        tweeCache = TweeCache
+                .builder("cacheReadThrough")
+                .withSchema(builder -> builder
+                        .withMode(SchemaMode.DYNAMIC)
+                        .addTable(Employee.class)
+                        .withBitmapIndex("departmentId")
+                        .withLoadingStorage(loader, caffeine -> caffeine
+                                .expireAfterWrite(Duration.ofMinutes(10))
+                                .refreshAfterWrite(Duration.ofMinutes(1))))
+                .build()
+                .orElseThrow(IllegalStateException::new);
+        List<CompletableFuture<Optional<Employee>>> futures = IntStream
+                .range(0, 16)
+                .mapToObj(i -> CompletableFuture.supplyAsync(() -> tweeCache.getById(13, Employee.class)))
+                .collect(Collectors.toList());
+
+        for (CompletableFuture<Optional<Employee>> future : futures) {
+            assertThat(future.get().map(employee -> employee.lastName), is(Optional.of("employee 13")));
+        }
+        assertThat(loadCount.get(), is(1));
+        assertThat(tweeCache.getById(5000, Employee.class), is(Optional.empty()));
+        assertThat(tweeCache.query("select emp.* from cacheReadThrough.employee emp where emp.departmentId = 3", employeeRowMapper()), hasSize(1));
+    }
+
+    @Test
+    void readThroughBulkLoad() {
+        List<Iterable<?>> bulkLoads = new CopyOnWriteArrayList<>();
+        CacheLoader<Object, Object> loader = new CacheLoader<Object, Object>() {
+            @Override
+            public Object load(Object key) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Map<Object, Object> loadAll(Iterable<?> keys) {
+                bulkLoads.add(keys);
+                Map<Object, Object> rows = new HashMap<>();
+                for (Object key : keys) {
+                    rows.put(key, "row " + key);
+                }
+                return rows;
+            }
+        };
+        TableLoader tableLoader = new TableLoader(loader, null);
+        List<Cache<Object, Object>> shards = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            shards.add(Caffeine.newBuilder().build(tableLoader));
+        }
+        TableStorage tableStorage = TableStorage
+                .builder(String.class, new ShardedCache(shards))
+                .withLoader(tableLoader)
+                .build();
+        tableStorage.getCache().put(1, "cached");
+
+        Map<Object, Object> rows = tableStorage.getAll(Arrays.asList(1, 2, 3, 4, 5));
+
+        assertThat(tableStorage.isReadThrough(), is(true));
+        assertThat(rows.keySet(), contains(1, 2, 3, 4, 5));
+        assertThat(rows.get(1), is("cached"));
+        assertThat(rows.get(5), is("row 5"));
+        assertThat(bulkLoads, hasSize(1));
+        assertThat(tableStorage.getAll(Arrays.asList(2, 3)).size(), is(2));
+        assertThat(bulkLoads, hasSize(1));
+    }
+
+    @Test
+    void restoreFromAbsentSnapshot(@TempDir Path directory) {
+        tweeCache = TweeCache
+                .builder("cacheAbsentSnapshot")
+                .withSchema(builder -> builder
+                        .addTable(Employee.class)
+                        .withStorage(Caffeine::build))
+                .restoreFrom(directory.resolve("absent.snapshot"))
+                .build()
+                .orElseThrow(IllegalStateException::new);
+
+        assertThat(tweeCache.getAll(Employee.class), is(empty()));
+    }
+
+    private static void putDepartments(TweeCache tweeCache, int count) {
+        for (int i = 1; i <= count; i++) {
+            Department department = new Department();
+            department.id = i;
+            department.name = "department " + i;
+            tweeCache.put(department.id, department);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.github.darrmirr.tweecache.accessor;
+
+import com.github.darrmirr.tweecache.test.model.Computer;
+import com.github.darrmirr.tweecache.test.model.Customer;
+import com.github.darrmirr.tweecache.test.model.Employee;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static com.github.darrmirr.tweecache.test.factory.ComputerFactory.computer1;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class RowAccessorsTest {
+
+    @Test
+    void generatedAccessor() {
+        Customer customer = new Customer();
+        customer.id = 1;
+        customer.name = "customer1";
+        RowAccessor accessor = RowAccessors.of(Customer.class);
+        Object[] values = new Object[accessor.getFieldNames().length];
+        accessor.copy(customer, values);
+
+        assertThat(accessor.getClass().getSimpleName(), is("CustomerTweeAccessor"));
+        assertThat(accessor.getFieldNames(), is(new ReflectiveRowAccessor(Customer.class).getFieldNames()));
+        assertThat(accessor.getInt(customer, 0), is(customer.id));
+        assertThat(values[1], is(customer.name));
+    }
+
+    @Test
+    void runtimeAccessor() {
+        Computer computer = computer1();
+        RowAccessor accessor = RowAccessors.compiled(Computer.class);
+
+        assertThat(accessor.getClass().getSimpleName(), endsWith("RuntimeAccessor"));
+        assertThat(accessor, is(sameInstance(RowAccessors.compiled(Computer.class))));
+        assertThat(accessor.getFieldNames(), is(new String[] { "id", "cpu", "memory" }));
+        assertThat(accessor.getLong(computer, 2), is((long) computer.memory));
+        assertThat(accessor.get(computer, 1), is(sameInstance(computer.cpu)));
+    }
+
+    @Test
+    void defaultAccessorIsNotCompiled() {
+        RowAccessor accessor = RowAccessors.of(Computer.class);
+
+        assertThat(accessor, is(instanceOf(ReflectiveRowAccessor.class)));
+        assertThat(accessor.getLong(computer1(), 2), is((long) computer1().memory));
+    }
+
+    @Test
+    void reflectiveAccessor() {
+        RowAccessor accessor = RowAccessors.of(NonPublicRow.class);
+        NonPublicRow row = new NonPublicRow();
+        row.value = 7;
+
+        assertThat(accessor, is(instanceOf(ReflectiveRowAccessor.class)));
+        assertThat(accessor.getInt(row, 0), is(7));
+    }
+
+    @Test
+    void generatedRowMapper() {
+        assertThat(RowMappers.find(Customer.class).isPresent(), is(true));
+        assertThat(RowMappers.find(Employee.class), is(Optional.empty()));
+    }
+
+    static class NonPublicRow {
+        public int value;
+    }
+}
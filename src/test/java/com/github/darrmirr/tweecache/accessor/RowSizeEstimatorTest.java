@@ -0,0 +1,40 @@
+package com.github.darrmirr.tweecache.accessor;
+
+import com.github.darrmirr.tweecache.test.model.Employee;
+import com.github.darrmirr.tweecache.test.model.Incident;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class RowSizeEstimatorTest {
+
+    @Test
+    void shallowAndDeepSize() {
+        Employee employee = new Employee();
+        employee.id = 1;
+        employee.firstName = "John";
+        employee.departmentId = 1;
+        RowSizeEstimator estimator = RowSizeEstimator.of(Employee.class);
+
+        // header, int field and four references
+        assertThat(RowSizeEstimator.shallowSize(Employee.class), is(32L));
+        // row, string with its char array and boxed integer
+        assertThat(estimator.sizeOf(employee), is(32L + 24 + 24 + 16));
+        assertThat(estimator.weigh(employee.id, employee), is(RowSizeEstimator.ENTRY_OVERHEAD + 16 + 96));
+        assertThat(estimator, is(sameInstance(RowSizeEstimator.of(Employee.class))));
+    }
+
+    @Test
+    void collectionSize() {
+        RowSizeEstimator estimator = RowSizeEstimator.of(Incident.class);
+        Incident small = new Incident(1, Collections.singletonList("database"));
+        Incident large = new Incident(2, Arrays.asList("database", "network", "storage", "frontend", "backend"));
+
+        assertThat(estimator.sizeOf(large), greaterThan(estimator.sizeOf(small)));
+        assertThat(estimator.sizeOf(new Incident(3, null)), lessThan(estimator.sizeOf(small)));
+    }
+}
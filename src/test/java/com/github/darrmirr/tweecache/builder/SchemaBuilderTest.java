@@ -1,11 +1,24 @@
 package com.github.darrmirr.tweecache.builder;
 
+import com.github.darrmirr.tweecache.test.model.Customer;
 import com.github.darrmirr.tweecache.test.model.Department;
 import com.github.darrmirr.tweecache.test.model.Employee;
+import com.github.darrmirr.tweecache.test.model.Event;
+import com.github.darrmirr.tweecache.test.model.Purchase;
 import com.github.darrmirr.tweecache.TweeSchema;
+import com.github.darrmirr.tweecache.test.TestFunctions;
+import com.github.darrmirr.tweecache.util.Result;
+import com.github.darrmirr.tweecache.util.TweeFunctions;
 import org.apache.calcite.adapter.java.Array;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class SchemaBuilderTest {
@@ -26,6 +39,95 @@ class SchemaBuilderTest {
         assertEquals(getArrayComponent(schema, Department.class.getSimpleName()), Department.class);
     }
 
+    @Test
+    void buildConcurrently() throws Exception {
+        int schemaCount = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<TweeSchema>> futures = new ArrayList<>();
+            for (int i = 0; i < schemaCount; i++) {
+                String schemaName = "cacheBuildConcurrently" + i;
+                futures.add(executor.submit(() -> new SchemaBuilder(schemaName)
+                        .addTable(Employee.class)
+                        .withStorage(builder -> builder.build())
+                        .build()
+                        .orElseThrow()));
+            }
+            for (int i = 0; i < schemaCount; i++) {
+                TweeSchema schema = futures.get(i).get();
+                assertEquals(schema.getSchemaName(), "cacheBuildConcurrently" + i);
+                assertEquals(getArrayComponent(schema, Employee.class.getSimpleName()), Employee.class);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void dynamicMode() {
+        TweeSchema schema = new SchemaBuilder("cacheDynamicMode")
+                .withMode(SchemaMode.DYNAMIC)
+                .addTable(Employee.class)
+                .withStorage(builder -> builder.build())
+                .build()
+                .orElseThrow();
+        assertEquals(schema.getSchemaName(), "cacheDynamicMode");
+        assertNull(schema.getSchemaObject());
+        assertTrue(schema.getTableStorage("employee").isPresent());
+    }
+
+    @Test
+    void compiledModeRejectsTimePartitions() {
+        Result<TweeSchema> result = new SchemaBuilder("cacheCompiledTimePartitions")
+                .addTable(Event.class)
+                .withTimePartitions("dateTime", Duration.ofHours(1))
+                .withStorage(builder -> builder.build())
+                .build();
+        assertFalse(result.get().isPresent());
+        assertTrue(result.error().isPresent());
+    }
+
+    @Test
+    void precompiledSchema() throws NoSuchFieldException {
+        TweeSchema schema = new SchemaBuilder("precompiled")
+                .addTable(Customer.class)
+                .withStorage(builder -> builder.build())
+                .addTable(Purchase.class)
+                .withStorage(builder -> builder.build())
+                .build()
+                .orElseThrow();
+        assertEquals(schema.getSchemaObject().getClass().getClassLoader(), Customer.class.getClassLoader());
+        assertEquals(schema.getSchemaObject().getClass().getPackage(), Customer.class.getPackage());
+        assertEquals(getArrayComponent(schema, Customer.class.getSimpleName()), Customer.class);
+        assertEquals(getArrayComponent(schema, Purchase.class.getSimpleName()), Purchase.class);
+    }
+
+    @Test
+    void precompiledSchemaWithDifferentTables() throws Exception {
+        TweeSchema schema = new SchemaBuilder("precompiled")
+                .addTable(Customer.class)
+                .withStorage(builder -> builder.build())
+                .build()
+                .orElseThrow();
+        Object schemaObject = schema.getSchemaObject();
+        assertNotEquals(schemaObject.getClass().getClassLoader(), Customer.class.getClassLoader());
+        assertEquals(schemaObject.getClass().getFields().length, 1);
+        assertEquals(getArrayComponent(schema, Customer.class.getSimpleName()), Customer.class);
+        assertNotNull(schemaObject.getClass().getField("customer").get(schemaObject));
+    }
+
+    @Test
+    void functionReplacesBuiltInFunction() {
+        TweeSchema schema = new SchemaBuilder("cacheBuiltInFunction")
+                .withMode(SchemaMode.DYNAMIC)
+                .addTable(Employee.class)
+                .withStorage(builder -> builder.build())
+                .addFunction(TweeFunctions.STARTS_WITH, TestFunctions.class, "string2array")
+                .build()
+                .orElseThrow();
+        assertEquals(schema.getSchemaName(), "cacheBuiltInFunction");
+    }
+
     private Class<?> getArrayComponent(TweeSchema tweeSchema, String tableName) throws NoSuchFieldException {
         return tweeSchema
                 .getSchemaObject()
@@ -0,0 +1,100 @@
+package com.github.darrmirr.tweecache.importer;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.darrmirr.tweecache.TableStorage;
+import com.github.darrmirr.tweecache.test.model.Employee;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FileImportTest {
+
+    @Test
+    void csv(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("employee.csv");
+        Files.write(file, Arrays.asList(
+                "\ufeffID,lastName,firstName,departmentId,unknown",
+                "1,Smith,John,3,x",
+                "2,\"Doe, \"\"Jr\"\"\",\"Jane\",,x",
+                "",
+                "three,Broken,Line,1,x",
+                "4,Brown,\u00c9mile,5"), StandardCharsets.UTF_8);
+        TableStorage tableStorage = tableStorage();
+
+        long rowCount = FileImport.read(file, FileFormat.CSV, tableStorage);
+
+        assertThat(rowCount, is(3L));
+        Employee employee = (Employee) tableStorage.get(2);
+        assertThat(employee.lastName, is("Doe, \"Jr\""));
+        assertThat(employee.firstName, is("Jane"));
+        assertThat(employee.departmentId, is(nullValue()));
+        assertThat(((Employee) tableStorage.get(1)).departmentId, is(3));
+        assertThat(((Employee) tableStorage.get(4)).firstName, is("\u00c9mile"));
+    }
+
+    @Test
+    void jsonLines(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("employee.jsonl");
+        Files.write(file, Arrays.asList(
+                "{\"id\": 1, \"lastName\": \"Smith\", \"departmentId\": 3, \"tags\": [\"a\", {\"b\": 1}]}",
+                "{ \"departmentId\" : null , \"LASTNAME\" : \"Quote \\\" \\u00e9\\ud83d\\ude00\", \"id\" : 2 }",
+                "{\"id\": 3, \"lastName\": \"Unclosed}",
+                "{\"id\": \"x\", \"lastName\": \"Invalid key\"}"), StandardCharsets.UTF_8);
+        TableStorage tableStorage = tableStorage();
+
+        long rowCount = FileImport.read(file, FileFormat.JSON_LINES, tableStorage);
+
+        assertThat(rowCount, is(2L));
+        assertThat(((Employee) tableStorage.get(1)).departmentId, is(3));
+        assertThat(((Employee) tableStorage.get(2)).lastName, is("Quote \" \u00e9\ud83d\ude00"));
+        assertThat(((Employee) tableStorage.get(2)).departmentId, is(nullValue()));
+    }
+
+    @Test
+    void tableWithoutKey(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("employee.csv");
+        Files.write(file, Arrays.asList("id,lastName", "1,Smith"), StandardCharsets.UTF_8);
+        TableStorage tableStorage = new TableStorage(Employee.class, Caffeine.newBuilder().build());
+
+        assertThrows(IllegalArgumentException.class, () -> FileImport.read(file, FileFormat.CSV, tableStorage));
+    }
+
+    @Test
+    void fieldParsers() {
+        assertThat(FieldParsers.parseLong(bytes("-9223372036854775808"), 0, 20), is(Long.MIN_VALUE));
+        assertThat(FieldParsers.parseInt(bytes("+42"), 0, 3), is(42));
+        assertThrows(NumberFormatException.class, () -> FieldParsers.parseInt(bytes("2147483648"), 0, 10));
+        assertThat(FieldParsers.parseDouble(bytes("-12.375"), 0, 7), is(-12.375));
+        assertThat(FieldParsers.parseDouble(bytes("0.1"), 0, 3), is(0.1));
+        assertThat(FieldParsers.parseDouble(bytes("1.5e3"), 0, 5), is(1500.0));
+        assertThat(FieldParsers.parseBoolean(bytes("TRUE"), 0, 4), is(true));
+        assertThat(FieldParsers.parseBigDecimal(bytes("12345678901234567890.12"), 0, 23), is(new BigDecimal("12345678901234567890.12")));
+        assertThat(FieldParsers.parseLocalDate(bytes("2021-03-01"), 0, 10), is(LocalDate.of(2021, 3, 1)));
+        assertThat(FieldParsers.parseLocalDateTime(bytes("2021-03-01 10:15:30"), 0, 19), is(LocalDateTime.of(2021, 3, 1, 10, 15, 30)));
+        assertThat(FieldParsers.parse(TimeUnit.class, bytes("SECONDS"), 0, 7), is(TimeUnit.SECONDS));
+    }
+
+    private static TableStorage tableStorage() {
+        return TableStorage
+                .builder(Employee.class, Caffeine.newBuilder().build())
+                .withKeyField("id")
+                .build();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,93 @@
+package com.github.darrmirr.tweecache.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+class CompressedBitmapTest {
+    private final Random random = new Random(42);
+
+    @Test
+    void setAndClear() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        BitSet expected = new BitSet();
+        for (int i = 0; i < 200_000; i++) {
+            int value = random.nextInt(300_000);
+            if (random.nextInt(3) == 0) {
+                assertThat(bitmap.clear(value), is(expected.get(value)));
+                expected.clear(value);
+            } else {
+                assertThat(bitmap.set(value), is(!expected.get(value)));
+                expected.set(value);
+            }
+        }
+
+        assertBitmap(bitmap, expected);
+        for (int value = 0; value < 300_000; value++) {
+            assertThat(bitmap.get(value), is(expected.get(value)));
+        }
+    }
+
+    @Test
+    void bitmapOperations() {
+        int[][] densities = { { 10, 10 }, { 10, 90 }, { 90, 90 }, { 1, 50 } };
+        for (int[] density : densities) {
+            BitSet expected1 = new BitSet();
+            BitSet expected2 = new BitSet();
+            CompressedBitmap bitmap1 = randomBitmap(density[0], expected1);
+            CompressedBitmap bitmap2 = randomBitmap(density[1], expected2);
+
+            BitSet and = (BitSet) expected1.clone();
+            and.and(expected2);
+            BitSet or = (BitSet) expected1.clone();
+            or.or(expected2);
+            BitSet andNot = (BitSet) expected1.clone();
+            andNot.andNot(expected2);
+
+            assertBitmap(bitmap1.and(bitmap2), and);
+            assertBitmap(bitmap1.or(bitmap2), or);
+            assertBitmap(bitmap1.andNot(bitmap2), andNot);
+            assertBitmap(bitmap1, expected1);
+            assertBitmap(bitmap2, expected2);
+        }
+    }
+
+    @Test
+    void operationResultIsIndependentOfOperands() {
+        CompressedBitmap bitmap1 = new CompressedBitmap();
+        CompressedBitmap bitmap2 = new CompressedBitmap();
+        bitmap1.set(1);
+        bitmap2.set(70_000);
+
+        CompressedBitmap or = bitmap1.or(bitmap2);
+        CompressedBitmap copy = bitmap1.copy();
+        bitmap1.set(2);
+        bitmap2.clear(70_000);
+
+        assertThat(or.cardinality(), is(2L));
+        assertThat(copy.cardinality(), is(1L));
+        assertThat(new CompressedBitmap().and(bitmap1).isEmpty(), is(true));
+    }
+
+    private CompressedBitmap randomBitmap(int densityPercent, BitSet expected) {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int value = 0; value < 200_000; value++) {
+            if (random.nextInt(100) < densityPercent) {
+                bitmap.set(value);
+                expected.set(value);
+            }
+        }
+        return bitmap;
+    }
+
+    private static void assertBitmap(CompressedBitmap bitmap, BitSet expected) {
+        BitSet actual = new BitSet();
+        bitmap.forEach(actual::set);
+        assertThat(actual, is(expected));
+        assertThat(bitmap.cardinality(), is((long) expected.cardinality()));
+    }
+}
@@ -0,0 +1,74 @@
+package com.github.darrmirr.tweecache.index;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.darrmirr.tweecache.accessor.RowAccessors;
+import com.github.darrmirr.tweecache.test.model.Incident;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static com.github.darrmirr.tweecache.test.factory.IncidentFactory.*;
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+class InvertedIndexTest {
+
+    @Test
+    void maintainedOnPutAndRemoval() {
+        InvertedIndex index = new InvertedIndex("servicesInvolved", RowAccessors.of(Incident.class));
+        Cache<Object, Object> cache = Caffeine
+                .newBuilder()
+                .writer(new IndexWriter(Collections.singletonList(index)))
+                .build();
+        Incident incident1 = incident1();
+        Incident incident2 = incident2();
+
+        cache.put(incident1.id, incident1);
+        cache.put(incident2.id, incident2);
+
+        assertThat(index.find(SERVICE_01), contains(incident1.id));
+        assertThat(index.find(SERVICE_02), contains(incident2.id));
+        assertThat(index.averagePostingSize(), is(1.0));
+
+        cache.put(incident2.id, new Incident(incident2.id, Arrays.asList(SERVICE_01, SERVICE_03)));
+
+        assertThat(index.find(SERVICE_01), containsInAnyOrder(incident1.id, incident2.id));
+        assertThat(index.find(SERVICE_02), is(empty()));
+
+        cache.invalidate(incident1.id);
+
+        assertThat(index.find(SERVICE_01), contains(incident2.id));
+        assertThat(index.find(SERVICE_03), contains(incident2.id));
+    }
+
+    @Test
+    void maintainedOnEviction() {
+        InvertedIndex index = new InvertedIndex("servicesInvolved", RowAccessors.of(Incident.class));
+        Cache<Object, Object> cache = Caffeine
+                .newBuilder()
+                .executor(Runnable::run)
+                .maximumSize(1)
+                .writer(new IndexWriter(Collections.singletonList(index)))
+                .build();
+
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, new Incident(i, Collections.singletonList(SERVICE_01)));
+            cache.cleanUp();
+        }
+
+        assertThat(index.find(SERVICE_01), hasSize((int) cache.estimatedSize()));
+        assertThat(index.find(SERVICE_01), everyItem(is(in(cache.asMap().keySet()))));
+    }
+
+    @Test
+    void numericValuesAreNormalized() {
+        assertThat(TableIndex.normalize(1), is(TableIndex.normalize(1L)));
+        assertThat(TableIndex.normalize(1), is(TableIndex.normalize(new BigDecimal("1.00"))));
+        assertThat(TableIndex.normalize(1), is(TableIndex.normalize(1.0d)));
+        assertThat(TableIndex.normalize(1.5f), is(TableIndex.normalize(1.5d)));
+        assertThat(TableIndex.normalize('a'), is("a"));
+    }
+}
@@ -0,0 +1,151 @@
+package com.github.darrmirr.tweecache.index;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.darrmirr.tweecache.TableStorage;
+import com.github.darrmirr.tweecache.accessor.RowAccessors;
+import com.github.darrmirr.tweecache.test.model.Event;
+import com.github.darrmirr.tweecache.test.model.Measurement;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+class TimePartitionsTest {
+    private static final Instant START = LocalDate.of(2021, 9, 1).atStartOfDay(ZoneId.systemDefault()).toInstant();
+
+    @Test
+    void maintainedOnPutAndRemoval() {
+        TimePartitions partitions = new TimePartitions("dateTime", RowAccessors.of(Event.class), Duration.ofHours(1), null);
+        Cache<Object, Object> cache = cache(partitions);
+
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, event(i, START.plus(Duration.ofMinutes(30L * i))));
+        }
+        cache.put(10, event(10, null));
+
+        assertThat(partitions.partitionCount(), is(5));
+        assertThat(partitions.rows(), hasSize(11));
+
+        cache.put(0, event(0, START.plus(Duration.ofHours(4))));
+        cache.invalidate(1);
+
+        assertThat(partitions.rows(), hasSize(10));
+        assertThat(partitions.range(0, 0).rows(new Object[] { Date.from(START) }), empty());
+        assertThat(partitions.range(0, -1).rows(new Object[] { Date.from(START.plus(Duration.ofHours(4))) }), hasSize(3));
+    }
+
+    @Test
+    void droppedByRetention() {
+        TimePartitions partitions = new TimePartitions("dateTime", RowAccessors.of(Event.class), Duration.ofHours(1), Duration.ofHours(3));
+        Cache<Object, Object> cache = cache(partitions);
+
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, event(i, START.plus(Duration.ofHours(i))));
+        }
+        ForkJoinPool.commonPool().awaitQuiescence(10, TimeUnit.SECONDS);
+
+        assertThat(partitions.partitionCount(), is(3));
+        assertThat(partitions.rows(), hasSize(3));
+        assertThat(cache.estimatedSize(), is(3L));
+    }
+
+    @Test
+    void droppedBeforeInstant() {
+        TimePartitions partitions = new TimePartitions("dateTime", RowAccessors.of(Event.class), Duration.ofHours(1), null);
+        Cache<Object, Object> cache = cache(partitions);
+
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, event(i, START.plus(Duration.ofHours(i))));
+        }
+
+        assertThat(partitions.dropBefore(START.plus(Duration.ofMinutes(150))), is(2));
+        assertThat(partitions.rows(), hasSize(8));
+
+        ForkJoinPool.commonPool().awaitQuiescence(10, TimeUnit.SECONDS);
+
+        assertThat(cache.asMap().keySet(), not(hasItems(0, 1)));
+        assertThat(cache.estimatedSize(), is(8L));
+    }
+
+    @Test
+    void droppedBeforeInstantByEpochMillis() {
+        TimeZone defaultTimeZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("GMT+03:00"));
+        try {
+            TimePartitions partitions = new TimePartitions("createdAt", RowAccessors.of(Measurement.class), Duration.ofHours(1), null);
+            // storage is not bound, so that rows of dropped buckets stay at storage
+            Cache<Object, Object> cache = Caffeine
+                    .newBuilder()
+                    .writer(new IndexWriter(Collections.singletonList(partitions)))
+                    .build();
+            Instant start = Instant.parse("2021-09-01T00:00:00Z");
+
+            for (int i = 0; i < 10; i++) {
+                Measurement measurement = new Measurement();
+                measurement.id = i;
+                measurement.createdAt = start.plus(Duration.ofHours(i)).toEpochMilli();
+                cache.put(i, measurement);
+            }
+
+            assertThat(partitions.dropBefore(start.plus(Duration.ofMinutes(150))), is(2));
+            assertThat(partitions.rows(), hasSize(8));
+            assertThat(cache.asMap().containsKey(1), is(true));
+            assertThat(partitions.isLive(1), is(false));
+            assertThat(partitions.isLive(2), is(true));
+        } finally {
+            TimeZone.setDefault(defaultTimeZone);
+        }
+    }
+
+    @Test
+    void tableStorageSkipsRowsOfDroppedPartitions() {
+        TimePartitions partitions = new TimePartitions("dateTime", RowAccessors.of(Event.class), Duration.ofHours(1), null);
+        IndexWriter indexWriter = new IndexWriter(Collections.singletonList(partitions));
+        // storage is not bound, so that rows of dropped buckets stay at storage
+        Cache<Object, Object> cache = Caffeine
+                .newBuilder()
+                .writer(indexWriter)
+                .build();
+        TableStorage tableStorage = TableStorage
+                .builder(Event.class, cache)
+                .withIndexes(Collections.singletonList(partitions), indexWriter)
+                .build();
+        for (int i = 0; i < 4; i++) {
+            cache.put(i, event(i, START.plus(Duration.ofHours(i))));
+        }
+
+        assertThat(partitions.dropBefore(START.plus(Duration.ofMinutes(150))), is(2));
+        assertThat(cache.asMap().containsKey(0), is(true));
+        assertThat(tableStorage.get(0), is(nullValue()));
+        assertThat(tableStorage.get(2), is(notNullValue()));
+        assertThat(tableStorage.getAll(Arrays.asList(0, 1, 2, 3)).keySet(), containsInAnyOrder(2, 3));
+    }
+
+    private static Cache<Object, Object> cache(TimePartitions partitions) {
+        Cache<Object, Object> cache = Caffeine
+                .newBuilder()
+                .writer(new IndexWriter(Collections.singletonList(partitions)))
+                .build();
+        partitions.bind(cache.asMap());
+        return cache;
+    }
+
+    private static Event event(int id, Instant instant) {
+        Event event = new Event();
+        event.id = id;
+        event.dateTime = instant != null ? Date.from(instant) : null;
+        return event;
+    }
+}
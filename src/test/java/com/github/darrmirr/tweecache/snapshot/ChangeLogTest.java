@@ -0,0 +1,134 @@
+package com.github.darrmirr.tweecache.snapshot;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.darrmirr.tweecache.TableStorage;
+import com.github.darrmirr.tweecache.test.model.Employee;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class ChangeLogTest {
+
+    @Test
+    void replay(@TempDir Path directory) throws Exception {
+        TableStorage source = tableStorage();
+        try (ChangeLog changeLog = new ChangeLog(directory, ChangeLog.FsyncPolicy.ALWAYS, 1024, 0)) {
+            for (int i = 0; i < 100; i++) {
+                changeLog.put(source, "employee", i, employee(i, "employee " + i));
+            }
+            changeLog.put(source, "employee", 5, employee(5, "renamed"));
+            changeLog.invalidate(source, "employee", 7);
+            changeLog.put(tableStorage(), "unknown", 1, employee(1, "unknown table"));
+        }
+        assertThat(source.getCache().estimatedSize(), is(99L));
+
+        TableStorage target = tableStorage();
+        try (ChangeLog changeLog = new ChangeLog(directory, ChangeLog.FsyncPolicy.ALWAYS, 1024, 0)) {
+            long recordCount = changeLog.replay(Collections.singletonMap("employee", target));
+
+            assertThat(recordCount, is(102L));
+        }
+        assertThat(target.getCache().asMap().keySet(), is(source.getCache().asMap().keySet()));
+        assertThat(((Employee) target.get(5)).lastName, is("renamed"));
+    }
+
+    @Test
+    void replayStopsAtTornRecord(@TempDir Path directory) throws Exception {
+        TableStorage source = tableStorage();
+        try (ChangeLog changeLog = new ChangeLog(directory, ChangeLog.FsyncPolicy.ALWAYS, 1024 * 1024, 0)) {
+            changeLog.put(source, "employee", 1, employee(1, "first"));
+            changeLog.put(source, "employee", 2, employee(2, "second"));
+        }
+        Path segment = directory.resolve(String.format("changelog-%020d.log", 1));
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(segment) - 3);
+        }
+
+        TableStorage target = tableStorage();
+        try (ChangeLog changeLog = new ChangeLog(directory, ChangeLog.FsyncPolicy.NEVER, 1024 * 1024, 0)) {
+            long recordCount = changeLog.replay(Collections.singletonMap("employee", target));
+
+            assertThat(recordCount, is(1L));
+        }
+        assertThat(target.getCache().asMap().keySet(), contains(1));
+    }
+
+    @Test
+    void compaction(@TempDir Path directory) throws Exception {
+        TableStorage source = tableStorage();
+        try (ChangeLog changeLog = new ChangeLog(directory, ChangeLog.FsyncPolicy.ALWAYS, 512, 0)) {
+            for (int round = 0; round < 10; round++) {
+                for (int i = 0; i < 10; i++) {
+                    changeLog.put(source, "employee", i, employee(i, "round " + round));
+                }
+            }
+            changeLog.invalidate(source, "employee", 3);
+            changeLog.roll();
+            List<Long> segmentsBefore = changeLog.segments();
+
+            assertThat(changeLog.compact(), is(true));
+            assertThat(segmentsBefore.size(), greaterThan(2));
+            assertThat(changeLog.segments(), hasSize(2));
+        }
+
+        TableStorage target = tableStorage();
+        try (ChangeLog changeLog = new ChangeLog(directory, ChangeLog.FsyncPolicy.NEVER, 512, 0)) {
+            long recordCount = changeLog.replay(Collections.singletonMap("employee", target));
+
+            assertThat(recordCount, is(10L));
+        }
+        assertThat(target.getCache().asMap().keySet(), is(source.getCache().asMap().keySet()));
+        assertThat(((Employee) target.get(0)).lastName, is("round 9"));
+    }
+
+    @Test
+    void compactionKeepsInvalidationAfterSnapshot(@TempDir Path directory) throws Exception {
+        Path snapshotPath = directory.resolve("cache.snapshot");
+        Path logDirectory = directory.resolve("changelog");
+        TableStorage source = tableStorage();
+        try (ChangeLog changeLog = new ChangeLog(logDirectory, ChangeLog.FsyncPolicy.ALWAYS, 512, 0)) {
+            for (int i = 0; i < 10; i++) {
+                changeLog.put(source, "employee", i, employee(i, "snapshot"));
+            }
+            long rolledSegment = changeLog.roll();
+            SnapshotFile.write(snapshotPath, Collections.singletonMap("employee", source));
+            changeLog.deleteBefore(rolledSegment);
+
+            changeLog.invalidate(source, "employee", 3);
+            for (int i = 0; i < 10; i++) {
+                changeLog.put(source, "employee", 100 + i, employee(100 + i, "after snapshot"));
+            }
+            changeLog.roll();
+
+            assertThat(changeLog.compact(), is(true));
+        }
+
+        TableStorage target = tableStorage();
+        SnapshotFile.read(snapshotPath, Collections.singletonMap("employee", target));
+        try (ChangeLog changeLog = new ChangeLog(logDirectory, ChangeLog.FsyncPolicy.NEVER, 512, 0)) {
+            changeLog.replay(Collections.singletonMap("employee", target));
+        }
+        assertThat(target.getCache().asMap().keySet(), is(source.getCache().asMap().keySet()));
+        assertThat(target.getCache().asMap().containsKey(3), is(false));
+    }
+
+    private static TableStorage tableStorage() {
+        return new TableStorage(Employee.class, Caffeine.newBuilder().build());
+    }
+
+    private static Employee employee(int id, String lastName) {
+        Employee employee = new Employee();
+        employee.id = id;
+        employee.lastName = lastName;
+        return employee;
+    }
+}
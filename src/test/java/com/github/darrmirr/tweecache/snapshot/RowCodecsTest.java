@@ -0,0 +1,75 @@
+package com.github.darrmirr.tweecache.snapshot;
+
+import com.github.darrmirr.tweecache.test.model.Employee;
+import com.github.darrmirr.tweecache.test.model.Incident;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class RowCodecsTest {
+
+    @Test
+    void valueRoundTrip() {
+        Timestamp timestamp = new Timestamp(1_600_000_000_123L);
+        timestamp.setNanos(123_456_789);
+        List<Object> values = Arrays.asList(null, "text \u00e9\u4e2d", 1, 2L, 3.5, (short) 4, (byte) 5, 'c', true, new BigDecimal("12345678901234567890.12"),
+                new Date(1_600_000_000_000L), timestamp, LocalDateTime.of(2021, Month.MARCH, 1, 10, 15), TimeUnit.SECONDS,
+                Collections.singletonMap("key", Arrays.asList(1, 2)), Collections.singleton("element"));
+        ValueOutput out = new ValueOutput(16);
+        values.forEach(out::writeValue);
+        out.writeValue(new int[] { 1, 2, 3 });
+        out.writeValue(new String[] { "a", null });
+        out.writeValue(TimeUnit.MINUTES);
+
+        ValueInput in = new ValueInput(out.toByteBuffer(), getClass().getClassLoader());
+        for (Object value : values) {
+            assertThat(in.readValue(), is(value));
+        }
+        assertThat((int[]) in.readValue(), is(new int[] { 1, 2, 3 }));
+        assertThat((String[]) in.readValue(), is(new String[] { "a", null }));
+        assertThat(in.readValue(), is(TimeUnit.MINUTES));
+        assertThat(in.hasRemaining(), is(false));
+    }
+
+    @Test
+    void generatedCodec() {
+        Employee employee = new Employee();
+        employee.id = 7;
+        employee.firstName = "John";
+        employee.departmentId = 3;
+        Incident incident = new Incident(1, Arrays.asList("database", "network"));
+        RowCodec employeeCodec = RowCodecs.of(Employee.class).orElseThrow();
+        RowCodec incidentCodec = RowCodecs.of(Incident.class).orElseThrow();
+        ValueOutput out = new ValueOutput(16);
+        employeeCodec.write(employee, out);
+        incidentCodec.write(incident, out);
+
+        ValueInput in = new ValueInput(out.toByteBuffer(), getClass().getClassLoader());
+        Employee readEmployee = (Employee) employeeCodec.read(in);
+        Incident readIncident = (Incident) incidentCodec.read(in);
+
+        assertThat(employeeCodec.getClass().getSimpleName(), endsWith("RuntimeCodec"));
+        assertThat(readEmployee.id, is(7));
+        assertThat(readEmployee.firstName, is("John"));
+        assertThat(readEmployee.lastName, is(nullValue()));
+        assertThat(readEmployee.departmentId, is(3));
+        assertThat(readIncident.servicesInvolved, contains("database", "network"));
+    }
+
+    @Test
+    void unsupportedClass() {
+        assertThat(RowCodecs.of(Object.class).get().isPresent(), is(true));
+        assertThat(RowCodecs.of(Thread.class).error().isPresent(), is(true));
+    }
+}
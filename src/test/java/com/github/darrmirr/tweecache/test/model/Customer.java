@@ -0,0 +1,13 @@
+package com.github.darrmirr.tweecache.test.model;
+
+import com.github.darrmirr.tweecache.annotation.TweeTable;
+
+import java.util.Date;
+
+@TweeTable(schemas = "precompiled")
+public class Customer {
+    public int id;
+    public String name;
+    public Integer regionId;
+    public Date registeredAt;
+}
@@ -0,0 +1,9 @@
+package com.github.darrmirr.tweecache.test.model;
+
+public class Measurement {
+    public int id;
+    /**
+     * Epoch millis
+     */
+    public long createdAt;
+}
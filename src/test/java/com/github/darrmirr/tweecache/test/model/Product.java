@@ -0,0 +1,7 @@
+package com.github.darrmirr.tweecache.test.model;
+
+public class Product {
+    public int id;
+    public String code;
+    public double price;
+}
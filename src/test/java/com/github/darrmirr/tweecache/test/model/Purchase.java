@@ -0,0 +1,12 @@
+package com.github.darrmirr.tweecache.test.model;
+
+import com.github.darrmirr.tweecache.annotation.TweeTable;
+
+import java.math.BigDecimal;
+
+@TweeTable(schemas = "precompiled")
+public class Purchase {
+    public long id;
+    public int customerId;
+    public BigDecimal amount;
+}
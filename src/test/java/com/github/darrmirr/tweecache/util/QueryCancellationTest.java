@@ -0,0 +1,36 @@
+package com.github.darrmirr.tweecache.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class QueryCancellationTest {
+
+    @Test
+    void checkpointChecksDeadline() throws InterruptedException {
+        QueryCancellation cancellation = new QueryCancellation(Duration.ofMillis(1));
+        Thread.sleep(10);
+
+        assertThrows(CancellationException.class, cancellation::checkpoint);
+        assertThat(cancellation.isCancelled(), is(true));
+        assertThrows(CancellationException.class, cancellation::check);
+    }
+
+    @Test
+    void cancelListenerIsInvoked() {
+        QueryCancellation cancellation = new QueryCancellation(null);
+        int[] invocations = { 0 };
+        cancellation.onCancel(() -> invocations[0]++);
+
+        cancellation.cancel();
+        cancellation.cancel();
+
+        assertThat(invocations[0], is(1));
+        assertThrows(CancellationException.class, cancellation::checkpoint);
+    }
+}
@@ -0,0 +1,76 @@
+package com.github.darrmirr.tweecache.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+class ShardedCacheTest {
+
+    @Test
+    void keyOperations() {
+        ShardedCache cache = cache(8);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(i, "value" + i);
+        }
+
+        assertThat(cache.estimatedSize(), is(1000L));
+        assertThat(cache.getIfPresent(10), is("value10"));
+        assertThat(cache.getAllPresent(Arrays.asList(1, 2, 5000)).keySet(), contains(1, 2));
+        assertThat(cache.get(5000, key -> "computed"), is("computed"));
+        assertThat(cache.asMap().putIfAbsent(1, "other"), is("value1"));
+        assertThat(cache.asMap().remove(2, "other"), is(false));
+        assertThat(cache.asMap().remove(2, "value2"), is(true));
+
+        cache.invalidate(3);
+        cache.invalidateAll(Arrays.asList(4, 5));
+
+        assertThat(cache.asMap().size(), is(996));
+        assertThat(cache.asMap().keySet(), not(hasItems(2, 3, 4, 5)));
+        assertThat(cache.getShards().stream().allMatch(shard -> shard.estimatedSize() > 0), is(true));
+
+        cache.invalidateAll();
+
+        assertThat(cache.asMap().isEmpty(), is(true));
+    }
+
+    @Test
+    void valuesSplitByShards() {
+        ShardedCache cache = cache(4);
+        for (int i = 0; i < 10000; i++) {
+            cache.put(i, i);
+        }
+        Spliterator<Object> spliterator = cache.asMap().values().spliterator();
+        List<Spliterator<Object>> parts = new ArrayList<>();
+        parts.add(spliterator.trySplit());
+        parts.add(spliterator);
+
+        Set<Object> values = parts
+                .stream()
+                .flatMap(part -> StreamSupport.stream(part, false))
+                .collect(Collectors.toSet());
+
+        assertThat(values, hasSize(10000));
+        assertThat(values, is(IntStream.range(0, 10000).boxed().collect(Collectors.<Object>toSet())));
+        assertThat(cache.asMap().values().parallelStream().count(), is(10000L));
+    }
+
+    private static ShardedCache cache(int shardCount) {
+        List<Cache<Object, Object>> shards = new ArrayList<>();
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(Caffeine.newBuilder().build());
+        }
+        return new ShardedCache(shards);
+    }
+}